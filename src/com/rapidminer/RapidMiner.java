@@ -218,6 +218,18 @@ public class RapidMiner {
     /** The name of the property defining how many lines are read for guessing values types for input operations without defined value type. */
     public static final String PROPERTY_RAPIDMINER_GENERAL_MAX_TEST_ROWS = "rapidminer.general.max_rows_used_for_guessing";
 
+    /** The name of the property defining how many threads operators may use for parallel execution. 0 means one per available processor. */
+    public static final String PROPERTY_RAPIDMINER_GENERAL_NUMBER_OF_THREADS = "rapidminer.general.number_of_threads";
+
+    /** The name of the property indicating whether dense example sets are stored column-wise in local repositories. */
+    public static final String PROPERTY_RAPIDMINER_GENERAL_STORE_REPOSITORY_COLUMN_BLOCKS = "rapidminer.general.store_repository_column_blocks";
+
+    /** The name of the property indicating whether example sets in local repositories are memory mapped instead of being read into memory. */
+    public static final String PROPERTY_RAPIDMINER_GENERAL_MEMORY_MAP_REPOSITORY_DATA = "rapidminer.general.memory_map_repository_data";
+
+    /** The name of the property defining the maximal size (in MB) of the local cache for data of remote repository entries. */
+    public static final String PROPERTY_RAPIDMINER_GENERAL_REMOTE_REPOSITORY_CACHE_SIZE = "rapidminer.general.remote_repository_cache_size";
+
     /** The property name for &quot;Path to external Java editor. %f is replaced by filename and %l by the linenumber.&quot; */
     public static final String PROPERTY_RAPIDMINER_TOOLS_EDITOR = "rapidminer.tools.editor";
 
@@ -302,6 +314,12 @@ public class RapidMiner {
         ParameterService.registerParameter(new ParameterTypeInt(PROPERTY_RAPIDMINER_GENERAL_FRACTIONDIGITS_PERCENT, "The number of fraction digits of formatted percent values.", 0, Integer.MAX_VALUE, 2));
         ParameterService.registerParameter(new ParameterTypeInt(PROPERTY_RAPIDMINER_GENERAL_MAX_NOMINAL_VALUES, "The number of nominal values to use for meta data transformation, 0 for unlimited. (Changing this value requires a cache refresh of the meta data for the current process, e.g. by changing the 'location' parameter of a 'Retrieve' operator.)", 0, Integer.MAX_VALUE, 100));
         ParameterService.registerParameter(new ParameterTypeInt(PROPERTY_RAPIDMINER_GENERAL_MAX_TEST_ROWS, "The number of lines read during input operations to guess the value type of certain columns if not specified. If set to 0, all rows will be used", 0, Integer.MAX_VALUE, 100));
+        ParameterService.registerParameter(new ParameterTypeInt(PROPERTY_RAPIDMINER_GENERAL_NUMBER_OF_THREADS, "The maximal number of threads used by operators supporting parallel execution. If set to 0, one thread per available processor will be used.", 0, Integer.MAX_VALUE, 0));
+        ParameterService.registerParameter(new ParameterTypeBoolean(PROPERTY_RAPIDMINER_GENERAL_STORE_REPOSITORY_COLUMN_BLOCKS, "Indicates if dense example sets should be stored column-wise in local repositories, which allows memory mapping them. Entries stored this way cannot be read by older versions.", false));
+        // on Windows, a mapped file cannot be deleted, so mapped entries could not be overwritten while in use
+        boolean windows = System.getProperty("os.name").toLowerCase().startsWith("windows");
+        ParameterService.registerParameter(new ParameterTypeBoolean(PROPERTY_RAPIDMINER_GENERAL_MEMORY_MAP_REPOSITORY_DATA, "Indicates if example sets stored column-wise in local repositories should be memory mapped when retrieved instead of being read into memory. Enabled by default except on Windows, where mapped entries cannot be overwritten while the data is still in use.", !windows));
+        ParameterService.registerParameter(new ParameterTypeInt(PROPERTY_RAPIDMINER_GENERAL_REMOTE_REPOSITORY_CACHE_SIZE, "The maximal size (in MB) of the local cache for data retrieved from remote repositories. Cached data is only used if the server confirms that it is unmodified. If set to 0, data is not cached.", 0, Integer.MAX_VALUE, 512));
         ParameterService.registerParameter(new ParameterTypeString(PROPERTY_RAPIDMINER_TOOLS_EDITOR, "Path to external Java editor. %f is replaced by filename and %l by the linenumber.", true));
         ParameterService.registerParameter(new ParameterTypeCategory(PROPERTY_RAPIDMINER_TOOLS_MAIL_METHOD, "Method to send outgoing mails. Either SMTP or sendmail.", PROPERTY_RAPIDMINER_TOOLS_MAIL_METHOD_VALUES, PROPERTY_RAPIDMINER_TOOLS_MAIL_METHOD_SMTP));
         ParameterService.registerParameter(new ParameterTypeString(PROPERTY_RAPIDMINER_TOOLS_MAIL_DEFAULT_RECIPIENT, "Default recipient for outgoing mails.", true));
@@ -0,0 +1,45 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2011 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.example;
+
+
+/** An {@link AttributeTransformation} which is an affine function of the value, i.e.
+ *  transform(attribute, value) = value * getScale(attribute) + getOffset(attribute).
+ *  Consecutive affine transformations of an attribute are folded into a single
+ *  arithmetic step when the values of the attribute are read.
+ *  
+ *  Since the folded scale and offset are cached, implementations must change the value
+ *  returned by {@link #getModificationStamp()} whenever scale or offset might have changed
+ *  for an attribute of the same name. 
+ * 
+ *  @author Ingo Mierswa
+ */
+public interface AffineAttributeTransformation extends AttributeTransformation {
+
+	public double getScale(Attribute attribute);
+	
+	public double getOffset(Attribute attribute);
+	
+	public long getModificationStamp();
+	
+}
@@ -76,6 +76,7 @@ public class AttributeWeight extends Averagable implements Comparable<AttributeW
 	/** Sets the weight of the attribute. */
 	public void setWeight(double weight) {
 		this.weight = weight;
+		weightChanged();
 	}
 
 	/**
@@ -131,5 +132,12 @@ public class AttributeWeight extends Averagable implements Comparable<AttributeW
 		AttributeWeight other = (AttributeWeight) avg;
 		this.weight += other.weight;
         this.counter += other.counter;
+        weightChanged();
+	}
+
+	private void weightChanged() {
+		if (weights != null) {
+			weights.weightChanged();
+		}
 	}
 }
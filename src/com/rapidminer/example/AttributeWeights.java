@@ -119,6 +119,9 @@ public class AttributeWeights extends AverageVector {
     /** Maps the name of an attribute to the corresponding attribute weight. */
     private Map<String, AttributeWeight> weightMap = new LinkedHashMap<String, AttributeWeight>();
 
+    /** Counts the modifications of weights. Used to detect outdated cached weights. */
+    private transient int modificationCount = 0;
+
     /** Creates a new empty attribute weights object. */
     public AttributeWeights() {
     }
@@ -153,10 +156,12 @@ public class AttributeWeights extends AverageVector {
         if (Double.isNaN(weight)) {
             weightMap.remove(name);
             super.removeAveragable(oldWeight);
+            weightChanged();
         } else if (oldWeight == null) {
             AttributeWeight attWeight = new AttributeWeight(this, name, weight);
             super.addAveragable(attWeight);
             weightMap.put(name, attWeight);
+            weightChanged();
         } else {
             oldWeight.setWeight(weight);
         }
@@ -174,6 +179,16 @@ public class AttributeWeights extends AverageVector {
             return weight.getWeight();
     }
 
+    /** Returns a number which changes whenever a weight is added, removed, or changed. */
+    public int getModificationCount() {
+        return modificationCount;
+    }
+
+    /** Called whenever a weight is added, removed, or changed. */
+    void weightChanged() {
+        modificationCount++;
+    }
+
     /** Returns the currently used weight type. */
     public int getWeightType() {
         return weightType;
@@ -205,6 +220,7 @@ public class AttributeWeights extends AverageVector {
      */
     public void removeAttributeWeight(String attributeName) {
         this.weightMap.remove(attributeName);
+        weightChanged();
     }
 
     /**
@@ -29,7 +29,7 @@ import com.rapidminer.tools.LogService;
  * 
  *  @author Ingo Mierswa
  */
-public class MinMaxStatistics implements Statistics {
+public class MinMaxStatistics implements MergeableStatistics {
 
 	private static final long serialVersionUID = 1027895282018510951L;
 
@@ -59,6 +59,14 @@ public class MinMaxStatistics implements Statistics {
         }
 	}
 
+	public void merge(Statistics statistics) {
+		MinMaxStatistics other = (MinMaxStatistics)statistics;
+		if (minimum > other.minimum)
+			minimum = other.minimum;
+		if (maximum < other.maximum)
+			maximum = other.maximum;
+	}
+
 	public double getStatistics(Attribute attribute, String name,	String parameter) {
         if (MINIMUM.equals(name)) {
             return this.minimum;
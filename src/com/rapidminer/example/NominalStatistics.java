@@ -30,7 +30,7 @@ import com.rapidminer.tools.LogService;
  * 
  *  @author Ingo Mierswa
  */
-public class NominalStatistics implements Statistics {
+public class NominalStatistics implements MergeableStatistics {
 
     private static final long serialVersionUID = -7644523717916796701L;
 
@@ -40,6 +40,15 @@ public class NominalStatistics implements Statistics {
 
     private long[] scores;
     
+    /** The position of the last occurrence of each value among all counted values. Since
+     *  the mode is the value which reached the maximal count first, i.e. the value with the
+     *  maximal count whose last occurrence is the earliest one, this allows to determine
+     *  the mode after merging. */
+    private int[] lastOccurrences;
+    
+    /** The number of counted (non-missing) values. */
+    private int numberOfValues = 0;
+    
     public NominalStatistics() {}
     
     /** Clone constructor. */
@@ -51,6 +60,10 @@ public class NominalStatistics implements Statistics {
             for (int i = 0; i < this.scores.length; i++)
                 this.scores[i] = other.scores[i];
         }
+        if (other.lastOccurrences != null) {
+            this.lastOccurrences = other.lastOccurrences.clone();
+        }
+        this.numberOfValues = other.numberOfValues;
     }
     
     /** Returns a clone of this statistics object. The attribute is only cloned by reference. */
@@ -61,8 +74,10 @@ public class NominalStatistics implements Statistics {
     
     public void startCounting(Attribute attribute) {
         this.scores = new long[attribute.getMapping().size()];
+        this.lastOccurrences = new int[this.scores.length];
         this.mode = -1;
         this.maxCounter = 0;
+        this.numberOfValues = 0;
     }
     
     public void count(double doubleIndex, double weight) {
@@ -70,12 +85,11 @@ public class NominalStatistics implements Statistics {
             int index = (int)doubleIndex;
             if (index >= 0) {
             	// more values than before? Increase Array size...
-            	if (index >= scores.length) {
-            		long[] newScores = new long[index + 1];
-            		System.arraycopy(scores, 0, newScores, 0, scores.length);
-            		scores = newScores;
+            	if (index >= scores.length || lastOccurrences == null || index >= lastOccurrences.length) {
+            		ensureCapacity(index + 1);
             	}
             	scores[index]++;
+            	lastOccurrences[index] = numberOfValues++;
             	if (scores[index] > maxCounter) {
             		maxCounter = scores[index];
             		mode = index;
@@ -84,6 +98,45 @@ public class NominalStatistics implements Statistics {
         }
     }
     
+    public void merge(Statistics statistics) {
+        NominalStatistics other = (NominalStatistics)statistics;
+        ensureCapacity(other.scores.length);
+        for (int i = 0; i < other.scores.length; i++) {
+            if (other.scores[i] > 0) {
+                scores[i] += other.scores[i];
+                lastOccurrences[i] = numberOfValues + other.lastOccurrences[i];
+            }
+        }
+        numberOfValues += other.numberOfValues;
+
+        // the mode is the value which reached the maximal count first
+        mode = -1;
+        maxCounter = 0;
+        for (int i = 0; i < scores.length; i++) {
+            if (scores[i] > maxCounter || (scores[i] == maxCounter && mode >= 0 && lastOccurrences[i] < lastOccurrences[(int)mode])) {
+                maxCounter = scores[i];
+                mode = i;
+            }
+        }
+    }
+
+    /** Enlarges the arrays such that they can store the given number of values. */
+    private void ensureCapacity(int size) {
+        if (scores == null) {
+            scores = new long[0];
+        }
+        if (lastOccurrences == null) {
+            // statistics deserialized from older versions
+            lastOccurrences = new int[scores.length];
+        }
+        if (size > scores.length) {
+            scores = Arrays.copyOf(scores, size);
+        }
+        if (size > lastOccurrences.length) {
+            lastOccurrences = Arrays.copyOf(lastOccurrences, size);
+        }
+    }
+
     public boolean handleStatistics(String name) {
         return 
             MODE.equals(name) ||
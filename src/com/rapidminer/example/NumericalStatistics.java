@@ -28,7 +28,7 @@ import com.rapidminer.tools.LogService;
  * 
  *  @author Ingo Mierswa
  */
-public class NumericalStatistics implements Statistics {
+public class NumericalStatistics implements MergeableStatistics {
 
     private static final long serialVersionUID = -6283236022093847887L;
 
@@ -66,6 +66,13 @@ public class NumericalStatistics implements Statistics {
         }
     }
 
+    public void merge(Statistics statistics) {
+        NumericalStatistics other = (NumericalStatistics)statistics;
+        this.sum += other.sum;
+        this.squaredSum += other.squaredSum;
+        this.valueCounter += other.valueCounter;
+    }
+
     public boolean handleStatistics(String name) {
         return 
             AVERAGE.equals(name) ||
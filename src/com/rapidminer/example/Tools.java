@@ -32,6 +32,7 @@ import java.util.Random;
 import com.rapidminer.example.set.AttributeWeightedExampleSet;
 import com.rapidminer.example.table.AttributeFactory;
 import com.rapidminer.example.table.DoubleArrayDataRow;
+import com.rapidminer.example.table.ExampleTable;
 import com.rapidminer.example.table.MemoryExampleTable;
 import com.rapidminer.example.table.NominalMapping;
 import com.rapidminer.generator.FeatureGenerator;
@@ -165,6 +166,25 @@ public class Tools {
 		return weight;
 	}
 
+	/**
+	 * Makes sure that the given number of attributes can be added to the given table
+	 * without resizing its data rows. This is done by adding and immediately removing
+	 * the given number of temporary attributes, so that their columns can be reused.
+	 * This must be invoked before operators working in parallel on views of the same
+	 * table add new attributes (like predicted labels), since resizing data rows
+	 * while other threads write into them might lose values.
+	 */
+	public static void reserveAttributeColumns(ExampleTable table, int numberOfAttributes) {
+		List<Attribute> temporaryAttributes = new LinkedList<Attribute>();
+		for (int i = 0; i < numberOfAttributes; i++) {
+			temporaryAttributes.add(AttributeFactory.createAttribute("reserved_column_" + i, Ontology.REAL));
+		}
+		table.addAttributes(temporaryAttributes);
+		for (Attribute attribute : temporaryAttributes) {
+			table.removeAttribute(attribute);
+		}
+	}
+
 	public static boolean containsValueType(ExampleSet exampleSet, int valueType) {
 		for (Attribute attribute : exampleSet.getAttributes()) {
 			if (Ontology.ATTRIBUTE_VALUE_TYPE.isA(attribute.getValueType(), valueType))
@@ -28,7 +28,7 @@ import com.rapidminer.tools.LogService;
  * 
  *  @author Ingo Mierswa
  */
-public class UnknownStatistics implements Statistics {
+public class UnknownStatistics implements MergeableStatistics {
     
     private static final long serialVersionUID = 217609774484151520L;
     
@@ -55,6 +55,10 @@ public class UnknownStatistics implements Statistics {
             unknownCounter++;
     }
 
+    public void merge(Statistics statistics) {
+        this.unknownCounter += ((UnknownStatistics)statistics).unknownCounter;
+    }
+
     public double getStatistics(Attribute attribute, String statisticsName, String parameter) {
         if (UNKNOWN.equals(statisticsName)) {
             return unknownCounter;
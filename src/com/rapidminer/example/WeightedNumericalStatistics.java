@@ -28,7 +28,7 @@ import com.rapidminer.tools.LogService;
  * 
  *  @author Ingo Mierswa, Tobias Malbrecht
  */
-public class WeightedNumericalStatistics implements Statistics {
+public class WeightedNumericalStatistics implements MergeableStatistics {
 
     private static final long serialVersionUID = -6283236022093847887L;
 
@@ -73,6 +73,14 @@ public class WeightedNumericalStatistics implements Statistics {
       	}
     }
 
+    public void merge(Statistics statistics) {
+        WeightedNumericalStatistics other = (WeightedNumericalStatistics)statistics;
+        this.sum += other.sum;
+        this.squaredSum += other.squaredSum;
+        this.totalWeight += other.totalWeight;
+        this.count += other.count;
+    }
+
     public boolean handleStatistics(String name) {
         return 
             AVERAGE_WEIGHTED.equals(name) ||
@@ -35,6 +35,7 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 import java.util.zip.GZIPOutputStream;
 
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -51,14 +52,21 @@ import com.rapidminer.example.AttributeWeights;
 import com.rapidminer.example.Attributes;
 import com.rapidminer.example.Example;
 import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.MergeableStatistics;
 import com.rapidminer.example.Statistics;
+import com.rapidminer.example.table.AbstractExampleTable;
+import com.rapidminer.example.table.ColumnarExampleTable;
+import com.rapidminer.example.table.ExampleTable;
+import com.rapidminer.example.table.MemoryExampleTable;
 import com.rapidminer.example.table.SparseFormatDataRowReader;
 import com.rapidminer.io.process.XMLTools;
 import com.rapidminer.operator.IOContainer;
 import com.rapidminer.operator.IOObject;
 import com.rapidminer.operator.MissingIOObjectException;
+import com.rapidminer.operator.OperatorException;
 import com.rapidminer.operator.ResultObjectAdapter;
 import com.rapidminer.tools.Ontology;
+import com.rapidminer.tools.ParallelExecutionService;
 import com.rapidminer.tools.Tools;
 import com.rapidminer.tools.XMLException;
 
@@ -77,9 +85,17 @@ public abstract class AbstractExampleSet extends ResultObjectAdapter implements
 
 	private static final long serialVersionUID = 8596141056047402798L;
 
+	/** The minimal number of values (examples times attributes) for which the statistics
+	 *  are counted by an additional thread. */
+	private static final int MIN_VALUES_PER_THREAD = 250000;
+
 	/** Maps attribute names to list of statistics objects. */
 	private final Map<String, List<Statistics>> statisticsMap = new HashMap<String, List<Statistics>>();
 
+	/** Maps attribute names to the versions of the data for which the statistics in the
+	 *  {@link #statisticsMap} were calculated. Only filled if {@link #isStatisticsCacheable()}. */
+	private transient Map<String, StatisticsVersion> statisticsVersions;
+
 	/** Maps the id values on the line index in the example table. */
 	private Map<Double, int[]> idMap = new HashMap<Double, int[]>();
 
@@ -433,43 +449,64 @@ public abstract class AbstractExampleSet extends ResultObjectAdapter implements
 
 	/**
 	 * Here the Example Set is parsed only once, all the information is retained
-	 * for each example set.
+	 * for each example set. The statistics of attributes which were already calculated
+	 * for the current data version are not calculated again (see {@link #isStatisticsCacheable()}).
+	 * For large example sets, the examples are split into consecutive parts which are
+	 * counted in parallel and merged afterwards if all statistics are {@link MergeableStatistics}.
 	 */
 	private void recalculateAttributeStatistics(List<Attribute> attributeList) {
 		// do nothing if not desired
 		if (attributeList.size() == 0) {
 			return;
 		} else {
-			// init statistics
+			Attribute weightAttribute = getAttributes().getWeight();
+			if ((weightAttribute != null) && (!weightAttribute.isNumerical())) // use only numerical weights
+				weightAttribute = null;
+
+			// the version must be determined before counting such that modifications while counting invalidate the cache
+			boolean cacheable = isStatisticsCacheable() && (weightAttribute == null || weightAttribute.getLastTransformation() == null);
+			long dataVersion = cacheable ? ((AbstractExampleTable) getExampleTable()).getDataVersion() : 0;
+			if (cacheable && statisticsVersions == null) {
+				statisticsVersions = new HashMap<String, StatisticsVersion>();
+			}
+			List<Attribute> outdatedAttributes = new ArrayList<Attribute>(attributeList.size());
 			for (Attribute attribute : attributeList) {
-				Iterator<Statistics> stats = attribute.getAllStatistics();
+				StatisticsVersion version = cacheable ? statisticsVersions.get(attribute.getName()) : null;
+				if ((version == null) || !version.isValid(attribute, weightAttribute, dataVersion, size())) {
+					outdatedAttributes.add(attribute);
+				}
+			}
+			if (outdatedAttributes.isEmpty()) {
+				return;
+			}
+
+			// init statistics
+			Attribute[] attributes = outdatedAttributes.toArray(new Attribute[outdatedAttributes.size()]);
+			Statistics[][] statistics = new Statistics[attributes.length][];
+			for (int i = 0; i < attributes.length; i++) {
+				List<Statistics> attributeStatistics = new ArrayList<Statistics>();
+				Iterator<Statistics> stats = attributes[i].getAllStatistics();
 				while (stats.hasNext()) {
-					Statistics statistics = stats.next();
-					statistics.startCounting(attribute);
+					Statistics currentStatistics = stats.next();
+					currentStatistics.startCounting(attributes[i]);
+					attributeStatistics.add(currentStatistics);
 				}
+				statistics[i] = attributeStatistics.toArray(new Statistics[attributeStatistics.size()]);
 			}
 
 			// calculate statistics
-			Attribute weightAttribute = getAttributes().getWeight();
-			if ((weightAttribute != null) && (!weightAttribute.isNumerical())) // use only numerical weights
-				weightAttribute = null;
-			for (Example example : this) {
-				for (Attribute attribute : attributeList) {
-					double value = example.getValue(attribute);
-					double weight = 1.0d;
-					if (weightAttribute != null) {
-						weight = example.getValue(weightAttribute);
-					}
-					Iterator<Statistics> stats = attribute.getAllStatistics();
-					while (stats.hasNext()) {
-						Statistics statistics = stats.next();
-						statistics.count(value, weight);
-					}
+			int numberOfParts = getNumberOfStatisticsParts(attributes, statistics);
+			if (numberOfParts <= 1) {
+				for (Example example : this) {
+					countStatistics(example, attributes, statistics, weightAttribute);
 				}
+			} else {
+				countStatisticsInParallel(attributes, statistics, weightAttribute, numberOfParts);
 			}
 
 			// store cloned statistics
-			for (Attribute attribute : attributeList) {
+			for (int i = 0; i < attributes.length; i++) {
+				Attribute attribute = attributes[i];
 				List<Statistics> statisticsList = statisticsMap.get(attribute.getName());
 				// no stats known for this attribute at all --> new list
 				if (statisticsList == null) {
@@ -480,15 +517,166 @@ public abstract class AbstractExampleSet extends ResultObjectAdapter implements
 				// in all cases: clear the list before adding new stats (clone of the calculations)
 				statisticsList.clear();
 
-				Iterator<Statistics> stats = attribute.getAllStatistics();
-				while (stats.hasNext()) {
-					Statistics statistics = (Statistics)stats.next().clone();
-					statisticsList.add(statistics);
+				for (Statistics currentStatistics : statistics[i]) {
+					statisticsList.add((Statistics)currentStatistics.clone());
+				}
+
+				if (cacheable) {
+					statisticsVersions.put(attribute.getName(), new StatisticsVersion(attribute, weightAttribute, dataVersion, size()));
 				}
 			}
 		}
 	}
 
+	private static void countStatistics(Example example, Attribute[] attributes, Statistics[][] statistics, Attribute weightAttribute) {
+		double weight = 1.0d;
+		if (weightAttribute != null) {
+			weight = example.getValue(weightAttribute);
+		}
+		for (int i = 0; i < attributes.length; i++) {
+			double value = example.getValue(attributes[i]);
+			for (Statistics currentStatistics : statistics[i]) {
+				currentStatistics.count(value, weight);
+			}
+		}
+	}
+
+	/** Returns the number of parts of the examples which should be counted in parallel. Parallel
+	 *  counting requires mergeable statistics and an example table which can be read concurrently. */
+	private int getNumberOfStatisticsParts(Attribute[] attributes, Statistics[][] statistics) {
+		long numberOfValues = (long)size() * attributes.length;
+		if (numberOfValues < 2L * MIN_VALUES_PER_THREAD || !isMemoryTable(getExampleTable())) {
+			return 1;
+		}
+		long memoryPerPart = 0;
+		for (int i = 0; i < attributes.length; i++) {
+			for (Statistics currentStatistics : statistics[i]) {
+				if (!(currentStatistics instanceof MergeableStatistics)) {
+					return 1;
+				}
+			}
+			if (attributes[i].isNominal()) {
+				// the counters and positions of the nominal statistics
+				memoryPerPart += 12L * attributes[i].getMapping().size();
+			}
+		}
+		int numberOfParts = (int)Math.min(ParallelExecutionService.getNumberOfThreads(), numberOfValues / MIN_VALUES_PER_THREAD);
+		return ParallelExecutionService.getNumberOfThreads(Math.max(1, numberOfParts), memoryPerPart);
+	}
+
+	/** Counts consecutive parts of the examples in parallel and merges the statistics of
+	 *  the parts in their order into the given statistics. */
+	private void countStatisticsInParallel(final Attribute[] attributes, Statistics[][] statistics, final Attribute weightAttribute, int numberOfParts) {
+		int size = size();
+		List<Callable<Statistics[][]>> tasks = new ArrayList<Callable<Statistics[][]>>(numberOfParts);
+		for (int part = 0; part < numberOfParts; part++) {
+			final int start = (int)((long)size * part / numberOfParts);
+			final int end = (int)((long)size * (part + 1) / numberOfParts);
+			final Statistics[][] partStatistics;
+			if (part == 0) {
+				partStatistics = statistics;
+			} else {
+				partStatistics = new Statistics[attributes.length][];
+				for (int i = 0; i < attributes.length; i++) {
+					partStatistics[i] = new Statistics[statistics[i].length];
+					for (int j = 0; j < statistics[i].length; j++) {
+						partStatistics[i][j] = (Statistics)statistics[i][j].clone();
+					}
+				}
+			}
+			tasks.add(new Callable<Statistics[][]>() {
+				public Statistics[][] call() {
+					for (int index = start; index < end; index++) {
+						countStatistics(getExample(index), attributes, partStatistics, weightAttribute);
+					}
+					return partStatistics;
+				}
+			});
+		}
+
+		List<Statistics[][]> results;
+		try {
+			results = ParallelExecutionService.execute(tasks, "Statistics");
+		} catch (OperatorException e) {
+			throw new RuntimeException("Cannot calculate statistics: " + e.getMessage(), e);
+		}
+		for (Statistics[][] partStatistics : results.subList(1, results.size())) {
+			for (int i = 0; i < attributes.length; i++) {
+				for (int j = 0; j < statistics[i].length; j++) {
+					((MergeableStatistics)statistics[i][j]).merge(partStatistics[i][j]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns true if the underlying example table is an {@link AbstractExampleTable} and the
+	 * examples of this example set can only change by modifications of its data which are
+	 * reflected by {@link AbstractExampleTable#getDataVersion()}. In this case, the statistics of an attribute
+	 * are only recalculated if the data or the attribute changed. Example sets which select or
+	 * order their examples in a way which can be changed afterwards must return false. This
+	 * implementation returns false.
+	 */
+	protected boolean isStatisticsCacheable() {
+		return false;
+	}
+
+	/** Returns true if the given table keeps its data in memory and hence can be read by several threads. */
+	public static boolean isMemoryTable(ExampleTable table) {
+		return (table instanceof MemoryExampleTable) || (table instanceof ColumnarExampleTable);
+	}
+
+	/** The state of an attribute and of the data for which its statistics were calculated. */
+	private static class StatisticsVersion {
+
+		private final Attribute attribute;
+
+		private final int tableIndex;
+
+		private final int mappingSize;
+
+		private final int numberOfStatistics;
+
+		private final Attribute weightAttribute;
+
+		private final long dataVersion;
+
+		private final int size;
+
+		private StatisticsVersion(Attribute attribute, Attribute weightAttribute, long dataVersion, int size) {
+			this.attribute = attribute;
+			this.tableIndex = attribute.getTableIndex();
+			this.mappingSize = getMappingSize(attribute);
+			this.numberOfStatistics = getNumberOfStatistics(attribute);
+			this.weightAttribute = weightAttribute;
+			this.dataVersion = dataVersion;
+			this.size = size;
+		}
+
+		/** Returns true if the statistics calculated for this version are still valid. Statistics
+		 *  of attributes with transformations are never valid since the transformations might change. */
+		private boolean isValid(Attribute attribute, Attribute weightAttribute, long dataVersion, int size) {
+			return this.attribute == attribute && this.weightAttribute == weightAttribute &&
+			this.dataVersion == dataVersion && this.size == size &&
+			this.tableIndex == attribute.getTableIndex() && attribute.getLastTransformation() == null &&
+			this.mappingSize == getMappingSize(attribute) && this.numberOfStatistics == getNumberOfStatistics(attribute);
+		}
+
+		private static int getMappingSize(Attribute attribute) {
+			return attribute.isNominal() ? attribute.getMapping().size() : -1;
+		}
+
+		private static int getNumberOfStatistics(Attribute attribute) {
+			int numberOfStatistics = 0;
+			Iterator<Statistics> stats = attribute.getAllStatistics();
+			while (stats.hasNext()) {
+				stats.next();
+				numberOfStatistics++;
+			}
+			return numberOfStatistics;
+		}
+	}
+
 	/** Returns the desired statistic for the given attribute. This method should be 
 	 *  preferred over the deprecated method Attribute#getStatistics(String)
 	 *  since it correctly calculates and keep the statistics for the current example
@@ -27,7 +27,10 @@ import com.rapidminer.example.AttributeTransformation;
 import com.rapidminer.example.AttributeTypeException;
 import com.rapidminer.example.table.NominalMapping;
 
-/** This transformation returns the remapped value.
+/** This transformation returns the remapped value. The remapped values of all values which
+ *  are known at a certain point of time can be resolved at once by {@link #resolveRemapping(Attribute)},
+ *  afterwards the remapping of these values only needs an array lookup instead of two
+ *  lookups by name.
  *  
  *  @author Ingo Mierswa
  */
@@ -35,6 +38,15 @@ public class AttributeTransformationRemapping implements AttributeTransformation
 	private static final long serialVersionUID = 1L;
 
 	private NominalMapping overlayedMapping;
+
+	/** The remapped values indexed by the values of the resolved mapping or null if the remapping is not resolved. */
+	private transient double[] remappedValues;
+
+	/** The mapping of the attribute for which the remapped values were resolved. */
+	private transient NominalMapping resolvedMapping;
+
+	/** The size of the overlayed mapping when the remapped values were resolved. */
+	private transient int resolvedOverlayedSize;
     
 	public AttributeTransformationRemapping(NominalMapping overlayedMapping) {
 		this.overlayedMapping = overlayedMapping;
@@ -51,12 +63,47 @@ public class AttributeTransformationRemapping implements AttributeTransformation
 	
 	public void setNominalMapping(NominalMapping mapping) {
 		this.overlayedMapping = mapping;
+		releaseRemapping();
+	}
+
+	/** Resolves the remapped values of all values of the mapping of the given attribute. Until
+	 *  {@link #releaseRemapping()} is invoked, these values are remapped by an array lookup. Values
+	 *  which are added to the mapping of the attribute afterwards are still remapped by name and
+	 *  adding values to the overlayed mapping disables the lookup. */
+	public void resolveRemapping(Attribute attribute) {
+		if (attribute.isNominal()) {
+			NominalMapping mapping = attribute.getMapping();
+			double[] values = new double[mapping.size()];
+			for (int i = 0; i < values.length; i++) {
+				try {
+					int index = overlayedMapping.getIndex(mapping.mapIndex(i));
+					values[i] = index < 0 ? Double.NaN : index;
+				} catch (AttributeTypeException e) {
+					values[i] = Double.NaN;
+				}
+			}
+			this.resolvedMapping = mapping;
+			this.resolvedOverlayedSize = overlayedMapping.size();
+			this.remappedValues = values;
+		}
+	}
+
+	/** Discards the remapped values resolved by {@link #resolveRemapping(Attribute)}. */
+	public void releaseRemapping() {
+		this.remappedValues = null;
+		this.resolvedMapping = null;
 	}
 	
 	public double transform(Attribute attribute, double value) {
 		if (Double.isNaN(value))
 			return value;
         if (attribute.isNominal()) {
+        	double[] values = remappedValues;
+        	if (values != null && attribute.getMapping() == resolvedMapping && overlayedMapping.size() == resolvedOverlayedSize) {
+        		int index = (int)value;
+        		if (index >= 0 && index < values.length)
+        			return values[index];
+        	}
         	try {
         		String nominalValue = attribute.getMapping().mapIndex((int)value);
         		int index = overlayedMapping.getIndex(nominalValue);
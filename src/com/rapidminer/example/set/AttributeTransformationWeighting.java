@@ -22,8 +22,8 @@
  */
 package com.rapidminer.example.set;
 
+import com.rapidminer.example.AffineAttributeTransformation;
 import com.rapidminer.example.Attribute;
-import com.rapidminer.example.AttributeTransformation;
 import com.rapidminer.example.AttributeWeights;
 
 
@@ -35,14 +35,20 @@ import com.rapidminer.example.AttributeWeights;
  *  Usage of this Transformation for nominal attributes is forbidden, since the 
  *  indices may not be altered!
  *  
+ *  The weighting is an affine transformation without offset, hence consecutive
+ *  weightings are folded into a single multiplication.
+ *  
  *  @author Ingo Mierswa
  */
-public class AttributeTransformationWeighting implements AttributeTransformation {
+public class AttributeTransformationWeighting implements AffineAttributeTransformation {
 
 	private static final long serialVersionUID = 1L;
 	
 	private AttributeWeights attributeWeights;
 	
+	/** Counts the assignments of weights objects. Part of the modification stamp. */
+	private transient int assignmentCount = 0;
+	
 	public AttributeTransformationWeighting(AttributeWeights attributeWeights) {
 		setAttributeWeights(attributeWeights);		
 	}
@@ -60,6 +66,7 @@ public class AttributeTransformationWeighting implements AttributeTransformation
 	
 	public void setAttributeWeights(AttributeWeights weights) {
 		this.attributeWeights = weights;
+		this.assignmentCount++;
 	}
 	
 	public double inverseTransform(Attribute attribute, double value) {
@@ -81,4 +88,20 @@ public class AttributeTransformationWeighting implements AttributeTransformation
 		else
 			return value;
 	}
+
+	public double getScale(Attribute attribute) {
+		double weight = attributeWeights.getWeight(attribute.getName());
+		if (!Double.isNaN(weight))
+			return weight;
+		else
+			return 1.0d;
+	}
+
+	public double getOffset(Attribute attribute) {
+		return 0.0d;
+	}
+
+	public long getModificationStamp() {
+		return ((long)assignmentCount << 32) | (attributeWeights.getModificationCount() & 0xFFFFFFFFL);
+	}
 }
@@ -108,6 +108,30 @@ public class RemappedExampleSet extends AbstractExampleSet {
 		this.parent = (ExampleSet)other.parent.clone();
 	}
 
+	/** Resolves the remapped values of all nominal attributes at once, see
+	 *  {@link AttributeTransformationRemapping#resolveRemapping(Attribute)}. This should be
+	 *  invoked before all examples are read and {@link #releaseRemappings()} afterwards. */
+	public void resolveRemappings() {
+		Iterator<Attribute> a = parent.getAttributes().allAttributes();
+		while (a.hasNext()) {
+			Attribute attribute = a.next();
+			if (attribute.isNominal() && attribute.getLastTransformation() instanceof AttributeTransformationRemapping) {
+				((AttributeTransformationRemapping)attribute.getLastTransformation()).resolveRemapping(attribute);
+			}
+		}
+	}
+
+	/** Discards the remapped values resolved by {@link #resolveRemappings()}. */
+	public void releaseRemappings() {
+		Iterator<Attribute> a = parent.getAttributes().allAttributes();
+		while (a.hasNext()) {
+			Attribute attribute = a.next();
+			if (attribute.getLastTransformation() instanceof AttributeTransformationRemapping) {
+				((AttributeTransformationRemapping)attribute.getLastTransformation()).releaseRemapping();
+			}
+		}
+	}
+
 	public Attributes getAttributes() {
 		return this.parent.getAttributes();
 	}
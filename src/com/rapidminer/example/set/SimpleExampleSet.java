@@ -32,6 +32,7 @@ import com.rapidminer.example.AttributeRole;
 import com.rapidminer.example.Attributes;
 import com.rapidminer.example.Example;
 import com.rapidminer.example.SimpleAttributes;
+import com.rapidminer.example.table.ColumnarExampleTable;
 import com.rapidminer.example.table.DataRow;
 import com.rapidminer.example.table.ExampleTable;
 import com.rapidminer.example.table.MemoryExampleTable;
@@ -169,4 +170,12 @@ public class SimpleExampleSet extends AbstractExampleSet {
 	public Iterator<Example> iterator() {
 		return new SimpleExampleReader(getExampleTable().getDataRowReader(), this);
 	}
+
+	/** Returns true if the example table is a {@link ColumnarExampleTable} since the examples of this
+	 *  set are exactly the rows of the table and all modifications of its values are reflected by its
+	 *  data version. */
+	@Override
+	protected boolean isStatisticsCacheable() {
+		return getExampleTable() instanceof ColumnarExampleTable;
+	}
 }
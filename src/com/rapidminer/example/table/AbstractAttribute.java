@@ -55,6 +55,10 @@ public abstract class AbstractAttribute implements Attribute {
 	
 	private final LinkedList<AttributeTransformation> transformations = new LinkedList<AttributeTransformation>();
 	
+	/** The transformations compiled for reading values. Null if there are no transformations
+	 *  or if they were not compiled yet, e.g. after deserialization. */
+	private transient FusedAttributeTransformation fusedTransformation = null;
+	
     /** Contains all attribute statistics calculation algorithms. */
 	private List<Statistics> statistics = new LinkedList<Statistics>();
 	
@@ -150,10 +154,22 @@ public abstract class AbstractAttribute implements Attribute {
 
 	public void addTransformation(AttributeTransformation transformation) {
 		this.transformations.add(transformation);
+		compileTransformations();
 	}
 	
 	public void clearTransformations() {
 		this.transformations.clear();
+		compileTransformations();
+	}
+
+	/** Fuses the transformations into a single object which is used for reading values. */
+	private FusedAttributeTransformation compileTransformations() {
+		if (transformations.isEmpty()) {
+			this.fusedTransformation = null;
+		} else {
+			this.fusedTransformation = new FusedAttributeTransformation(transformations);
+		}
+		return this.fusedTransformation;
 	}
 	
 	public AttributeTransformation getLastTransformation() {
@@ -165,11 +181,14 @@ public abstract class AbstractAttribute implements Attribute {
 	
 	public double getValue(DataRow row) {
 		double tableValue = row.get(getTableIndex(), getDefault()); 
-		double result = tableValue;
-		for (AttributeTransformation transformation : transformations) {
-			result = transformation.transform(this, result);
+		FusedAttributeTransformation transformation = this.fusedTransformation;
+		if (transformation == null) {
+			if (transformations.isEmpty()) {
+				return tableValue;
+			}
+			transformation = compileTransformations();
 		}
-		return result;
+		return transformation.transform(this, tableValue);
 	}
 
 	public void setValue(DataRow row, double value) {
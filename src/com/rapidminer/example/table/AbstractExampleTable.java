@@ -73,6 +73,9 @@ public abstract class AbstractExampleTable implements ExampleTable {
 	 */
 	private List<Integer> unusedColumnList = new LinkedList<Integer>();
 
+	/** Counts the modifications of the data of this table. */
+	private volatile long dataVersion = 0;
+
 	/**
 	 * Creates a new ExampleTable.
 	 * 
@@ -86,6 +89,22 @@ public abstract class AbstractExampleTable implements ExampleTable {
 
 	// ------------------------------------------------------------
 
+	/**
+	 * Returns a number which changes whenever attributes are added to or removed from
+	 * this table, rows are added or removed by a {@link MemoryExampleTable} or a
+	 * {@link ColumnarExampleTable}, or values are set by a {@link ColumnarExampleTable}.
+	 * Values set directly in the data rows of other tables are not reflected. This is used
+	 * for caching results calculated from the data, like the statistics of example sets.
+	 */
+	public long getDataVersion() {
+		return dataVersion;
+	}
+
+	/** Must be invoked after the data of this table was modified. */
+	protected void dataChanged() {
+		dataVersion++;
+	}
+
 	/** Returns a new array containing all {@link Attribute}s. */
 	public Attribute[] getAttributes() {
 		Attribute[] attribute = new Attribute[attributes.size()];
@@ -149,6 +168,7 @@ public abstract class AbstractExampleTable implements ExampleTable {
 		}
         if (a != null)
             a.setTableIndex(index);
+		dataChanged();
 		return index;
 	}
 
@@ -174,6 +194,7 @@ public abstract class AbstractExampleTable implements ExampleTable {
 			return;
 		attributes.set(index, null);
 		unusedColumnList.add(index);
+		dataChanged();
 	}
 
 	/**
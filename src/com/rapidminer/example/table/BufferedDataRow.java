@@ -0,0 +1,137 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2011 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.example.table;
+
+import java.util.Arrays;
+
+import com.rapidminer.example.Attribute;
+
+/**
+ * This data row can be wrapped around another data row (delegate) in order to
+ * keep the values of some columns in a buffer until {@link #flush()} writes them
+ * into the delegate. All other columns are read from and written to the delegate.
+ * Since the delegate is only read as long as values are only set for the buffered
+ * columns, several threads might set values of different rows of the same table
+ * if each of them uses its own buffered data rows. The rows are flushed afterwards
+ * by a single thread.
+ * 
+ * @author Ingo Mierswa
+ */
+public class BufferedDataRow extends DataRow {
+
+	private static final long serialVersionUID = -4871069931278472637L;
+
+	/** The columns which are buffered. Can be shared by all buffered rows of a table. */
+	public static class BufferedColumns {
+
+		private final int[] tableIndices;
+
+		private final double[] defaultValues;
+
+		/** The position of each column in the buffer or -1 if the column is not buffered. */
+		private final int[] positions;
+
+		public BufferedColumns(Attribute[] attributes) {
+			this.tableIndices = new int[attributes.length];
+			this.defaultValues = new double[attributes.length];
+			int numberOfColumns = 0;
+			for (int i = 0; i < attributes.length; i++) {
+				tableIndices[i] = attributes[i].getTableIndex();
+				defaultValues[i] = attributes[i].getDefault();
+				numberOfColumns = Math.max(numberOfColumns, tableIndices[i] + 1);
+			}
+			this.positions = new int[numberOfColumns];
+			Arrays.fill(positions, -1);
+			for (int i = 0; i < tableIndices.length; i++) {
+				positions[tableIndices[i]] = i;
+			}
+		}
+
+		private int getPosition(int index) {
+			return index < positions.length ? positions[index] : -1;
+		}
+	}
+
+	private DataRow delegate;
+
+	private BufferedColumns columns;
+
+	private double[] values;
+
+	/** Creates a new buffered data row. The buffer is initialized with the current values of the delegate. */
+	public BufferedDataRow(DataRow delegate, BufferedColumns columns) {
+		this.delegate = delegate;
+		this.columns = columns;
+		this.values = new double[columns.tableIndices.length];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = delegate.get(columns.tableIndices[i], columns.defaultValues[i]);
+		}
+	}
+
+	/** Writes the buffered values into the delegate. */
+	public void flush() {
+		for (int i = 0; i < values.length; i++) {
+			delegate.set(columns.tableIndices[i], values[i], columns.defaultValues[i]);
+		}
+	}
+
+	@Override
+	protected void ensureNumberOfColumns(int numberOfColumns) {
+		this.delegate.ensureNumberOfColumns(numberOfColumns);
+	}
+
+	@Override
+	protected double get(int index, double defaultValue) {
+		int position = columns.getPosition(index);
+		if (position < 0) {
+			return delegate.get(index, defaultValue);
+		} else {
+			return values[position];
+		}
+	}
+
+	@Override
+	protected void set(int index, double value, double defaultValue) {
+		int position = columns.getPosition(index);
+		if (position < 0) {
+			delegate.set(index, value, defaultValue);
+		} else {
+			values[position] = value;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return delegate.toString();
+	}
+
+	@Override
+	public void trim() {
+		delegate.trim();
+	}
+
+	@Override
+	public int getType() {
+		return DataRowFactory.TYPE_SPECIAL;
+	}
+}
@@ -0,0 +1,87 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2011 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.example.table;
+
+
+/**
+ * Implementation of DataRow that is only a view on one row of a {@link ColumnarExampleTable}.
+ * All values are read from and written to the columns of the table.
+ *
+ * @author Sebastian Land
+ */
+public class ColumnarDataRow extends DataRow {
+
+	private static final long serialVersionUID = 1946354409563279367L;
+
+	private final ColumnarExampleTable table;
+
+	private final int row;
+
+	/** Creates a new view on the given row of the table. */
+	public ColumnarDataRow(ColumnarExampleTable table, int row) {
+		this.table = table;
+		this.row = row;
+	}
+
+	@Override
+	protected double get(int index, double defaultValue) {
+		return table.getValue(row, index);
+	}
+
+	@Override
+	protected void set(int index, double value, double defaultValue) {
+		table.setValue(row, index, value);
+	}
+
+	/** Does nothing. Columns are created by the table for each added attribute. */
+	@Override
+	protected void ensureNumberOfColumns(int numberOfColumns) {}
+
+	/** Does nothing. */
+	@Override
+	public void trim() {}
+
+	/** Returns the table this row belongs to. */
+	public ColumnarExampleTable getTable() {
+		return table;
+	}
+
+	/** Returns the index of this row in its table. */
+	public int getRow() {
+		return row;
+	}
+
+	/** Returns a string representation of the data row. */
+	@Override
+	public String toString() {
+		StringBuffer result = new StringBuffer();
+		for (int i = 0; i < table.getNumberOfAttributes(); i++)
+			result.append((i == 0 ? "" : ",") + table.getValue(row, i));
+		return result.toString();
+	}
+
+	@Override
+	public int getType() {
+		return DataRowFactory.TYPE_COLUMNAR;
+	}
+}
@@ -0,0 +1,885 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2011 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.example.table;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.tools.Ontology;
+
+
+/**
+ * An example table which keeps the data in memory like the {@link MemoryExampleTable}
+ * but stores one primitive array per column instead of one {@link DataRow} object
+ * per example. This avoids the per row object overhead and gives a much better
+ * memory locality for column wise passes over the data.
+ *
+ * The type of each column is chosen depending on the stored values: Nominal columns
+ * start with a byte array and are widened to short and int arrays if the number of
+ * nominal values exceeds the range of the current type. Numerical columns start with
+ * a float array and are widened to a double array as soon as a value is stored which
+ * cannot be represented as float without loss. Date columns always use double arrays.
+ * Hence, no information is lost compared to a table using {@link DoubleArrayDataRow}s.
+ *
+ * The data rows delivered by this table are only lightweight views on one row of
+ * the columns. Data rows added by {@link #addDataRow(DataRow)} are copied into the
+ * columns, so all values must have been set before adding them.
+ *
+ * The columns of a table might also be backed by {@link ByteBuffer}s, for example memory
+ * mapped regions of a file (see {@link #ColumnarExampleTable(List, int, ByteBuffer[], int, int[])}).
+ * Such columns are only read and never occupy heap memory. They are copied onto the heap
+ * as soon as a value is set or rows are added or removed.
+ *
+ * @author Sebastian Land
+ */
+public class ColumnarExampleTable extends AbstractExampleTable implements ExpandableExampleTable {
+
+	private static final long serialVersionUID = 5237823616264735617L;
+
+	/** The initial number of rows if nothing else was specified. */
+	private static final int DEFAULT_CAPACITY = 16;
+
+	/** The columns of this table. The index of a column is the table index of its attribute. */
+	private Column[] columns;
+
+	/** The number of rows of this table. */
+	private int size;
+
+	/** The number of rows which can be stored in each column without resizing. */
+	private int capacity;
+
+	/**
+	 * Set instead of a new data version whenever values are set, such that writing many values
+	 * only causes a single new version when the version is requested the next time.
+	 */
+	private boolean valuesChanged;
+
+	/**
+	 * Creates a new instance of ColumnarExampleTable.
+	 *
+	 * @param attributes
+	 *            Array of {@link Attribute} containing the attributes of the
+	 *            columns. None of these must be null.
+	 */
+	public ColumnarExampleTable(Attribute... attributes) {
+		this(Arrays.asList(attributes));
+	}
+
+	/**
+	 * Creates a new instance of ColumnarExampleTable.
+	 *
+	 * @param attributes
+	 *            List of {@link Attribute} containing the attributes of the
+	 *            columns. None of these must be null.
+	 */
+	public ColumnarExampleTable(List<Attribute> attributes) {
+		this(attributes, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Creates a new instance of ColumnarExampleTable. If the number of rows is known
+	 * in advance, it should be passed as expected size in order to avoid resizing the columns.
+	 *
+	 * @param attributes
+	 *            List of {@link Attribute} containing the attributes of the
+	 *            columns. None of these must be null.
+	 * @param expectedSize
+	 *            the number of rows for which memory is allocated initially
+	 */
+	public ColumnarExampleTable(List<Attribute> attributes, int expectedSize) {
+		super(new ArrayList<Attribute>());
+		this.capacity = Math.max(1, expectedSize);
+		this.columns = new Column[attributes.size()];
+		addAttributes(attributes);
+	}
+
+	/**
+	 * Creates a new instance of ColumnarExampleTable whose columns are backed by the given
+	 * buffers which are never modified. The rows are divided into blocks of rowsPerBlock rows
+	 * (only the last block might be smaller). The values of block b are stored in blocks[b],
+	 * column after column in the order of the attributes, each value using bytesPerValue[i]
+	 * bytes for the i-th attribute. Values with one, two or four bytes are nominal indices
+	 * for which -1 denotes a missing value, values with eight bytes are doubles.
+	 *
+	 * @param attributes
+	 *            List of {@link Attribute} containing the attributes of the
+	 *            columns. None of these must be null.
+	 * @param size
+	 *            the number of rows stored in the buffers
+	 */
+	public ColumnarExampleTable(List<Attribute> attributes, int size, ByteBuffer[] blocks, int rowsPerBlock, int[] bytesPerValue) {
+		super(new ArrayList<Attribute>());
+		this.size = size;
+		this.capacity = Math.max(1, size);
+		this.columns = new Column[attributes.size()];
+		int columnOffset = 0;
+		for (int i = 0; i < bytesPerValue.length; i++) {
+			int index = super.addAttribute(attributes.get(i));
+			columns[index] = new BufferColumn(blocks, rowsPerBlock, size, capacity, columnOffset, bytesPerValue[i]);
+			columnOffset += bytesPerValue[i];
+		}
+	}
+
+	/**
+	 * Creates a columnar example table and fills it with the data rows
+	 * read from the given reader.
+	 */
+	public ColumnarExampleTable(List<Attribute> attributes, DataRowReader reader) {
+		this(attributes);
+		readExamples(reader);
+	}
+
+	/**
+	 * Reads the examples into this table in the order they are delivered by the
+	 * given reader. Removes all old data rows first.
+	 */
+	public void readExamples(DataRowReader reader) {
+		clear();
+		while (reader.hasNext()) {
+			addDataRow(reader.next());
+		}
+	}
+
+	/** Returns a new data row reader iterating over views on the rows of this table. */
+	public DataRowReader getDataRowReader() {
+		return new DataRowReader() {
+
+			private int row = 0;
+
+			public boolean hasNext() {
+				return row < size;
+			}
+
+			public DataRow next() {
+				if (row >= size)
+					throw new NoSuchElementException();
+				return new ColumnarDataRow(ColumnarExampleTable.this, row++);
+			}
+
+			public void remove() {
+				throw new UnsupportedOperationException("The method 'remove' is not supported by DataRowReaders!");
+			}
+		};
+	}
+
+	/** Returns a view on the row with the given index. */
+	public DataRow getDataRow(int index) {
+		if (index < 0 || index >= size)
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		return new ColumnarDataRow(this, index);
+	}
+
+	/** Returns the size of this example table, i.e. the number of rows. */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Copies the values of the given data row into a new row at the end of this table.
+	 * Later changes of the given data row are not reflected by this table.
+	 */
+	public void addDataRow(DataRow dataRow) {
+		ensureCapacity(size + 1);
+		int numberOfAttributes = getNumberOfAttributes();
+		for (int i = 0; i < numberOfAttributes; i++) {
+			Attribute attribute = getAttribute(i);
+			if (attribute != null) {
+				setValue(size, i, dataRow.get(attribute));
+			}
+		}
+		size++;
+		valuesChanged = true;
+	}
+
+	/**
+	 * Adds the given number of rows at the end of this table whose values are all missing.
+	 * This allows to fill the table column by column using {@link #setValue(int, int, double)}.
+	 */
+	public void addMissingRows(int numberOfRows) {
+		ensureCapacity(size + numberOfRows);
+		size += numberOfRows;
+		dataChanged();
+	}
+
+	/**
+	 * Removes the given row if it is a view on a row of this table. Please note that
+	 * all views on succeeding rows will refer to their successors afterwards.
+	 */
+	public boolean removeDataRow(DataRow dataRow) {
+		if (dataRow instanceof ColumnarDataRow) {
+			ColumnarDataRow columnarRow = (ColumnarDataRow) dataRow;
+			if (columnarRow.getTable() == this && columnarRow.getRow() < size) {
+				removeDataRow(columnarRow.getRow());
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Removes the row with the given index and returns a copy of its values. Please note
+	 * that all views on succeeding rows will refer to their successors afterwards.
+	 */
+	public DataRow removeDataRow(int index) {
+		if (index < 0 || index >= size)
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		copyBufferColumns();
+		int numberOfAttributes = getNumberOfAttributes();
+		double[] values = new double[numberOfAttributes];
+		for (int i = 0; i < numberOfAttributes; i++) {
+			values[i] = getValue(index, i);
+		}
+		for (Column column : columns) {
+			if (column != null) {
+				column.remove(index, size);
+			}
+		}
+		size--;
+		dataChanged();
+		return new DoubleArrayDataRow(values);
+	}
+
+	/** Clears the table. The columns keep their types. */
+	public void clear() {
+		copyBufferColumns();
+		for (Column column : columns) {
+			if (column != null) {
+				column.fillMissing(0, size);
+			}
+		}
+		size = 0;
+		dataChanged();
+	}
+
+	/** Shrinks all columns to the current number of rows in order to save memory. */
+	public synchronized void trim() {
+		int newCapacity = Math.max(1, size);
+		if (newCapacity < capacity) {
+			copyBufferColumns();
+			for (Column column : columns) {
+				if (column != null) {
+					column.resize(newCapacity);
+				}
+			}
+			capacity = newCapacity;
+		}
+	}
+
+	/**
+	 * Adds a new attribute to this example table by invoking the super method and
+	 * creates a new column for it. The values of all existing rows are missing afterwards.
+	 */
+	@Override
+	public synchronized int addAttribute(Attribute attribute) {
+		int index = super.addAttribute(attribute);
+		if (index >= columns.length) {
+			columns = Arrays.copyOf(columns, Math.max(index + 1, columns.length + (columns.length >> 1)));
+		}
+		if (attribute != null) {
+			columns[index] = createColumn(attribute, capacity);
+		}
+		return index;
+	}
+
+	/**
+	 * Returns the value of the given row and table index. If there is no column with the
+	 * given index, Double.NaN is returned.
+	 */
+	public double getValue(int row, int columnIndex) {
+		if (columnIndex >= columns.length)
+			return Double.NaN;
+		Column column = columns[columnIndex];
+		if (column == null)
+			return Double.NaN;
+		return column.get(row);
+	}
+
+	/**
+	 * Sets the value of the given row and table index, widening the column type if necessary.
+	 * Values which fit into the current column are stored without locking. Widening a column
+	 * and replacing it is synchronized, so concurrent writers never lose a widened column.
+	 * Writers of other rows of the same column which run while it is widened might still
+	 * write into the old column, hence columns should only be written by a single thread
+	 * unless all values fit into the column. The data version is not changed for each value
+	 * but once for all values set before it is requested the next time.
+	 */
+	public void setValue(int row, int columnIndex, double value) {
+		Column column = columns[columnIndex];
+		if (column.fits(value)) {
+			column.store(row, value);
+		} else {
+			widenAndSet(row, columnIndex, value);
+		}
+		valuesChanged = true;
+	}
+
+	/** Returns the data version after changing it once if values were set since the last request. */
+	@Override
+	public long getDataVersion() {
+		if (valuesChanged) {
+			valuesChanged = false;
+			dataChanged();
+		}
+		return super.getDataVersion();
+	}
+
+	private synchronized void widenAndSet(int row, int columnIndex, double value) {
+		Column column = columns[columnIndex];
+		Column storingColumn = column.set(row, value);
+		if (storingColumn != column) {
+			columns[columnIndex] = storingColumn;
+		}
+	}
+
+	/** Returns the approximate number of bytes used by the columns of this table. */
+	public long getColumnMemoryUsage() {
+		long bytes = 0;
+		for (Column column : columns) {
+			if (column != null) {
+				bytes += (long) capacity * column.getBytesPerValue();
+			}
+		}
+		return bytes;
+	}
+
+	private synchronized void ensureCapacity(int minCapacity) {
+		if (minCapacity > capacity) {
+			int newCapacity = Math.max(minCapacity, capacity + (capacity >> 1) + 1);
+			copyBufferColumns();
+			for (Column column : columns) {
+				if (column != null) {
+					column.resize(newCapacity);
+				}
+			}
+			capacity = newCapacity;
+		}
+	}
+
+	/** Replaces all columns backed by buffers by columns on the heap which can be resized. */
+	private synchronized void copyBufferColumns() {
+		for (int i = 0; i < columns.length; i++) {
+			if (columns[i] instanceof BufferColumn) {
+				columns[i] = columns[i].widen();
+			}
+		}
+	}
+
+	private static Column createColumn(Attribute attribute, int capacity) {
+		if (attribute.isNominal()) {
+			return new ByteColumn(capacity);
+		} else if (Ontology.ATTRIBUTE_VALUE_TYPE.isA(attribute.getValueType(), Ontology.DATE_TIME)) {
+			return new DoubleColumn(capacity);
+		} else {
+			return new FloatColumn(capacity);
+		}
+	}
+
+	// --------------------------------------------------------------------------------
+
+	/**
+	 * A single column of this table. Columns are widened on demand: If a value cannot be
+	 * stored without loss, {@link #set(int, double)} returns a wider column containing
+	 * all values which must replace this column.
+	 */
+	private static abstract class Column implements Serializable {
+
+		private static final long serialVersionUID = -3604290427014553221L;
+
+		/** Returns the value of the given row. Missing values are returned as Double.NaN. */
+		abstract double get(int row);
+
+		/** Returns true if the given value can be stored without loss. */
+		abstract boolean fits(double value);
+
+		/** Stores the given value which must fit into this column. */
+		abstract void store(int row, double value);
+
+		/** Returns a wider column containing all values of this column. */
+		abstract Column widen();
+
+		abstract int getCapacity();
+
+		abstract int getBytesPerValue();
+
+		/** Changes the capacity of this column. New rows are missing. */
+		abstract void resize(int newCapacity);
+
+		/** Copies the values in the given range to the given position. */
+		abstract void move(int from, int to, int length);
+
+		/** Sets the values in the given range to missing. */
+		abstract void fillMissing(int from, int to);
+
+		/** Stores the given value and returns the column which actually holds the values afterwards. */
+		final Column set(int row, double value) {
+			Column column = this;
+			while (!column.fits(value)) {
+				column = column.widen();
+			}
+			column.store(row, value);
+			return column;
+		}
+
+		/** Removes the given row by moving all succeeding rows up. */
+		final void remove(int row, int size) {
+			move(row + 1, row, size - row - 1);
+			fillMissing(size - 1, size);
+		}
+
+		/** Copies all values of this column into the given wider column. */
+		final Column copyInto(Column wider) {
+			int capacity = getCapacity();
+			for (int i = 0; i < capacity; i++) {
+				wider.store(i, get(i));
+			}
+			return wider;
+		}
+	}
+
+	/**
+	 * Reads the values from buffers which are never modified, see
+	 * {@link ColumnarExampleTable#ColumnarExampleTable(List, int, ByteBuffer[], int, int[])}.
+	 * No value fits into this column, so it is replaced by a heap column of the same
+	 * width as soon as a value is stored. For the same reason, serialization writes
+	 * the heap column instead.
+	 */
+	private static final class BufferColumn extends Column {
+
+		private static final long serialVersionUID = -1837616287305290571L;
+
+		private final ByteBuffer[] blocks;
+
+		private final int rowsPerBlock;
+
+		private final int size;
+
+		private final int capacity;
+
+		/** The sum of the value widths of all preceding columns. */
+		private final int columnOffset;
+
+		private final int bytesPerValue;
+
+		BufferColumn(ByteBuffer[] blocks, int rowsPerBlock, int size, int capacity, int columnOffset, int bytesPerValue) {
+			this.blocks = blocks;
+			this.rowsPerBlock = rowsPerBlock;
+			this.size = size;
+			this.capacity = capacity;
+			this.columnOffset = columnOffset;
+			this.bytesPerValue = bytesPerValue;
+		}
+
+		@Override
+		double get(int row) {
+			if (row >= size)
+				return Double.NaN;
+			int block = row / rowsPerBlock;
+			int firstRow = block * rowsPerBlock;
+			int rowsInBlock = Math.min(rowsPerBlock, size - firstRow);
+			int position = rowsInBlock * columnOffset + (row - firstRow) * bytesPerValue;
+			ByteBuffer buffer = blocks[block];
+			int value;
+			switch (bytesPerValue) {
+			case 1:
+				value = buffer.get(position);
+				break;
+			case 2:
+				value = buffer.getShort(position);
+				break;
+			case 4:
+				value = buffer.getInt(position);
+				break;
+			default:
+				return buffer.getDouble(position);
+			}
+			return value < 0 ? Double.NaN : value;
+		}
+
+		@Override
+		boolean fits(double value) {
+			return false;
+		}
+
+		@Override
+		void store(int row, double value) {
+			throw new UnsupportedOperationException("Buffer columns cannot be modified.");
+		}
+
+		@Override
+		Column widen() {
+			switch (bytesPerValue) {
+			case 1:
+				return copyInto(new ByteColumn(capacity));
+			case 2:
+				return copyInto(new ShortColumn(capacity));
+			case 4:
+				return copyInto(new IntColumn(capacity));
+			default:
+				return copyInto(new DoubleColumn(capacity));
+			}
+		}
+
+		@Override
+		int getCapacity() {
+			return capacity;
+		}
+
+		/** Returns 0 since the values are not stored on the heap. */
+		@Override
+		int getBytesPerValue() {
+			return 0;
+		}
+
+		@Override
+		void resize(int newCapacity) {
+			throw new UnsupportedOperationException("Buffer columns cannot be resized.");
+		}
+
+		@Override
+		void move(int from, int to, int length) {
+			throw new UnsupportedOperationException("Buffer columns cannot be modified.");
+		}
+
+		@Override
+		void fillMissing(int from, int to) {
+			throw new UnsupportedOperationException("Buffer columns cannot be modified.");
+		}
+
+		private Object writeReplace() {
+			return widen();
+		}
+	}
+
+	/** Stores nominal indices up to 127. Missing values are stored as -1. */
+	private static final class ByteColumn extends Column {
+
+		private static final long serialVersionUID = 7360451253418925470L;
+
+		private byte[] data;
+
+		ByteColumn(int capacity) {
+			data = new byte[capacity];
+			fillMissing(0, capacity);
+		}
+
+		@Override
+		double get(int row) {
+			byte value = data[row];
+			return value < 0 ? Double.NaN : value;
+		}
+
+		@Override
+		boolean fits(double value) {
+			return Double.isNaN(value) || (value >= 0 && value <= Byte.MAX_VALUE && value == (int) value);
+		}
+
+		@Override
+		void store(int row, double value) {
+			data[row] = Double.isNaN(value) ? -1 : (byte) value;
+		}
+
+		@Override
+		Column widen() {
+			return copyInto(new ShortColumn(data.length));
+		}
+
+		@Override
+		int getCapacity() {
+			return data.length;
+		}
+
+		@Override
+		int getBytesPerValue() {
+			return 1;
+		}
+
+		@Override
+		void resize(int newCapacity) {
+			int oldCapacity = data.length;
+			data = Arrays.copyOf(data, newCapacity);
+			if (newCapacity > oldCapacity)
+				fillMissing(oldCapacity, newCapacity);
+		}
+
+		@Override
+		void move(int from, int to, int length) {
+			System.arraycopy(data, from, data, to, length);
+		}
+
+		@Override
+		void fillMissing(int from, int to) {
+			Arrays.fill(data, from, to, (byte) -1);
+		}
+	}
+
+	/** Stores nominal indices up to 32,767. Missing values are stored as -1. */
+	private static final class ShortColumn extends Column {
+
+		private static final long serialVersionUID = -2116468618585484390L;
+
+		private short[] data;
+
+		ShortColumn(int capacity) {
+			data = new short[capacity];
+			fillMissing(0, capacity);
+		}
+
+		@Override
+		double get(int row) {
+			short value = data[row];
+			return value < 0 ? Double.NaN : value;
+		}
+
+		@Override
+		boolean fits(double value) {
+			return Double.isNaN(value) || (value >= 0 && value <= Short.MAX_VALUE && value == (int) value);
+		}
+
+		@Override
+		void store(int row, double value) {
+			data[row] = Double.isNaN(value) ? -1 : (short) value;
+		}
+
+		@Override
+		Column widen() {
+			return copyInto(new IntColumn(data.length));
+		}
+
+		@Override
+		int getCapacity() {
+			return data.length;
+		}
+
+		@Override
+		int getBytesPerValue() {
+			return 2;
+		}
+
+		@Override
+		void resize(int newCapacity) {
+			int oldCapacity = data.length;
+			data = Arrays.copyOf(data, newCapacity);
+			if (newCapacity > oldCapacity)
+				fillMissing(oldCapacity, newCapacity);
+		}
+
+		@Override
+		void move(int from, int to, int length) {
+			System.arraycopy(data, from, data, to, length);
+		}
+
+		@Override
+		void fillMissing(int from, int to) {
+			Arrays.fill(data, from, to, (short) -1);
+		}
+	}
+
+	/** Stores all nominal indices. Missing values are stored as -1. */
+	private static final class IntColumn extends Column {
+
+		private static final long serialVersionUID = 1935476320513553409L;
+
+		private int[] data;
+
+		IntColumn(int capacity) {
+			data = new int[capacity];
+			fillMissing(0, capacity);
+		}
+
+		@Override
+		double get(int row) {
+			int value = data[row];
+			return value < 0 ? Double.NaN : value;
+		}
+
+		@Override
+		boolean fits(double value) {
+			return Double.isNaN(value) || (value >= 0 && value <= Integer.MAX_VALUE && value == (int) value);
+		}
+
+		@Override
+		void store(int row, double value) {
+			data[row] = Double.isNaN(value) ? -1 : (int) value;
+		}
+
+		@Override
+		Column widen() {
+			return copyInto(new DoubleColumn(data.length));
+		}
+
+		@Override
+		int getCapacity() {
+			return data.length;
+		}
+
+		@Override
+		int getBytesPerValue() {
+			return 4;
+		}
+
+		@Override
+		void resize(int newCapacity) {
+			int oldCapacity = data.length;
+			data = Arrays.copyOf(data, newCapacity);
+			if (newCapacity > oldCapacity)
+				fillMissing(oldCapacity, newCapacity);
+		}
+
+		@Override
+		void move(int from, int to, int length) {
+			System.arraycopy(data, from, data, to, length);
+		}
+
+		@Override
+		void fillMissing(int from, int to) {
+			Arrays.fill(data, from, to, -1);
+		}
+	}
+
+	/** Stores all numerical values which can be represented as float without loss. */
+	private static final class FloatColumn extends Column {
+
+		private static final long serialVersionUID = 3345129367386283520L;
+
+		private float[] data;
+
+		FloatColumn(int capacity) {
+			data = new float[capacity];
+			fillMissing(0, capacity);
+		}
+
+		@Override
+		double get(int row) {
+			return data[row];
+		}
+
+		@Override
+		boolean fits(double value) {
+			return Double.isNaN(value) || (float) value == value;
+		}
+
+		@Override
+		void store(int row, double value) {
+			data[row] = (float) value;
+		}
+
+		@Override
+		Column widen() {
+			return copyInto(new DoubleColumn(data.length));
+		}
+
+		@Override
+		int getCapacity() {
+			return data.length;
+		}
+
+		@Override
+		int getBytesPerValue() {
+			return 4;
+		}
+
+		@Override
+		void resize(int newCapacity) {
+			int oldCapacity = data.length;
+			data = Arrays.copyOf(data, newCapacity);
+			if (newCapacity > oldCapacity)
+				fillMissing(oldCapacity, newCapacity);
+		}
+
+		@Override
+		void move(int from, int to, int length) {
+			System.arraycopy(data, from, data, to, length);
+		}
+
+		@Override
+		void fillMissing(int from, int to) {
+			Arrays.fill(data, from, to, Float.NaN);
+		}
+	}
+
+	/** Stores arbitrary values. This is the widest column type. */
+	private static final class DoubleColumn extends Column {
+
+		private static final long serialVersionUID = -6785290264011359021L;
+
+		private double[] data;
+
+		DoubleColumn(int capacity) {
+			data = new double[capacity];
+			fillMissing(0, capacity);
+		}
+
+		@Override
+		double get(int row) {
+			return data[row];
+		}
+
+		@Override
+		boolean fits(double value) {
+			return true;
+		}
+
+		@Override
+		void store(int row, double value) {
+			data[row] = value;
+		}
+
+		@Override
+		Column widen() {
+			return this;
+		}
+
+		@Override
+		int getCapacity() {
+			return data.length;
+		}
+
+		@Override
+		int getBytesPerValue() {
+			return 8;
+		}
+
+		@Override
+		void resize(int newCapacity) {
+			int oldCapacity = data.length;
+			data = Arrays.copyOf(data, newCapacity);
+			if (newCapacity > oldCapacity)
+				fillMissing(oldCapacity, newCapacity);
+		}
+
+		@Override
+		void move(int from, int to, int length) {
+			System.arraycopy(data, from, data, to, length);
+		}
+
+		@Override
+		void fillMissing(int from, int to) {
+			Arrays.fill(data, from, to, Double.NaN);
+		}
+	}
+}
@@ -0,0 +1,188 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2011 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.example.table;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.tools.LogService;
+
+
+/**
+ * A least recently used cache for blocks of read only data rows, e.g. the batches read by
+ * {@link IndexCachedDatabaseExampleTable}. At most a given number of blocks is kept in memory.
+ * Blocks evicted from memory are spilled into a local temporary file and are memory mapped
+ * from there when they are requested again. Since the rows never change, each block is written
+ * at most once to the file.
+ * 
+ * This class is not thread safe.
+ * 
+ * @author Ingo Mierswa
+ */
+public class DataRowBlockCache {
+
+	private final Attribute[] attributes;
+
+	private final DataRowFactory factory;
+
+	private final int maxBlocksInMemory;
+
+	/** The blocks in memory in access order. */
+	private final LinkedHashMap<Integer, DataRow[]> blocks = new LinkedHashMap<Integer, DataRow[]>(16, 0.75f, true);
+
+	/** Maps block indices to their position and number of rows in the spill file. */
+	private final Map<Integer, long[]> spilledBlocks = new HashMap<Integer, long[]>();
+
+	private File spillFile;
+
+	private RandomAccessFile spillAccess;
+
+	private FileChannel spillChannel;
+
+	private long spillFileLength = 0;
+
+	/**
+	 * Creates a cache for blocks of rows which contain values for the given attributes. The number
+	 * of blocks in memory is chosen such that blocks with the given number of rows take at most
+	 * memoryBudget bytes (but at least one block is kept in memory). Rows read from the spill file
+	 * are created by the given factory.
+	 */
+	public DataRowBlockCache(Attribute[] attributes, DataRowFactory factory, int rowsPerBlock, long memoryBudget) {
+		this.attributes = attributes;
+		this.factory = factory;
+		long blockBytes = Math.max(1, (long) rowsPerBlock * attributes.length * 8);
+		this.maxBlocksInMemory = (int) Math.max(1, Math.min(Integer.MAX_VALUE, memoryBudget / blockBytes));
+	}
+
+	/** Returns true if the block is contained in memory or in the spill file. */
+	public boolean contains(int block) {
+		return blocks.containsKey(block) || spilledBlocks.containsKey(block);
+	}
+
+	/** Returns the given block or null if it was never added. Blocks read from the spill file become the
+	 *  most recently used blocks in memory. */
+	public DataRow[] get(int block) {
+		DataRow[] rows = blocks.get(block);
+		if (rows == null) {
+			long[] location = spilledBlocks.get(block);
+			if (location != null) {
+				rows = load(location[0], (int) location[1]);
+				add(block, rows);
+			}
+		}
+		return rows;
+	}
+
+	/** Adds the block as most recently used block. The least recently used blocks are spilled if
+	 *  the maximal number of blocks in memory is exceeded. */
+	public void put(int block, DataRow[] rows) {
+		if (!contains(block)) {
+			add(block, rows);
+		}
+	}
+
+	private void add(int block, DataRow[] rows) {
+		blocks.put(block, rows);
+		while (blocks.size() > maxBlocksInMemory) {
+			Map.Entry<Integer, DataRow[]> eldest = blocks.entrySet().iterator().next();
+			blocks.remove(eldest.getKey());
+			if (!spilledBlocks.containsKey(eldest.getKey())) {
+				spill(eldest.getKey(), eldest.getValue());
+			}
+		}
+	}
+
+	private void spill(int block, DataRow[] rows) {
+		try {
+			if (spillChannel == null) {
+				spillFile = File.createTempFile("rm_block_cache", ".tmp");
+				spillFile.deleteOnExit();
+				spillAccess = new RandomAccessFile(spillFile, "rw");
+				spillChannel = spillAccess.getChannel();
+			}
+			ByteBuffer buffer = ByteBuffer.allocate(rows.length * attributes.length * 8);
+			for (DataRow row : rows) {
+				for (Attribute attribute : attributes) {
+					buffer.putDouble(row.get(attribute));
+				}
+			}
+			buffer.flip();
+			long position = spillFileLength;
+			while (buffer.hasRemaining()) {
+				spillChannel.write(buffer, position + buffer.position());
+			}
+			spillFileLength += buffer.limit();
+			spilledBlocks.put(block, new long[] { position, rows.length });
+		} catch (IOException e) {
+			// the block is dropped and must be read again
+			LogService.getRoot().warning("Cannot spill cached block to local file: " + e);
+		}
+	}
+
+	private DataRow[] load(long position, int numberOfRows) {
+		DoubleBuffer buffer;
+		try {
+			buffer = spillChannel.map(FileChannel.MapMode.READ_ONLY, position, (long) numberOfRows * attributes.length * 8).asDoubleBuffer();
+		} catch (IOException e) {
+			throw new RuntimeException("Cannot read cached block from local file: " + e, e);
+		}
+		DataRow[] rows = new DataRow[numberOfRows];
+		for (int i = 0; i < numberOfRows; i++) {
+			DataRow row = factory.create(attributes.length);
+			for (Attribute attribute : attributes) {
+				row.set(attribute, buffer.get());
+			}
+			row.trim();
+			rows[i] = row;
+		}
+		return rows;
+	}
+
+	/** Removes all blocks and deletes the spill file. */
+	public void clear() {
+		blocks.clear();
+		spilledBlocks.clear();
+		spillFileLength = 0;
+		if (spillAccess != null) {
+			try {
+				spillAccess.close();
+			} catch (IOException e) {
+				LogService.getRoot().warning("Cannot close block cache file: " + e);
+			}
+			spillAccess = null;
+			spillChannel = null;
+		}
+		if (spillFile != null) {
+			spillFile.delete();
+			spillFile = null;
+		}
+	}
+}
@@ -22,6 +22,8 @@
  */
 package com.rapidminer.example.table;
 
+import java.util.List;
+
 import com.rapidminer.example.Attribute;
 import com.rapidminer.tools.LogService;
 import com.rapidminer.tools.Tools;
@@ -43,7 +45,8 @@ public class DataRowFactory {
 		"double_sparse_array", "float_sparse_array", 
 		"long_sparse_array", "int_sparse_array", "short_sparse_array", "byte_sparse_array", 
 		"boolean_sparse_array",
-		"sparse_map"
+		"sparse_map",
+		"columnar"
 	};
 
 	public static final int FIRST_TYPE_INDEX = 0;
@@ -78,7 +81,9 @@ public class DataRowFactory {
 
 	public static final int TYPE_SPARSE_MAP = 14;
 
-	public static final int LAST_TYPE_INDEX = 14;
+	public static final int TYPE_COLUMNAR = 15;
+
+	public static final int LAST_TYPE_INDEX = 15;
 
 	public static final int TYPE_SPECIAL = -1;
 
@@ -87,7 +92,7 @@ public class DataRowFactory {
 	 * The type can be one out of 
 	 * TYPE_DOUBLE_ARRAY, TYPE_FLOAT_ARRAY, TYPE_LONG_ARRAY, TYPE_INT_ARRAY, TYPE_SHORT_ARRAY, TYPE_BYTE_ARRAY, TYPE_BOOLEAN_ARRAY,
 	 * TYPE_DOUBLE_SPARSE_ARRAY, TYPE_FLOAT_SPARSE_ARRAY, TYPE_LONG_SPARSE_ARRAY, TYPE_INT_SPARSE_ARRAY, TYPE_SHORT_SPARSE_ARRAY, TYPE_BYTE_SPARSE_ARRAY, TYPE_BOOLEAN_SPARSE_ARRAY,
-	 * or TYPE_SPARSE_MAP.
+	 * TYPE_SPARSE_MAP, or TYPE_COLUMNAR.
 	 */
 	private int type;
 
@@ -113,7 +118,7 @@ public class DataRowFactory {
 	 *            must be one out of 
 	 *            TYPE_DOUBLE_ARRAY, TYPE_FLOAT_ARRAY, TYPE_LONG_ARRAY, TYPE_INT_ARRAY, TYPE_SHORT_ARRAY, TYPE_BYTE_ARRAY, TYPE_BOOLEAN_ARRAY, 
 	 *            TYPE_DOUBLE_SPARSE_ARRAY, TYPE_FLOAT_SPARSE_ARRAY, TYPE_LONG_SPARSE_ARRAY, TYPE_INT_SPARSE_ARRAY, TYPE_SHORT_SPARSE_ARRAY, TYPE_BYTE_SPARSE_ARRAY, TYPE_BOOLEAN_SPARSE_ARRAY,
-	 *            or TYPE_SPARSE_MAP.
+	 *            TYPE_SPARSE_MAP, or TYPE_COLUMNAR.
 	 * @param decimalPointCharacter the letter for decimal points, usually '.'
 	 */
 	public DataRowFactory(int type, char decimalPointCharacter) {
@@ -172,6 +177,10 @@ public class DataRowFactory {
 		case TYPE_SPARSE_MAP:
 			row = new SparseMapDataRow();
 			break;
+		case TYPE_COLUMNAR:
+			// only used for collecting the values, the columnar table copies them when adding the row
+			row = new DoubleArrayDataRow(new double[size]);
+			break;
 		default:
 		}
 		return row;
@@ -259,6 +268,31 @@ public class DataRowFactory {
 	}
 
 
+	/**
+	 * Creates an empty example table which is able to store the data rows created by
+	 * this factory. For TYPE_COLUMNAR this is a {@link ColumnarExampleTable}, for all other
+	 * types a {@link MemoryExampleTable}.
+	 */
+	public ExpandableExampleTable createExampleTable(List<Attribute> attributes) {
+		if (type == TYPE_COLUMNAR) {
+			return new ColumnarExampleTable(attributes);
+		} else {
+			return new MemoryExampleTable(attributes);
+		}
+	}
+
+	/**
+	 * Creates an example table as {@link #createExampleTable(List)} and fills it with the
+	 * data rows delivered by the given reader.
+	 */
+	public ExpandableExampleTable createExampleTable(List<Attribute> attributes, DataRowReader reader) {
+		if (type == TYPE_COLUMNAR) {
+			return new ColumnarExampleTable(attributes, reader);
+		} else {
+			return new MemoryExampleTable(attributes, reader);
+		}
+	}
+
 	/** Returns the type of the created data rows. */
 	public int getType() {
 		return type;
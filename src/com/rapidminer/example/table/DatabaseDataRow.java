@@ -106,16 +106,7 @@ public class DatabaseDataRow extends DataRow {
 	@Override
 	protected void set(int index, double value, double defaultValue) {
 		try {
-			String name = this.lastAttribute.getName();
-			if (Double.isNaN(value)) {
-				resultSet.updateNull(name);
-			} else {
-				if (this.lastAttribute.isNominal()) {
-					resultSet.updateString(name, this.lastAttribute.getMapping().mapIndex((int) value));
-				} else {
-					resultSet.updateDouble(name, value);
-				}
-			}
+			updateColumn(this.resultSet, this.lastAttribute, value);
 			resultSet.updateRow();
 		} catch (SQLException e) {
 			throw new RuntimeException("Cannot update data: " + e, e);
@@ -137,14 +128,19 @@ public class DatabaseDataRow extends DataRow {
 	
 	/** Reads the data for the given attribute from the result set. */
 	public static double readColumn(ResultSet resultSet, Attribute attribute) throws SQLException {
-		String name = attribute.getName();		
+		return readColumn(resultSet, attribute, resultSet.findColumn(attribute.getName()));
+	}
+
+	/** Reads the data for the given attribute from the given column of the result set. Callers reading
+	 *  many rows should look up the column once by {@link ResultSet#findColumn(String)}. */
+	public static double readColumn(ResultSet resultSet, Attribute attribute, int column) throws SQLException {
 		if (attribute.isNominal()) {
-			String dbString = resultSet.getString(name);
+			String dbString = resultSet.getString(column);
 			if (dbString == null)
 				return Double.NaN;
 			return attribute.getMapping().mapString(dbString);
 		} else {
-			double value = resultSet.getDouble(name);
+			double value = resultSet.getDouble(column);
 			if (resultSet.wasNull()) {
 				return Double.NaN;
 			} else {
@@ -153,6 +149,21 @@ public class DatabaseDataRow extends DataRow {
 		}
 	}
 	
+	/** Updates the column of the given attribute in the current row of the result set. Callers
+	 *  must invoke {@link ResultSet#updateRow()} afterwards. */
+	public static void updateColumn(ResultSet resultSet, Attribute attribute, double value) throws SQLException {
+		String name = attribute.getName();
+		if (Double.isNaN(value)) {
+			resultSet.updateNull(name);
+		} else {
+			if (attribute.isNominal()) {
+				resultSet.updateString(name, attribute.getMapping().mapIndex((int) value));
+			} else {
+				resultSet.updateDouble(name, value);
+			}
+		}
+	}
+
 	@Override
 	public int getType() {
 		return DataRowFactory.TYPE_SPECIAL;
@@ -22,6 +22,16 @@
  */
 package com.rapidminer.example.table;
 
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
@@ -38,27 +48,132 @@ import com.rapidminer.tools.jdbc.DatabaseHandler;
  * the main memory. Additionally, directly working on databases is highly experimental and
  * therefore usually not recommended.
  * 
+ * The table is read once through a forward only cursor which fetches
+ * {@link DatabaseHandler#DEFAULT_FETCH_SIZE} rows per round trip. The rows are spilled
+ * into a local temporary file from which all data row readers and random accesses are
+ * served, hence the table is only queried again if columns are added or removed.
+ * The spill file is accessed through a single channel owned by the table, which is closed
+ * by {@link #close()} or when the table is garbage collected.
+ * Changed values are written to the spill file and, as before, to the database by
+ * positioning a scrollable and updatable result set of the table at the row number.
+ * Since this is a second query of the table, it is checked to list the rows in the order
+ * of the local copy before the first value is written.
+ * 
  * @author Ingo Mierswa
  */
 public class DatabaseExampleTable extends AbstractExampleTable {
 
     private static final long serialVersionUID = -3683705313093987482L;
 
-	private transient ResultSet resultSet;
-    
 	private transient DatabaseHandler databaseHandler;
 
-	private transient Statement statement;
-	
 	private String tableName;
 
 	private int size = 0;
-    
+
+	/** The local copy of the table. Each row consists of {@link #spillWidth} doubles. */
+	private transient File spillFile;
+
+	private transient RandomAccessFile spillAccess;
+
+	private transient FileChannel spillChannel;
+
+	private transient int spillWidth;
+
+	/** The maximal number of rows read at once by a {@link SpilledDataRowReader}. */
+	private static final int ROWS_PER_READ = 1024;
+
+	/** Only created if values are changed. */
+	private transient Statement updateStatement;
+
+	private transient ResultSet updateResultSet;
+
+	/** A data row read from the spill file which also writes changed values to the database. */
+	private class SpilledDataRow extends DoubleArrayDataRow {
+
+		private static final long serialVersionUID = 2725402869364883017L;
+
+		private final int row;
+
+		private SpilledDataRow(int row, double[] data) {
+			super(data);
+			this.row = row;
+		}
+
+		@Override
+		protected void set(int index, double value, double defaultValue) {
+			super.set(index, value, defaultValue);
+			update(row, index, value);
+		}
+	}
+
+	/**
+	 * Reads the spill file sequentially through the channel of the table. Since the reader does not
+	 * own a file handle, it does not need to be closed, even if it is not read to the end.
+	 */
+	private class SpilledDataRowReader implements DataRowReader {
+
+		private final FileChannel channel = spillChannel;
+
+		private final int width = spillWidth;
+
+		private final int rows = size;
+
+		private final ByteBuffer buffer = ByteBuffer.allocate(Math.max(1, Math.min(rows, ROWS_PER_READ)) * Math.max(1, width) * 8);
+
+		private int row = 0;
+
+		private SpilledDataRowReader() {
+			buffer.limit(0);
+		}
+
+		public boolean hasNext() {
+			return row < rows;
+		}
+
+		public DataRow next() {
+			if (!hasNext()) {
+				return null;
+			}
+			double[] data = new double[width];
+			try {
+				if (buffer.remaining() < width * 8) {
+					fillBuffer();
+				}
+			} catch (IOException e) {
+				throw new RuntimeException("Error while reading local copy of database table '" + tableName + "': " + e, e);
+			}
+			for (int i = 0; i < width; i++) {
+				data[i] = buffer.getDouble();
+			}
+			return new SpilledDataRow(row++, data);
+		}
+
+		/** Reads the next rows starting at the current row. */
+		private void fillBuffer() throws IOException {
+			buffer.clear();
+			buffer.limit((int) Math.min(buffer.capacity(), (long) (rows - row) * width * 8));
+			long position = (long) row * width * 8;
+			while (buffer.hasRemaining()) {
+				if (channel.read(buffer, position + buffer.position()) < 0) {
+					throw new EOFException("Local copy of database table '" + tableName + "' was truncated.");
+				}
+			}
+			buffer.flip();
+		}
+
+		/** Will throw a new {@link UnsupportedOperationException} since {@link DataRowReader} does not have
+		 *  to implement remove. */
+		public void remove() {
+			throw new UnsupportedOperationException("The method 'remove' is not supported by DataRowReaders on databases!");
+		}
+	}
+
 	private DatabaseExampleTable(List<Attribute> attributes, DatabaseHandler databaseHandler, String tableName) throws SQLException {
 		super(attributes);
 		this.databaseHandler = databaseHandler;
 		this.tableName = tableName;
-		this.resetResultSet();
+		this.spillTable();
 	}
 
 	public static DatabaseExampleTable createDatabaseExampleTable(DatabaseHandler databaseHandler, String tableName) throws SQLException {
@@ -73,40 +188,161 @@ public class DatabaseExampleTable extends AbstractExampleTable {
 		DatabaseExampleTable table = new DatabaseExampleTable(attributes, databaseHandler, tableName);
 		return table;
 	}
-    
-    private void resetResultSet() throws SQLException {
-    	if (statement != null) {
-    		statement.close();
-    		statement = null;
-    	}
-    	this.statement = this.databaseHandler.createStatement(true);
-        this.resultSet = this.statement.executeQuery(databaseHandler.getStatementCreator().makeSelectAllStatement(tableName));
-//        		"SELECT * FROM " + 
-//        		databaseHandler.getProperties().getIdentifierQuoteOpen() + 
-//        		tableName + 
-//        		databaseHandler.getProperties().getIdentifierQuoteClose());
-    }
-    
-	public DataRowReader getDataRowReader() {
+
+	/** Streams the complete table into a new spill file which replaces the current one. */
+	private void spillTable() throws SQLException {
+		close();
+		Attribute[] attributes = getAttributes();
+		Connection connection = databaseHandler.getConnection();
+		// some drivers only use cursors instead of fetching the complete result if auto commit is off
+		boolean autoCommit = connection.getAutoCommit();
+		if (autoCommit) {
+			connection.setAutoCommit(false);
+		}
+		Statement statement = databaseHandler.createStreamingStatement(DatabaseHandler.DEFAULT_FETCH_SIZE);
+		DataOutputStream out = null;
+		boolean success = false;
 		try {
-            return new DatabaseDataRowReader(resultSet);
-		} catch (SQLException e) {
-			throw new RuntimeException("Error while creating database DataRowReader: " + e, e);
+			spillFile = File.createTempFile("rm_database_table", ".tmp");
+			spillFile.deleteOnExit();
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(spillFile)));
+			ResultSet resultSet = statement.executeQuery(databaseHandler.getStatementCreator().makeSelectAllStatement(tableName));
+			int[] columns = new int[attributes.length];
+			for (int i = 0; i < attributes.length; i++) {
+				if (attributes[i] != null) {
+					columns[i] = resultSet.findColumn(attributes[i].getName());
+				}
+			}
+			int rows = 0;
+			while (resultSet.next()) {
+				for (int i = 0; i < attributes.length; i++) {
+					out.writeDouble(attributes[i] == null ? Double.NaN : DatabaseDataRow.readColumn(resultSet, attributes[i], columns[i]));
+				}
+				rows++;
+			}
+			resultSet.close();
+			out.close();
+			out = null;
+			this.size = rows;
+			this.spillWidth = attributes.length;
+			this.spillAccess = new RandomAccessFile(spillFile, "rw");
+			this.spillChannel = spillAccess.getChannel();
+			success = true;
+		} catch (IOException e) {
+			throw new SQLException("Cannot create local copy of database table '" + tableName + "': " + e, e);
+		} finally {
+			if (out != null) {
+				try {
+					out.close();
+				} catch (IOException e) {
+					// already failed
+				}
+			}
+			if (!success) {
+				close();
+			}
+			statement.close();
+			if (autoCommit) {
+				connection.setAutoCommit(true);
+			}
 		}
 	}
 
+	public DataRowReader getDataRowReader() {
+		return new SpilledDataRowReader();
+	}
+
 	/**
 	 * Returns the data row with the desired row index.
 	 */
 	public DataRow getDataRow(int index) {
-        try {
-            this.resultSet.absolute(index + 1);
-            DatabaseDataRow dataRow = new DatabaseDataRow(resultSet);
-            return dataRow;
-        } catch (SQLException e) {
-            LogService.getGlobal().log("Cannot retrieve data row with absolute row index: " + e.getMessage(), LogService.WARNING);
-        }
-        return null;
+		if (index < 0 || index >= size) {
+			LogService.getGlobal().log("Cannot retrieve data row with absolute row index: " + index, LogService.WARNING);
+			return null;
+		}
+		ByteBuffer buffer = ByteBuffer.allocate(spillWidth * 8);
+		try {
+			long position = (long) index * spillWidth * 8;
+			while (buffer.hasRemaining()) {
+				if (spillChannel.read(buffer, position + buffer.position()) < 0) {
+					throw new EOFException("Local copy of database table '" + tableName + "' was truncated.");
+				}
+			}
+		} catch (IOException e) {
+			LogService.getGlobal().log("Cannot retrieve data row with absolute row index: " + e.getMessage(), LogService.WARNING);
+			return null;
+		}
+		buffer.flip();
+		double[] data = new double[spillWidth];
+		buffer.asDoubleBuffer().get(data);
+		return new SpilledDataRow(index, data);
+	}
+
+	/** Writes the value to the database and to the spill file. */
+	private synchronized void update(int row, int column, double value) {
+		Attribute attribute = getAttribute(column);
+		try {
+			if (updateResultSet == null) {
+				openUpdateResultSet();
+			}
+			updateResultSet.absolute(row + 1);
+			DatabaseDataRow.updateColumn(updateResultSet, attribute, value);
+			updateResultSet.updateRow();
+		} catch (SQLException e) {
+			throw new RuntimeException("Cannot update data: " + e, e);
+		}
+		try {
+			ByteBuffer buffer = ByteBuffer.allocate(8);
+			buffer.putDouble(value);
+			buffer.flip();
+			long position = ((long) row * spillWidth + column) * 8;
+			while (buffer.hasRemaining()) {
+				spillChannel.write(buffer, position + buffer.position());
+			}
+		} catch (IOException e) {
+			throw new RuntimeException("Cannot update local copy of database table '" + tableName + "': " + e, e);
+		}
+	}
+
+	/**
+	 * Opens the result set used for writing to the database. Since the rows are positioned by their
+	 * number, it must list them in the order of the local copy, which is checked by comparing all values.
+	 */
+	private void openUpdateResultSet() throws SQLException {
+		Statement statement = databaseHandler.createStatement(true);
+		boolean success = false;
+		try {
+			ResultSet resultSet = statement.executeQuery(databaseHandler.getStatementCreator().makeSelectAllStatement(tableName));
+			Attribute[] attributes = getAttributes();
+			int[] columns = new int[attributes.length];
+			for (int i = 0; i < attributes.length; i++) {
+				if (attributes[i] != null) {
+					columns[i] = resultSet.findColumn(attributes[i].getName());
+				}
+			}
+			DataRowReader reader = new SpilledDataRowReader();
+			while (resultSet.next()) {
+				if (!reader.hasNext()) {
+					throw new SQLException("Database table '" + tableName + "' has more rows than its local copy.");
+				}
+				DataRow row = reader.next();
+				for (int i = 0; i < attributes.length; i++) {
+					if (attributes[i] != null && Double.compare(DatabaseDataRow.readColumn(resultSet, attributes[i], columns[i]), row.get(attributes[i])) != 0) {
+						throw new SQLException("Database table '" + tableName + "' does not list its rows in the order of its local copy.");
+					}
+				}
+			}
+			if (reader.hasNext()) {
+				throw new SQLException("Database table '" + tableName + "' has less rows than its local copy.");
+			}
+			updateStatement = statement;
+			updateResultSet = resultSet;
+			success = true;
+		} finally {
+			if (!success) {
+				statement.close();
+			}
+		}
 	}
 
 	@Override
@@ -120,7 +356,7 @@ public class DatabaseExampleTable extends AbstractExampleTable {
 		try {
             close();
 			databaseHandler.addColumn(attribute, tableName);
-            resetResultSet();
+            spillTable();
 		} catch (SQLException e) {
 			throw new RuntimeException("Error while adding a column '" + attribute.getName() + "'to database: " + e, e);
 		}
@@ -133,38 +369,42 @@ public class DatabaseExampleTable extends AbstractExampleTable {
 		try {
             close();
 			databaseHandler.removeColumn(attribute, tableName);
-            resetResultSet();
+            spillTable();
 		} catch (SQLException e) {
 			throw new RuntimeException("Error while removing a column '"+attribute.getName()+"' from database: " + e, e);
 		}
 	}
 
 	public int size() {
-		if (this.size < 0) {
-			try {
-				Statement countStatement = this.databaseHandler.createStatement(false);
-				//String countQuery = "SELECT count(*) FROM " + databaseHandler.getProperties().getIdentifierQuoteOpen() + tableName + databaseHandler.getProperties().getIdentifierQuoteClose();
-				String countQuery = databaseHandler.getStatementCreator().makeSelectSizeStatement(tableName);
-				ResultSet countResultSet = countStatement.executeQuery(countQuery);
-				countResultSet.next();
-				this.size = countResultSet.getInt(1);
-				countResultSet.close();
-				countStatement.close();
-			} catch (SQLException e) {
-				// do nothing
-			}
-		}
         return this.size;
 	}
-    
-    private void close() {
-        if (this.statement != null) {
+
+    /**
+     * Closes the update statement and the channel of the spill file and deletes it. Neither
+     * the table nor the data row readers created before can be used afterwards.
+     */
+    public synchronized void close() {
+        if (this.updateStatement != null) {
             try {
-                this.statement.close();
-                this.statement = null;
+                this.updateStatement.close();
             } catch (SQLException e) {
                 LogService.getGlobal().log("DatabaseExampleTable: cannot close result set: " + e.getMessage(), LogService.WARNING);
             }
+            this.updateStatement = null;
+            this.updateResultSet = null;
+        }
+        if (this.spillAccess != null) {
+            try {
+                this.spillAccess.close();
+            } catch (IOException e) {
+                LogService.getGlobal().log("DatabaseExampleTable: cannot close local copy: " + e.getMessage(), LogService.WARNING);
+            }
+            this.spillAccess = null;
+            this.spillChannel = null;
+        }
+        if (this.spillFile != null) {
+            this.spillFile.delete();
+            this.spillFile = null;
         }
     }
     
@@ -0,0 +1,40 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2011 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.example.table;
+
+/**
+ * An {@link ExampleTable} which can be filled row by row. Implementations
+ * might either keep the given {@link DataRow} (like the {@link MemoryExampleTable})
+ * or copy its values into their own storage (like the {@link ColumnarExampleTable}).
+ * Callers must therefore have set all values of a row before adding it.
+ *
+ * @author Sebastian Land
+ */
+public interface ExpandableExampleTable extends ExampleTable {
+
+	/** Appends the given data row to the end of this table. */
+	public void addDataRow(DataRow dataRow);
+
+	/** Removes all data rows of this table. */
+	public void clear();
+}
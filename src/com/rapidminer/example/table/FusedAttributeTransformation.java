@@ -0,0 +1,159 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2011 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.example.table;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.rapidminer.example.AffineAttributeTransformation;
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.AttributeTransformation;
+
+
+/**
+ * The transformations of an attribute compiled into a single object. Consecutive
+ * {@link AffineAttributeTransformation}s are folded into one multiplication and addition.
+ * Their scale and offset are cached until one of the transformations reports a modification
+ * or the attribute is renamed. All other transformations are applied as they are.
+ * 
+ * Only used for reading values, see {@link AbstractAttribute#getValue(DataRow)}.
+ * 
+ * @author Ingo Mierswa
+ */
+class FusedAttributeTransformation {
+
+	private final Step[] steps;
+
+	FusedAttributeTransformation(List<AttributeTransformation> transformations) {
+		List<Step> steps = new ArrayList<Step>();
+		List<AffineAttributeTransformation> affineGroup = new ArrayList<AffineAttributeTransformation>();
+		for (AttributeTransformation transformation : transformations) {
+			if (transformation instanceof AffineAttributeTransformation) {
+				affineGroup.add((AffineAttributeTransformation) transformation);
+			} else {
+				if (!affineGroup.isEmpty()) {
+					steps.add(new AffineStep(affineGroup));
+					affineGroup.clear();
+				}
+				steps.add(new SimpleStep(transformation));
+			}
+		}
+		if (!affineGroup.isEmpty()) {
+			steps.add(new AffineStep(affineGroup));
+		}
+		this.steps = steps.toArray(new Step[steps.size()]);
+	}
+
+	double transform(Attribute attribute, double value) {
+		double result = value;
+		for (Step step : steps) {
+			result = step.transform(attribute, result);
+		}
+		return result;
+	}
+
+	private static abstract class Step {
+
+		abstract double transform(Attribute attribute, double value);
+	}
+
+	private static final class SimpleStep extends Step {
+
+		private final AttributeTransformation transformation;
+
+		private SimpleStep(AttributeTransformation transformation) {
+			this.transformation = transformation;
+		}
+
+		@Override
+		double transform(Attribute attribute, double value) {
+			return transformation.transform(attribute, value);
+		}
+	}
+
+	private static final class AffineStep extends Step {
+
+		private final AffineAttributeTransformation[] transformations;
+
+		/** Replaced as a whole, so concurrent readers always see a consistent state. */
+		private AffineState state = null;
+
+		private AffineStep(List<AffineAttributeTransformation> transformations) {
+			this.transformations = transformations.toArray(new AffineAttributeTransformation[transformations.size()]);
+		}
+
+		@Override
+		double transform(Attribute attribute, double value) {
+			AffineState current = state;
+			if ((current == null) || !current.isValid(attribute, transformations)) {
+				current = new AffineState(attribute, transformations);
+				state = current;
+			}
+			double result = value * current.scale;
+			if (current.offset != 0.0d) {
+				result += current.offset;
+			}
+			return result;
+		}
+	}
+
+	/** The folded scale and offset for the attribute name and modification stamps they were calculated for. */
+	private static final class AffineState {
+
+		private final String attributeName;
+
+		private final long[] stamps;
+
+		private final double scale;
+
+		private final double offset;
+
+		private AffineState(Attribute attribute, AffineAttributeTransformation[] transformations) {
+			this.attributeName = attribute.getName();
+			this.stamps = new long[transformations.length];
+			double scale = 1.0d;
+			double offset = 0.0d;
+			for (int i = 0; i < transformations.length; i++) {
+				stamps[i] = transformations[i].getModificationStamp();
+				double currentScale = transformations[i].getScale(attribute);
+				scale *= currentScale;
+				offset = offset * currentScale + transformations[i].getOffset(attribute);
+			}
+			this.scale = scale;
+			this.offset = offset;
+		}
+
+		private boolean isValid(Attribute attribute, AffineAttributeTransformation[] transformations) {
+			// names are only compared by reference since renaming always creates a new description
+			if (attribute.getName() != attributeName) {
+				return false;
+			}
+			for (int i = 0; i < transformations.length; i++) {
+				if (transformations[i].getModificationStamp() != stamps[i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+}
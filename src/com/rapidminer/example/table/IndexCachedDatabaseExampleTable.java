@@ -27,6 +27,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 
@@ -39,6 +40,12 @@ import com.rapidminer.tools.jdbc.DatabaseHandler;
  * one should use a {@link MemoryExampleTable} if the data is small enough for
  * the main memory.
  * 
+ * The table is read in blocks of {@link #DEFAULT_BATCH_SIZE} rows which are kept in a
+ * {@link DataRowBlockCache}. Blocks exceeding the memory budget of the cache are spilled
+ * to a local file, hence each block is queried only once. If consecutive blocks are
+ * requested, the number of blocks fetched with one query is doubled up to
+ * {@link #MAX_READ_AHEAD_BLOCKS}.
+ * 
  * @author Ingo Mierswa, Simon Fischer
  */
 public class IndexCachedDatabaseExampleTable extends AbstractExampleTable {
@@ -46,6 +53,12 @@ public class IndexCachedDatabaseExampleTable extends AbstractExampleTable {
 	private static final long serialVersionUID = -3514641049341063136L;
 
 	public static final int DEFAULT_BATCH_SIZE = 1500; // must be larger than 1000 due to plotter sampling
+
+	/** The default number of bytes of the blocks kept in memory. */
+	public static final long DEFAULT_CACHE_SIZE = 64L * 1024 * 1024;
+
+	/** The maximal number of blocks which are fetched at once for sequential access. */
+	public static final int MAX_READ_AHEAD_BLOCKS = 16;
 		
 	public static final String INDEX_COLUMN_NAME = "RM_INDEX";
 	
@@ -80,9 +93,15 @@ public class IndexCachedDatabaseExampleTable extends AbstractExampleTable {
 	
 	private String tableName;
 	
-	private MemoryExampleTable batchExampleTable;
-	
-	private int currentBatchStartCursor = -1;
+	private DataRowBlockCache blockCache;
+
+	private long cacheSize;
+
+	/** The last requested block, used for detecting sequential access. */
+	private int lastBlock = -1;
+
+	/** The number of blocks fetched by the next query for sequential access. */
+	private int readAheadBlocks = 1;
 	
 	private int size = -1;
 	
@@ -94,8 +113,14 @@ public class IndexCachedDatabaseExampleTable extends AbstractExampleTable {
 	
 	
 	public IndexCachedDatabaseExampleTable(DatabaseHandler databaseHandler, String tableName, int dataManagementType, boolean dropMappingTable, LoggingHandler logging) throws SQLException {
+		this(databaseHandler, tableName, dataManagementType, dropMappingTable, logging, DEFAULT_CACHE_SIZE);
+	}
+
+	/** Creates a table whose blocks in memory take at most cacheSize bytes. */
+	public IndexCachedDatabaseExampleTable(DatabaseHandler databaseHandler, String tableName, int dataManagementType, boolean dropMappingTable, LoggingHandler logging, long cacheSize) throws SQLException {
 		super(new ArrayList<Attribute>());
 		this.databaseHandler = databaseHandler;
+		this.cacheSize = cacheSize;
 //		this.openQuote = this.databaseHandler.getProperties().getIdentifierQuoteOpen();
 //		this.closeQuote = this.databaseHandler.getProperties().getIdentifierQuoteClose();
 		this.tableName = tableName;
@@ -110,8 +135,8 @@ public class IndexCachedDatabaseExampleTable extends AbstractExampleTable {
 		// first: add attributes
 		initAttributes();
 		
-		// second: create batch table
-		this.updateBatchAndCursors(0);
+		// second: create block cache
+		this.blockCache = new DataRowBlockCache(getAttributes(), new DataRowFactory(dataManagementType, '.'), DEFAULT_BATCH_SIZE, this.cacheSize);
 	}
 	
 	private void createIndex(boolean dropMappingTable, LoggingHandler logging) throws SQLException {
@@ -228,69 +253,78 @@ public class IndexCachedDatabaseExampleTable extends AbstractExampleTable {
 		attributeStatement.close();
 	}
 	
-    private void updateBatchAndCursors(int desiredRow) throws SQLException {
-    	desiredRow++; // RM starts counting with 0, DB with 1
-    	
-    	// simple fetching strategy...
-    	boolean newBatch = false;
-    	int newOffset = this.currentBatchStartCursor;
-    	if (desiredRow > this.currentBatchStartCursor + (int)(0.9d * DEFAULT_BATCH_SIZE)) { // reaching the upper end
-    		newOffset = desiredRow - (int)(0.1 * DEFAULT_BATCH_SIZE);
-    		newBatch = true;
-    	} else if (desiredRow < this.currentBatchStartCursor) { // reaching the lower end
-    		newOffset = desiredRow - (int)(0.7 * DEFAULT_BATCH_SIZE);
-    		newBatch = true;
+    /** Returns the rows of the given block, fetching it and possibly further blocks if it is not cached. */
+    private synchronized DataRow[] getBlock(int block) throws SQLException {
+    	DataRow[] rows = blockCache.get(block);
+    	if (rows == null) {
+    		// fetch more blocks at once as long as the access is sequential
+    		if (block == lastBlock + 1) {
+    			readAheadBlocks = Math.min(2 * readAheadBlocks, MAX_READ_AHEAD_BLOCKS);
+    		} else {
+    			readAheadBlocks = 1;
+    		}
+    		int numberOfBlocks = (size() + DEFAULT_BATCH_SIZE - 1) / DEFAULT_BATCH_SIZE;
+    		int endBlock = block + 1;
+    		while (endBlock < Math.min(block + readAheadBlocks, numberOfBlocks) && !blockCache.contains(endBlock)) {
+    			endBlock++;
+    		}
+    		rows = fetchBlocks(block, endBlock);
     	}
-    	
-    	if (newOffset < 1) {
-    		newOffset = 1;
-    		newBatch = true;
+    	lastBlock = block;
+    	return rows;
+    }
+
+    /** Fetches the blocks from startBlock (inclusive) to endBlock (exclusive) with one query, adds them to the
+     *  cache and returns the rows of the start block. */
+    private DataRow[] fetchBlocks(int startBlock, int endBlock) throws SQLException {
+    	int offset = startBlock * DEFAULT_BATCH_SIZE + 1; // RM starts counting with 0, DB with 1
+    	int end = endBlock * DEFAULT_BATCH_SIZE + 1;
+    	String limitedQuery;
+    	if (this.mappingTableName == null) { // work directly on table
+    		limitedQuery = 
+    			"SELECT * FROM " + databaseHandler.getStatementCreator().makeIdentifier(tableName) + 
+    			" WHERE " + databaseHandler.getStatementCreator().makeIdentifier(INDEX_COLUMN_NAME) + " >= " + offset +
+    			" AND " + databaseHandler.getStatementCreator().makeIdentifier(INDEX_COLUMN_NAME) + " < " + end +
+    			" ORDER BY " + databaseHandler.getStatementCreator().makeIdentifier(INDEX_COLUMN_NAME);
+    	} else { // work with mapping table
+    		limitedQuery = 
+    			"SELECT * FROM " + databaseHandler.getStatementCreator().makeIdentifier(this.tableName)+ 
+    			"," + databaseHandler.getStatementCreator().makeIdentifier(this.mappingTableName) +
+    			" WHERE " + databaseHandler.getStatementCreator().makeIdentifier(INDEX_COLUMN_NAME) + " >= " + offset +
+    			" AND " + databaseHandler.getStatementCreator().makeIdentifier(INDEX_COLUMN_NAME) + " < " + end +
+    			" AND " + databaseHandler.getStatementCreator().makeIdentifier(this.tableName) + "." + databaseHandler.getStatementCreator().makeIdentifier(this.mappingPrimaryKey)+ 
+    			" = " + databaseHandler.getStatementCreator().makeIdentifier(this.mappingTableName) + "." + databaseHandler.getStatementCreator().makeIdentifier(this.mappingPrimaryKey) +
+    			" ORDER BY " + databaseHandler.getStatementCreator().makeIdentifier(INDEX_COLUMN_NAME);
     	}
-    	
-    	// retrieve new batch
-    	if (newBatch) {
-    		if (this.mappingTableName == null) { // work directly on table
-    			Statement batchStatement = this.databaseHandler.createStatement(false);
-    			String limitedQuery = 
-    				"SELECT * FROM " + databaseHandler.getStatementCreator().makeIdentifier(tableName) + 
-    				" WHERE " + databaseHandler.getStatementCreator().makeIdentifier(INDEX_COLUMN_NAME) + " >= " + newOffset +
-    				" AND " + databaseHandler.getStatementCreator().makeIdentifier(INDEX_COLUMN_NAME) + " < " + (newOffset + DEFAULT_BATCH_SIZE);
-    			ResultSet batchResultSet = batchStatement.executeQuery(limitedQuery);
-    			this.batchExampleTable = createExampleTableFromBatch(batchResultSet);
-    			batchResultSet.close();
-    			batchStatement.close();
-    			this.currentBatchStartCursor = newOffset;
-    		} else { // work with mapping table
-    			Statement batchStatement = this.databaseHandler.createStatement(false);
-    			String limitedQuery = 
-    				"SELECT * FROM " + databaseHandler.getStatementCreator().makeIdentifier(this.tableName)+ 
-    				"," + databaseHandler.getStatementCreator().makeIdentifier(this.mappingTableName) +
-    				" WHERE " + databaseHandler.getStatementCreator().makeIdentifier(INDEX_COLUMN_NAME) + " >= " + newOffset +
-    				" AND " + databaseHandler.getStatementCreator().makeIdentifier(INDEX_COLUMN_NAME) + " < " + (newOffset + DEFAULT_BATCH_SIZE) +
-    				" AND " + databaseHandler.getStatementCreator().makeIdentifier(this.tableName) + "." + databaseHandler.getStatementCreator().makeIdentifier(this.mappingPrimaryKey)+ 
-    				" = " + databaseHandler.getStatementCreator().makeIdentifier(this.mappingTableName) + "." + databaseHandler.getStatementCreator().makeIdentifier(this.mappingPrimaryKey);
-    			ResultSet batchResultSet = batchStatement.executeQuery(limitedQuery);
-    			this.batchExampleTable = createExampleTableFromBatch(batchResultSet);
-    			batchResultSet.close();
-    			batchStatement.close();
-    			this.currentBatchStartCursor = newOffset;
+    	Statement batchStatement = this.databaseHandler.createStreamingStatement(DatabaseHandler.DEFAULT_FETCH_SIZE);
+    	List<DataRow> fetchedRows = new ArrayList<DataRow>((endBlock - startBlock) * DEFAULT_BATCH_SIZE);
+    	try {
+    		ResultSet batchResultSet = batchStatement.executeQuery(limitedQuery);
+    		DataRowReader reader = new ResultSetDataRowReader(new DataRowFactory(dataManagementType, '.'), Arrays.asList(getAttributes()), batchResultSet);
+    		while (reader.hasNext()) {
+    			fetchedRows.add(reader.next());
     		}
+    		batchResultSet.close();
+    	} finally {
+    		batchStatement.close();
     	}
-    }
-    
-    private MemoryExampleTable createExampleTableFromBatch(ResultSet batchResultSet) {
-    	List<Attribute> attributes = new ArrayList<Attribute>(getAttributes().length);
-    	for (Attribute attribute : getAttributes()) {
-    		attributes.add(attribute);
+
+    	// add the start block last such that it is the most recently used one
+    	DataRow[] startRows = null;
+    	for (int block = endBlock - 1; block >= startBlock; block--) {
+    		int from = (block - startBlock) * DEFAULT_BATCH_SIZE;
+    		int to = Math.min(from + DEFAULT_BATCH_SIZE, fetchedRows.size());
+    		DataRow[] rows = fetchedRows.subList(Math.min(from, to), to).toArray(new DataRow[0]);
+    		blockCache.put(block, rows);
+    		startRows = rows;
     	}
-		DataRowReader reader = new ResultSetDataRowReader(new DataRowFactory(dataManagementType, '.'), attributes, batchResultSet);
-		return new MemoryExampleTable(attributes, reader);
+    	return startRows;
     }
 	
 	public DataRow getDataRow(int index) {
 		try {
-			updateBatchAndCursors(index);
-			return new NonWritableDataRow(this.batchExampleTable.getDataRow(index - this.currentBatchStartCursor + 1));
+			DataRow[] rows = getBlock(index / DEFAULT_BATCH_SIZE);
+			return new NonWritableDataRow(rows[index % DEFAULT_BATCH_SIZE]);
 		} catch (SQLException e) {
 			throw new RuntimeException("Cannot retrieve data from database: " + e, e);
 		}
@@ -319,4 +353,11 @@ public class IndexCachedDatabaseExampleTable extends AbstractExampleTable {
 	public int size() {
         return this.size;
 	}
+
+	@Override
+	protected void finalize() {
+		if (blockCache != null) {
+			blockCache.clear();
+		}
+	}
 }
@@ -40,7 +40,7 @@ import com.rapidminer.tools.LogService;
  * 
  * @author Ingo Mierswa
  */
-public class MemoryExampleTable extends AbstractExampleTable {
+public class MemoryExampleTable extends AbstractExampleTable implements ExpandableExampleTable {
 
 	private static final long serialVersionUID = -3000023475208774934L;
 
@@ -136,6 +136,7 @@ public class MemoryExampleTable extends AbstractExampleTable {
 	 * data rows first.
 	 */
 	public void readExamples(DataRowReader i, boolean permute, Random random) {
+		dataChanged();
 		dataList.clear();
 		while (i.hasNext()) {
 			if (permute) {
@@ -172,6 +173,7 @@ public class MemoryExampleTable extends AbstractExampleTable {
 	public void addDataRow(DataRow dataRow) {
 		dataRow.trim();
 		dataList.add(dataRow);
+		dataChanged();
 		
 		// this has to be called in order to make sure, the row matches the current column count.
 		dataRow.ensureNumberOfColumns(columns);
@@ -179,16 +181,19 @@ public class MemoryExampleTable extends AbstractExampleTable {
 
 	/** Convenience method for removing data rows. */
 	public boolean removeDataRow(DataRow dataRow) {
+		dataChanged();
 		return dataList.remove(dataRow);
 	}
 	
 	/** Convenience method for removing data rows. */
 	public DataRow removeDataRow(int index) {
+		dataChanged();
 		return dataList.remove(index);
 	}
 	
 	/** Clears the table. */
 	public void clear() {
+		dataChanged();
 		dataList.clear();
 	}
 	
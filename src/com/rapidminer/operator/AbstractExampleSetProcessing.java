@@ -26,7 +26,7 @@ import com.rapidminer.example.ExampleSet;
 import com.rapidminer.example.table.DataRowFactory;
 import com.rapidminer.example.table.DataRowReader;
 import com.rapidminer.example.table.ExampleTable;
-import com.rapidminer.example.table.MemoryExampleTable;
+import com.rapidminer.example.table.ExpandableExampleTable;
 import com.rapidminer.operator.ports.InputPort;
 import com.rapidminer.operator.ports.OutputPort;
 import com.rapidminer.operator.ports.metadata.ExampleSetMetaData;
@@ -97,7 +97,7 @@ public abstract class AbstractExampleSetProcessing extends Operator {
 		// check for needed copy of original exampleset
 		if (originalOutput.isConnected() && writesIntoExistingData()) {
 			int type = DataRowFactory.TYPE_DOUBLE_ARRAY;
-			if (inputExampleSet.getExampleTable() instanceof MemoryExampleTable) {
+			if (inputExampleSet.getExampleTable() instanceof ExpandableExampleTable) {
 				DataRowReader dataRowReader = inputExampleSet.getExampleTable().getDataRowReader();
 				if (dataRowReader.hasNext()) {
 					type = dataRowReader.next().getType();
@@ -231,6 +231,9 @@ public abstract class Operator extends AbstractObservable<Operator> implements C
 
     private boolean shouldStopStandaloneExecution = false;
 
+    /** Indicates if this operator is a clone created for parallel execution. */
+    private boolean parallelExecutionClone = false;
+
     private OperatorVersion compatibilityLevel;
 
     // -------------------- INITIALISATION --------------------
@@ -561,6 +564,7 @@ public abstract class Operator extends AbstractObservable<Operator> implements C
         }
         // TODO: Simon: Clone port's contents? What for?
 
+        clone.parallelExecutionClone = forParallelExecution;
         if (forParallelExecution) {
             clone.applyCount = this.applyCount;
         } else {
@@ -2011,6 +2015,29 @@ public abstract class Operator extends AbstractObservable<Operator> implements C
         this.enclosingExecutionUnit = parent;
     }
 
+    /**
+     * Returns true if this operator was created by {@link #cloneOperator(String, boolean)} for
+     * parallel execution, e.g. as inner operator of such a clone. Operators whose results depend
+     * on the order of execution, like logging operators, can use this to leave their work to the
+     * original operator.
+     */
+    public boolean isParallelExecutionClone() {
+        return parallelExecutionClone;
+    }
+
+    /**
+     * Makes this operator, which must be a clone created by {@link #cloneOperator(String, boolean)}
+     * for parallel execution, part of the process of the given original operator. The clone is
+     * not added to the execution unit of the original, but it and its inner operators can access
+     * the process, e.g. for macros, logging and checking whether the process was stopped.
+     */
+    public final void attachToProcessOf(Operator original) {
+        if (this.enclosingExecutionUnit != null) {
+            throw new IllegalStateException("Parent already set.");
+        }
+        this.enclosingExecutionUnit = original.enclosingExecutionUnit;
+    }
+
     /** Clears output and input ports. */
     public void clear(int clearFlags) {
         if ((clearFlags & Port.CLEAR_SIMPLE_ERRORS) > 0) {
@@ -22,9 +22,11 @@
  */
 package com.rapidminer.operator.clustering.clusterer;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.Callable;
 
 import com.rapidminer.example.Attribute;
 import com.rapidminer.example.Attributes;
@@ -52,6 +54,7 @@ import com.rapidminer.parameter.ParameterType;
 import com.rapidminer.parameter.ParameterTypeStringCategory;
 import com.rapidminer.tools.ObjectVisualizerService;
 import com.rapidminer.tools.Ontology;
+import com.rapidminer.tools.ParallelExecutionService;
 import com.rapidminer.tools.math.similarity.DistanceMeasure;
 import com.rapidminer.tools.math.similarity.DistanceMeasureHelper;
 import com.rapidminer.tools.math.similarity.DistanceMeasures;
@@ -60,6 +63,10 @@ import com.rapidminer.tools.math.similarity.DistanceMeasures;
  * SingleLink, CompleteLink and AverageLink. The last is also called UPGMA. The result will be a
  * hierarchical cluster model, providing distance information to plot as a dendogram. 
  * 
+ * SingleLink is computed as minimum spanning tree without storing the distances, the
+ * other strategies are computed by nearest neighbor chains on a distance matrix. Both need
+ * quadratic time.
+ * 
  * @author Sebastian Land
  */
 public class AgglomerativeClustering extends Operator {
@@ -97,55 +104,45 @@ public class AgglomerativeClustering extends Operator {
 		DistanceMeasure measure = measureHelper.getInitializedMeasure(exampleSet);		
 
 		// additional checks
+		Tools.isNonEmpty(exampleSet);
 		Tools.onlyNonMissingValues(exampleSet, "AgglomerativeClustering");
 		Tools.checkAndCreateIds(exampleSet);
 
 		Attribute idAttribute = exampleSet.getAttributes().getId();
 		boolean idAttributeIsNominal = idAttribute.isNominal();
-		DistanceMatrix matrix = new DistanceMatrix(exampleSet.size());
-		Map<Integer, HierarchicalClusterNode> clusterMap = new HashMap<Integer, HierarchicalClusterNode>(exampleSet.size());
-		int[] clusterIds = new int[exampleSet.size()];
-		// filling the distance matrix
-		int nextClusterId = 0;
-		for (Example example1: exampleSet) {
-			checkForStop();
-			clusterIds[nextClusterId] = nextClusterId;
-			int y = 0;
-			for (Example example2: exampleSet) {
-				if (y > nextClusterId)
-					matrix.set(nextClusterId, y, measure.calculateDistance(example1, example2));
-				y++;
-			}
+		HierarchicalClusterNode[] leafNodes = new HierarchicalClusterNode[exampleSet.size()];
+		double[][] values = new double[exampleSet.size()][];
+		Attributes attributes = exampleSet.getAttributes();
+		int exampleIndex = 0;
+		for (Example example: exampleSet) {
 			if (idAttributeIsNominal) {
-				clusterMap.put(nextClusterId, new HierarchicalClusterLeafNode(nextClusterId, example1.getValueAsString(idAttribute)));
+				leafNodes[exampleIndex] = new HierarchicalClusterLeafNode(exampleIndex, example.getValueAsString(idAttribute));
 			} else {
-				clusterMap.put(nextClusterId, new HierarchicalClusterLeafNode(nextClusterId, example1.getValue(idAttribute)));
+				leafNodes[exampleIndex] = new HierarchicalClusterLeafNode(exampleIndex, example.getValue(idAttribute));
 			}
-			nextClusterId++;
+			values[exampleIndex] = new double[attributes.size()];
+			int i = 0;
+			for (Attribute attribute : attributes) {
+				values[exampleIndex][i++] = example.getValue(attribute);
+			}
+			exampleIndex++;
 		}
 
-		// creating linkage method
-		AbstractLinkageMethod linkage = new SingleLinkageMethod(matrix, clusterIds);
-		if (getParameterAsString(PARAMETER_MODE).equals(modes[1])) 
-			linkage = new CompleteLinkageMethod(matrix, clusterIds);
-		else if (getParameterAsString(PARAMETER_MODE).equals(modes[2]))
-			linkage = new AverageLinkageMethod(matrix, clusterIds);
-
+		// computing agglomerations
+		Agglomeration[] agglomerations;
+		if (getParameterAsString(PARAMETER_MODE).equals(modes[1])) {
+			agglomerations = new NearestNeighborChainLinkage(createDistanceMatrix(values, measure), NearestNeighborChainLinkage.COMPLETE_LINKAGE, this).getAgglomerations();
+		} else if (getParameterAsString(PARAMETER_MODE).equals(modes[2])) {
+			agglomerations = new NearestNeighborChainLinkage(createDistanceMatrix(values, measure), NearestNeighborChainLinkage.AVERAGE_LINKAGE, this).getAgglomerations();
+		} else {
+			agglomerations = new MinimumSpanningTreeLinkage(values, measure, this).getAgglomerations();
+		}
 
 		// now building agglomerative tree bottom up
-		while (clusterMap.size() > 1) {
-			Agglomeration agglomeration = linkage.getNextAgglomeration(nextClusterId, clusterMap);
-			HierarchicalClusterNode newNode = new HierarchicalClusterNode(nextClusterId, agglomeration.getDistance());
-			newNode.addSubNode(clusterMap.get(agglomeration.getClusterId1()));
-			newNode.addSubNode(clusterMap.get(agglomeration.getClusterId2()));
-			clusterMap.remove(agglomeration.getClusterId1());
-			clusterMap.remove(agglomeration.getClusterId2());
-			clusterMap.put(nextClusterId, newNode);
-			nextClusterId++;
-		}
+		HierarchicalClusterNode root = createTree(leafNodes, agglomerations);
 
 		// creating model
-		HierarchicalClusterModel model = new DendogramHierarchicalClusterModel(clusterMap.entrySet().iterator().next().getValue());
+		HierarchicalClusterModel model = new DendogramHierarchicalClusterModel(root);
 
 		// registering visualizer
 		ObjectVisualizerService.addObjectVisualizer(model, new ExampleVisualizer((ExampleSet) exampleSet.clone()));
@@ -154,6 +151,78 @@ public class AgglomerativeClustering extends Operator {
 		exampleSetOutput.deliver(exampleSet);
 	}
 
+	/** Fills the distance matrix in parallel. Each thread calculates every n-th row. */
+	private DistanceMatrix createDistanceMatrix(final double[][] values, final DistanceMeasure measure) throws OperatorException {
+		final DistanceMatrix matrix = new DistanceMatrix(values.length);
+		final int numberOfThreads = ParallelExecutionService.getNumberOfThreads();
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(numberOfThreads);
+		for (int thread = 0; thread < numberOfThreads; thread++) {
+			final int firstRow = thread;
+			tasks.add(new Callable<Void>() {
+				public Void call() throws OperatorException {
+					for (int x = firstRow; x < values.length; x += numberOfThreads) {
+						checkForStop();
+						for (int y = x + 1; y < values.length; y++) {
+							matrix.set(x, y, measure.calculateDistance(values[x], values[y]));
+						}
+					}
+					return null;
+				}
+			});
+		}
+		ParallelExecutionService.execute(tasks, numberOfThreads, "AgglomerativeClustering");
+		return matrix;
+	}
+
+	/**
+	 * Builds the cluster tree from the agglomerations of the examples. The agglomerations are
+	 * applied in the order of their distances and the new nodes are numbered in this order
+	 * after the leafs. The sub node containing the example with the lower index comes first.
+	 */
+	private static HierarchicalClusterNode createTree(HierarchicalClusterNode[] leafNodes, Agglomeration[] agglomerations) {
+		// stable sort keeps the order of agglomerations with equal distances
+		Arrays.sort(agglomerations, new Comparator<Agglomeration>() {
+			public int compare(Agglomeration agglomeration1, Agglomeration agglomeration2) {
+				return Double.compare(agglomeration1.getDistance(), agglomeration2.getDistance());
+			}
+		});
+		// union find structure with the lowest example index of each cluster as root
+		int[] parents = new int[leafNodes.length];
+		HierarchicalClusterNode[] clusterNodes = leafNodes.clone();
+		for (int i = 0; i < parents.length; i++) {
+			parents[i] = i;
+		}
+		int nextClusterId = leafNodes.length;
+		for (Agglomeration agglomeration : agglomerations) {
+			int cluster1 = findCluster(parents, agglomeration.getClusterId1());
+			int cluster2 = findCluster(parents, agglomeration.getClusterId2());
+			int firstCluster = Math.min(cluster1, cluster2);
+			int secondCluster = Math.max(cluster1, cluster2);
+			HierarchicalClusterNode newNode = new HierarchicalClusterNode(nextClusterId, agglomeration.getDistance());
+			newNode.addSubNode(clusterNodes[firstCluster]);
+			newNode.addSubNode(clusterNodes[secondCluster]);
+			parents[secondCluster] = firstCluster;
+			clusterNodes[firstCluster] = newNode;
+			clusterNodes[secondCluster] = null;
+			nextClusterId++;
+		}
+		return clusterNodes[0];
+	}
+
+	private static int findCluster(int[] parents, int example) {
+		int root = example;
+		while (parents[root] != root) {
+			root = parents[root];
+		}
+		// path compression
+		while (parents[example] != root) {
+			int next = parents[example];
+			parents[example] = root;
+			example = next;
+		}
+		return root;
+	}
+
 	@Override
 	public boolean shouldAutoConnect(OutputPort port) {
 		if (port == exampleSetOutput) {
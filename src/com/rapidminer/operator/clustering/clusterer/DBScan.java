@@ -23,9 +23,10 @@
 package com.rapidminer.operator.clustering.clusterer;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Queue;
+import java.util.concurrent.Callable;
 
 import com.rapidminer.example.Attribute;
 import com.rapidminer.example.Attributes;
@@ -43,12 +44,22 @@ import com.rapidminer.parameter.ParameterType;
 import com.rapidminer.parameter.ParameterTypeDouble;
 import com.rapidminer.parameter.ParameterTypeInt;
 import com.rapidminer.tools.Ontology;
+import com.rapidminer.tools.ParallelExecutionService;
+import com.rapidminer.tools.math.container.KDTree;
 import com.rapidminer.tools.math.similarity.DistanceMeasure;
 import com.rapidminer.tools.math.similarity.DistanceMeasureHelper;
 import com.rapidminer.tools.math.similarity.DistanceMeasures;
+import com.rapidminer.tools.math.similarity.numerical.ChebychevNumericalDistance;
+import com.rapidminer.tools.math.similarity.numerical.EuclideanDistance;
+import com.rapidminer.tools.math.similarity.numerical.ManhattanDistance;
 
 /**
  * This operator provides the DBScan cluster algorithm. If no id attribute is present, the operator will create one.
+ * 
+ * First, the examples having at least min_points examples in their neighbourhood (the core examples) are
+ * determined in parallel. Afterwards, clusters are expanded from the core examples. For the euclidean,
+ * manhattan and chebychev distance, the neighbourhoods of low dimensional data are searched in a {@link KDTree}.
+ * 
  * @author Sebastian Land
  */
 public class DBScan extends RMAbstractClusterer implements CapabilityProvider {
@@ -57,6 +68,12 @@ public class DBScan extends RMAbstractClusterer implements CapabilityProvider {
 
 	private static final String PARAMETER_MIN_POINTS= "min_points";
 
+	/** The minimal number of examples for which a kd tree is used for searching the neighbourhoods. */
+	private static final int MIN_SIZE_FOR_INDEX = 256;
+
+	/** The minimal number of examples for which the core examples are determined by an additional thread. */
+	private static final int MIN_EXAMPLES_PER_THREAD = 1000;
+
 	private DistanceMeasureHelper measureHelper = new DistanceMeasureHelper(this);
 
 	public DBScan(OperatorDescription description) {
@@ -105,41 +122,52 @@ public class DBScan extends RMAbstractClusterer implements CapabilityProvider {
 		// additional checks
 		Tools.onlyNonMissingValues(exampleSet, "DBScan");
 
-		// extracting attribute names
+		// extracting values
 		Attributes attributes = exampleSet.getAttributes();
-		ArrayList<String> attributeNames = new ArrayList<String>(attributes.size());
-		for (Attribute attribute: attributes)
-			attributeNames.add(attribute.getName());
+		double[][] values = new double[exampleSet.size()][];
+		int i = 0;
+		for (Example example: exampleSet) {
+			values[i] = new double[attributes.size()];
+			int j = 0;
+			for (Attribute attribute: attributes)
+				values[i][j++] = example.getValue(attribute);
+			i++;
+		}
+		Neighbourhoods neighbourhoods = new Neighbourhoods(values, measure, epsilon);
+		boolean[] isCore = findCoreExamples(neighbourhoods, minPoints);
 
 		boolean[] visited = new boolean[exampleSet.size()];
 		boolean[] noised = new boolean[exampleSet.size()];
+		boolean[] expanded = new boolean[exampleSet.size()];
 		int[] clusterAssignments = new int[exampleSet.size()];
+		NeighbourhoodBuffer centerNeighbourhood = new NeighbourhoodBuffer();
+		NeighbourhoodBuffer neighbourhood = new NeighbourhoodBuffer();
 
-		int i = 0;
 		int clusterIndex = 1;
-		for (Example example: exampleSet) {
+		for (i = 0; i < values.length; i++) {
 			checkForStop();
 			if (!visited[i]) {
-				Queue<Integer> centerNeighbourhood = getNeighbourhood(example, exampleSet, measure, epsilon);
-				if (centerNeighbourhood.size() < minPoints) {
+				if (!isCore[i]) {
 					noised[i] = true;
 				} else {
 					// then its center point of a cluster. Assign example to new cluster
+					neighbourhoods.getNeighbourhood(i, centerNeighbourhood);
 					clusterAssignments[i] = clusterIndex;
 					// expanding cluster within density borders
-					while (centerNeighbourhood.size() > 0) {
-						int currentIndex = centerNeighbourhood.poll().intValue();
-						Example currentExample = exampleSet.getExample(currentIndex);
+					int head = 0;
+					while (head < centerNeighbourhood.size) {
+						int currentIndex = centerNeighbourhood.indices[head++];
 						// assigning example to current cluster
 						clusterAssignments[currentIndex] = clusterIndex;
 						visited[currentIndex] = true;
 
-						// appending own neighbourhood to queue
-						Queue<Integer> neighbourhood = getNeighbourhood(currentExample, exampleSet, measure, epsilon);
-						if (neighbourhood.size() >= minPoints) {
+						// appending own neighbourhood to queue. Expanding a center twice would not change anything.
+						if (isCore[currentIndex] && !expanded[currentIndex]) {
 							// then this neighbor of center is also a center of the cluster
-							while (neighbourhood.size() > 0) {
-								int neighbourIndex = neighbourhood.poll().intValue();
+							expanded[currentIndex] = true;
+							neighbourhoods.getNeighbourhood(currentIndex, neighbourhood);
+							for (int n = 0; n < neighbourhood.size; n++) {
+								int neighbourIndex = neighbourhood.indices[n];
 								if (!visited[neighbourIndex]) {
 									if (!noised[neighbourIndex]) {
 										// if its not noised, then it might be center of cluster! So append to queue
@@ -155,7 +183,6 @@ public class DBScan extends RMAbstractClusterer implements CapabilityProvider {
 					clusterIndex++;
 				}
 			}
-			i++;
 		}
 
 		ClusterModel model = new ClusterModel(exampleSet, Math.max(clusterIndex, 1), getParameterAsBoolean(RMAbstractClusterer.PARAMETER_ADD_AS_LABEL), getParameterAsBoolean(RMAbstractClusterer.PARAMETER_REMOVE_UNLABELED));
@@ -174,16 +201,128 @@ public class DBScan extends RMAbstractClusterer implements CapabilityProvider {
 		return model;
 	}
 
-	private LinkedList<Integer> getNeighbourhood(Example centerExample, ExampleSet exampleSet, DistanceMeasure measure, double epsilon) {
-		LinkedList<Integer> neighbourhood = new LinkedList<Integer>();
-		int i = 0;
-		for (Example example: exampleSet) {
-			double distance = measure.calculateDistance(centerExample, example);
-			if (distance < epsilon) 
-				neighbourhood.add(i);
-			i++;
+	/** Returns which examples have at least the given number of examples in their neighbourhood. The examples are
+	 *  split into consecutive ranges which are processed in parallel. */
+	private boolean[] findCoreExamples(final Neighbourhoods neighbourhoods, final int minPoints) throws OperatorException {
+		final int size = neighbourhoods.values.length;
+		final boolean[] isCore = new boolean[size];
+		int numberOfTasks = Math.max(1, Math.min(ParallelExecutionService.getNumberOfThreads(), size / MIN_EXAMPLES_PER_THREAD));
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(numberOfTasks);
+		for (int task = 0; task < numberOfTasks; task++) {
+			final int start = (int)((long)size * task / numberOfTasks);
+			final int end = (int)((long)size * (task + 1) / numberOfTasks);
+			tasks.add(new Callable<Void>() {
+				public Void call() throws OperatorException {
+					NeighbourhoodBuffer buffer = new NeighbourhoodBuffer();
+					for (int i = start; i < end; i++) {
+						if ((i - start) % 100 == 0)
+							checkForStop();
+						isCore[i] = neighbourhoods.countNeighbours(i, minPoints, buffer) >= minPoints;
+					}
+					return null;
+				}
+			});
+		}
+		ParallelExecutionService.execute(tasks, numberOfTasks, "DBScan");
+		return isCore;
+	}
+
+	/**
+	 * Searches the examples with a distance less than epsilon to a center example. The distances are
+	 * always calculated like <code>measure.calculateDistance(center, example)</code>. If the measure allows,
+	 * a {@link KDTree} delivers candidates which are checked afterwards, otherwise all examples are checked.
+	 */
+	private static class Neighbourhoods {
+
+		private final double[][] values;
+
+		private final DistanceMeasure measure;
+
+		private final double epsilon;
+
+		private final KDTree<Integer> tree;
+
+		private Neighbourhoods(double[][] values, DistanceMeasure measure, double epsilon) {
+			this.values = values;
+			this.measure = measure;
+			this.epsilon = epsilon;
+			int dimensions = values.length == 0 ? 0 : values[0].length;
+			// subclasses might change the distance
+			Class<?> measureClass = measure.getClass();
+			boolean treeApplicable = measureClass == EuclideanDistance.class || measureClass == ManhattanDistance.class || measureClass == ChebychevNumericalDistance.class;
+			// a kd tree needs several points per leaf region in order to prune efficiently
+			if (treeApplicable && values.length >= MIN_SIZE_FOR_INDEX && dimensions > 0 && dimensions < 30 && (1 << dimensions) <= values.length) {
+				List<Integer> indices = new ArrayList<Integer>(values.length);
+				for (int i = 0; i < values.length; i++) {
+					indices.add(i);
+				}
+				this.tree = new KDTree<Integer>(Arrays.asList(values), indices, measure);
+			} else {
+				this.tree = null;
+			}
+		}
+
+		/** Stores the indices of the neighbourhood of the given example in ascending order in the buffer. */
+		private void getNeighbourhood(int center, NeighbourhoodBuffer buffer) {
+			buffer.clear();
+			double[] centerValues = values[center];
+			if (tree == null) {
+				for (int i = 0; i < values.length; i++) {
+					if (measure.calculateDistance(centerValues, values[i]) < epsilon)
+						buffer.add(i);
+				}
+			} else {
+				buffer.candidates.clear();
+				tree.addValuesWithin(epsilon, centerValues, buffer.candidates);
+				for (Integer candidate : buffer.candidates) {
+					int i = candidate.intValue();
+					if (measure.calculateDistance(centerValues, values[i]) < epsilon)
+						buffer.add(i);
+				}
+				Arrays.sort(buffer.indices, 0, buffer.size);
+			}
+		}
+
+		/** Returns the size of the neighbourhood of the given example, but counts at most up to the given number. */
+		private int countNeighbours(int center, int maxCount, NeighbourhoodBuffer buffer) {
+			double[] centerValues = values[center];
+			int count = 0;
+			if (tree == null) {
+				for (int i = 0; i < values.length && count < maxCount; i++) {
+					if (measure.calculateDistance(centerValues, values[i]) < epsilon)
+						count++;
+				}
+			} else {
+				buffer.candidates.clear();
+				tree.addValuesWithin(epsilon, centerValues, buffer.candidates);
+				for (Integer candidate : buffer.candidates) {
+					if (measure.calculateDistance(centerValues, values[candidate.intValue()]) < epsilon && ++count >= maxCount)
+						break;
+				}
+			}
+			return count;
+		}
+	}
+
+	/** A growing array of example indices which is reused for all neighbourhoods. */
+	private static class NeighbourhoodBuffer {
+
+		private int[] indices = new int[16];
+
+		private int size = 0;
+
+		/** The candidates delivered by the tree. */
+		private final List<Integer> candidates = new ArrayList<Integer>();
+
+		private void add(int index) {
+			if (size == indices.length)
+				indices = Arrays.copyOf(indices, size * 2);
+			indices[size++] = index;
+		}
+
+		private void clear() {
+			size = 0;
 		}
-		return neighbourhood;
 	}
 
 	@Override
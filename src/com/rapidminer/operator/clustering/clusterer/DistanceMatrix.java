@@ -36,10 +36,7 @@ public class DistanceMatrix {
 		this.size = size;
 		matrix = new double[size][];
 		for (int i = 0; i < size; i++) {
-			for (int j = i + 1; j < size; j++) {
-				matrix[i] = new double[j];
-			}
-			
+			matrix[i] = new double[size - i - 1];
 		}
 	}
 
@@ -40,6 +40,7 @@ import com.rapidminer.operator.clustering.ClusterModel;
 import com.rapidminer.operator.learner.CapabilityProvider;
 import com.rapidminer.operator.ports.metadata.CapabilityPrecondition;
 import com.rapidminer.parameter.ParameterType;
+import com.rapidminer.parameter.ParameterTypeBoolean;
 import com.rapidminer.parameter.ParameterTypeInt;
 import com.rapidminer.tools.Ontology;
 import com.rapidminer.tools.RandomGenerator;
@@ -55,6 +56,8 @@ import com.rapidminer.tools.math.similarity.numerical.EuclideanDistance;
  * - Using the Triangle Inequality to Accelerate k-Means -
  * Proceedings of the Twentieth International Conference on Machine Learning (ICML-2003), Washington DC, 2003
  * 
+ * The bounds are maintained by the {@link KMeansAlgorithm} which is shared with {@link KMeans}.
+ * 
  * @author Alexander Arimond
  */
 
@@ -71,6 +74,9 @@ public class FastKMeans extends RMAbstractClusterer implements CapabilityProvide
 	/** The parameter name for &quot;the maximal number of iterations performed for one run of the k method&quot; */
 	public static final String PARAMETER_MAX_OPTIMIZATION_STEPS = "max_optimization_steps";
 
+	/** The parameter name for &quot;indicates if the initial centroids are chosen by k-means++&quot; */
+	public static final String PARAMETER_DETERMINE_GOOD_START_VALUES = "determine_good_start_values";
+
 	public FastKMeans(OperatorDescription description) {
 		super(description);
 		
@@ -82,6 +88,7 @@ public class FastKMeans extends RMAbstractClusterer implements CapabilityProvide
 		int k = getParameterAsInt(PARAMETER_K);
 		int maxOptimizationSteps = getParameterAsInt(PARAMETER_MAX_OPTIMIZATION_STEPS);
 		int maxRuns = getParameterAsInt(PARAMETER_MAX_RUNS);
+		boolean determineGoodStartValues = getParameterAsBoolean(PARAMETER_DETERMINE_GOOD_START_VALUES);
 		DistanceMeasure measure = new EuclideanDistance();
 		measure.init(exampleSet);
 
@@ -105,141 +112,34 @@ public class FastKMeans extends RMAbstractClusterer implements CapabilityProvide
 		CentroidClusterModel bestModel = null;
 		int[] bestAssignments = null;
 
+		double[][] values = KMeansAlgorithm.getValues(exampleSet);
+		KMeansAlgorithm algorithm = new KMeansAlgorithm(this, values);
+
 		for (int iter = 0; iter < maxRuns; iter++) {
 
 			checkForStop();
 			CentroidClusterModel model = new CentroidClusterModel(exampleSet, k, attributeNames, measure, getParameterAsBoolean(RMAbstractClusterer.PARAMETER_ADD_AS_LABEL), getParameterAsBoolean(RMAbstractClusterer.PARAMETER_REMOVE_UNLABELED));
 			
-			// init centroids by assigning one single, unique example!
-			int i = 0;
-			for (Integer index : generator.nextIntSetWithRange(0, exampleSet.size(), k)) {
-				model.assignExample(i, getAsDoubleArray(exampleSet.getExample(index), attributes));
-				i++;
-			}
-			model.finishAssign();
-			
-			// auxiliary data structures according to paper
-			final double [][] l = new double 	[exampleSet.size()][k];
-			final double []   u = new double 	[exampleSet.size()];
-			final boolean []  r = new boolean	[exampleSet.size()];
-			
-			final double [][] m_old = new double [k][attributes.size()]; // needed for step 4
-			final double []	s = new double [k];
-			
-			final int[] centroidAssignments = new int[exampleSet.size()];
-
-			final DistanceMatrix centroidDistances = new DistanceMatrix(k);
-			computeClusterDistances(centroidDistances, s, model,  measure);
-
-			// initialization step (has many distance calculations)
-			int x = 0;
-			for (Example example : exampleSet) {
-				double[] exampleValues = getAsDoubleArray(example, attributes);
-				double nearestDistance = measure.calculateDistance(model.getCentroidCoordinates(0), exampleValues);
-				l[x][0] = nearestDistance;
-				int nearestIndex = 0;
-				for (int centroidIndex = 1; centroidIndex < k; centroidIndex++) {
-					if (centroidDistances.get(nearestIndex, centroidIndex) >= 2 * nearestDistance) continue;
-					final double distance = measure.calculateDistance(model.getCentroidCoordinates(centroidIndex), exampleValues);
-					l[x][centroidIndex] = distance;
-					if (distance < nearestDistance) {
-						nearestDistance = distance;
-						nearestIndex = centroidIndex;
-					}
-				}
-				centroidAssignments[x] = nearestIndex;
-				u[x] = nearestDistance;
-				r[x] = false;
-				x++;
+			// init centroids by single, unique examples
+			double[][] initialCentroids;
+			if (determineGoodStartValues) {
+				initialCentroids = algorithm.getPlusPlusCentroids(generator, k);
+			} else {
+				initialCentroids = algorithm.getRandomCentroids(generator, k);
 			}
 
 			// optimization steps (repeat until convergence)
-			boolean stable = false;
-			for (int step = 0; (step < maxOptimizationSteps) && !stable; step++) {
-				
-				// step 1.
-				computeClusterDistances(centroidDistances, s, model, measure);
-
-				int avoidedSamples = 0;
-				x = 0;
-				for (Example example : exampleSet) {
-					final double [] exampleValue = getAsDoubleArray(example, attributes);
-
-					// step 2.
-					if ( u[x] <= s[centroidAssignments[x]]){
-						// nothing
-						avoidedSamples ++;
-					} else {
-						// step 3.
-						for (int c = 0; c < k; c ++){
-							if (c != centroidAssignments[x]  // (i)
-							    && u[x] > l[x][c] 			// (ii)
-							    && u[x] > 0.5 * centroidDistances.get(centroidAssignments[x], c) // (iii)
-							    ){
-								//step 3a.
-								final double d_x_c;   // d(x,c(x))
-								if (r[x]){
-									d_x_c = measure.calculateDistance(exampleValue, model.getCentroidCoordinates(centroidAssignments[x]));
-									l[x][centroidAssignments[x]] = d_x_c;
-									u[x] = d_x_c;
-									r[x] = false;
-								} else {
-									d_x_c = u[x];
-								}
-								// step 3b.
-								if (d_x_c > l[x][c] && d_x_c > 0.5 * centroidDistances.get(centroidAssignments[x], c)){
-									final double d_x_c_new = measure.calculateDistance(exampleValue, model.getCentroidCoordinates(c)); // d(x,c)
-									l[x][c] = d_x_c_new;
-									if (d_x_c_new < d_x_c) {
-										centroidAssignments[x] = c;
-										u[x] = d_x_c_new;
-									}
-								}
-							}
-						}
-
-					}
-					model.assignExample(centroidAssignments[x], exampleValue);
-					x++;
-				}
-				
-				// step 4
-				// first store old c
-				for (int c=0; c <k ; c++){
-					m_old[c] = model.getCentroidCoordinates(c);
-				}
-				// then compute the m(c) - here this is same as step 7
-				stable = model.finishAssign();
-				
-				// compute all d(c,m(c))
-				final double [] mean_distances = new double [k];
-				for (int c = 0; c < k; c++){
-					mean_distances [c] = measure.calculateDistance(m_old[c], model.getCentroidCoordinates(c));
-				}
-				
-				// step 5 & 6
-				for (x=0; x < exampleSet.size(); x++){
-					// step 5
-					for (int c = 0; c < k; c++){
-						final double d = l[x][c] - mean_distances[c]; 
-						if (d > 0)
-							l[x][c] = d;
-						else
-							l[x][c] = 0;
-					}
-					// step 6
-					u[x] = u[x] + mean_distances[centroidAssignments[x]];
-					r[x] = true;
-				}
-
+			int[] centroidAssignments = algorithm.run(initialCentroids, maxOptimizationSteps);
+			double[][] centroids = algorithm.getCentroids();
+			for (int c = 0; c < k; c++) {
+				model.getCentroid(c).setCentroid(centroids[c]);
 			}
+
 			// assessing quality of this model
 			double distanceSum = 0;
-			i = 0;
-			for (Example example : exampleSet) {
-				double distance = measure.calculateDistance(model.getCentroidCoordinates(centroidAssignments[i]), getAsDoubleArray(example, attributes));
+			for (int i = 0; i < values.length; i++) {
+				double distance = measure.calculateDistance(model.getCentroidCoordinates(centroidAssignments[i]), values[i]);
 				distanceSum += distance * distance;
-				i++;
 			}
 			if (distanceSum < minimalIntraClusterDistance) {
 				bestModel = model;
@@ -263,39 +163,6 @@ public class FastKMeans extends RMAbstractClusterer implements CapabilityProvide
 		return bestModel;
 	}
 
-	// this is for step 1 of the paper algorithm
-	private void computeClusterDistances(DistanceMatrix centroidDistances, double[] s, 
-			CentroidClusterModel model,  DistanceMeasure measure) {
-		for (int i = 0; i < model.getNumberOfClusters(); i++){
-			s[i] = Double.POSITIVE_INFINITY;
-		}
-		for (int i = 0; i < model.getNumberOfClusters(); i++){
-			for (int j = i+1; j < model.getNumberOfClusters(); j++){
-				final double d = measure.calculateDistance(model.getCentroidCoordinates(i), model.getCentroidCoordinates(j));
-				if (d < s[i]){
-					s[i] = d;
-				}
-				if (d < s[j]){
-					s[j] = d;
-				}
-				centroidDistances.set(i, j, d);
-			}
-		}
-		for (int i = 0; i < model.getNumberOfClusters(); i++){
-			s[i] = 0.5 * s[i];
-		}
-	}
-
-	private double[] getAsDoubleArray(Example example, Attributes attributes) {
-		double[] values = new double[attributes.size()];
-		int i = 0;
-		for (Attribute attribute : attributes) {
-			values[i] = example.getValue(attribute);
-			i++;
-		}
-		return values;
-	}
-
 	@Override
 	public Class<? extends ClusterModel> getClusterModelClass() {
 		return CentroidClusterModel.class;
@@ -318,6 +185,7 @@ public class FastKMeans extends RMAbstractClusterer implements CapabilityProvide
 		types.add(new ParameterTypeInt(PARAMETER_K, "The number of clusters which should be detected.", 2, Integer.MAX_VALUE, 2, false));
 		types.add(new ParameterTypeInt(PARAMETER_MAX_RUNS, "The maximal number of runs of k-Means with random initialization that are performed.", 1, Integer.MAX_VALUE, 10, false));
 		types.add(new ParameterTypeInt(PARAMETER_MAX_OPTIMIZATION_STEPS, "The maximal number of iterations performed for one run of k-Means.", 1, Integer.MAX_VALUE, 100, false));
+		types.add(new ParameterTypeBoolean(PARAMETER_DETERMINE_GOOD_START_VALUES, "Indicates if the initial centroids are chosen by k-means++, i.e. with a probability proportional to the squared distance to the centroids chosen before, instead of uniformly.", false, false));
 		types.addAll(RandomGenerator.getRandomGeneratorParameters(this));
 		return types;
 	}
@@ -40,6 +40,7 @@ import com.rapidminer.operator.clustering.ClusterModel;
 import com.rapidminer.operator.learner.CapabilityProvider;
 import com.rapidminer.operator.ports.metadata.CapabilityPrecondition;
 import com.rapidminer.parameter.ParameterType;
+import com.rapidminer.parameter.ParameterTypeBoolean;
 import com.rapidminer.parameter.ParameterTypeInt;
 import com.rapidminer.tools.Ontology;
 import com.rapidminer.tools.RandomGenerator;
@@ -48,7 +49,8 @@ import com.rapidminer.tools.math.similarity.divergences.SquaredEuclideanDistance
 
 /**
  * This operator represents an implementation of k-means. This operator will create a cluster attribute if not present
- * yet.
+ * yet. The optimization is performed by the {@link KMeansAlgorithm}, the initial centroids are either chosen uniformly
+ * or by k-means++.
  * 
  * @author Sebastian Land
  */
@@ -66,6 +68,9 @@ public class KMeans extends RMAbstractClusterer implements CapabilityProvider {
 	/** The parameter name for &quot;the maximal number of iterations performed for one run of the k method&quot; */
 	public static final String PARAMETER_MAX_OPTIMIZATION_STEPS = "max_optimization_steps";
 
+	/** The parameter name for &quot;indicates if the initial centroids are chosen by k-means++&quot; */
+	public static final String PARAMETER_DETERMINE_GOOD_START_VALUES = "determine_good_start_values";
+
 	public KMeans(OperatorDescription description) {
 		super(description);
 		
@@ -77,6 +82,7 @@ public class KMeans extends RMAbstractClusterer implements CapabilityProvider {
 		int k = getParameterAsInt(PARAMETER_K);
 		int maxOptimizationSteps = getParameterAsInt(PARAMETER_MAX_OPTIMIZATION_STEPS);
 		int maxRuns = getParameterAsInt(PARAMETER_MAX_RUNS);
+		boolean determineGoodStartValues = getParameterAsBoolean(PARAMETER_DETERMINE_GOOD_START_VALUES);
 		DistanceMeasure measure = new SquaredEuclideanDistance();
 		measure.init(exampleSet);
 
@@ -99,51 +105,32 @@ public class KMeans extends RMAbstractClusterer implements CapabilityProvider {
 		double minimalIntraClusterDistance = Double.POSITIVE_INFINITY;
 		CentroidClusterModel bestModel = null;
 		int[] bestAssignments = null;
-		double[] values = new double[attributes.size()];
+		double[][] values = KMeansAlgorithm.getValues(exampleSet);
+		KMeansAlgorithm algorithm = new KMeansAlgorithm(this, values);
 		
 		for (int iter = 0; iter < maxRuns; iter++) {
 			checkForStop();
 			CentroidClusterModel model = new CentroidClusterModel(exampleSet, k, attributeNames, measure, getParameterAsBoolean(RMAbstractClusterer.PARAMETER_ADD_AS_LABEL), getParameterAsBoolean(RMAbstractClusterer.PARAMETER_REMOVE_UNLABELED));
-			// init centroids by assigning one single, unique example!
-			int i = 0;
-			for (Integer index : generator.nextIntSetWithRange(0, exampleSet.size(), k)) {
-				model.assignExample(i, getAsDoubleArray(exampleSet.getExample(index), attributes, values));
-				i++;
+			// init centroids by single, unique examples
+			double[][] initialCentroids;
+			if (determineGoodStartValues) {
+				initialCentroids = algorithm.getPlusPlusCentroids(generator, k);
+			} else {
+				initialCentroids = algorithm.getRandomCentroids(generator, k);
 			}
-			model.finishAssign();
 
 			// run optimization steps
-			int[] centroidAssignments = new int[exampleSet.size()];
-			boolean stable = false;
-			for (int step = 0; (step < maxOptimizationSteps) && !stable; step++) {
-				// assign examles to new centroids
-				i = 0;
-				for (Example example : exampleSet) {
-					double[] exampleValues = getAsDoubleArray(example, attributes, values);
-					double nearestDistance = measure.calculateDistance(model.getCentroidCoordinates(0), exampleValues);
-					int nearestIndex = 0;
-					for (int centroidIndex = 1; centroidIndex < k; centroidIndex++) {
-						double distance = measure.calculateDistance(model.getCentroidCoordinates(centroidIndex), exampleValues);
-						if (distance < nearestDistance) {
-							nearestDistance = distance;
-							nearestIndex = centroidIndex;
-						}
-					}
-					centroidAssignments[i] = nearestIndex;
-					model.getCentroid(nearestIndex).assignExample(exampleValues);
-					i++;
-				}
-
-				// finishing assignment
-				stable = model.finishAssign();
+			int[] centroidAssignments = algorithm.run(initialCentroids, maxOptimizationSteps);
+			double[][] centroids = algorithm.getCentroids();
+			for (int i = 0; i < k; i++) {
+				model.getCentroid(i).setCentroid(centroids[i]);
 			}
+
 			// assessing quality of this model
 			double distanceSum = 0;
-			i = 0;
-			for (Example example : exampleSet) {
-				double distance = measure.calculateDistance(model.getCentroidCoordinates(centroidAssignments[i]), getAsDoubleArray(example, attributes, values));
+			for (int i = 0; i < values.length; i++) {
+				double distance = measure.calculateDistance(model.getCentroidCoordinates(centroidAssignments[i]), values[i]);
 				distanceSum += distance * distance;
-				i++;
 			}
 			if (distanceSum < minimalIntraClusterDistance) {
 				bestModel = model;
@@ -176,15 +163,6 @@ public class KMeans extends RMAbstractClusterer implements CapabilityProvider {
 		return bestModel;
 	}
 
-	private double[] getAsDoubleArray(Example example, Attributes attributes, double[] values) {
-		int i = 0;
-		for (Attribute attribute : attributes) {
-			values[i] = example.getValue(attribute);
-			i++;
-		}
-		return values;
-	}
-
 	@Override
 	public Class<? extends ClusterModel> getClusterModelClass() {
 		return CentroidClusterModel.class;
@@ -207,6 +185,7 @@ public class KMeans extends RMAbstractClusterer implements CapabilityProvider {
 		types.add(new ParameterTypeInt(PARAMETER_K, "The number of clusters which should be detected.", 2, Integer.MAX_VALUE, 2, false));
 		types.add(new ParameterTypeInt(PARAMETER_MAX_RUNS, "The maximal number of runs of k-Means with random initialization that are performed.", 1, Integer.MAX_VALUE, 10, false));
 		types.add(new ParameterTypeInt(PARAMETER_MAX_OPTIMIZATION_STEPS, "The maximal number of iterations performed for one run of k-Means.", 1, Integer.MAX_VALUE, 100, false));
+		types.add(new ParameterTypeBoolean(PARAMETER_DETERMINE_GOOD_START_VALUES, "Indicates if the initial centroids are chosen by k-means++, i.e. with a probability proportional to the squared distance to the centroids chosen before, instead of uniformly.", false, false));
 		types.addAll(RandomGenerator.getRandomGeneratorParameters(this));
 		return types;
 	}
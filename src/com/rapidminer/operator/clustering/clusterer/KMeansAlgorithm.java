@@ -0,0 +1,522 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2011 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.operator.clustering.clusterer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.Attributes;
+import com.rapidminer.example.Example;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.operator.Operator;
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.tools.ParallelExecutionService;
+import com.rapidminer.tools.RandomGenerator;
+
+/**
+ * The optimization of k-means shared by the k-means operators. The values of the regular
+ * attributes are read once into a matrix. The optimization steps assign each example to
+ * its nearest centroid and replace each centroid by the mean of its examples. Distance
+ * calculations are skipped by bounds derived from the triangle inequality according to
+ * 
+ * C. Elkan: Using the Triangle Inequality to Accelerate k-Means, ICML 2003
+ * 
+ * for examples with many dimensions, as long as the bounds of all examples and centroids fit
+ * into memory, and according to
+ * 
+ * G. Hamerly: Making k-means even faster, SDM 2010
+ * 
+ * otherwise. The bounds are widened by a small relative margin, so that a centroid is only
+ * skipped if it is farther away than the assigned one even after rounding. Hence the
+ * assignments are exactly those of comparing the squared euclidean distances to all centroids,
+ * choosing the first of equally near centroids. If the values contain missing values, the
+ * distances ignore the missing dimensions and do not satisfy the triangle inequality, hence
+ * the distances to all centroids are compared in each step.
+ * 
+ * The assignment is partitioned into ranges of examples, the calculation of the centroids
+ * into ranges of clusters, which are processed by the threads of the {@link ParallelExecutionService}.
+ * The examples of each cluster are summed up in their order, so the results do not depend
+ * on the number of threads.
+ * 
+ * @author Sebastian Land
+ */
+public class KMeansAlgorithm {
+
+	/** The number of examples which form a block of a range. The ranges processed in parallel consist of whole blocks. */
+	static final int BLOCK_SIZE = 4096;
+
+	/** The maximal number of lower bounds for the accelerated assignment according to Elkan. */
+	private static final long MAXIMAL_NUMBER_OF_LOWER_BOUNDS = 1 << 24;
+
+	/** The minimal number of dimensions for which the lower bounds according to Elkan save more than their maintenance costs. */
+	private static final int MINIMAL_NUMBER_OF_DIMENSIONS_FOR_LOWER_BOUNDS = 32;
+
+	/** The relative margin by which the bounds are widened. */
+	private static final double MARGIN = 1e-9;
+
+	/** A task which processes a range of indices. */
+	static abstract class RangeTask<T> {
+
+		abstract T process(int from, int to) throws OperatorException;
+	}
+
+	private final Operator operator;
+
+	private final double[][] values;
+
+	private double[][] centroids;
+
+	private int[] assignments;
+
+	public KMeansAlgorithm(Operator operator, double[][] values) {
+		this.operator = operator;
+		this.values = values;
+	}
+
+	/** Returns the values of the regular attributes of all examples. */
+	public static double[][] getValues(ExampleSet exampleSet) {
+		Attributes attributes = exampleSet.getAttributes();
+		Attribute[] regularAttributes = new Attribute[attributes.size()];
+		int a = 0;
+		for (Attribute attribute : attributes) {
+			regularAttributes[a] = attribute;
+			a++;
+		}
+		double[][] values = new double[exampleSet.size()][];
+		int i = 0;
+		for (Example example : exampleSet) {
+			double[] exampleValues = new double[regularAttributes.length];
+			for (int j = 0; j < regularAttributes.length; j++) {
+				exampleValues[j] = example.getValue(regularAttributes[j]);
+			}
+			values[i] = exampleValues;
+			i++;
+		}
+		return values;
+	}
+
+	/**
+	 * Partitions the given number of indices into ranges and processes them by the given task
+	 * using the threads of the {@link ParallelExecutionService}. Ranges start at multiples of the
+	 * given granularity. The results are returned in the order of the ranges.
+	 */
+	static <T> List<T> execute(final RangeTask<T> task, int size, int granularity) throws OperatorException {
+		int numberOfBlocks = (size + granularity - 1) / granularity;
+		int numberOfThreads = Math.max(1, Math.min(ParallelExecutionService.getNumberOfThreads(), numberOfBlocks));
+		int rangeSize = (numberOfBlocks + numberOfThreads - 1) / numberOfThreads * granularity;
+		List<Callable<T>> tasks = new ArrayList<Callable<T>>(numberOfThreads);
+		for (int from = 0; from < size; from += rangeSize) {
+			final int rangeStart = from;
+			final int rangeEnd = Math.min(from + rangeSize, size);
+			tasks.add(new Callable<T>() {
+				public T call() throws OperatorException {
+					return task.process(rangeStart, rangeEnd);
+				}
+			});
+		}
+		return ParallelExecutionService.execute(tasks, numberOfThreads, "KMeans");
+	}
+
+	/** Returns the squared euclidean distance ignoring missing values. Returns NaN if all dimensions are missing. */
+	static double getSquaredDistance(double[] x, double[] y) {
+		double sum = 0.0;
+		int counter = 0;
+		for (int i = 0; i < x.length; i++) {
+			if ((!Double.isNaN(x[i])) && (!Double.isNaN(y[i]))) {
+				double diff = x[i] - y[i];
+				sum += diff * diff;
+				counter++;
+			}
+		}
+		if (counter > 0)
+			return sum;
+		else
+			return Double.NaN;
+	}
+
+	/** Returns k distinct examples chosen uniformly at random as initial centroids. */
+	public double[][] getRandomCentroids(RandomGenerator generator, int k) {
+		double[][] initialCentroids = new double[k][];
+		int i = 0;
+		for (Integer index : generator.nextIntSetWithRange(0, values.length, k)) {
+			initialCentroids[i] = values[index].clone();
+			i++;
+		}
+		return initialCentroids;
+	}
+
+	/**
+	 * Returns k examples chosen by k-means++ as initial centroids, see
+	 * 
+	 * D. Arthur and S. Vassilvitskii: k-means++: The Advantages of Careful Seeding, SODA 2007
+	 * 
+	 * Each further centroid is chosen with a probability proportional to the squared distance to
+	 * the nearest centroid chosen so far. If all examples coincide with centroids, the next one is
+	 * chosen uniformly.
+	 */
+	public double[][] getPlusPlusCentroids(RandomGenerator generator, int k) throws OperatorException {
+		double[][] initialCentroids = new double[k][];
+		final double[] nearestDistances = new double[values.length];
+		Arrays.fill(nearestDistances, Double.POSITIVE_INFINITY);
+		int index = generator.nextIntInRange(0, values.length);
+		for (int c = 0; c < k; c++) {
+			final double[] centroid = values[index].clone();
+			initialCentroids[c] = centroid;
+			if (c == k - 1) {
+				break;
+			}
+			operator.checkForStop();
+
+			// updating the distances to the nearest centroid and summing them up per block
+			List<double[]> rangeSums = execute(new RangeTask<double[]>() {
+				@Override
+				double[] process(int from, int to) {
+					double[] blockSums = new double[(to - from + BLOCK_SIZE - 1) / BLOCK_SIZE];
+					for (int i = from; i < to; i++) {
+						double distance = getSquaredDistance(centroid, values[i]);
+						if (distance < nearestDistances[i]) {
+							nearestDistances[i] = distance;
+						}
+						blockSums[(i - from) / BLOCK_SIZE] += nearestDistances[i];
+					}
+					return blockSums;
+				}
+			}, values.length, BLOCK_SIZE);
+			double[] blockSums = new double[(values.length + BLOCK_SIZE - 1) / BLOCK_SIZE];
+			int block = 0;
+			double totalSum = 0;
+			for (double[] sums : rangeSums) {
+				for (double sum : sums) {
+					blockSums[block] = sum;
+					totalSum += sum;
+					block++;
+				}
+			}
+
+			if (totalSum > 0) {
+				index = sampleByDistance(generator.nextDouble() * totalSum, blockSums, nearestDistances);
+			} else {
+				index = generator.nextIntInRange(0, values.length);
+			}
+		}
+		return initialCentroids;
+	}
+
+	/** Returns the example at which the cumulated distances exceed the given position. */
+	private int sampleByDistance(double position, double[] blockSums, double[] nearestDistances) {
+		for (int block = 0; block < blockSums.length; block++) {
+			if (blockSums[block] > 0) {
+				if (position < blockSums[block]) {
+					int end = Math.min((block + 1) * BLOCK_SIZE, nearestDistances.length);
+					int lastPositive = -1;
+					for (int i = block * BLOCK_SIZE; i < end; i++) {
+						if (nearestDistances[i] > 0) {
+							lastPositive = i;
+							if (position < nearestDistances[i]) {
+								return i;
+							}
+							position -= nearestDistances[i];
+						}
+					}
+					return lastPositive;
+				}
+				position -= blockSums[block];
+			}
+		}
+		// only reached by rounding errors
+		for (int i = nearestDistances.length - 1; i >= 0; i--) {
+			if (nearestDistances[i] > 0) {
+				return i;
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Runs the optimization starting from the given centroids until the centroids do not change
+	 * anymore or the maximal number of steps is reached. Returns the cluster index of each example,
+	 * the centroids are returned by {@link #getCentroids()} afterwards.
+	 */
+	public int[] run(double[][] initialCentroids, int maxOptimizationSteps) throws OperatorException {
+		final int k = initialCentroids.length;
+		final int n = values.length;
+		centroids = initialCentroids;
+		assignments = new int[n];
+		final boolean useLowerBoundPerCentroid = initialCentroids[0].length >= MINIMAL_NUMBER_OF_DIMENSIONS_FOR_LOWER_BOUNDS && (long) n * k <= MAXIMAL_NUMBER_OF_LOWER_BOUNDS;
+		final double[] upperBounds = new double[n];
+		final double[] lowerBounds = new double[useLowerBoundPerCentroid ? n * k : n];
+		// the bounds do not hold for distances ignoring missing values
+		final boolean useBounds = !containsMissing(values);
+		boolean boundsValid = false;
+		boolean stable = false;
+		for (int step = 0; (step < maxOptimizationSteps) && !stable; step++) {
+			operator.checkForStop();
+			final double[][] currentCentroids = centroids;
+			// the centroids of empty clusters are missing, hence these clusters never get examples again
+			final boolean[] empty = new boolean[k];
+			for (int c = 0; c < k && useBounds; c++) {
+				empty[c] = containsMissing(currentCentroids[c]);
+			}
+			if (!boundsValid || empty[0]) {
+				// comparing all distances, all examples are assigned to the first cluster if it is empty
+				boundsValid = useBounds && !empty[0];
+				execute(new RangeTask<Object>() {
+					@Override
+					Object process(int from, int to) {
+						for (int i = from; i < to; i++) {
+							assignNearest(i, currentCentroids, upperBounds, lowerBounds, useLowerBoundPerCentroid);
+						}
+						return null;
+					}
+				}, n, BLOCK_SIZE);
+			} else {
+				// skipping centroids which are farther away than the assigned one
+				final double[][] halfCentroidDistances = new double[k][k];
+				final double[] halfMinimalDistances = new double[k];
+				Arrays.fill(halfMinimalDistances, Double.POSITIVE_INFINITY);
+				for (int c = 0; c < k; c++) {
+					for (int d = c + 1; d < k; d++) {
+						double halfDistance = Double.POSITIVE_INFINITY;
+						if (!empty[c] && !empty[d]) {
+							halfDistance = 0.5 * Math.sqrt(getSquaredDistance(currentCentroids[c], currentCentroids[d])) * (1 - MARGIN);
+						}
+						halfCentroidDistances[c][d] = halfDistance;
+						halfCentroidDistances[d][c] = halfDistance;
+						halfMinimalDistances[c] = Math.min(halfMinimalDistances[c], halfDistance);
+						halfMinimalDistances[d] = Math.min(halfMinimalDistances[d], halfDistance);
+					}
+				}
+				execute(new RangeTask<Object>() {
+					@Override
+					Object process(int from, int to) {
+						for (int i = from; i < to; i++) {
+							if (useLowerBoundPerCentroid) {
+								assignByLowerBounds(i, currentCentroids, empty, upperBounds, lowerBounds, halfCentroidDistances, halfMinimalDistances);
+							} else {
+								assignByLowerBound(i, currentCentroids, upperBounds, lowerBounds, halfMinimalDistances);
+							}
+						}
+						return null;
+					}
+				}, n, BLOCK_SIZE);
+			}
+
+			// calculating the means
+			final double[][] newCentroids = new double[k][];
+			execute(new RangeTask<Object>() {
+				@Override
+				Object process(int from, int to) {
+					calculateCentroids(from, to, newCentroids);
+					return null;
+				}
+			}, k, 1);
+			stable = true;
+			for (int c = 0; c < k && stable; c++) {
+				for (int j = 0; j < newCentroids[c].length && stable; j++) {
+					stable &= Double.compare(newCentroids[c][j], currentCentroids[c][j]) == 0;
+				}
+			}
+			centroids = newCentroids;
+
+			if (!stable && boundsValid) {
+				// widening the bounds by the movement of the centroids
+				final double[] movements = new double[k];
+				double maximalMovement = 0;
+				double secondMaximalMovement = 0;
+				int maximalIndex = -1;
+				for (int c = 0; c < k; c++) {
+					movements[c] = Math.sqrt(getSquaredDistance(currentCentroids[c], newCentroids[c])) * (1 + MARGIN);
+					if (Double.isNaN(movements[c])) {
+						// the cluster became empty
+						movements[c] = 0;
+					} else if (movements[c] > maximalMovement) {
+						secondMaximalMovement = maximalMovement;
+						maximalMovement = movements[c];
+						maximalIndex = c;
+					} else if (movements[c] > secondMaximalMovement) {
+						secondMaximalMovement = movements[c];
+					}
+				}
+				final double firstMovement = maximalMovement;
+				final double secondMovement = secondMaximalMovement;
+				final int firstIndex = maximalIndex;
+				execute(new RangeTask<Object>() {
+					@Override
+					Object process(int from, int to) {
+						for (int i = from; i < to; i++) {
+							int assigned = assignments[i];
+							upperBounds[i] = (upperBounds[i] + movements[assigned]) * (1 + MARGIN);
+							if (useLowerBoundPerCentroid) {
+								int offset = i * k;
+								for (int c = 0; c < k; c++) {
+									lowerBounds[offset + c] = lowerBounds[offset + c] * (1 - MARGIN) - movements[c];
+								}
+							} else {
+								double movement = assigned == firstIndex ? secondMovement : firstMovement;
+								lowerBounds[i] = lowerBounds[i] * (1 - MARGIN) - movement;
+							}
+						}
+						return null;
+					}
+				}, n, BLOCK_SIZE);
+			}
+		}
+		return assignments;
+	}
+
+	/** Returns the centroids after {@link #run(double[][], int)}. */
+	public double[][] getCentroids() {
+		return centroids;
+	}
+
+	private static boolean containsMissing(double[] vector) {
+		for (double value : vector) {
+			if (Double.isNaN(value)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean containsMissing(double[][] vectors) {
+		for (double[] vector : vectors) {
+			if (containsMissing(vector)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/** Assigns the given example to the nearest of all centroids and resets its bounds. */
+	private void assignNearest(int i, double[][] currentCentroids, double[] upperBounds, double[] lowerBounds, boolean useLowerBoundPerCentroid) {
+		double[] exampleValues = values[i];
+		int k = currentCentroids.length;
+		double nearestDistance = getSquaredDistance(currentCentroids[0], exampleValues);
+		double secondDistance = Double.POSITIVE_INFINITY;
+		int nearestIndex = 0;
+		if (useLowerBoundPerCentroid) {
+			lowerBounds[i * k] = Math.sqrt(nearestDistance) * (1 - MARGIN);
+		}
+		for (int c = 1; c < k; c++) {
+			double distance = getSquaredDistance(currentCentroids[c], exampleValues);
+			if (useLowerBoundPerCentroid) {
+				lowerBounds[i * k + c] = Math.sqrt(distance) * (1 - MARGIN);
+			}
+			if (distance < nearestDistance) {
+				secondDistance = nearestDistance;
+				nearestDistance = distance;
+				nearestIndex = c;
+			} else if (distance < secondDistance) {
+				secondDistance = distance;
+			}
+		}
+		assignments[i] = nearestIndex;
+		upperBounds[i] = Math.sqrt(nearestDistance) * (1 + MARGIN);
+		if (!useLowerBoundPerCentroid) {
+			lowerBounds[i] = Math.sqrt(secondDistance) * (1 - MARGIN);
+		}
+	}
+
+	/** Assigns the given example using one lower bound for the distances to all other centroids (Hamerly). */
+	private void assignByLowerBound(int i, double[][] currentCentroids, double[] upperBounds, double[] lowerBounds, double[] halfMinimalDistances) {
+		int assigned = assignments[i];
+		double bound = Math.max(halfMinimalDistances[assigned], lowerBounds[i]);
+		if (upperBounds[i] * (1 + MARGIN) < bound) {
+			return;
+		}
+		upperBounds[i] = Math.sqrt(getSquaredDistance(currentCentroids[assigned], values[i])) * (1 + MARGIN);
+		if (upperBounds[i] * (1 + MARGIN) < bound) {
+			return;
+		}
+		assignNearest(i, currentCentroids, upperBounds, lowerBounds, false);
+	}
+
+	/** Assigns the given example using lower bounds for the distance to each centroid (Elkan). */
+	private void assignByLowerBounds(int i, double[][] currentCentroids, boolean[] empty, double[] upperBounds, double[] lowerBounds, double[][] halfCentroidDistances, double[] halfMinimalDistances) {
+		int nearestIndex = assignments[i];
+		double upperBound = upperBounds[i];
+		if (upperBound * (1 + MARGIN) < halfMinimalDistances[nearestIndex]) {
+			return;
+		}
+		double[] exampleValues = values[i];
+		int k = currentCentroids.length;
+		int offset = i * k;
+		boolean tight = false;
+		double nearestDistance = Double.NaN;
+		for (int c = 0; c < k; c++) {
+			if (c == nearestIndex || empty[c]) {
+				continue;
+			}
+			double bound = Math.max(lowerBounds[offset + c], halfCentroidDistances[nearestIndex][c]);
+			if (upperBound * (1 + MARGIN) < bound) {
+				continue;
+			}
+			if (!tight) {
+				nearestDistance = getSquaredDistance(currentCentroids[nearestIndex], exampleValues);
+				upperBound = Math.sqrt(nearestDistance) * (1 + MARGIN);
+				lowerBounds[offset + nearestIndex] = Math.sqrt(nearestDistance) * (1 - MARGIN);
+				tight = true;
+				if (upperBound * (1 + MARGIN) < bound) {
+					continue;
+				}
+			}
+			double distance = getSquaredDistance(currentCentroids[c], exampleValues);
+			lowerBounds[offset + c] = Math.sqrt(distance) * (1 - MARGIN);
+			if (distance < nearestDistance || (distance == nearestDistance && c < nearestIndex)) {
+				nearestDistance = distance;
+				nearestIndex = c;
+				upperBound = Math.sqrt(distance) * (1 + MARGIN);
+			}
+		}
+		assignments[i] = nearestIndex;
+		upperBounds[i] = upperBound;
+	}
+
+	/** Calculates the means of the examples assigned to the clusters in the given range. */
+	private void calculateCentroids(int from, int to, double[][] newCentroids) {
+		int dimensions = centroids[0].length;
+		double[][] sums = new double[to - from][dimensions];
+		int[] counts = new int[to - from];
+		for (int i = 0; i < values.length; i++) {
+			int cluster = assignments[i];
+			if (cluster >= from && cluster < to) {
+				double[] sum = sums[cluster - from];
+				double[] exampleValues = values[i];
+				for (int j = 0; j < dimensions; j++) {
+					sum[j] += exampleValues[j];
+				}
+				counts[cluster - from]++;
+			}
+		}
+		for (int c = from; c < to; c++) {
+			double[] centroid = sums[c - from];
+			for (int j = 0; j < dimensions; j++) {
+				centroid[j] = centroid[j] / counts[c - from];
+			}
+			newCentroids[c] = centroid;
+		}
+	}
+}
@@ -47,7 +47,8 @@ import com.rapidminer.tools.math.kernels.Kernel;
  * This operator is an implementation of kernel k means. Kernel K Means uses kernels to estimate distance between 
  * objects and clusters. Because of the nature of kernels it is necessary to sum over all elements of a cluster to 
  * calculate one distance. So this algorithm is quadratic in number of examples and returns NO CentroidClusterModel,
- * as its older brother KMeans does.
+ * as its older brother KMeans does. The values are read once and the assignment of the examples is
+ * partitioned across threads like in the {@link KMeansAlgorithm}.
  * This operator will create a cluster attribute if not present yet.
  * 
  * @author Sebastian Land
@@ -72,7 +73,7 @@ public class KernelKMeans extends RMAbstractClusterer {
 		int k = getParameterAsInt(PARAMETER_K);
 		int maxOptimizationSteps = getParameterAsInt(PARAMETER_MAX_OPTIMIZATION_STEPS);
 		boolean useExampleWeights = getParameterAsBoolean(PARAMETER_USE_WEIGHTS);
-		Kernel kernel = Kernel.createKernel(this);
+		final Kernel kernel = Kernel.createKernel(this);
 
 		// checking and creating ids if necessary
 		Tools.checkAndCreateIds(exampleSet);
@@ -102,64 +103,86 @@ public class KernelKMeans extends RMAbstractClusterer {
 			clusterAssignments[i] = generator.nextIntInRange(0, k);
 		}
 
+		// reading values and weights once
+		final double[][] values = KMeansAlgorithm.getValues(exampleSet);
+		final double[] weights = new double[values.length];
+		int x = 0;
+		for (Example example: exampleSet) {
+			weights[x] = (useExampleWeights)? example.getValue(weightAttribute) : 1d;
+			x++;
+		}
+
 		// run optimization steps
 		boolean stable = false;
 		for (int step = 0; (step < maxOptimizationSteps) && !stable; step++) {
 			// checking for stop
 			checkForStop();
 
-			// calculating cluster kernel properties
-			double[] clusterWeights = new double[k];
-			double[] clusterKernelCorrection = new double[k];
-			int i = 0;
-			for (Example firstExample: exampleSet) {
-				double firstExampleWeight = (useExampleWeights)? firstExample.getValue(weightAttribute) : 1d;
-				double[] firstExampleValues = getAsDoubleArray(firstExample, attributes);
-				clusterWeights[clusterAssignments[i]] += firstExampleWeight;
-				int j = 0;
-				for (Example secondExample: exampleSet) {
-					if (clusterAssignments[i] == clusterAssignments[j]) {
-						double secondExampleWeight =  (useExampleWeights)? secondExample.getValue(weightAttribute) : 1d;
-						clusterKernelCorrection[clusterAssignments[i]] += firstExampleWeight * secondExampleWeight * kernel.calculateDistance(firstExampleValues, getAsDoubleArray(secondExample, attributes));
-					}
-					j++;	
-				}
-				i++;
+			// collecting the examples of each cluster in their order
+			final double[] clusterWeights = new double[k];
+			int[] clusterSizes = new int[k];
+			for (int i = 0; i < values.length; i++) {
+				clusterWeights[clusterAssignments[i]] += weights[i];
+				clusterSizes[clusterAssignments[i]]++;
 			}
+			final int[][] clusterMembers = new int[k][];
 			for (int z = 0; z < k; z++) {
-				clusterKernelCorrection[z] /= clusterWeights[z] * clusterWeights[z];
+				clusterMembers[z] = new int[clusterSizes[z]];
+				clusterSizes[z] = 0;
+			}
+			for (int i = 0; i < values.length; i++) {
+				int cluster = clusterAssignments[i];
+				clusterMembers[cluster][clusterSizes[cluster]] = i;
+				clusterSizes[cluster]++;
 			}
 
-			// assign examples to new centroids
-			int[] newClusterAssignments = new int[exampleSet.size()];
-			i = 0;
-			for (Example example: exampleSet) {
-				double[] exampleValues = getAsDoubleArray(example, attributes);
-				double exampleKernelValue = kernel.calculateDistance(exampleValues, exampleValues);
-				double nearestDistance = Double.POSITIVE_INFINITY;
-				int nearestIndex = 0;
-				for (int clusterIndex = 0; clusterIndex < k; clusterIndex++) {
-					double distance = 0; 
-					// iterating over all examples in cluster to get kernel distance
-					int j = 0;
-					for (Example clusterExample: exampleSet) {
-						if (clusterAssignments[j] == clusterIndex) {
-							distance += ((useExampleWeights)? clusterExample.getValue(weightAttribute) : 1d) * kernel.calculateDistance(getAsDoubleArray(clusterExample, attributes), exampleValues);
+			// calculating cluster kernel properties
+			final double[] clusterKernelCorrection = new double[k];
+			KMeansAlgorithm.execute(new KMeansAlgorithm.RangeTask<Object>() {
+				@Override
+				Object process(int from, int to) {
+					for (int z = from; z < to; z++) {
+						for (int i : clusterMembers[z]) {
+							for (int j : clusterMembers[z]) {
+								clusterKernelCorrection[z] += weights[i] * weights[j] * kernel.calculateDistance(values[i], values[j]);
+							}
 						}
-						j++;
+						clusterKernelCorrection[z] /= clusterWeights[z] * clusterWeights[z];
 					}
-					distance *= (-2d) / clusterWeights[clusterIndex];
-					// copy in outer loop
-					distance += exampleKernelValue;
-					distance += clusterKernelCorrection[clusterIndex];
-					if (distance < nearestDistance) {
-						nearestDistance = distance;
-						nearestIndex = clusterIndex;
+					return null;
+				}
+			}, k, 1);
+
+			// assign examples to new centroids
+			final int[] newClusterAssignments = new int[values.length];
+			KMeansAlgorithm.execute(new KMeansAlgorithm.RangeTask<Object>() {
+				@Override
+				Object process(int from, int to) {
+					for (int i = from; i < to; i++) {
+						double[] exampleValues = values[i];
+						double exampleKernelValue = kernel.calculateDistance(exampleValues, exampleValues);
+						double nearestDistance = Double.POSITIVE_INFINITY;
+						int nearestIndex = 0;
+						for (int clusterIndex = 0; clusterIndex < clusterMembers.length; clusterIndex++) {
+							double distance = 0; 
+							// iterating over all examples in cluster to get kernel distance
+							for (int j : clusterMembers[clusterIndex]) {
+								distance += weights[j] * kernel.calculateDistance(values[j], exampleValues);
+							}
+							distance *= (-2d) / clusterWeights[clusterIndex];
+							// copy in outer loop
+							distance += exampleKernelValue;
+							distance += clusterKernelCorrection[clusterIndex];
+							if (distance < nearestDistance) {
+								nearestDistance = distance;
+								nearestIndex = clusterIndex;
+							}
+						}
+						newClusterAssignments[i] = nearestIndex;
 					}
+					return null;
 				}
-				newClusterAssignments[i] = nearestIndex;
-				i++;
-			}
+			}, values.length, KMeansAlgorithm.BLOCK_SIZE);
 
 			// finishing assignment
 			stable = true;
@@ -184,16 +207,6 @@ public class KernelKMeans extends RMAbstractClusterer {
 		return model;
 	}
 
-	private double[] getAsDoubleArray(Example example, Attributes attributes) {
-		double[] values = new double[attributes.size()];
-		int i = 0;
-		for (Attribute attribute: attributes) {
-			values[i] = example.getValue(attribute);
-			i++;
-		}
-		return values;
-	}
-
 	@Override
 	public List<ParameterType> getParameterTypes() {
 		List<ParameterType> types = super.getParameterTypes();	
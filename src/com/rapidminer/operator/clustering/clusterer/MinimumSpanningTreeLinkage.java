@@ -0,0 +1,152 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2011 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.operator.clustering.clusterer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import com.rapidminer.operator.Operator;
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.tools.ParallelExecutionService;
+import com.rapidminer.tools.math.similarity.DistanceMeasure;
+
+/**
+ * Computes the agglomerations of the single linkage clustering as the edges of a minimum
+ * spanning tree which is built by Prim's algorithm. In contrast to updating a distance
+ * matrix, this needs quadratic time but only linear memory since the distances are
+ * calculated when needed. In each step, the distances of the remaining examples to the
+ * example added last are updated by one task per fixed range of examples on the
+ * {@link ParallelExecutionService}.
+ * 
+ * The agglomerations are not found in the order of their distances. Each agglomeration
+ * refers to the clusters by the index of an arbitrary example of each cluster.
+ * 
+ * @author Sebastian Land
+ */
+public class MinimumSpanningTreeLinkage {
+
+	/** The minimal number of examples for which the distances are updated by an additional thread. */
+	private static final int MIN_EXAMPLES_PER_THREAD = 5000;
+
+	private final double[][] values;
+
+	private final DistanceMeasure measure;
+
+	private final Operator operator;
+
+	/** The minimal distance of each example to the examples of the tree. */
+	private double[] minimalDistances;
+
+	/** The example of the tree with the minimal distance to each example. */
+	private int[] nearestExamples;
+
+	private boolean[] isConnected;
+
+	/** The example added last to the tree. */
+	private int lastConnected;
+
+	/** The measure must be initialized and is applied on the given values of the examples. */
+	public MinimumSpanningTreeLinkage(double[][] values, DistanceMeasure measure, Operator operator) {
+		this.values = values;
+		this.measure = measure;
+		this.operator = operator;
+	}
+
+	public Agglomeration[] getAgglomerations() throws OperatorException {
+		int n = values.length;
+		Agglomeration[] agglomerations = new Agglomeration[Math.max(0, n - 1)];
+		if (n <= 1) {
+			return agglomerations;
+		}
+		minimalDistances = new double[n];
+		nearestExamples = new int[n];
+		isConnected = new boolean[n];
+		for (int i = 0; i < n; i++) {
+			minimalDistances[i] = Double.POSITIVE_INFINITY;
+		}
+		isConnected[0] = true;
+		lastConnected = 0;
+
+		// each step updates the same ranges of examples, the tasks are executed anew for each step
+		int numberOfThreads = Math.max(1, Math.min(ParallelExecutionService.getNumberOfThreads(), n / MIN_EXAMPLES_PER_THREAD));
+		List<Callable<Integer>> updates = new ArrayList<Callable<Integer>>(numberOfThreads);
+		for (int range = 0; range < numberOfThreads; range++) {
+			final int start = (int)((long)n * range / numberOfThreads);
+			final int end = (int)((long)n * (range + 1) / numberOfThreads);
+			updates.add(new Callable<Integer>() {
+				public Integer call() {
+					return updateDistances(start, end);
+				}
+			});
+		}
+		for (int step = 0; step < n - 1; step++) {
+			List<Integer> nearestOfRanges;
+			if (numberOfThreads == 1) {
+				nearestOfRanges = Collections.singletonList(updateDistances(0, n));
+			} else {
+				nearestOfRanges = ParallelExecutionService.execute(updates, numberOfThreads, "SingleLinkage");
+			}
+			agglomerations[step] = connectNearest(nearestOfRanges);
+			operator.checkForStop();
+		}
+		return agglomerations;
+	}
+
+	/** Updates the distances of the examples in the given range to the example added last and returns the nearest one of them (or -1). */
+	private int updateDistances(int start, int end) {
+		int last = lastConnected;
+		double[] lastValues = values[last];
+		int nearest = -1;
+		double nearestDistance = Double.POSITIVE_INFINITY;
+		for (int i = start; i < end; i++) {
+			if (!isConnected[i]) {
+				// always using the example with the lower index as first argument like a distance matrix
+				double distance = i < last ? measure.calculateDistance(values[i], lastValues) : measure.calculateDistance(lastValues, values[i]);
+				if (distance < minimalDistances[i]) {
+					minimalDistances[i] = distance;
+					nearestExamples[i] = last;
+				}
+				if (nearest == -1 || minimalDistances[i] < nearestDistance) {
+					nearest = i;
+					nearestDistance = minimalDistances[i];
+				}
+			}
+		}
+		return nearest;
+	}
+
+	/** Adds the nearest example of all ranges to the tree and returns the corresponding agglomeration. */
+	private Agglomeration connectNearest(List<Integer> nearestOfRanges) {
+		int nearest = -1;
+		for (int candidate : nearestOfRanges) {
+			if (candidate >= 0 && (nearest == -1 || minimalDistances[candidate] < minimalDistances[nearest])) {
+				nearest = candidate;
+			}
+		}
+		isConnected[nearest] = true;
+		lastConnected = nearest;
+		return new Agglomeration(nearestExamples[nearest], nearest, minimalDistances[nearest]);
+	}
+}
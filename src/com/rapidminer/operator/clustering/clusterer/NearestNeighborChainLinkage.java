@@ -0,0 +1,139 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2011 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.operator.clustering.clusterer;
+
+import com.rapidminer.operator.Operator;
+import com.rapidminer.operator.OperatorException;
+
+/**
+ * Computes the agglomerations of the complete or average linkage clustering with the
+ * nearest neighbor chain algorithm. Starting from an arbitrary cluster, the chain is
+ * extended by the nearest neighbor of its last cluster until two clusters are reciprocal
+ * nearest neighbors. These are merged and the chain is continued. Since both linkages are
+ * reducible, this delivers the same hierarchy as always merging the globally closest
+ * clusters (apart from ties) but needs only quadratic instead of cubic time.
+ * 
+ * The agglomerations are not found in the order of their distances. Each agglomeration
+ * refers to the clusters by the index of an arbitrary example of each cluster.
+ * 
+ * @author Sebastian Land
+ */
+public class NearestNeighborChainLinkage {
+
+	public static final int COMPLETE_LINKAGE = 0;
+
+	public static final int AVERAGE_LINKAGE = 1;
+
+	private final DistanceMatrix matrix;
+
+	private final int linkage;
+
+	private final Operator operator;
+
+	/**
+	 * The given matrix must contain the distances between all examples. It is modified
+	 * during the agglomeration. The operator is used for checking for stop.
+	 */
+	public NearestNeighborChainLinkage(DistanceMatrix matrix, int linkage, Operator operator) {
+		this.matrix = matrix;
+		this.linkage = linkage;
+		this.operator = operator;
+	}
+
+	public Agglomeration[] getAgglomerations() throws OperatorException {
+		int n = matrix.getHeight();
+		Agglomeration[] agglomerations = new Agglomeration[Math.max(0, n - 1)];
+		// each cluster is stored in the row of one of its examples
+		boolean[] isActive = new boolean[n];
+		int[] clusterSizes = new int[n];
+		for (int i = 0; i < n; i++) {
+			isActive[i] = true;
+			clusterSizes[i] = 1;
+		}
+		int[] chain = new int[n];
+		int chainLength = 0;
+		int firstActive = 0;
+		int numberOfAgglomerations = 0;
+		while (numberOfAgglomerations < n - 1) {
+			operator.checkForStop();
+			if (chainLength == 0) {
+				while (!isActive[firstActive]) {
+					firstActive++;
+				}
+				chain[chainLength++] = firstActive;
+			}
+
+			// searching nearest neighbor of the last cluster, preferring its predecessor in case of ties
+			int last = chain[chainLength - 1];
+			int nearest = -1;
+			double minimalDistance = Double.POSITIVE_INFINITY;
+			if (chainLength > 1) {
+				nearest = chain[chainLength - 2];
+				minimalDistance = matrix.get(last, nearest);
+			}
+			for (int i = 0; i < n; i++) {
+				if (isActive[i] && i != last) {
+					double distance = matrix.get(last, i);
+					if (distance < minimalDistance || nearest == -1) {
+						nearest = i;
+						minimalDistance = distance;
+					}
+				}
+			}
+
+			if (chainLength > 1 && nearest == chain[chainLength - 2]) {
+				// reciprocal nearest neighbors: merge into the row with the smaller index
+				chainLength -= 2;
+				agglomerations[numberOfAgglomerations++] = new Agglomeration(last, nearest, minimalDistance);
+				int updatedRow = Math.min(last, nearest);
+				int unionedRow = Math.max(last, nearest);
+				updateDistances(updatedRow, unionedRow, clusterSizes, isActive);
+				isActive[unionedRow] = false;
+				clusterSizes[updatedRow] += clusterSizes[unionedRow];
+			} else {
+				chain[chainLength++] = nearest;
+			}
+		}
+		return agglomerations;
+	}
+
+	/** Updates the distances of the updated row to all active clusters by the Lance-Williams formula of the linkage. */
+	private void updateDistances(int updatedRow, int unionedRow, int[] clusterSizes, boolean[] isActive) {
+		double weightUpdatedRow = clusterSizes[updatedRow];
+		double weightUnionedRow = clusterSizes[unionedRow];
+		double totalWeight = weightUnionedRow + weightUpdatedRow;
+		weightUnionedRow /= totalWeight;
+		weightUpdatedRow /= totalWeight;
+		for (int i = 0; i < isActive.length; i++) {
+			if (isActive[i] && i != updatedRow && i != unionedRow) {
+				double updatedDistance = matrix.get(updatedRow, i);
+				double unionedDistance = matrix.get(unionedRow, i);
+				if (linkage == COMPLETE_LINKAGE) {
+					matrix.set(updatedRow, i, Math.max(updatedDistance, unionedDistance));
+				} else {
+					matrix.set(updatedRow, i, weightUpdatedRow * updatedDistance + weightUnionedRow * unionedDistance);
+				}
+			}
+		}
+	}
+}
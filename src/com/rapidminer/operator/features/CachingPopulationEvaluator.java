@@ -0,0 +1,144 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2011 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.operator.features;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.performance.PerformanceVector;
+
+/**
+ * This population evaluator remembers the performances of the individuals evaluated by another
+ * population evaluator. The performances are cached for the weights of the individuals, i.e. for
+ * the attribute mask in case of feature selection. Individuals whose weights were already evaluated
+ * in an earlier generation get the cached performance, and individuals with the same weights within
+ * a generation are evaluated only once. The least recently used entries are removed if the cache
+ * contains more weights than {@link #MAXIMAL_NUMBER_OF_CACHED_WEIGHTS}.
+ * 
+ * Please note that this is only equivalent to evaluating each individual if the evaluation
+ * process delivers the same performance for the same weights, i.e. if it does not use random numbers.
+ * 
+ * @author Sebastian Land
+ */
+public class CachingPopulationEvaluator implements PopulationEvaluator {
+
+	/** The maximal total number of weights in the cache, i.e. the number of cached individuals times the number of attributes. */
+	public static final int MAXIMAL_NUMBER_OF_CACHED_WEIGHTS = 1 << 22;
+
+	/** The key of an individual in the cache. */
+	private static class WeightsKey {
+
+		private final double[] weights;
+		private final int hashCode;
+
+		private WeightsKey(double[] weights) {
+			this.weights = weights.clone();
+			this.hashCode = Arrays.hashCode(this.weights);
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof WeightsKey))
+				return false;
+			return Arrays.equals(weights, ((WeightsKey) o).weights);
+		}
+	}
+
+	private final PopulationEvaluator evaluator;
+
+	private final Map<WeightsKey, PerformanceVector> cache;
+
+	private int numberOfCacheHits = 0;
+
+	/**
+	 * Creates a cache for the performances delivered by the given evaluator for individuals with the
+	 * given number of attributes.
+	 */
+	public CachingPopulationEvaluator(PopulationEvaluator evaluator, int numberOfAttributes) {
+		this.evaluator = evaluator;
+		final int maximalSize = Math.max(1, MAXIMAL_NUMBER_OF_CACHED_WEIGHTS / Math.max(1, numberOfAttributes));
+		this.cache = new LinkedHashMap<WeightsKey, PerformanceVector>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 2883714616377826012L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<WeightsKey, PerformanceVector> eldest) {
+				return size() > maximalSize;
+			}
+		};
+	}
+
+	public void evaluate(Population population) throws OperatorException {
+		// collects the individuals which must be evaluated, each weights only once
+		Population unknownIndividuals = new Population();
+		Map<WeightsKey, PerformanceVector> cachedPerformances = new HashMap<WeightsKey, PerformanceVector>();
+		Map<WeightsKey, Individual> evaluatedIndividuals = new HashMap<WeightsKey, Individual>();
+		List<WeightsKey> keys = new ArrayList<WeightsKey>(population.getNumberOfIndividuals());
+		for (int i = 0; i < population.getNumberOfIndividuals(); i++) {
+			Individual individual = population.get(i);
+			WeightsKey key = null;
+			if (individual.getPerformance() == null) {
+				key = new WeightsKey(individual.getWeights());
+				PerformanceVector cachedPerformance = cache.get(key);
+				if (cachedPerformance != null) {
+					cachedPerformances.put(key, cachedPerformance);
+					numberOfCacheHits++;
+				} else if (!evaluatedIndividuals.containsKey(key)) {
+					evaluatedIndividuals.put(key, individual);
+					unknownIndividuals.add(individual);
+				}
+			}
+			keys.add(key);
+		}
+		if (unknownIndividuals.getNumberOfIndividuals() > 0) {
+			evaluator.evaluate(unknownIndividuals);
+			for (Map.Entry<WeightsKey, Individual> entry : evaluatedIndividuals.entrySet()) {
+				cache.put(entry.getKey(), entry.getValue().getPerformance());
+			}
+		}
+
+		for (int i = 0; i < population.getNumberOfIndividuals(); i++) {
+			WeightsKey key = keys.get(i);
+			if (key != null) {
+				Individual evaluatedIndividual = evaluatedIndividuals.get(key);
+				population.get(i).setPerformance(evaluatedIndividual != null ? evaluatedIndividual.getPerformance() : cachedPerformances.get(key));
+			}
+			population.updateEvaluation();
+		}
+	}
+
+	/** Returns the number of individuals which got a cached performance. */
+	public int getNumberOfCacheHits() {
+		return numberOfCacheHits;
+	}
+}
@@ -74,6 +74,11 @@ import com.rapidminer.tools.Tools;
  * <tt>getPostEvalutaionPopulationOperators()</tt> during a loop which will
  * terminate if <tt>solutionGoodEnough()</tt> returns true.
  * 
+ * If <var>parallelize_evaluation</var> is checked, the individuals of a population are
+ * evaluated in parallel on clones of the evaluation process (see {@link ParallelPopulationEvaluator}).
+ * If <var>use_fitness_cache</var> is checked, individuals with weights which were already
+ * evaluated get the known performance (see {@link CachingPopulationEvaluator}).
+ * 
  * @author Simon Fischer, Ingo Mierswa
  *          <br>
  */
@@ -97,6 +102,10 @@ public abstract class FeatureOperator extends OperatorChain {
 
 	public static final String PARAMETER_MAXIMAL_FITNESS = "maximal_fitness";
 
+	public static final String PARAMETER_PARALLELIZE_EVALUATION = "parallelize_evaluation";
+
+	public static final String PARAMETER_USE_FITNESS_CACHE = "use_fitness_cache";
+
 	private final InputPort exampleSetInput = getInputPorts().createPort("example set in");
 	private final OutputPort exampleSetOutput = getOutputPorts().createPort("example set out");
 	private final OutputPort attributeWeightsOutput = getOutputPorts().createPort("weights");
@@ -416,6 +425,10 @@ public abstract class FeatureOperator extends OperatorChain {
 			attributeWeights.normalize();
 
 
+		if (populationEvaluator instanceof CachingPopulationEvaluator) {
+			log("Optimization finished. " + ((CachingPopulationEvaluator) populationEvaluator).getNumberOfCacheHits() + " performances were taken from the fitness cache.");
+		}
+
 		// clean up
 		exampleSetOutput.deliver(createCleanClone(exampleSet, weights));
 		attributeWeightsOutput.deliver(attributeWeights);
@@ -551,10 +564,21 @@ public abstract class FeatureOperator extends OperatorChain {
 
 		types.add(new ParameterTypeFile(PARAMETER_POPULATION_CRITERIA_DATA_FILE, "The path to the file in which the criteria data of the final population should be saved.", "cri", true));
 		types.add(new ParameterTypeDouble(PARAMETER_MAXIMAL_FITNESS, "The optimization will stop if the fitness reaches the defined maximum.", 0.0d, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY));
+		types.add(new ParameterTypeBoolean(PARAMETER_PARALLELIZE_EVALUATION, "Indicates if the individuals of a population should be evaluated in parallel on clones of the evaluation process. The number of threads is defined by the global settings.", false, true));
+		types.add(new ParameterTypeBoolean(PARAMETER_USE_FITNESS_CACHE, "Indicates if the performances of evaluated individuals should be cached, so that individuals with the same weights are not evaluated again. Should only be used if the evaluation does not depend on random numbers.", false, true));
 		return types;
 	}
 
 	protected PopulationEvaluator getPopulationEvaluator(ExampleSet exampleSet) throws OperatorException {
-		return new SimplePopulationEvaluator(this, exampleSet);
+		PopulationEvaluator evaluator;
+		if (getParameterAsBoolean(PARAMETER_PARALLELIZE_EVALUATION)) {
+			evaluator = new ParallelPopulationEvaluator(this, exampleSet);
+		} else {
+			evaluator = new SimplePopulationEvaluator(this, exampleSet);
+		}
+		if (getParameterAsBoolean(PARAMETER_USE_FITNESS_CACHE)) {
+			evaluator = new CachingPopulationEvaluator(evaluator, exampleSet.getAttributes().size());
+		}
+		return evaluator;
 	}
 }
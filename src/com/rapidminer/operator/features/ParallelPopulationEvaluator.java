@@ -0,0 +1,96 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2011 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.operator.features;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.performance.PerformanceVector;
+import com.rapidminer.tools.OperatorClonePool;
+import com.rapidminer.tools.RandomGenerator;
+
+/**
+ * This population evaluator evaluates the individuals of a population in parallel.
+ * The evaluation process is executed on clones of the feature operator, at most one
+ * per thread (see {@link OperatorClonePool}). The number of threads is defined by the
+ * global settings.
+ * 
+ * Each individual is evaluated with its own random generator replacing the global one.
+ * The seeds of these generators are drawn in the order of the individuals from a generator
+ * which does not change the global one, and the performances are assigned in this order, too.
+ * Hence, the results do not depend on the number of threads. They are the same as the ones of the
+ * {@link SimplePopulationEvaluator} if the evaluation process does not use random numbers.
+ * 
+ * @author Sebastian Land
+ */
+public class ParallelPopulationEvaluator implements PopulationEvaluator {
+
+	private final ExampleSet originalSet;
+
+	/** Draws the seeds of the random generators of the individuals. */
+	private final RandomGenerator seedGenerator;
+
+	private final OperatorClonePool<FeatureOperator> clonePool;
+
+	public ParallelPopulationEvaluator(FeatureOperator operator, ExampleSet originalSet) {
+		this.originalSet = originalSet;
+		this.seedGenerator = RandomGenerator.getIndependentRandomGenerator(operator);
+		this.clonePool = new OperatorClonePool<FeatureOperator>(operator, originalSet, true);
+	}
+
+	public void evaluate(Population population) throws OperatorException {
+		List<Individual> individuals = new ArrayList<Individual>();
+		List<OperatorClonePool.CloneTask<FeatureOperator, PerformanceVector>> tasks = new ArrayList<OperatorClonePool.CloneTask<FeatureOperator, PerformanceVector>>();
+		List<RandomGenerator> randomGenerators = new ArrayList<RandomGenerator>();
+		for (int i = 0; i < population.getNumberOfIndividuals(); i++) {
+			Individual individual = population.get(i);
+			if (individual.getPerformance() == null) {
+				individuals.add(individual);
+				tasks.add(createTask(FeatureOperator.createCleanClone(originalSet, individual.getWeights())));
+				randomGenerators.add(new RandomGenerator(seedGenerator.nextLong()));
+			}
+		}
+		List<PerformanceVector> performances = clonePool.execute(tasks, randomGenerators);
+
+		// the performances are assigned in the same order as by the sequential evaluation
+		int evaluated = 0;
+		for (int i = 0; i < population.getNumberOfIndividuals(); i++) {
+			if (evaluated < individuals.size() && population.get(i) == individuals.get(evaluated)) {
+				population.get(i).setPerformance(performances.get(evaluated));
+				evaluated++;
+			}
+			population.updateEvaluation();
+		}
+	}
+
+	private OperatorClonePool.CloneTask<FeatureOperator, PerformanceVector> createTask(final ExampleSet exampleSet) {
+		return new OperatorClonePool.CloneTask<FeatureOperator, PerformanceVector>() {
+			@Override
+			public PerformanceVector call(FeatureOperator clone) throws OperatorException {
+				return clone.executeEvaluationProcess(exampleSet);
+			}
+		};
+	}
+}
@@ -22,8 +22,12 @@
  */
 package com.rapidminer.operator.features.construction;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import com.rapidminer.example.Attribute;
 import com.rapidminer.example.AttributeWeights;
@@ -44,6 +48,7 @@ import com.rapidminer.operator.ports.metadata.SubprocessTransformRule;
 import com.rapidminer.parameter.ParameterType;
 import com.rapidminer.parameter.ParameterTypeBoolean;
 import com.rapidminer.parameter.ParameterTypeDouble;
+import com.rapidminer.tools.OperatorClonePool;
 import com.rapidminer.tools.RandomGenerator;
 import com.rapidminer.tools.Tools;
 
@@ -57,6 +62,14 @@ import com.rapidminer.tools.Tools;
  * <tt>getPostEvalutaionPopulationOperators()</tt> during a loop which will
  * terminate if <tt>solutionGoodEnough()</tt> returns true.
  * 
+ * If <var>parallelize_evaluation</var> is checked, the individuals of a population are
+ * evaluated in parallel on clones of this operator. Each individual then uses its own
+ * random generator whose seed is drawn in the order of the individuals from a generator
+ * which does not change the global one, so the results do not depend on the number of threads. If
+ * <var>use_fitness_cache</var> is checked, the performances are cached for the constructions
+ * and weights of the used attributes and individuals with a known feature space are not
+ * evaluated again.
+ * 
  * @author Ingo Mierswa
  *          <br>
  */
@@ -66,6 +79,13 @@ public abstract class ExampleSetBasedFeatureOperator extends OperatorChain {
 
 	public static final String PARAMETER_MAXIMAL_FITNESS = "maximal_fitness";
 
+	public static final String PARAMETER_PARALLELIZE_EVALUATION = "parallelize_evaluation";
+
+	public static final String PARAMETER_USE_FITNESS_CACHE = "use_fitness_cache";
+
+	/** The maximal number of performances kept by the fitness cache. */
+	private static final int MAXIMAL_NUMBER_OF_CACHED_PERFORMANCES = 1 << 16;
+
 	private ExampleSetBasedPopulation population;
 
 	/** The optimization stops if this maximal fitness was reached. */
@@ -77,6 +97,17 @@ public abstract class ExampleSetBasedFeatureOperator extends OperatorChain {
 
 	private int totalEvaluations = 0;
 
+	private int cacheHits = 0;
+
+	/** Maps the keys of evaluated feature spaces to their performances. Null if no cache is used. */
+	private Map<String, PerformanceVector> fitnessCache;
+
+	/** The clones used for the parallel evaluation. Created when they are needed for the first time. */
+	private OperatorClonePool<ExampleSetBasedFeatureOperator> evaluationClonePool;
+
+	/** Draws the seeds of the random generators of the individuals evaluated in parallel. */
+	private RandomGenerator evaluationSeedGenerator;
+
 	private RandomGenerator random;
 
 	private final InputPort exampleSetInput = getInputPorts().createPort("example set in", ExampleSet.class);
@@ -220,7 +251,22 @@ public abstract class ExampleSetBasedFeatureOperator extends OperatorChain {
 		this.random = RandomGenerator.getRandomGenerator(this);
 		this.evaluationCounter = 0;
 		this.totalEvaluations = 0;
+		this.cacheHits = 0;
 		this.maximalFitness = getParameterAsDouble(PARAMETER_MAXIMAL_FITNESS);
+		this.evaluationClonePool = null;
+		this.evaluationSeedGenerator = RandomGenerator.getIndependentRandomGenerator(this);
+		if (getParameterAsBoolean(PARAMETER_USE_FITNESS_CACHE)) {
+			this.fitnessCache = new LinkedHashMap<String, PerformanceVector>(16, 0.75f, true) {
+				private static final long serialVersionUID = 2594729150207386271L;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, PerformanceVector> eldest) {
+					return size() > MAXIMAL_NUMBER_OF_CACHED_PERFORMANCES;
+				}
+			};
+		} else {
+			this.fitnessCache = null;
+		}
 
 		ExampleSet es = exampleSetInput.getData();
 
@@ -269,6 +315,11 @@ public abstract class ExampleSetBasedFeatureOperator extends OperatorChain {
 		// optimization finished
 		applyOpList(postOps, population);
 		log("Optimization finished. " + evaluationCounter + " / " + totalEvaluations + " evaluations performed.");
+		if (fitnessCache != null) {
+			log(cacheHits + " performances were taken from the fitness cache.");
+		}
+		this.fitnessCache = null;
+		this.evaluationClonePool = null;
 
 		// create result example set
 		ExampleSetBasedIndividual bestEver = population.getBestIndividualEver();
@@ -321,9 +372,100 @@ public abstract class ExampleSetBasedFeatureOperator extends OperatorChain {
 	 * operators.
 	 */
 	protected void evaluate(ExampleSetBasedPopulation population) throws OperatorException {
+		if (getParameterAsBoolean(PARAMETER_PARALLELIZE_EVALUATION)) {
+			evaluateInParallel(population);
+		} else {
+			for (int i = 0; i < population.getNumberOfIndividuals(); i++) {
+				evaluate(population.get(i));
+			}
+		}
+	}
+
+	/**
+	 * Evaluates all individuals without performance on clones of this operator. Individuals
+	 * with the same feature space as an already evaluated or a previous individual get the
+	 * same performance if the fitness cache is used.
+	 */
+	private void evaluateInParallel(ExampleSetBasedPopulation population) throws OperatorException {
+		List<OperatorClonePool.CloneTask<ExampleSetBasedFeatureOperator, PerformanceVector>> tasks = new ArrayList<OperatorClonePool.CloneTask<ExampleSetBasedFeatureOperator, PerformanceVector>>();
+		List<RandomGenerator> randomGenerators = new ArrayList<RandomGenerator>();
+		List<String> taskKeys = new ArrayList<String>();
+		Map<String, Integer> taskIndices = new HashMap<String, Integer>();
+		int[] individualTasks = new int[population.getNumberOfIndividuals()];
 		for (int i = 0; i < population.getNumberOfIndividuals(); i++) {
-			evaluate(population.get(i));
+			ExampleSetBasedIndividual individual = population.get(i);
+			individualTasks[i] = -1;
+			totalEvaluations++;
+			if (individual.getPerformance() == null) {
+				AttributeWeightedExampleSet clone = individual.getExampleSet().createCleanClone();
+				String key = null;
+				if (fitnessCache != null) {
+					key = getFitnessCacheKey(clone);
+					PerformanceVector cachedPerformance = fitnessCache.get(key);
+					if (cachedPerformance != null) {
+						cacheHits++;
+						individual.setPerformance(cachedPerformance);
+						continue;
+					}
+					Integer taskIndex = taskIndices.get(key);
+					if (taskIndex != null) {
+						cacheHits++;
+						individualTasks[i] = taskIndex;
+						continue;
+					}
+					taskIndices.put(key, tasks.size());
+				}
+				individualTasks[i] = tasks.size();
+				taskKeys.add(key);
+				tasks.add(createEvaluationTask(clone));
+				randomGenerators.add(new RandomGenerator(evaluationSeedGenerator.nextLong()));
+			}
 		}
+		if (tasks.isEmpty()) {
+			return;
+		}
+
+		if (evaluationClonePool == null) {
+			evaluationClonePool = new OperatorClonePool<ExampleSetBasedFeatureOperator>(this, exampleSetInput.getData(ExampleSet.class), false);
+		}
+		List<PerformanceVector> performances = evaluationClonePool.execute(tasks, randomGenerators);
+		evaluationCounter += tasks.size();
+		for (int i = 0; i < population.getNumberOfIndividuals(); i++) {
+			if (individualTasks[i] >= 0) {
+				population.get(i).setPerformance(performances.get(individualTasks[i]));
+			}
+		}
+		if (fitnessCache != null) {
+			for (int i = 0; i < tasks.size(); i++) {
+				fitnessCache.put(taskKeys.get(i), performances.get(i));
+			}
+		}
+	}
+
+	private OperatorClonePool.CloneTask<ExampleSetBasedFeatureOperator, PerformanceVector> createEvaluationTask(final AttributeWeightedExampleSet exampleSet) {
+		return new OperatorClonePool.CloneTask<ExampleSetBasedFeatureOperator, PerformanceVector>() {
+			@Override
+			public PerformanceVector call(ExampleSetBasedFeatureOperator clone) throws OperatorException {
+				clone.innerExampleSetSource.deliver(exampleSet);
+				clone.getSubprocess(0).execute();
+				return clone.innerPerformanceSink.getData();
+			}
+		};
+	}
+
+	/**
+	 * Returns the key of the feature space of the given clean clone for the fitness cache. The
+	 * key consists of the constructions and weights of the used attributes in their order.
+	 */
+	private String getFitnessCacheKey(AttributeWeightedExampleSet exampleSet) {
+		StringBuffer key = new StringBuffer();
+		for (Attribute attribute : exampleSet.getAttributes()) {
+			key.append(attribute.getConstruction());
+			key.append('\u0000');
+			key.append(exampleSet.getWeight(attribute));
+			key.append('\u0000');
+		}
+		return key.toString();
 	}
 
 	/**
@@ -335,14 +477,27 @@ public abstract class ExampleSetBasedFeatureOperator extends OperatorChain {
 		if (individual.getPerformance() != null) {
 			return individual.getPerformance();
 		} else {
-			evaluationCounter++;
 			AttributeWeightedExampleSet clone = individual.getExampleSet().createCleanClone();
+			String key = null;
+			if (fitnessCache != null) {
+				key = getFitnessCacheKey(clone);
+				PerformanceVector cachedPerformance = fitnessCache.get(key);
+				if (cachedPerformance != null) {
+					cacheHits++;
+					individual.setPerformance(cachedPerformance);
+					return cachedPerformance;
+				}
+			}
+			evaluationCounter++;
 			innerExampleSetSource.deliver(clone);
 
 			getSubprocess(0).execute();
 
 			PerformanceVector performanceVector = innerPerformanceSink.getData();
 			individual.setPerformance(performanceVector);
+			if (fitnessCache != null) {
+				fitnessCache.put(key, performanceVector);
+			}
 			return performanceVector;
 		}
 	}
@@ -394,6 +549,8 @@ public abstract class ExampleSetBasedFeatureOperator extends OperatorChain {
 		types.add(type);
 
 		types.add(new ParameterTypeDouble(PARAMETER_MAXIMAL_FITNESS, "The optimization will stop if the fitness reaches the defined maximum.", 0.0d, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY));
+		types.add(new ParameterTypeBoolean(PARAMETER_PARALLELIZE_EVALUATION, "Indicates if the individuals of a population should be evaluated in parallel on clones of the evaluation process. The number of threads is defined by the global settings.", false, true));
+		types.add(new ParameterTypeBoolean(PARAMETER_USE_FITNESS_CACHE, "Indicates if the performances of evaluated individuals should be cached, so that individuals with the same feature space are not evaluated again. Should only be used if the evaluation does not depend on random numbers.", false, true));
 		return types;
 	}
 }
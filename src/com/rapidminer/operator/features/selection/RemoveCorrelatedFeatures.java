@@ -27,9 +27,7 @@ import java.util.List;
 import java.util.Vector;
 
 import com.rapidminer.example.Attribute;
-import com.rapidminer.example.Example;
 import com.rapidminer.example.ExampleSet;
-import com.rapidminer.example.Statistics;
 import com.rapidminer.operator.OperatorDescription;
 import com.rapidminer.operator.OperatorException;
 import com.rapidminer.operator.ValueDouble;
@@ -38,6 +36,7 @@ import com.rapidminer.parameter.ParameterTypeBoolean;
 import com.rapidminer.parameter.ParameterTypeCategory;
 import com.rapidminer.parameter.ParameterTypeDouble;
 import com.rapidminer.tools.Tools;
+import com.rapidminer.tools.math.matrix.CovarianceStatistics;
 
 
 /**
@@ -111,32 +110,11 @@ public class RemoveCorrelatedFeatures extends AbstractFeatureSelection {
 
 	@Override
 	public ExampleSet apply(ExampleSet exampleSet) throws OperatorException {		 
-		exampleSet.recalculateAllAttributeStatistics();
-
-		double[] means = new double[exampleSet.getAttributes().size()];
-		double[] deviations = new double[exampleSet.getAttributes().size()];
 		boolean[] removeFeature = new boolean[exampleSet.getAttributes().size()];
 		int[] attributeIndex = new int[exampleSet.getAttributes().size()];
 
-		int index = 0;
-		for (Attribute attribute : exampleSet.getAttributes()) {
-			means[index] = exampleSet.getStatistics(attribute, Statistics.AVERAGE);
-			deviations[index] = Math.sqrt(exampleSet.getStatistics(attribute, Statistics.VARIANCE));
-			removeFeature[index] = false;
-			attributeIndex[index] = index;
-			index++;
-		}
-
-		double[][] samples = new double[exampleSet.size()][exampleSet.getAttributes().size()];
-
-		int counter = 0;
-		for (Example example : exampleSet) {
-			int d = 0;
-			for (Attribute attribute : example.getAttributes()) {
-				samples[counter][d++] = example.getValue(attribute);
-			}
-			counter++;
-		}
+		Attribute[] allAttributes = exampleSet.getAttributes().createRegularAttributeArray();
+		CovarianceStatistics statistics = CovarianceStatistics.calculate(exampleSet, allAttributes, false);
 
 		// attribute order
 		int order = getParameterAsInt(PARAMETER_ATTRIBUTE_ORDER);
@@ -174,7 +152,6 @@ public class RemoveCorrelatedFeatures extends AbstractFeatureSelection {
 			logWarning("Correlation value is lower zero. Setting to absolute: " + threshold);
 		}
 
-		Attribute[] allAttributes = exampleSet.getAttributes().createRegularAttributeArray();
 		for (int i = 0; i < exampleSet.getAttributes().size() - 1; i++) {
 			if (removeFeature[attributeIndex[i]] == true) {
 				continue;
@@ -184,7 +161,7 @@ public class RemoveCorrelatedFeatures extends AbstractFeatureSelection {
 					continue;
 				}
 
-				double correlation = getCorrelation(samples, means, deviations, attributeIndex[i], attributeIndex[j]);
+				double correlation = getCorrelation(statistics, attributeIndex[i], attributeIndex[j]);
 				if (absolute) {
 					correlation = Math.abs(correlation);
 				}
@@ -200,7 +177,7 @@ public class RemoveCorrelatedFeatures extends AbstractFeatureSelection {
 
 		// actual removal (and counter)
 		this.removedFeatures = 0;
-		index = 0;
+		int index = 0;
 		Iterator<Attribute> iterator = exampleSet.getAttributes().iterator();
 		while (iterator.hasNext()) {
 			iterator.next();
@@ -240,17 +217,12 @@ public class RemoveCorrelatedFeatures extends AbstractFeatureSelection {
 	 *            index of feature 2
 	 * @return the correlation in (-1.0,1.0)
 	 */
-	private double getCorrelation(double[][] samples, double[] means, double[] deviations, int att1, int att2) {
-		// calculate covariance
-		double covariance = 0.0d;
-		for (int j = 0; j < samples.length; j++) {
-			covariance += (samples[j][att1] - means[att1]) * (samples[j][att2] - means[att2]);
-		}
-		covariance = covariance / (samples.length - 1);
+	private double getCorrelation(CovarianceStatistics statistics, int att1, int att2) {
+		double covariance = statistics.getCovariance(att1, att2);
 
 		// calculate correlation
 		double correlation = 0.0d;
-		correlation = (deviations[att1] * deviations[att2]);
+		correlation = Math.sqrt(statistics.getVariance(att1) * statistics.getVariance(att2));
 		if (correlation == 0.0d) {
 			correlation = covariance;
 		} else {
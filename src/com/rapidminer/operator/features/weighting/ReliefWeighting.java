@@ -22,12 +22,11 @@
  */
 package com.rapidminer.operator.features.weighting;
 
-import java.util.HashMap;
-import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
-import java.util.Map;
-import java.util.SortedSet;
-import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 
 import com.rapidminer.example.Attribute;
 import com.rapidminer.example.AttributeWeights;
@@ -38,12 +37,16 @@ import com.rapidminer.example.set.SplittedExampleSet;
 import com.rapidminer.operator.OperatorCapability;
 import com.rapidminer.operator.OperatorDescription;
 import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.ProcessStoppedException;
 import com.rapidminer.operator.UserError;
 import com.rapidminer.parameter.ParameterType;
 import com.rapidminer.parameter.ParameterTypeDouble;
 import com.rapidminer.parameter.ParameterTypeInt;
+import com.rapidminer.tools.ParallelExecutionService;
 import com.rapidminer.tools.RandomGenerator;
-import com.rapidminer.tools.Tools;
+import com.rapidminer.tools.container.Tupel;
+import com.rapidminer.tools.math.container.KDTree;
+import com.rapidminer.tools.math.similarity.numerical.EuclideanDistance;
 
 
 /**
@@ -53,6 +56,11 @@ import com.rapidminer.tools.Tools;
  * works for multiple classes and regression data sets. The resulting
  * weights are normalized into the interval between 0 and 1.</p>
  *
+ * <p>The nearest examples of each class are searched in a kd tree if the
+ * number of attributes is small compared to the number of examples of the
+ * class and no values are missing. Otherwise, all examples of the class are
+ * scanned. The sampled examples are processed in parallel.</p>
+ *
  * @author Ingo Mierswa
  */
 public class ReliefWeighting extends AbstractWeighting {
@@ -63,52 +71,302 @@ public class ReliefWeighting extends AbstractWeighting {
 	/** The parameter name for &quot;Number of examples used for determining the weights.&quot; */
 	public static final String PARAMETER_SAMPLE_RATIO = "sample_ratio";
 
-	/** Helper class holding the index of an example and the distance to current example. */
-	private static class IndexDistance implements Comparable<IndexDistance> {
+	/** Below this number of examples of a class, a linear search is faster than building and searching a kd tree. */
+	private static final int MIN_SIZE_FOR_INDEX = 256;
+
+	/** The sampled examples are processed in at most this number of chunks, independent of the number of threads. */
+	private static final int MAX_NUMBER_OF_CHUNKS = 256;
+
+	private static final int MIN_CHUNK_SIZE = 16;
+
+	/** After this number of failed searches in the kd tree of a class, the class is only searched linearly. */
+	private static final int MAX_TREE_FAILURES = 64;
+
+	/** 
+	 * Helper class holding the nearest neighbors found so far, sorted by their distance. Like a sorted set 
+	 * of distances, it keeps only one neighbor per distance, namely the one with the lowest index.
+	 */
+	private static class NeighborList {
+
+		private final int[] indices;
+
+		private final double[] distances;
 
-		private final int exampleIndex;
-		private final double distance;
+		private int size = 0;
 
-		public IndexDistance(int index, double distance) {
-			this.exampleIndex = index;
-			this.distance = distance;
+		private NeighborList(int capacity) {
+			this.indices = new int[capacity];
+			this.distances = new double[capacity];
 		}
 
-		public int getIndex() {
-			return exampleIndex;
+		private void add(int index, double distance) {
+			int low = 0;
+			int high = size;
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if (Double.compare(distances[middle], distance) < 0) {
+					low = middle + 1;
+				} else {
+					high = middle;
+				}
+			}
+			if (low < size && Double.compare(distances[low], distance) == 0) {
+				indices[low] = Math.min(indices[low], index);
+				return;
+			}
+			if (low == indices.length) {
+				return;
+			}
+			int moved = Math.min(size, indices.length - 1) - low;
+			System.arraycopy(indices, low, indices, low + 1, moved);
+			System.arraycopy(distances, low, distances, low + 1, moved);
+			indices[low] = index;
+			distances[low] = distance;
+			size = Math.min(size + 1, indices.length);
 		}
 
-		@Override
-		public int hashCode() {
-			return Double.valueOf(this.distance).hashCode();
+		/** Returns the squared distance above which no examples are added any longer. */
+		private double getSquaredBound() {
+			if (size < indices.length) {
+				return Double.POSITIVE_INFINITY;
+			}
+			// guarantees that the square root of greater values is greater, too
+			double worst = distances[size - 1];
+			return worst * worst * (1 + 1e-12);
 		}
 
-		@Override
-		public boolean equals(Object other) {
-			if (!(other instanceof IndexDistance))
-				return false;
-			IndexDistance o = (IndexDistance)other;
-			return this.distance == o.distance;
+		private int[] getIndices() {
+			int[] result = new int[size];
+			System.arraycopy(indices, 0, result, 0, size);
+			return result;
 		}
+	}
+
+	/** Helper class searching the nearest examples of each class among the sampled examples. */
+	private static class NeighborSearch {
+
+		private final double[][] points;
+
+		private final double[] labels;
+
+		/** The class index of each example, -1 for unknown classes. Always 0 for numerical labels. */
+		private final int[] classes;
+
+		/** The indices of the examples of each class. */
+		private final int[][] members;
+
+		/** The kd tree for each class or null if the class is searched linearly. */
+		private final List<KDTree<Integer>> trees;
+
+		/** The number of searches in the tree of each class which had to be repeated linearly. */
+		private final AtomicIntegerArray treeFailures;
+
+		private final int numberOfNeighbors;
+
+		private NeighborSearch(ExampleSet exampleSet, Attribute[] attributes, Attribute label, int numberOfNeighbors) {
+			this.numberOfNeighbors = numberOfNeighbors;
+			int size = exampleSet.size();
+			int numberOfClasses = label.isNominal() ? label.getMapping().size() : 1;
+			this.points = new double[size][];
+			this.labels = new double[size];
+			this.classes = new int[size];
+			int[] classSizes = new int[numberOfClasses];
+			boolean containsMissings = false;
+			int index = 0;
+			for (Example example : exampleSet) {
+				double[] values = new double[attributes.length];
+				for (int i = 0; i < attributes.length; i++) {
+					values[i] = example.getValue(attributes[i]);
+					containsMissings |= Double.isNaN(values[i]);
+				}
+				points[index] = values;
+				labels[index] = example.getValue(label);
+				if (label.isNominal()) {
+					classes[index] = Double.isNaN(labels[index]) ? -1 : (int) labels[index];
+				}
+				if (classes[index] >= 0) {
+					classSizes[classes[index]]++;
+				}
+				index++;
+			}
 
-		public int compareTo(IndexDistance o) {
-			return Double.compare(this.distance, o.distance);
+			this.members = new int[numberOfClasses][];
+			for (int c = 0; c < numberOfClasses; c++) {
+				members[c] = new int[classSizes[c]];
+				classSizes[c] = 0;
+			}
+			for (int i = 0; i < size; i++) {
+				if (classes[i] >= 0) {
+					members[classes[i]][classSizes[classes[i]]++] = i;
+				}
+			}
+
+			// the distances ignore nothing, hence missing values prevent pruning
+			this.trees = new ArrayList<KDTree<Integer>>(numberOfClasses);
+			this.treeFailures = new AtomicIntegerArray(numberOfClasses);
+			int dimensions = attributes.length;
+			for (int c = 0; c < numberOfClasses; c++) {
+				KDTree<Integer> tree = null;
+				if (!containsMissings && dimensions > 0 && dimensions < 30 && members[c].length >= MIN_SIZE_FOR_INDEX && (1 << dimensions) <= members[c].length) {
+					List<double[]> classPoints = new ArrayList<double[]>(members[c].length);
+					List<Integer> classIndices = new ArrayList<Integer>(members[c].length);
+					for (int member : members[c]) {
+						classPoints.add(points[member]);
+						classIndices.add(member);
+					}
+					tree = new KDTree<Integer>(classPoints, classIndices, new EuclideanDistance());
+				}
+				trees.add(tree);
+			}
 		}
 
-		@Override
-		public String toString() { 
-			return exampleIndex + " (d: " + Tools.formatNumber(distance) + ")";
+		/** 
+		 * Returns the indices of the nearest neighbors of the example for each class, sorted by 
+		 * their distance. Equally distant neighbors are only used once.
+		 */
+		private int[][] search(int example) {
+			int[][] neighbors = new int[members.length][];
+			for (int c = 0; c < members.length; c++) {
+				NeighborList neighborList = new NeighborList(numberOfNeighbors);
+				KDTree<Integer> tree = trees.get(c);
+				if (tree == null || treeFailures.get(c) > MAX_TREE_FAILURES || !searchTree(tree, example, neighborList)) {
+					if (tree != null) {
+						treeFailures.incrementAndGet(c);
+					}
+					neighborList.size = 0;
+					double[] values = points[example];
+					for (int candidate : members[c]) {
+						if (candidate != example) {
+							neighborList.add(candidate, calculateDistance(values, points[candidate], neighborList.getSquaredBound()));
+						}
+					}
+				}
+				neighbors[c] = neighborList.getIndices();
+			}
+			return neighbors;
 		}
-	}	
 
-	private double differentLabelWeight;
+		/** 
+		 * Since the tree might return any of several equally distant points and might contain 
+		 * points with the same distance as returned ones, only points closer than the farthest returned 
+		 * one are used. If these are not enough, the search is repeated for more points. Returns false
+		 * if many equal distances would require to retrieve many more points than neighbors.
+		 */
+		private boolean searchTree(KDTree<Integer> tree, int example, NeighborList neighborList) {
+			int bound = numberOfNeighbors + 1;
+			while (bound <= 4 * (numberOfNeighbors + 1)) {
+				Collection<Tupel<Double, Integer>> found = tree.getNearestValueDistances(bound, points[example]);
+				boolean complete = found.size() < bound;
+				double farthest = Double.NEGATIVE_INFINITY;
+				for (Tupel<Double, Integer> neighbor : found) {
+					farthest = Math.max(farthest, neighbor.getFirst());
+				}
+				neighborList.size = 0;
+				for (Tupel<Double, Integer> neighbor : found) {
+					if (neighbor.getSecond() != example && (complete || neighbor.getFirst() < farthest)) {
+						neighborList.add(neighbor.getSecond(), neighbor.getFirst());
+					}
+				}
+				if (complete || neighborList.size == numberOfNeighbors) {
+					return true;
+				}
+				bound *= 2;
+			}
+			return false;
+		}
 
-	private double[] differentAttributesWeights;
+		/** 
+		 * Calculates the euclidean distance between both examples. Returns infinity as soon as the
+		 * squared distance exceeds the given bound.
+		 */
+		private static double calculateDistance(double[] first, double[] second, double squaredBound) {
+			double distance = 0;
+			for (int i = 0; i < first.length; i++) {
+				double diff = first[i] - second[i];
+				distance += diff * diff;
+				if (distance > squaredBound) {
+					return Double.POSITIVE_INFINITY;
+				}
+			}
+			return Math.sqrt(distance);
+		}
+	}
+
+	/** Helper class calculating the normalized differences of attribute values. */
+	private static class Differences {
 
-	private double[] differentLabelAndAttributesWeights;
+		private final boolean[] nominal;
 
-	private double[] classProbabilities;
+		private final double[] minimum;
 
+		private final double[] maximum;
+
+		/** The number of known values of each attribute. */
+		private final int[] knownCounts;
+
+		private Differences(ExampleSet exampleSet, Attribute[] attributes) {
+			this.nominal = new boolean[attributes.length];
+			this.minimum = new double[attributes.length];
+			this.maximum = new double[attributes.length];
+			this.knownCounts = new int[attributes.length];
+			for (int i = 0; i < attributes.length; i++) {
+				nominal[i] = attributes[i].isNominal();
+				if (!nominal[i]) {
+					minimum[i] = exampleSet.getStatistics(attributes[i], Statistics.MINIMUM);
+					maximum[i] = exampleSet.getStatistics(attributes[i], Statistics.MAXIMUM);
+				}
+				knownCounts[i] = exampleSet.size() - (int) exampleSet.getStatistics(attributes[i], Statistics.UNKNOWN);
+			}
+		}
+
+		private boolean isKnown(int attribute) {
+			return knownCounts[attribute] > 0;
+		}
+
+		private double get(int attribute, double first, double second) {
+			double diff = Math.abs(first - second);
+			if (Double.isNaN(diff))
+				return Double.NaN;
+
+			if (nominal[attribute]) {
+				if (diff == 0)
+					return 0;
+				else
+					return 1;
+			} else {
+				return (diff - minimum[attribute]) / (maximum[attribute] - minimum[attribute]);
+			}
+		}
+	}
+
+	/** The contributions of a range of sampled examples to the weights. */
+	private static class Contributions {
+
+		/** The weights for nominal labels. */
+		private final double[] weights;
+
+		/** The sums used for calculating the weights for numerical labels. */
+		private double differentLabelWeight = 0;
+
+		private final double[] differentAttributesWeights;
+
+		private final double[] differentLabelAndAttributesWeights;
+
+		private Contributions(int numberOfAttributes) {
+			this.weights = new double[numberOfAttributes];
+			this.differentAttributesWeights = new double[numberOfAttributes];
+			this.differentLabelAndAttributesWeights = new double[numberOfAttributes];
+		}
+
+		private void add(Contributions other) {
+			differentLabelWeight += other.differentLabelWeight;
+			for (int i = 0; i < weights.length; i++) {
+				weights[i] += other.weights[i];
+				differentAttributesWeights[i] += other.differentAttributesWeights[i];
+				differentLabelAndAttributesWeights[i] += other.differentLabelAndAttributesWeights[i];
+			}
+		}
+	}
 
 	public ReliefWeighting(OperatorDescription description) {
 		super(description);
@@ -129,12 +387,8 @@ public class ReliefWeighting extends AbstractWeighting {
 			weights.setWeight(attribute.getName(), 0.0d);
 		}
 
-		// calculate class probabilities for nominal labels and initialize 
-		// vectors for numerical labels
-		this.differentLabelWeight = 0;
-		this.differentAttributesWeights = new double[inputSet.getAttributes().size()];
-		this.differentLabelAndAttributesWeights = new double[inputSet.getAttributes().size()];
-		this.classProbabilities = null;
+		// calculate class probabilities for nominal labels
+		double[] classProbabilities = null;
 		if (label.isNominal()) {
 			classProbabilities = new double[label.getMapping().size()];
 			int counter = 0;
@@ -153,58 +407,86 @@ public class ReliefWeighting extends AbstractWeighting {
 			((SplittedExampleSet)exampleSet).selectSingleSubset(0);
 		}
 
-		int exampleCounter = 0;
-		for (Example example : exampleSet) {
-			Map<String, SortedSet<IndexDistance>> neighborSets = 
-				searchNeighbors(exampleSet, example, exampleCounter, label, numberOfNeighbors);
-			if (label.isNominal()) {
-				updateWeightsClassification(neighborSets, exampleSet, example, weights, label);
-			} else {
-				updateWeightsRegression(neighborSets, exampleSet, example, weights, label, numberOfNeighbors);
-			}
-			exampleCounter++;
+		Attribute[] attributes = exampleSet.getAttributes().createRegularAttributeArray();
+		final NeighborSearch search = new NeighborSearch(exampleSet, attributes, label, numberOfNeighbors);
+		final Differences differences = new Differences(exampleSet, attributes);
+		final Differences labelDifferences = new Differences(exampleSet, new Attribute[] { label });
+		final double[] finalClassProbabilities = classProbabilities;
+
+		// the chunks only depend on the number of examples, hence the summation order is independent of the number of threads
+		int size = exampleSet.size();
+		int chunkSize = Math.max(MIN_CHUNK_SIZE, (size + MAX_NUMBER_OF_CHUNKS - 1) / MAX_NUMBER_OF_CHUNKS);
+		List<Callable<Contributions>> tasks = new ArrayList<Callable<Contributions>>();
+		for (int start = 0; start < size; start += chunkSize) {
+			final int chunkStart = start;
+			final int chunkEnd = Math.min(size, start + chunkSize);
+			tasks.add(new Callable<Contributions>() {
+				public Contributions call() throws ProcessStoppedException {
+					return processSamples(chunkStart, chunkEnd, search, differences, labelDifferences, finalClassProbabilities);
+				}
+			});
+		}
+		Contributions contributions = new Contributions(attributes.length);
+		for (Contributions chunkContributions : ParallelExecutionService.execute(tasks, "Relief")) {
+			contributions.add(chunkContributions);
 		}
 
-		// calculate final weights for regression
-		if (!label.isNominal()) {
-			int attributeCounter = 0;
-			for (Attribute attribute : exampleSet.getAttributes()) {
+		int attributeCounter = 0;
+		for (Attribute attribute : exampleSet.getAttributes()) {
+			if (label.isNominal()) {
+				weights.setWeight(attribute.getName(), contributions.weights[attributeCounter]);
+			} else {
+				// calculate final weights for regression
 				double weight = 
-					differentLabelAndAttributesWeights[attributeCounter] / differentLabelWeight -
-					((differentAttributesWeights[attributeCounter] - differentLabelAndAttributesWeights[attributeCounter]) /
-							(exampleSet.size() - differentLabelWeight));
+					contributions.differentLabelAndAttributesWeights[attributeCounter] / contributions.differentLabelWeight -
+					((contributions.differentAttributesWeights[attributeCounter] - contributions.differentLabelAndAttributesWeights[attributeCounter]) /
+							(exampleSet.size() - contributions.differentLabelWeight));
 				weights.setWeight(attribute.getName(), weight);
-				attributeCounter++;
 			}
+			attributeCounter++;
 		}
 
 		return weights;
 	}
 
-	private void updateWeightsRegression(Map<String, SortedSet<IndexDistance>> neighborSets,
-			ExampleSet exampleSet,
-			Example example, 
-			AttributeWeights weights,
-			Attribute label,
-			int numberOfNeighbors) {
-		Iterator<IndexDistance> i = neighborSets.get("regression").iterator();
-		while (i.hasNext()) {
-			IndexDistance indexDistance = i.next();
-			Example neighbor = exampleSet.getExample(indexDistance.getIndex());
-			double labelDiff = normedDifference(example, neighbor, exampleSet, label);
+	/** Searches the neighbors of the sampled examples in the given range and sums up their contributions to the weights. */
+	private Contributions processSamples(int start, int end, NeighborSearch search, Differences differences, Differences labelDifferences, double[] classProbabilities) throws ProcessStoppedException {
+		Contributions contributions = new Contributions(differences.nominal.length);
+		for (int example = start; example < end; example++) {
+			int[][] neighbors = search.search(example);
+			if (classProbabilities != null) {
+				updateWeightsClassification(neighbors, example, search, differences, classProbabilities, contributions);
+			} else {
+				updateWeightsRegression(neighbors[0], example, search, differences, labelDifferences, contributions);
+			}
+			checkForStop();
+		}
+		return contributions;
+	}
+
+	private void updateWeightsRegression(int[] neighbors,
+			int example,
+			NeighborSearch search,
+			Differences differences,
+			Differences labelDifferences,
+			Contributions contributions) {
+		int numberOfNeighbors = search.numberOfNeighbors;
+		double[] values = search.points[example];
+		for (int neighbor : neighbors) {
+			double[] neighborValues = search.points[neighbor];
+			double labelDiff = labelDifferences.get(0, search.labels[example], search.labels[neighbor]);
 			if (!Double.isNaN(labelDiff)) {
 				// no weighting by distance --> same influence for all neighbors
-				differentLabelWeight += labelDiff / numberOfNeighbors;
+				contributions.differentLabelWeight += labelDiff / numberOfNeighbors;
 
 				int attributeCounter = 0;
-				for (Attribute attribute : exampleSet.getAttributes()) {
-					int unknownCount = (int)exampleSet.getStatistics(attribute, Statistics.UNKNOWN);
-					if (unknownCount < exampleSet.size()) {
-						double diff = normedDifference(example, neighbor, exampleSet, attribute);
+				for (int attribute = 0; attribute < values.length; attribute++) {
+					if (differences.isKnown(attribute)) {
+						double diff = differences.get(attribute, values[attribute], neighborValues[attribute]);
 						if (!Double.isNaN(diff)) {
 							// no weighting by distance --> same influence for all neighbors
-							differentAttributesWeights[attributeCounter] += diff / numberOfNeighbors;
-							differentLabelAndAttributesWeights[attributeCounter] += labelDiff * diff / numberOfNeighbors;
+							contributions.differentAttributesWeights[attributeCounter] += diff / numberOfNeighbors;
+							contributions.differentLabelAndAttributesWeights[attributeCounter] += labelDiff * diff / numberOfNeighbors;
 							attributeCounter++;
 						}
 					}
@@ -213,104 +495,38 @@ public class ReliefWeighting extends AbstractWeighting {
 		}
 	}
 
-	private void updateWeightsClassification(Map<String, SortedSet<IndexDistance>> neighborSets,
-			ExampleSet exampleSet,
-			Example example, 
-			AttributeWeights weights,
-			Attribute label) {
-		double classProbabilityNormalization = 1.0d - classProbabilities[(int)example.getValue(label)];
-		int classCounter = 0;
-		for (String classValue : label.getMapping().getValues()) {
-			for (IndexDistance indexDistance: neighborSets.get(classValue)) {
-				Example neighbor = exampleSet.getExample(indexDistance.getIndex());	
-				int attributeCounter = 0;
-				for (Attribute attribute : exampleSet.getAttributes()) {
-					double weight = weights.getWeight(attribute.getName());
-					int unknownCount = (int)exampleSet.getStatistics(attribute, Statistics.UNKNOWN);
-					if (unknownCount < exampleSet.size()) {
-						double diff = normedDifference(example, neighbor, exampleSet, attribute);
+	private void updateWeightsClassification(int[][] neighbors,
+			int example,
+			NeighborSearch search,
+			Differences differences,
+			double[] classProbabilities,
+			Contributions contributions) {
+		int exampleClass = search.classes[example];
+		// unknown classes are counted like the first one
+		double classProbabilityNormalization = 1.0d - classProbabilities[Math.max(0, exampleClass)];
+		double[] values = search.points[example];
+		for (int classCounter = 0; classCounter < neighbors.length; classCounter++) {
+			for (int neighbor : neighbors[classCounter]) {
+				double[] neighborValues = search.points[neighbor];
+				for (int attribute = 0; attribute < values.length; attribute++) {
+					if (differences.isKnown(attribute)) {
+						double diff = differences.get(attribute, values[attribute], neighborValues[attribute]);
 						if (!Double.isNaN(diff)) {
-							if (classValue.equals(example.getValueAsString(label))) {
+							if (classCounter == exampleClass) {
 								// hit
-								weight -= diff / (exampleSet.size() - unknownCount);
+								contributions.weights[attribute] -= diff / differences.knownCounts[attribute];
 							} else { 
 								// miss
-								weight += 
+								contributions.weights[attribute] += 
 									classProbabilities[classCounter] / 
 									classProbabilityNormalization * 
-									diff / (exampleSet.size() - unknownCount);
+									diff / differences.knownCounts[attribute];
 							}
 						}
 					}
-					weights.setWeight(attribute.getName(), weight);
-					attributeCounter++;
 				}
 			}
-			classCounter++;
-		}
-	}
-
-	private double normedDifference(Example first, Example second, ExampleSet exampleSet, Attribute attribute) {
-		double diff = Math.abs(first.getValue(attribute) - second.getValue(attribute));
-		if (Double.isNaN(diff))
-			return Double.NaN;
-
-		if (attribute.isNominal()) {
-			if (diff == 0)
-				return 0;
-			else
-				return 1;
-		} else {
-			double min = exampleSet.getStatistics(attribute, Statistics.MINIMUM);
-			double max = exampleSet.getStatistics(attribute, Statistics.MAXIMUM);
-			return (diff - min) / (max - min);
-		}
-	}
-
-	private Map<String, SortedSet<IndexDistance>> searchNeighbors(ExampleSet exampleSet, 
-			Example example, 
-			int exampleIndex, 
-			Attribute label, 
-			int numberOfNeighbors) {
-
-		Map<String, SortedSet<IndexDistance>> neighborSets = new HashMap<String, SortedSet<IndexDistance>>();
-		if (label.isNominal()) {
-			for (String value : label.getMapping().getValues()) {
-				neighborSets.put(value, new TreeSet<IndexDistance>());
-			}
-		} else {
-			neighborSets.put("regression", new TreeSet<IndexDistance>());
-		}
-
-		int exampleCounter = 0;
-		for (Example candidate : exampleSet) {
-			if (exampleIndex != exampleCounter) {
-				double distance = calculateDistance(example, candidate);
-				SortedSet<IndexDistance> currentSet = null;
-				if (label.isNominal()) {
-					String classValue = candidate.getValueAsString(label);
-					currentSet = neighborSets.get(classValue);
-				} else {
-					currentSet = neighborSets.get("regression");
-				}
-				currentSet.add(new IndexDistance(exampleCounter, distance));
-				if (currentSet.size() > numberOfNeighbors)
-					currentSet.remove(currentSet.last());
-			}
-			exampleCounter++;
-		}
-
-		return neighborSets;
-	}
-
-	/** Calculates the euclidean distance between both examples. */
-	private double calculateDistance(Example first, Example second) {
-		double distance = 0;
-		for (Attribute attribute : first.getAttributes()) {
-			double diff = first.getValue(attribute) - second.getValue(attribute);
-			distance += diff * diff;
 		}
-		return Math.sqrt(distance);
 	}
 
 	@Override
@@ -23,7 +23,6 @@
 package com.rapidminer.operator.generator;
 
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
 
 import com.rapidminer.example.Attribute;
@@ -31,8 +30,7 @@ import com.rapidminer.example.ExampleSet;
 import com.rapidminer.example.table.AttributeFactory;
 import com.rapidminer.example.table.DataRow;
 import com.rapidminer.example.table.DataRowFactory;
-import com.rapidminer.example.table.ListDataRowReader;
-import com.rapidminer.example.table.MemoryExampleTable;
+import com.rapidminer.example.table.ExpandableExampleTable;
 import com.rapidminer.operator.OperatorDescription;
 import com.rapidminer.operator.OperatorException;
 import com.rapidminer.operator.UserError;
@@ -187,12 +185,11 @@ public class ExampleSetGenerator extends AbstractExampleSource {
 		Attribute label = function.getLabel();
 		if (label != null)
 			attributes.add(label);
-		MemoryExampleTable table = new MemoryExampleTable(attributes);
+		DataRowFactory factory = new DataRowFactory(getParameterAsInt(PARAMETER_DATAMANAGEMENT), '.');
+		ExpandableExampleTable table = factory.createExampleTable(attributes);
 
 		// create data
 		RandomGenerator random = RandomGenerator.getRandomGenerator(this);
-		List<DataRow> data = new LinkedList<DataRow>();
-		DataRowFactory factory = new DataRowFactory(getParameterAsInt(PARAMETER_DATAMANAGEMENT), '.');
 		try {
 			function.init(random);
 			for (int n = 0; n < numberOfExamples; n++) {
@@ -207,15 +204,12 @@ public class ExampleSetGenerator extends AbstractExampleSource {
 				for (int i = 0; i < example.length; i++)
 					row.set(attributes.get(i), example[i]);
 				row.trim();
-				data.add(row);
+				table.addDataRow(row);
 			}
 		} catch (TargetFunction.FunctionException e) {
 			throw new UserError(this, 918, e.getFunctionName(), e.getMessage());
 		}
 
-		// fill table with data
-		table.readExamples(new ListDataRowReader(data.iterator()));
-
 		// create example set and return it
 		ExampleSet result = table.createExampleSet(label);
 
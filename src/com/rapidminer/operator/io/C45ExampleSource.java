@@ -36,7 +36,7 @@ import com.rapidminer.example.ExampleSet;
 import com.rapidminer.example.table.AttributeFactory;
 import com.rapidminer.example.table.DataRow;
 import com.rapidminer.example.table.DataRowFactory;
-import com.rapidminer.example.table.MemoryExampleTable;
+import com.rapidminer.example.table.ExpandableExampleTable;
 import com.rapidminer.operator.OperatorDescription;
 import com.rapidminer.operator.OperatorException;
 import com.rapidminer.operator.UserError;
@@ -222,8 +222,8 @@ public class C45ExampleSource extends AbstractExampleSource {
 			throw new UserError(this, 301, dataFile);
 		}
 
-		MemoryExampleTable table = new MemoryExampleTable(attributes);
 		DataRowFactory factory = new DataRowFactory(getParameterAsInt(PARAMETER_DATAMANAGEMENT), getParameterAsString(PARAMETER_DECIMAL_POINT_CHARACTER).charAt(0));
+		ExpandableExampleTable table = factory.createExampleTable(attributes);
 		Attribute[] attributeArray = new Attribute[attributes.size()];
 		attributes.toArray(attributeArray);
 		try {
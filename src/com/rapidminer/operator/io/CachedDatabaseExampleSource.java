@@ -34,6 +34,7 @@ import com.rapidminer.operator.UserError;
 import com.rapidminer.operator.meta.BatchProcessing;
 import com.rapidminer.parameter.ParameterType;
 import com.rapidminer.parameter.ParameterTypeBoolean;
+import com.rapidminer.parameter.ParameterTypeInt;
 import com.rapidminer.parameter.ParameterTypeString;
 import com.rapidminer.tools.jdbc.DatabaseHandler;
 import com.rapidminer.tools.jdbc.connection.ConnectionEntry;
@@ -54,7 +55,9 @@ import com.rapidminer.tools.jdbc.connection.ConnectionProvider;
  * <p>In contrast to the DatabaseExampleSource operator, which loads the data into
  * the main memory, this operator keeps the data in the database and performs
  * the data reading in batches. This allows RapidMiner to access data sets of
- * arbitrary sizes without any size restrictions.</p>
+ * arbitrary sizes without any size restrictions. Batches which were read once are
+ * cached in memory up to the given cache size and afterwards in a local temporary
+ * file, such that repeated passes over the data do not query the database again.</p>
  * 
  * <p>Please note the following important restrictions and notes:
  * <ul>
@@ -77,6 +80,8 @@ public class CachedDatabaseExampleSource extends AbstractExampleSource implement
 	
 	public static final String PARAMETER_RECREATE_INDEX = "recreate_index";	
 
+	public static final String PARAMETER_CACHE_SIZE = "cache_size";
+
 	private DatabaseHandler databaseHandler;
 
 	public CachedDatabaseExampleSource(OperatorDescription description) {
@@ -89,7 +94,8 @@ public class CachedDatabaseExampleSource extends AbstractExampleSource implement
 			databaseHandler = DatabaseHandler.getConnectedDatabaseHandler(this);
 			String tableName = getParameterAsString(DatabaseHandler.PARAMETER_TABLE_NAME);
 			boolean recreateIndex = getParameterAsBoolean(PARAMETER_RECREATE_INDEX);
-			IndexCachedDatabaseExampleTable table = new IndexCachedDatabaseExampleTable(databaseHandler, tableName, DataRowFactory.TYPE_DOUBLE_ARRAY, recreateIndex, this);
+			long cacheSize = getParameterAsInt(PARAMETER_CACHE_SIZE) * 1024L * 1024L;
+			IndexCachedDatabaseExampleTable table = new IndexCachedDatabaseExampleTable(databaseHandler, tableName, DataRowFactory.TYPE_DOUBLE_ARRAY, recreateIndex, this, cacheSize);
 			// TODO copy functionality from ResultSetExampleSource and remove ResultSetExampleSource!
 			return ResultSetExampleSource.createExampleSet(table, this);
 		} catch (SQLException e) {
@@ -121,6 +127,9 @@ public class CachedDatabaseExampleSource extends AbstractExampleSource implement
 		types.addAll(DatabaseHandler.getConnectionParameterTypes(this));
 		types.addAll(DatabaseHandler.getQueryParameterTypes(this, true));
 		types.add(new ParameterTypeBoolean(PARAMETER_RECREATE_INDEX, "Indicates if a recreation of the index or index mapping table should be forced.", false));
+		ParameterType cacheType = new ParameterTypeInt(PARAMETER_CACHE_SIZE, "The amount of main memory (in MB) used for caching the data read from the database. Further data is kept in a local temporary file.", 1, Integer.MAX_VALUE, 64);
+		cacheType.setExpert(true);
+		types.add(cacheType);
 		ParameterType type = new ParameterTypeString(ResultSetExampleSource.PARAMETER_LABEL_ATTRIBUTE, "The (case sensitive) name of the label attribute");
 		type.setExpert(false);
 		types.add(type);
@@ -32,7 +32,7 @@ import com.rapidminer.example.Attribute;
 import com.rapidminer.example.ExampleSet;
 import com.rapidminer.example.table.AttributeFactory;
 import com.rapidminer.example.table.DataRowFactory;
-import com.rapidminer.example.table.MemoryExampleTable;
+import com.rapidminer.example.table.ExpandableExampleTable;
 import com.rapidminer.operator.OperatorDescription;
 import com.rapidminer.parameter.ParameterType;
 import com.rapidminer.parameter.ParameterTypeCategory;
@@ -275,7 +275,7 @@ public class DasyLabDataReader extends BytewiseExampleSource {
 		// unused
 		read(inputStream, buffer, 8);
 
-		MemoryExampleTable table = new MemoryExampleTable(attributes);
+		ExpandableExampleTable table = dataRowFactory.createExampleTable(attributes);
 		
 		HashMap<Double, Double[]> valuesMap = new HashMap<Double, Double[]>();
 		HashMap<Double, Integer> counterMap = new HashMap<Double, Integer>();
@@ -44,7 +44,7 @@ import com.rapidminer.example.ExampleSet;
 import com.rapidminer.example.table.AttributeFactory;
 import com.rapidminer.example.table.DataRow;
 import com.rapidminer.example.table.DataRowFactory;
-import com.rapidminer.example.table.MemoryExampleTable;
+import com.rapidminer.example.table.ExpandableExampleTable;
 import com.rapidminer.operator.Annotations;
 import com.rapidminer.operator.OperatorDescription;
 import com.rapidminer.operator.OperatorException;
@@ -120,7 +120,7 @@ public class DatabaseDataReader extends AbstractExampleSource implements Connect
     @Override
     public ExampleSet createExampleSet() throws OperatorException {
         ResultSet resultSet = getResultSet();
-        MemoryExampleTable table;
+        ExpandableExampleTable table;
         try {
             List<Attribute> attributes = getAttributes(resultSet);
             table = createExampleTable(resultSet, attributes);
@@ -179,11 +179,11 @@ public class DatabaseDataReader extends AbstractExampleSource implements Connect
         return metaData;
     }
 
-    private MemoryExampleTable createExampleTable(ResultSet resultSet, List<Attribute> attributes) throws SQLException, OperatorException {
+    private ExpandableExampleTable createExampleTable(ResultSet resultSet, List<Attribute> attributes) throws SQLException, OperatorException {
         ResultSetMetaData metaData = resultSet.getMetaData();
         Attribute[] attributeArray = attributes.toArray(new Attribute[attributes.size()]);
-        MemoryExampleTable table = new MemoryExampleTable(attributes);
         DataRowFactory factory = new DataRowFactory(getParameterAsInt(ExampleSource.PARAMETER_DATAMANAGEMENT), '.');
+        ExpandableExampleTable table = factory.createExampleTable(attributes);
         while (resultSet.next()) {
             DataRow dataRow = factory.create(attributeArray.length);
             // double[] data = new double[attributeArray.length];
@@ -92,6 +92,11 @@ public class DatabaseExampleSetWriter extends AbstractExampleSetWriter implement
 
 	public static final String PARAMETER_BATCH_SIZE = "batch_size";
 
+	/**
+	 * The number of examples after which the written examples are committed.
+	 */
+	public static final String PARAMETER_COMMIT_SIZE = "commit_size";
+
 	public DatabaseExampleSetWriter(OperatorDescription description) {
 		super(description);
 	}
@@ -109,7 +114,8 @@ public class DatabaseExampleSetWriter extends AbstractExampleSetWriter implement
 					getParameterAsBoolean(PARAMETER_SET_DEFAULT_VARCHAR_LENGTH) ? getParameterAsInt(PARAMETER_DEFAULT_VARCHAR_LENGTH) : -1,
 					getParameterAsBoolean(PARAMETER_GET_GENERATED_PRIMARY_KEYS),
 					getParameterAsString(PARAMETER_GENERATED_KEYS_ATTRIBUTE_NAME),
-					getParameterAsInt(PARAMETER_BATCH_SIZE));
+					getParameterAsInt(PARAMETER_BATCH_SIZE),
+					getParameterAsInt(PARAMETER_COMMIT_SIZE));
 			databaseHandler.disconnect();
 		} catch (SQLException e) {
 			throw new UserError(this, e, 304, e.getMessage());
@@ -142,8 +148,13 @@ public class DatabaseExampleSetWriter extends AbstractExampleSetWriter implement
 		types.add(type);
 
 		
-		type = new ParameterTypeInt(PARAMETER_BATCH_SIZE, "The number of examples which are written at once with one single query to the database. Larger values can greatly improve the speed - too large values however can drastically <i>decrease</i> the performance. Additionally, some databases have restrictions on the maximum number of values written at once.",
-				1, Integer.MAX_VALUE, 1, true);
+		type = new ParameterTypeInt(PARAMETER_BATCH_SIZE, "The number of examples which are sent at once to the database. Larger values can greatly improve the speed - too large values however can drastically <i>decrease</i> the performance. If generated primary keys are retrieved, the examples of a batch are written with one single query and some databases have restrictions on the maximum number of values written at once.",
+				1, Integer.MAX_VALUE, 1000, true);
+		type.setExpert(true);
+		types.add(type);
+
+		type = new ParameterTypeInt(PARAMETER_COMMIT_SIZE, "The number of examples after which the written examples are committed. Auto commit is switched off while writing. If 0, the commit mode of the connection is used, i.e. usually each batch is committed on its own.",
+				0, Integer.MAX_VALUE, 100000, true);
 		type.setExpert(true);
 		types.add(type);
 		return types;
@@ -35,6 +35,7 @@ import org.xml.sax.SAXException;
 import com.rapidminer.example.Attribute;
 import com.rapidminer.example.ExampleSet;
 import com.rapidminer.example.table.DataRowFactory;
+import com.rapidminer.example.table.DataRowReader;
 import com.rapidminer.example.table.ExampleTable;
 import com.rapidminer.example.table.FileDataRowReader;
 import com.rapidminer.example.table.MemoryExampleTable;
@@ -205,7 +206,8 @@ public class ExampleSource extends AbstractExampleSource {
 	public ExampleSet createExampleSet() throws OperatorException {
 
 		AttributeDataSources attributeDataSources = null;
-		FileDataRowReader reader = null;
+		DataRowFactory factory = new DataRowFactory(getParameterAsInt(PARAMETER_DATAMANAGEMENT), getParameterAsString(PARAMETER_DECIMAL_POINT_CHARACTER).charAt(0));
+		DataRowReader reader = null;
 
 		File attributeFile = getParameterAsFile(PARAMETER_ATTRIBUTES);
 		try {
@@ -215,7 +217,7 @@ public class ExampleSource extends AbstractExampleSource {
 				commentCharacters = getParameterAsString(PARAMETER_COMMENT_CHARS).toCharArray();
 			}
 			reader = new FileDataRowReader(
-					new DataRowFactory(getParameterAsInt(PARAMETER_DATAMANAGEMENT), getParameterAsString(PARAMETER_DECIMAL_POINT_CHARACTER).charAt(0)), 
+					factory, 
 					attributeDataSources.getDataSources(), 
 					getParameterAsDouble(PARAMETER_SAMPLE_RATIO), 
 					getParameterAsInt(PARAMETER_SAMPLE_SIZE), 
@@ -241,7 +243,11 @@ public class ExampleSource extends AbstractExampleSource {
 
 		AttributeSet attributeSet = new AttributeSet(attributeDataSources);
 
-		ExampleTable table = new MemoryExampleTable(attributeSet.getAllAttributes(), reader, getParameterAsBoolean(PARAMETER_PERMUTATE));
+		if (getParameterAsBoolean(PARAMETER_PERMUTATE)) {
+			// the examples are permuted while reading them into a memory table
+			reader = new MemoryExampleTable(attributeSet.getAllAttributes(), reader, true).getDataRowReader();
+		}
+		ExampleTable table = factory.createExampleTable(attributeSet.getAllAttributes(), reader);
 		ExampleSet result = table.createExampleSet(attributeSet);
 		return result;
 	}
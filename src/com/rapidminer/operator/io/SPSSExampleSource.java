@@ -33,7 +33,7 @@ import com.rapidminer.example.Attribute;
 import com.rapidminer.example.ExampleSet;
 import com.rapidminer.example.table.AttributeFactory;
 import com.rapidminer.example.table.DataRowFactory;
-import com.rapidminer.example.table.MemoryExampleTable;
+import com.rapidminer.example.table.ExpandableExampleTable;
 import com.rapidminer.operator.OperatorDescription;
 import com.rapidminer.parameter.ParameterType;
 import com.rapidminer.parameter.ParameterTypeBoolean;
@@ -542,7 +542,7 @@ public class SPSSExampleSource extends BytewiseExampleSource {
 
 		// read data
 		Attribute weight = weightIndex == 0 ? null : attributeSet.getAttribute(variableNrTranslations.get(weightIndex - 1));
-		MemoryExampleTable table = new MemoryExampleTable(attributeSet.getAllAttributes());
+		ExpandableExampleTable table = dataRowFactory.createExampleTable(attributeSet.getAllAttributes());
 		int commandCodeCounter = 0;
 		int bytesRead = 0;
 		for (int i = 0; i < numberOfExamples; i++) {
@@ -35,7 +35,6 @@ import com.rapidminer.example.ExampleSet;
 import com.rapidminer.example.table.DataRowFactory;
 import com.rapidminer.example.table.ExampleTable;
 import com.rapidminer.example.table.FileDataRowReader;
-import com.rapidminer.example.table.MemoryExampleTable;
 import com.rapidminer.gui.tools.dialogs.wizards.dataimport.csv.CSVFileReader;
 import com.rapidminer.operator.OperatorDescription;
 import com.rapidminer.operator.OperatorException;
@@ -244,7 +243,8 @@ public class SimpleExampleSource extends AbstractExampleSource {
 		resetAttributeType(attributeDataSources, weightName, weightColumn, Attributes.WEIGHT_NAME);
 
 		// read data
-		FileDataRowReader reader = new FileDataRowReader(new DataRowFactory(dataRowType, decimalPointCharacter), attributeDataSources, sampleRatio, maxLines, separatorRegExpr, comments, useQuotes, '"', '\\', trimLines, skipErrorLines, encoding,  RandomGenerator.getGlobalRandomGenerator());
+		DataRowFactory factory = new DataRowFactory(dataRowType, decimalPointCharacter);
+		FileDataRowReader reader = new FileDataRowReader(factory, attributeDataSources, sampleRatio, maxLines, separatorRegExpr, comments, useQuotes, '"', '\\', trimLines, skipErrorLines, encoding,  RandomGenerator.getGlobalRandomGenerator());
 		if (firstRowAsColumnNames) {
 			reader.skipLine();
 		}
@@ -252,7 +252,7 @@ public class SimpleExampleSource extends AbstractExampleSource {
 		AttributeSet attributeSet = new AttributeSet(new AttributeDataSources(attributeDataSources, file, encoding));
 
 		// create table and example set
-		ExampleTable table = new MemoryExampleTable(attributeSet.getAllAttributes(), reader);
+		ExampleTable table = factory.createExampleTable(attributeSet.getAllAttributes(), reader);
 		ExampleSet result = table.createExampleSet(attributeSet);
 
 		return result;		
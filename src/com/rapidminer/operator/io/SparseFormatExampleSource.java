@@ -36,7 +36,7 @@ import com.rapidminer.example.Attributes;
 import com.rapidminer.example.ExampleSet;
 import com.rapidminer.example.table.AttributeFactory;
 import com.rapidminer.example.table.DataRowFactory;
-import com.rapidminer.example.table.MemoryExampleTable;
+import com.rapidminer.example.table.ExampleTable;
 import com.rapidminer.example.table.SparseFormatDataRowReader;
 import com.rapidminer.operator.OperatorDescription;
 import com.rapidminer.operator.OperatorException;
@@ -205,9 +205,9 @@ public class SparseFormatExampleSource extends AbstractExampleSource {
 			}
 		}
 
-		MemoryExampleTable table = new MemoryExampleTable(attributeSet.getAllAttributes());
-		SparseFormatDataRowReader reader = new SparseFormatDataRowReader(new DataRowFactory(getParameterAsInt(PARAMETER_DATAMANAGEMENT), getParameterAsString(PARAMETER_DECIMAL_POINT_CHARACTER).charAt(0)), format, prefixMap, attributeSet, inData, inLabels, getParameterAsInt(PARAMETER_SAMPLE_SIZE), getParameterAsBoolean(PARAMETER_USE_QUOTES), getParameterAsChar(PARAMETER_QUOTES_CHARACTER));
-		table.readExamples(reader);
+		DataRowFactory factory = new DataRowFactory(getParameterAsInt(PARAMETER_DATAMANAGEMENT), getParameterAsString(PARAMETER_DECIMAL_POINT_CHARACTER).charAt(0));
+		SparseFormatDataRowReader reader = new SparseFormatDataRowReader(factory, format, prefixMap, attributeSet, inData, inLabels, getParameterAsInt(PARAMETER_SAMPLE_SIZE), getParameterAsBoolean(PARAMETER_USE_QUOTES), getParameterAsChar(PARAMETER_QUOTES_CHARACTER));
+		ExampleTable table = factory.createExampleTable(attributeSet.getAllAttributes(), reader);
 		ExampleSet exampleSet = table.createExampleSet(attributeSet);
 		return exampleSet;
 	}
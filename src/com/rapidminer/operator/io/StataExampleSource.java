@@ -34,7 +34,7 @@ import com.rapidminer.example.ExampleSet;
 import com.rapidminer.example.table.AttributeFactory;
 import com.rapidminer.example.table.DataRow;
 import com.rapidminer.example.table.DataRowFactory;
-import com.rapidminer.example.table.MemoryExampleTable;
+import com.rapidminer.example.table.ExpandableExampleTable;
 import com.rapidminer.operator.OperatorDescription;
 import com.rapidminer.parameter.ParameterType;
 import com.rapidminer.parameter.ParameterTypeCategory;
@@ -349,7 +349,7 @@ public class StataExampleSource extends BytewiseExampleSource {
 		}
 
 		// read data
-		MemoryExampleTable table = new MemoryExampleTable(attributeSet.getAllAttributes());
+		ExpandableExampleTable table = dataRowFactory.createExampleTable(attributeSet.getAllAttributes());
 		for (int j = 0; j < numberOfExamples; j++) {
 			DataRow dataRow = dataRowFactory.create(numberOfAttributes);
 			for (int i = 0; i < numberOfAttributes; i++) {
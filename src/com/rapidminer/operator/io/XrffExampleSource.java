@@ -39,7 +39,7 @@ import com.rapidminer.example.Attribute;
 import com.rapidminer.example.ExampleSet;
 import com.rapidminer.example.table.AttributeFactory;
 import com.rapidminer.example.table.DataRowFactory;
-import com.rapidminer.example.table.MemoryExampleTable;
+import com.rapidminer.example.table.ExpandableExampleTable;
 import com.rapidminer.operator.OperatorDescription;
 import com.rapidminer.operator.OperatorException;
 import com.rapidminer.operator.UserError;
@@ -172,7 +172,7 @@ public class XrffExampleSource extends AbstractExampleSource {
 		Attribute weight = null;
 		boolean instanceWeightsUsed = false;
 
-		MemoryExampleTable table = null;
+		ExpandableExampleTable table = null;
 		try {
 			Document document = null;
 			try {
@@ -246,8 +246,8 @@ public class XrffExampleSource extends AbstractExampleSource {
 			attributeList.add(weight);
 
 			// read data
-			table = new MemoryExampleTable(attributeList);
 			DataRowFactory factory = new DataRowFactory(getParameterAsInt(PARAMETER_DATAMANAGEMENT), getParameterAsString(PARAMETER_DECIMAL_POINT_CHARACTER).charAt(0));
+			table = factory.createExampleTable(attributeList);
 			Attribute[] attributeArray = new Attribute[attributeList.size()];
 			attributeList.toArray(attributeArray);
 			Element bodyElement = retrieveSingleNode(datasetElement, "body");
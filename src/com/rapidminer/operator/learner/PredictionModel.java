@@ -22,18 +22,27 @@
  */
 package com.rapidminer.operator.learner;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
 
 import com.rapidminer.example.Attribute;
 import com.rapidminer.example.Attributes;
+import com.rapidminer.example.Example;
 import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.set.AbstractExampleSet;
 import com.rapidminer.example.set.HeaderExampleSet;
 import com.rapidminer.example.set.RemappedExampleSet;
 import com.rapidminer.example.table.AttributeFactory;
+import com.rapidminer.example.table.BufferedDataRow;
 import com.rapidminer.example.table.ExampleTable;
 import com.rapidminer.operator.AbstractModel;
 import com.rapidminer.operator.OperatorException;
 import com.rapidminer.tools.Ontology;
+import com.rapidminer.tools.ParallelExecutionService;
 
 
 /**
@@ -49,6 +58,9 @@ public abstract class PredictionModel extends AbstractModel {
 	 */
 	private static final long serialVersionUID = 6295359038239089617L;
 
+	/** The number of examples which are scored by each thread per batch. */
+	private static final int BATCH_SIZE_PER_THREAD = 4096;
+
 	/** Created a new prediction model which was built on the given example set. Please note
      *  that the given example set is automatically transformed into a {@link HeaderExampleSet}
      *  which means that no reference to the data itself is kept but only to the header, i.e.
@@ -70,10 +82,18 @@ public abstract class PredictionModel extends AbstractModel {
 	 * predicted label values.
 	 */
 	public ExampleSet apply(ExampleSet exampleSet) throws OperatorException {
-        ExampleSet mappedExampleSet = new RemappedExampleSet(exampleSet, getTrainingHeader(), false);
+        RemappedExampleSet mappedExampleSet = new RemappedExampleSet(exampleSet, getTrainingHeader(), false);
         checkCompatibility(mappedExampleSet);
 		Attribute predictedLabel = createPredictionAttributes(mappedExampleSet, getLabel());
-		ExampleSet result = performPrediction(mappedExampleSet, predictedLabel);
+		
+		// the nominal values are remapped by lookup tables during the prediction
+		ExampleSet result;
+		mappedExampleSet.resolveRemappings();
+		try {
+			result = performPrediction(mappedExampleSet, predictedLabel);
+		} finally {
+			mappedExampleSet.releaseRemappings();
+		}
 		
 		// Copy in order to avoid RemappedExampleSets wrapped around each other accumulating over time
 		copyPredictedLabel(result, exampleSet);
@@ -269,4 +289,117 @@ public abstract class PredictionModel extends AbstractModel {
         	destination.getAttributes().setSpecialAttribute(costs, Attributes.CLASSIFICATION_COST);
         }
     }
+
+	/** Scores a single example by setting its prediction and confidences. */
+	protected interface ExampleScorer {
+
+		public void score(Example example) throws OperatorException;
+	}
+
+	/**
+	 * Scores all examples by the given scorer, which must only read the state of this model and
+	 * must not write any values except the prediction and the confidences of the given example.
+	 * The examples of example sets kept in memory are scored in batches which are partitioned
+	 * across the threads of the {@link ParallelExecutionService}. The predictions and confidences
+	 * are buffered by each thread and written into their columns afterwards. Other example sets
+	 * are scored sequentially.
+	 */
+	protected static void scoreExamples(ExampleSet exampleSet, Attribute predictedLabel, ExampleScorer scorer) throws OperatorException {
+		if (AbstractExampleSet.isMemoryTable(exampleSet.getExampleTable())) {
+			int numberOfBatches = (exampleSet.size() + BATCH_SIZE_PER_THREAD - 1) / BATCH_SIZE_PER_THREAD;
+			performParallelPrediction(exampleSet, predictedLabel, Math.max(1, Math.min(ParallelExecutionService.getNumberOfThreads(), numberOfBatches)), scorer);
+		} else {
+			for (Example example : exampleSet) {
+				scorer.score(example);
+			}
+		}
+	}
+
+	/** Scores batches of examples in parallel. Each thread writes the predictions and confidences into
+	 *  buffered rows which are flushed sequentially, since setting values might modify the table. */
+	private static void performParallelPrediction(final ExampleSet exampleSet, Attribute predictedLabel, int numberOfThreads, final ExampleScorer scorer) throws OperatorException {
+		// resolving the prediction attributes once instead of for each confidence
+		final Map<String, Attribute> confidenceAttributes = new HashMap<String, Attribute>();
+		List<Attribute> bufferedAttributes = new ArrayList<Attribute>();
+		bufferedAttributes.add(predictedLabel);
+		if (predictedLabel.isNominal()) {
+			for (String value : predictedLabel.getMapping().getValues()) {
+				Attribute confidenceAttribute = exampleSet.getAttributes().getSpecial(Attributes.CONFIDENCE_NAME + "_" + value);
+				if (confidenceAttribute != null) {
+					confidenceAttributes.put(value, confidenceAttribute);
+					bufferedAttributes.add(confidenceAttribute);
+				}
+			}
+		}
+		final BufferedDataRow.BufferedColumns columns = new BufferedDataRow.BufferedColumns(bufferedAttributes.toArray(new Attribute[bufferedAttributes.size()]));
+
+		int batchSize = BATCH_SIZE_PER_THREAD * numberOfThreads;
+		Iterator<Example> reader = exampleSet.iterator();
+		int remaining = exampleSet.size();
+		while (remaining > 0) {
+			final Example[] batch = new Example[Math.min(batchSize, remaining)];
+			remaining -= batch.length;
+			for (int row = 0; row < batch.length; row++) {
+				batch[row] = reader.next();
+			}
+
+			// the table is only read during scoring
+			List<Callable<BufferedDataRow[]>> tasks = new ArrayList<Callable<BufferedDataRow[]>>(numberOfThreads);
+			int chunkSize = (batch.length + numberOfThreads - 1) / numberOfThreads;
+			for (int from = 0; from < batch.length; from += chunkSize) {
+				final int chunkStart = from;
+				final int chunkEnd = Math.min(from + chunkSize, batch.length);
+				tasks.add(new Callable<BufferedDataRow[]>() {
+					public BufferedDataRow[] call() throws OperatorException {
+						BufferedDataRow[] rows = new BufferedDataRow[chunkEnd - chunkStart];
+						for (int row = chunkStart; row < chunkEnd; row++) {
+							BufferedDataRow bufferedRow = new BufferedDataRow(batch[row].getDataRow(), columns);
+							scorer.score(new ScoringExample(bufferedRow, exampleSet, confidenceAttributes));
+							rows[row - chunkStart] = bufferedRow;
+						}
+						return rows;
+					}
+				});
+			}
+
+			for (BufferedDataRow[] rows : ParallelExecutionService.execute(tasks, numberOfThreads, "Scoring")) {
+				for (BufferedDataRow row : rows) {
+					row.flush();
+				}
+			}
+		}
+	}
+
+	/** An example which looks up the confidence attributes in a map resolved once for all examples. */
+	private static class ScoringExample extends Example {
+
+		private static final long serialVersionUID = 5019373411853736042L;
+
+		private final Map<String, Attribute> confidenceAttributes;
+
+		private ScoringExample(BufferedDataRow row, ExampleSet exampleSet, Map<String, Attribute> confidenceAttributes) {
+			super(row, exampleSet);
+			this.confidenceAttributes = confidenceAttributes;
+		}
+
+		@Override
+		public double getConfidence(String classValue) {
+			Attribute confidenceAttribute = confidenceAttributes.get(classValue);
+			if (confidenceAttribute == null) {
+				return super.getConfidence(classValue);
+			} else {
+				return getValue(confidenceAttribute);
+			}
+		}
+
+		@Override
+		public void setConfidence(String classValue, double confidence) {
+			Attribute confidenceAttribute = confidenceAttributes.get(classValue);
+			if (confidenceAttribute == null) {
+				super.setConfidence(classValue, confidence);
+			} else {
+				setValue(confidenceAttribute, confidence);
+			}
+		}
+	}
 }
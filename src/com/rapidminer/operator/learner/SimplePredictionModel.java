@@ -36,6 +36,10 @@ import com.rapidminer.operator.OperatorException;
  * a constructor getting a label attribute which will be used to invoke the 
  * super one-argument constructor.
  * 
+ * Models which only read their state during {@link #predict(Example)} can
+ * declare this by {@link #supportsParallelPrediction()}. The examples are then
+ * scored in parallel by {@link #scoreExamples(ExampleSet, Attribute, ExampleScorer)}.
+ * 
  * @author Ingo Mierswa, Simon Fischer
  *          ingomierswa Exp $
  */
@@ -56,13 +60,31 @@ public abstract class SimplePredictionModel extends PredictionModel {
 	 */
 	public abstract double predict(Example example) throws OperatorException;
 
+	/**
+	 * Returns true if {@link #predict(Example)} can be invoked for several examples
+	 * at the same time, i.e. if it does not modify the state of this model and does not
+	 * write any values except the confidences of the given example. The default
+	 * implementation returns false.
+	 */
+	protected boolean supportsParallelPrediction() {
+		return false;
+	}
+
 	/** Iterates over all examples and applies the model to them. */
 	@Override
-	public ExampleSet performPrediction(ExampleSet exampleSet, Attribute predictedLabel) throws OperatorException {
-		Iterator<Example> r = exampleSet.iterator();
-		while (r.hasNext()) {
-			Example example = r.next();
-			example.setValue(predictedLabel, predict(example));
+	public ExampleSet performPrediction(ExampleSet exampleSet, final Attribute predictedLabel) throws OperatorException {
+		if (supportsParallelPrediction()) {
+			scoreExamples(exampleSet, predictedLabel, new ExampleScorer() {
+				public void score(Example example) throws OperatorException {
+					example.setValue(predictedLabel, predict(example));
+				}
+			});
+		} else {
+			Iterator<Example> r = exampleSet.iterator();
+			while (r.hasNext()) {
+				Example example = r.next();
+				example.setValue(predictedLabel, predict(example));
+			}
 		}
 		return exampleSet;
 	}
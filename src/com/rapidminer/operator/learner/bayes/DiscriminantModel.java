@@ -96,6 +96,12 @@ public class DiscriminantModel extends SimplePredictionModel {
 		return bestValue;
 	}
 
+	/** The discriminant functions are only read during the prediction. */
+	@Override
+	protected boolean supportsParallelPrediction() {
+		return true;
+	}
+
 	@Override
 	public String getName() {
 		if (alpha == 0d)
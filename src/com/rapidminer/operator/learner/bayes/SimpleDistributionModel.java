@@ -29,6 +29,7 @@ import com.rapidminer.example.Attribute;
 import com.rapidminer.example.Attributes;
 import com.rapidminer.example.Example;
 import com.rapidminer.example.ExampleSet;
+import com.rapidminer.operator.OperatorException;
 import com.rapidminer.tools.Tools;
 import com.rapidminer.tools.math.VectorMath;
 import com.rapidminer.tools.math.distribution.DiscreteDistribution;
@@ -368,68 +369,82 @@ public class SimpleDistributionModel extends DistributionModel {
 		if (modelRecentlyUpdated) {
 			updateDistributionProperties();
 		}
+		// the examples are scored in parallel, hence the attributes are resolved once
+		final Attribute[] attributes = exampleSet.getAttributes().createRegularAttributeArray();
+		try {
+			scoreExamples(exampleSet, predictedLabel, new ExampleScorer() {
+				public void score(Example example) {
+					scoreExample(example, attributes);
+				}
+			});
+		} catch (OperatorException e) {
+			// the scoring itself does not throw checked exceptions
+			throw new RuntimeException("Cannot apply distribution model: " + e.getMessage(), e);
+		}
+		return exampleSet;
+	}
+
+	/** Sets the most probable class and the class probabilities as prediction and confidences of the example. */
+	private void scoreExample(Example example, Attribute[] attributes) {
 		double[] probabilities = new double[numberOfClasses];
-		for (Example example : exampleSet) {
-			double maxLogProbability = Double.NEGATIVE_INFINITY;
-			double probabilitySum = 0;
-			int mostProbableClass = 0;
-			int j = 0;
-			for (int i = 0; i < numberOfClasses; i++) {
-				probabilities[i] = priors[i];
-			}
-			for (Attribute attribute : exampleSet.getAttributes()) {
-				double value = example.getValue(attribute);
-				if (nominal[j]) {
-					if (!Double.isNaN(value)) {
-						int intValue = (int) value;
-						for (int i = 0; i < numberOfClasses; i++) {
-							if (intValue < distributionProperties[j][i].length) {
-								probabilities[i] += distributionProperties[j][i][intValue];
-							}
-						}
-					} else {
-						for (int i = 0; i < numberOfClasses; i++) {
-							probabilities[i] += distributionProperties[j][i][distributionProperties[j][i].length - 1];
+		double maxLogProbability = Double.NEGATIVE_INFINITY;
+		double probabilitySum = 0;
+		int mostProbableClass = 0;
+		int j = 0;
+		for (int i = 0; i < numberOfClasses; i++) {
+			probabilities[i] = priors[i];
+		}
+		for (Attribute attribute : attributes) {
+			double value = example.getValue(attribute);
+			if (nominal[j]) {
+				if (!Double.isNaN(value)) {
+					int intValue = (int) value;
+					for (int i = 0; i < numberOfClasses; i++) {
+						if (intValue < distributionProperties[j][i].length) {
+							probabilities[i] += distributionProperties[j][i][intValue];
 						}
 					}
 				} else {
-					if (!Double.isNaN(value)) {
-						for (int i = 0; i < numberOfClasses; i++) {
-							double base = (value - distributionProperties[j][i][INDEX_MEAN]) / distributionProperties[j][i][INDEX_STANDARD_DEVIATION];
-							probabilities[i] -= distributionProperties[j][i][INDEX_LOG_FACTOR] + 0.5 * base * base;
-						}
+					for (int i = 0; i < numberOfClasses; i++) {
+						probabilities[i] += distributionProperties[j][i][distributionProperties[j][i].length - 1];
 					}
 				}
-				j++;
-			}
-			for (int i = 0; i < numberOfClasses; i++) {
-				if (!Double.isNaN(probabilities[i]) && probabilities[i] > maxLogProbability) {
-					maxLogProbability = probabilities[i];
-					mostProbableClass = i;
+			} else {
+				if (!Double.isNaN(value)) {
+					for (int i = 0; i < numberOfClasses; i++) {
+						double base = (value - distributionProperties[j][i][INDEX_MEAN]) / distributionProperties[j][i][INDEX_STANDARD_DEVIATION];
+						probabilities[i] -= distributionProperties[j][i][INDEX_LOG_FACTOR] + 0.5 * base * base;
+					}
 				}
 			}
-			for (int i = 0; i < numberOfClasses; i++) {
-				if (!Double.isNaN(probabilities[i])) {
-					probabilities[i] = Math.exp(probabilities[i] - maxLogProbability);
-					probabilitySum += probabilities[i];
-				} else {
-					probabilities[i] = 0;
-				}
+			j++;
+		}
+		for (int i = 0; i < numberOfClasses; i++) {
+			if (!Double.isNaN(probabilities[i]) && probabilities[i] > maxLogProbability) {
+				maxLogProbability = probabilities[i];
+				mostProbableClass = i;
 			}
-
-			if (maxLogProbability == Double.NEGATIVE_INFINITY) {
-				example.setPredictedLabel(Double.NaN);
-				for (int i = 0; i < numberOfClasses; i++) {
-					example.setConfidence(classValues[i], Double.NaN);
-				}
+		}
+		for (int i = 0; i < numberOfClasses; i++) {
+			if (!Double.isNaN(probabilities[i])) {
+				probabilities[i] = Math.exp(probabilities[i] - maxLogProbability);
+				probabilitySum += probabilities[i];
 			} else {
-				example.setPredictedLabel(mostProbableClass);
-				for (int i = 0; i < numberOfClasses; i++) {
-					example.setConfidence(classValues[i], probabilities[i] / probabilitySum);
-				}
+				probabilities[i] = 0;
+			}
+		}
+
+		if (maxLogProbability == Double.NEGATIVE_INFINITY) {
+			example.setPredictedLabel(Double.NaN);
+			for (int i = 0; i < numberOfClasses; i++) {
+				example.setConfidence(classValues[i], Double.NaN);
+			}
+		} else {
+			example.setPredictedLabel(mostProbableClass);
+			for (int i = 0; i < numberOfClasses; i++) {
+				example.setConfidence(classValues[i], probabilities[i] / probabilitySum);
 			}
 		}
-		return exampleSet;
 	}
 
 	public void setLaplaceCorrectionEnabled(boolean laplaceCorrectionEnabled) {
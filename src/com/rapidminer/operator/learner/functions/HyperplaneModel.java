@@ -101,6 +101,12 @@ public class HyperplaneModel extends SimplePredictionModel {
 		}
 	}
 
+	/** The coefficients and the kernel are only read during the prediction. */
+	@Override
+	protected boolean supportsParallelPrediction() {
+		return true;
+	}
+
 	public void init(double[] coefficients, double intercept) {
 		this.coefficients = coefficients;
 		this.intercept = intercept;
@@ -58,6 +58,12 @@ public class PolynomialRegressionModel extends SimplePredictionModel {
 	public double predict(Example example) throws OperatorException {
 		return calculatePrediction(example, coefficients, degrees, offset);
 	}
+
+	/** The coefficients are only read during the prediction. */
+	@Override
+	protected boolean supportsParallelPrediction() {
+		return true;
+	}
 	
 	public static double calculatePrediction(Example example, double[][] coefficients, double[][] degrees, double offset) {
 		double prediction = 0;
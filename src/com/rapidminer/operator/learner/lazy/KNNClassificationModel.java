@@ -24,19 +24,26 @@ package com.rapidminer.operator.learner.lazy;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
 
 import com.rapidminer.example.Attribute;
 import com.rapidminer.example.Attributes;
 import com.rapidminer.example.Example;
 import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.set.AbstractExampleSet;
 import com.rapidminer.operator.OperatorException;
 import com.rapidminer.operator.learner.UpdateablePredictionModel;
+import com.rapidminer.tools.ParallelExecutionService;
 import com.rapidminer.tools.Tools;
 import com.rapidminer.tools.container.Tupel;
 import com.rapidminer.tools.math.container.GeometricDataCollection;
 
 /**
- * An implementation of a knn model.
+ * An implementation of a knn model. The examples are scored in batches which are partitioned
+ * across the threads of the {@link ParallelExecutionService} if the example table is kept in
+ * memory.
  * 
  * @author Sebastian Land
  * 
@@ -45,6 +52,9 @@ public class KNNClassificationModel extends UpdateablePredictionModel {
 
 	private static final long serialVersionUID = -6292869962412072573L;
 
+	/** The number of examples which are scored by each thread per batch. */
+	static final int BATCH_SIZE_PER_THREAD = 4096;
+
 	private int k;
 
 	private int size;
@@ -79,69 +89,120 @@ public class KNNClassificationModel extends UpdateablePredictionModel {
 			sampleAttributes.add(attributes.get(attributeName));
 		}
 
-		double[] values = new double[sampleAttributes.size()];
-		for (Example example : exampleSet) {
+		final int numberOfClasses = predictedLabel.getMapping().size();
+		int numberOfThreads = getNumberOfThreads(exampleSet);
+		int batchSize = BATCH_SIZE_PER_THREAD * numberOfThreads;
+		Iterator<Example> reader = exampleSet.iterator();
+		Iterator<Example> writer = exampleSet.iterator();
+		int remaining = exampleSet.size();
+		while (remaining > 0) {
 			// reading values
-			int i = 0;
-			for (Attribute attribute : sampleAttributes) {
-				values[i] = example.getValue(attribute);
-				i++;
+			final double[][] batch = new double[Math.min(batchSize, remaining)][];
+			remaining -= batch.length;
+			for (int row = 0; row < batch.length; row++) {
+				Example example = reader.next();
+				double[] values = new double[sampleAttributes.size()];
+				int i = 0;
+				for (Attribute attribute : sampleAttributes) {
+					values[i] = example.getValue(attribute);
+					i++;
+				}
+				batch[row] = values;
 			}
 
-			// counting frequency of labels
-			double[] counter = new double[predictedLabel.getMapping().size()];
-			double totalDistance = 0;
-			if (!weightByDistance || k == 1) {
-				// finding next k neighbours
-				Collection<Integer> neighbourLabels = samples.getNearestValues(k, values);
-				// distance is 1 for complete neighbourhood
-				totalDistance = k;
-
-				// counting frequency of labels
-				for (int index : neighbourLabels) {
-					counter[index] += 1 / totalDistance;
-				}
-			} else {
-				// finding next k neighbours and their distances
-				Collection<Tupel<Double, Integer>> neighbours = samples.getNearestValueDistances(k, values);
-				for (Tupel<Double, Integer> tupel : neighbours) {
-					totalDistance += tupel.getFirst();
-				}
+			// the samples are only read during scoring
+			List<Callable<double[][]>> tasks = new ArrayList<Callable<double[][]>>(numberOfThreads);
+			int chunkSize = (batch.length + numberOfThreads - 1) / numberOfThreads;
+			for (int from = 0; from < batch.length; from += chunkSize) {
+				final int chunkStart = from;
+				final int chunkEnd = Math.min(from + chunkSize, batch.length);
+				tasks.add(new Callable<double[][]>() {
+					public double[][] call() {
+						double[][] counters = new double[chunkEnd - chunkStart][];
+						for (int row = chunkStart; row < chunkEnd; row++) {
+							counters[row - chunkStart] = countLabels(batch[row], numberOfClasses);
+						}
+						return counters;
+					}
+				});
+			}
 
-				double totalSimilarity = 0.0d;
-				if (totalDistance == 0) {
-					totalDistance = 1;
-					totalSimilarity = k;
-				} else {
-					totalSimilarity = Math.max(k - 1, 1);
+			// writing results sequentially, since the table might be modified by setting values
+			for (double[][] counters : ParallelExecutionService.execute(tasks, numberOfThreads, "KNN-Scoring")) {
+				for (double[] counter : counters) {
+					Example example = writer.next();
+					// finding most frequent class
+					int mostFrequentIndex = Integer.MIN_VALUE;
+					double mostFrequentFrequency = Double.NEGATIVE_INFINITY;
+					for (int index = 0; index < counter.length; index++) {
+						if (mostFrequentFrequency < counter[index]) {
+							mostFrequentFrequency = counter[index];
+							mostFrequentIndex = index;
+						}
+					}
+					// setting prediction
+					if (mostFrequentIndex == Integer.MIN_VALUE)
+						example.setValue(predictedLabel, Double.NaN);
+					else
+						example.setValue(predictedLabel, mostFrequentIndex);
+
+					// setting confidence
+					for (int index = 0; index < counter.length; index++) {
+						example.setConfidence(predictedLabel.getMapping().mapIndex(index), counter[index]);
+					}
 				}
+			}
+		}
+		return exampleSet;
+	}
 
-				// counting frequency of labels
-				for (Tupel<Double, Integer> tupel : neighbours) {
-					counter[tupel.getSecond()] += (1d - tupel.getFirst() / totalDistance) / totalSimilarity;
-				}
+	/**
+	 * Returns the number of threads scoring the given example set. Examples are only scored in
+	 * parallel if their table is kept in memory, and by at most one thread per batch.
+	 */
+	static int getNumberOfThreads(ExampleSet exampleSet) {
+		if (!AbstractExampleSet.isMemoryTable(exampleSet.getExampleTable())) {
+			return 1;
+		}
+		int numberOfBatches = (exampleSet.size() + BATCH_SIZE_PER_THREAD - 1) / BATCH_SIZE_PER_THREAD;
+		return Math.max(1, Math.min(ParallelExecutionService.getNumberOfThreads(), numberOfBatches));
+	}
+
+	/** Returns the (weighted) frequencies of the labels of the k nearest neighbours of the given values. */
+	private double[] countLabels(double[] values, int numberOfClasses) {
+		double[] counter = new double[numberOfClasses];
+		double totalDistance = 0;
+		if (!weightByDistance || k == 1) {
+			// finding next k neighbours
+			Collection<Integer> neighbourLabels = samples.getNearestValues(k, values);
+			// distance is 1 for complete neighbourhood
+			totalDistance = k;
+
+			// counting frequency of labels
+			for (int index : neighbourLabels) {
+				counter[index] += 1 / totalDistance;
 			}
-			// finding most frequent class
-			int mostFrequentIndex = Integer.MIN_VALUE;
-			double mostFrequentFrequency = Double.NEGATIVE_INFINITY;
-			for (int index = 0; index < counter.length; index++) {
-				if (mostFrequentFrequency < counter[index]) {
-					mostFrequentFrequency = counter[index];
-					mostFrequentIndex = index;
-				}
+		} else {
+			// finding next k neighbours and their distances
+			Collection<Tupel<Double, Integer>> neighbours = samples.getNearestValueDistances(k, values);
+			for (Tupel<Double, Integer> tupel : neighbours) {
+				totalDistance += tupel.getFirst();
 			}
-			// setting prediction
-			if (mostFrequentIndex == Integer.MIN_VALUE)
-				example.setValue(predictedLabel, Double.NaN);
-			else
-				example.setValue(predictedLabel, mostFrequentIndex);
-
-			// setting confidence
-			for (int index = 0; index < counter.length; index++) {
-				example.setConfidence(predictedLabel.getMapping().mapIndex(index), counter[index]);
+
+			double totalSimilarity = 0.0d;
+			if (totalDistance == 0) {
+				totalDistance = 1;
+				totalSimilarity = k;
+			} else {
+				totalSimilarity = Math.max(k - 1, 1);
+			}
+
+			// counting frequency of labels
+			for (Tupel<Double, Integer> tupel : neighbours) {
+				counter[tupel.getSecond()] += (1d - tupel.getFirst() / totalDistance) / totalSimilarity;
 			}
 		}
-		return exampleSet;
+		return counter;
 	}
 
 	@Override
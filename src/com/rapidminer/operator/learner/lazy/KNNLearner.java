@@ -22,6 +22,8 @@
  */
 package com.rapidminer.operator.learner.lazy;
 
+import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.List;
 
 import com.rapidminer.example.Attribute;
@@ -40,16 +42,25 @@ import com.rapidminer.operator.ports.metadata.DistanceMeasurePrecondition;
 import com.rapidminer.parameter.ParameterType;
 import com.rapidminer.parameter.ParameterTypeBoolean;
 import com.rapidminer.parameter.ParameterTypeInt;
+import com.rapidminer.parameter.UndefinedParameterError;
 import com.rapidminer.tools.OperatorResourceConsumptionHandler;
+import com.rapidminer.tools.math.container.BallTree;
 import com.rapidminer.tools.math.container.GeometricDataCollection;
+import com.rapidminer.tools.math.container.KDTree;
 import com.rapidminer.tools.math.container.LinearList;
 import com.rapidminer.tools.math.similarity.DistanceMeasure;
 import com.rapidminer.tools.math.similarity.DistanceMeasureHelper;
 import com.rapidminer.tools.math.similarity.DistanceMeasures;
+import com.rapidminer.tools.math.similarity.numerical.ChebychevNumericalDistance;
+import com.rapidminer.tools.math.similarity.numerical.EuclideanDistance;
+import com.rapidminer.tools.math.similarity.numerical.ManhattanDistance;
 
 
 /**
- * A k nearest neighbor implementation.
+ * A k nearest neighbor implementation. The training examples are organized in a {@link KDTree}
+ * for low dimensional and in a {@link BallTree} for medium dimensional data of a low intrinsic
+ * dimensionality if the distance measure allows. Otherwise, or if the data contains missing
+ * values, a linear search is used.
  * 
  * @author Sebastian Land
  * 
@@ -63,6 +74,18 @@ public class KNNLearner extends AbstractLearner {
 	/** The parameter name for &quot;Indicates if the votes should be weighted by similarity.&quot; */
 	public static final String PARAMETER_WEIGHTED_VOTE = "weighted_vote";
 
+	/** Below this number of examples, a linear search is faster than building and searching a tree. */
+	private static final int MIN_SIZE_FOR_INDEX = 256;
+
+	/** The maximal number of dimensions for a ball tree. Above, most nodes must be visited anyway. */
+	private static final int MAX_BALL_TREE_DIMENSIONS = 32;
+
+	/** The number of examples used for estimating if a ball tree is faster than a linear search. */
+	private static final int BALL_TREE_PROBE_SIZE = 4096;
+
+	/** The number of queries used for estimating if a ball tree is faster than a linear search. */
+	private static final int BALL_TREE_PROBE_QUERIES = 32;
+
 	private DistanceMeasureHelper measureHelper = new DistanceMeasureHelper(this);
 
 	public KNNLearner(OperatorDescription description) {
@@ -76,7 +99,8 @@ public class KNNLearner extends AbstractLearner {
 		Attribute label = exampleSet.getAttributes().getLabel();
 		if (label.isNominal()) {
 			// classification
-			GeometricDataCollection<Integer> samples = new LinearList<Integer>(measure);
+			List<double[]> points = new ArrayList<double[]>(exampleSet.size());
+			List<Integer> labelValues = new ArrayList<Integer>(exampleSet.size());
 
 			Attributes attributes = exampleSet.getAttributes();
 
@@ -88,14 +112,16 @@ public class KNNLearner extends AbstractLearner {
 					values[i] = example.getValue(attribute);
 					i++;
 				}
-				int labelValue = (int) example.getValue(label);
-				samples.add(values, labelValue);
+				points.add(values);
+				labelValues.add((int) example.getValue(label));
 				checkForStop();
 			}
+			GeometricDataCollection<Integer> samples = createSamples(points, labelValues, measure);
 			return new KNNClassificationModel(exampleSet, samples, getParameterAsInt(PARAMETER_K), getParameterAsBoolean(PARAMETER_WEIGHTED_VOTE));
 		} else {
 			// regression
-			GeometricDataCollection<Double> samples = new LinearList<Double>(measure);
+			List<double[]> points = new ArrayList<double[]>(exampleSet.size());
+			List<Double> labelValues = new ArrayList<Double>(exampleSet.size());
 			Attributes attributes = exampleSet.getAttributes();
 
 			int valuesSize = attributes.size();
@@ -106,14 +132,109 @@ public class KNNLearner extends AbstractLearner {
 					values[i] = example.getValue(attribute);
 					i++;
 				}
-				double labelValue = example.getValue(label);
-				samples.add(values, labelValue);
+				points.add(values);
+				labelValues.add(example.getValue(label));
 				checkForStop();
 			}
+			GeometricDataCollection<Double> samples = createSamples(points, labelValues, measure);
 			return new KNNRegressionModel(exampleSet, samples, getParameterAsInt(PARAMETER_K), getParameterAsBoolean(PARAMETER_WEIGHTED_VOTE));
 		}
 	}
 
+	/**
+	 * Creates the collection used for the nearest neighbour search. Trees are only used for the
+	 * euclidean, manhattan and chebychev distance, since the pruning of the {@link KDTree} relies on
+	 * the distance being at least the difference in each single dimension and the pruning of the
+	 * {@link BallTree} on the triangle inequality. Both would have to fall back to a linear search
+	 * for missing values, which are ignored by the distance measures.
+	 */
+	private <T extends Serializable> GeometricDataCollection<T> createSamples(List<double[]> points, List<T> values, DistanceMeasure measure) throws UndefinedParameterError {
+		int dimensions = points.isEmpty() ? 0 : points.get(0).length;
+		if (points.size() >= MIN_SIZE_FOR_INDEX && dimensions > 0 && isMetricWithPlainDifferences(measure) && !containsMissings(points)) {
+			// a kd tree needs several points per leaf region in order to prune efficiently
+			if (dimensions < 30 && (1 << dimensions) <= points.size()) {
+				log("Using kd tree for nearest neighbour search.");
+				return new KDTree<T>(points, values, measure);
+			} else if (dimensions <= MAX_BALL_TREE_DIMENSIONS && isBallTreeEfficient(points, measure)) {
+				log("Using ball tree for nearest neighbour search.");
+				return new BallTree<T>(points, values, measure);
+			}
+		}
+		GeometricDataCollection<T> samples = new LinearList<T>(measure);
+		for (int i = 0; i < points.size(); i++) {
+			samples.add(points.get(i), values.get(i));
+		}
+		return samples;
+	}
+
+	/**
+	 * Whether a ball tree helps depends on the intrinsic dimensionality of the data rather than on the
+	 * number of attributes. Hence a tree is built for a sample of the points and the number of
+	 * distance calculations for querying some other points is compared to a linear search.
+	 * Since the probe only depends on the data, the decision is deterministic.
+	 */
+	private boolean isBallTreeEfficient(List<double[]> points, DistanceMeasure measure) throws UndefinedParameterError {
+		int probeSize = Math.min(BALL_TREE_PROBE_SIZE, points.size() - BALL_TREE_PROBE_QUERIES);
+		int step = points.size() / (probeSize + BALL_TREE_PROBE_QUERIES);
+		List<double[]> probePoints = new ArrayList<double[]>(probeSize);
+		List<Integer> probeValues = new ArrayList<Integer>(probeSize);
+		for (int i = 0; i < probeSize; i++) {
+			probePoints.add(points.get(i * step));
+			probeValues.add(i);
+		}
+		CountingDistanceMeasure countingMeasure = new CountingDistanceMeasure(measure);
+		BallTree<Integer> probeTree = new BallTree<Integer>(probePoints, probeValues, countingMeasure);
+		countingMeasure.counter = 0;
+		int k = getParameterAsInt(PARAMETER_K);
+		for (int i = 0; i < BALL_TREE_PROBE_QUERIES; i++) {
+			probeTree.getNearestValues(k, points.get((probeSize + i) * step));
+		}
+		// besides more distance calculations per node, searching the tree has a higher overhead per calculation
+		return countingMeasure.counter < (long) BALL_TREE_PROBE_QUERIES * probeSize / 2;
+	}
+
+	private static boolean isMetricWithPlainDifferences(DistanceMeasure measure) {
+		// subclasses might change the distance
+		Class<?> measureClass = measure.getClass();
+		return measureClass == EuclideanDistance.class || measureClass == ManhattanDistance.class || measureClass == ChebychevNumericalDistance.class;
+	}
+
+	private static boolean containsMissings(List<double[]> points) {
+		for (double[] values : points) {
+			for (double value : values) {
+				if (Double.isNaN(value))
+					return true;
+			}
+		}
+		return false;
+	}
+
+	/** Delegates to the given measure and counts the calculated distances. */
+	private static class CountingDistanceMeasure extends DistanceMeasure {
+
+		private static final long serialVersionUID = 5389546204561453532L;
+
+		private final DistanceMeasure measure;
+
+		private long counter = 0;
+
+		private CountingDistanceMeasure(DistanceMeasure measure) {
+			this.measure = measure;
+		}
+
+		@Override
+		public double calculateDistance(double[] value1, double[] value2) {
+			counter++;
+			return measure.calculateDistance(value1, value2);
+		}
+
+		@Override
+		public double calculateSimilarity(double[] value1, double[] value2) {
+			counter++;
+			return measure.calculateSimilarity(value1, value2);
+		}
+	}
+
 	@Override
 	public Class<? extends PredictionModel> getModelClass() {
 		//TODO: Needs to unify models in order to return common class
@@ -24,6 +24,9 @@ package com.rapidminer.operator.learner.lazy;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
 
 import com.rapidminer.example.Attribute;
 import com.rapidminer.example.Attributes;
@@ -31,13 +34,15 @@ import com.rapidminer.example.Example;
 import com.rapidminer.example.ExampleSet;
 import com.rapidminer.operator.OperatorException;
 import com.rapidminer.operator.learner.UpdateablePredictionModel;
+import com.rapidminer.tools.ParallelExecutionService;
 import com.rapidminer.tools.Tools;
 import com.rapidminer.tools.container.Tupel;
 import com.rapidminer.tools.math.container.GeometricDataCollection;
 
 
 /**
- * An implementation of a knn model used for regression
+ * An implementation of a knn model used for regression. Like the {@link KNNClassificationModel},
+ * this model scores the examples in parallel batches.
  * 
  * @author Sebastian Land
  * 
@@ -80,54 +85,90 @@ public class KNNRegressionModel extends UpdateablePredictionModel {
 			sampleAttributes.add(attributes.get(attributeName));
 		}
 
-		double[] values = new double[sampleAttributes.size()];
-		for (Example example: exampleSet) {
+		int numberOfThreads = KNNClassificationModel.getNumberOfThreads(exampleSet);
+		int batchSize = KNNClassificationModel.BATCH_SIZE_PER_THREAD * numberOfThreads;
+		Iterator<Example> reader = exampleSet.iterator();
+		Iterator<Example> writer = exampleSet.iterator();
+		int remaining = exampleSet.size();
+		while (remaining > 0) {
 			// reading values
-			int i = 0;
-			for(Attribute attribute: sampleAttributes) {
-				values[i] = example.getValue(attribute);
-				i++;
+			final double[][] batch = new double[Math.min(batchSize, remaining)][];
+			remaining -= batch.length;
+			for (int row = 0; row < batch.length; row++) {
+				Example example = reader.next();
+				double[] values = new double[sampleAttributes.size()];
+				int i = 0;
+				for (Attribute attribute: sampleAttributes) {
+					values[i] = example.getValue(attribute);
+					i++;
+				}
+				batch[row] = values;
 			}
 
-			double result = 0;
-			if (!weightByDistance) {
-				// finding next k neighbours
-				Collection<Double> neighbourLabels = samples.getNearestValues(k, values);
+			// the samples are only read during scoring
+			List<Callable<double[]>> tasks = new ArrayList<Callable<double[]>>(numberOfThreads);
+			int chunkSize = (batch.length + numberOfThreads - 1) / numberOfThreads;
+			for (int from = 0; from < batch.length; from += chunkSize) {
+				final int chunkStart = from;
+				final int chunkEnd = Math.min(from + chunkSize, batch.length);
+				tasks.add(new Callable<double[]>() {
+					public double[] call() {
+						double[] results = new double[chunkEnd - chunkStart];
+						for (int row = chunkStart; row < chunkEnd; row++) {
+							results[row - chunkStart] = predict(batch[row]);
+						}
+						return results;
+					}
+				});
+			}
 
-				// building mean
-				for (double label: neighbourLabels) {
-					result += label;
-				}
-				result /= k;
-			} else {
-				// finding next k neighbours and their distances
-				Collection<Tupel<Double, Double>> neighbourTupels = samples.getNearestValueDistances(k, values);
-				// finding total distance
-				double totalDistance = 0;
-				for (Tupel<Double, Double> tupel: neighbourTupels) {
-					totalDistance += tupel.getFirst();
+			// setting predictions sequentially, since the table might be modified by setting values
+			for (double[] results: ParallelExecutionService.execute(tasks, numberOfThreads, "KNN-Scoring")) {
+				for (double result: results) {
+					writer.next().setValue(predictedLabel, result);
 				}
+			}
+		}
+		return exampleSet;
+	}
 
-				double totalSimilarity = 0.0d;
-				if (totalDistance == 0) {
-					totalDistance = 1;
-					totalSimilarity = k;
-				} else {
-					totalSimilarity = Math.max(k - 1, 1);
-				}
+	/** Returns the (weighted) mean of the labels of the k nearest neighbours of the given values. */
+	private double predict(double[] values) {
+		double result = 0;
+		if (!weightByDistance) {
+			// finding next k neighbours
+			Collection<Double> neighbourLabels = samples.getNearestValues(k, values);
 
-				// building weighted mean
-				for (Tupel<Double, Double> tupel: neighbourTupels) {
-					result += tupel.getSecond() * (1d - tupel.getFirst() / totalDistance) / totalSimilarity;
-				}
+			// building mean
+			for (double label: neighbourLabels) {
+				result += label;
+			}
+			result /= k;
+		} else {
+			// finding next k neighbours and their distances
+			Collection<Tupel<Double, Double>> neighbourTupels = samples.getNearestValueDistances(k, values);
+			// finding total distance
+			double totalDistance = 0;
+			for (Tupel<Double, Double> tupel: neighbourTupels) {
+				totalDistance += tupel.getFirst();
 			}
-			// setting prediction 
-			example.setValue(predictedLabel, result);
-		}
 
+			double totalSimilarity = 0.0d;
+			if (totalDistance == 0) {
+				totalDistance = 1;
+				totalSimilarity = k;
+			} else {
+				totalSimilarity = Math.max(k - 1, 1);
+			}
 
-		return exampleSet;
+			// building weighted mean
+			for (Tupel<Double, Double> tupel: neighbourTupels) {
+				result += tupel.getSecond() * (1d - tupel.getFirst() / totalDistance) / totalSimilarity;
+			}
+		}
+		return result;
 	}
+
 	@Override
 	public void update(ExampleSet updateSet) throws OperatorException {
 		Attribute label = updateSet.getAttributes().getLabel();
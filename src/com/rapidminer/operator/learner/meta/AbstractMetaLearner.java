@@ -22,6 +22,10 @@
  */
 package com.rapidminer.operator.learner.meta;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
 import com.rapidminer.example.AttributeWeights;
 import com.rapidminer.example.ExampleSet;
 import com.rapidminer.operator.Model;
@@ -43,7 +47,12 @@ import com.rapidminer.operator.ports.metadata.PassThroughRule;
 import com.rapidminer.operator.ports.metadata.PredictionModelMetaData;
 import com.rapidminer.operator.ports.metadata.SimplePrecondition;
 import com.rapidminer.operator.ports.metadata.SubprocessTransformRule;
+import com.rapidminer.parameter.ParameterType;
+import com.rapidminer.parameter.ParameterTypeBoolean;
+import com.rapidminer.tools.OperatorClonePool;
+import com.rapidminer.tools.ParallelExecutionService;
 import com.rapidminer.tools.ParameterService;
+import com.rapidminer.tools.RandomGenerator;
 import com.rapidminer.tools.Tools;
 
 
@@ -53,10 +62,16 @@ import com.rapidminer.tools.Tools;
  * this class to support the same parameters as other learners. The main
  * purpose of this class is to perform some compatibility checks.
  * 
+ * Meta learners building ensembles of independent members can learn these members
+ * in parallel on clones of the inner learner, see {@link #applyInnerLearnerInParallel(List, RandomGenerator)}.
+ * 
  * @author Ingo Mierswa
  */
 public abstract class AbstractMetaLearner extends OperatorChain implements Learner {
 
+    /** The parameter name for &quot;Indicates if the members of the ensemble should be learned in parallel.&quot; */
+    public static final String PARAMETER_PARALLELIZE_LEARNING = "parallelize_learning";
+
     protected final InputPort exampleSetInput = getInputPorts().createPort("training set");
     private final OutputPort modelOutput = getOutputPorts().createPort("model");
     private final OutputPort innerExampleSource = getSubprocess(0).getInnerSources().createPort("training set");
@@ -153,6 +168,99 @@ public abstract class AbstractMetaLearner extends OperatorChain implements Learn
         getSubprocess(0).execute();
     }
 
+    /**
+     * Learns one model for each of the given training sets by applying the inner learner
+     * and returns the models in the order of the training sets. The models are learned in
+     * parallel on clones of this operator (see {@link OperatorClonePool}) or sequentially if the
+     * inner learner cannot be applied in parallel. Each model is learned with its own random generator
+     * (see {@link #learnMembers(List, List, int, String)}) and the seeds of these generators are
+     * drawn from the given one in the order of the training sets. Hence, the models only depend
+     * on the given random generator and not on the number of threads. If the inner learner does
+     * not use the global random generator, they are the same as the ones learned sequentially.
+     */
+    protected List<Model> applyInnerLearnerInParallel(List<? extends ExampleSet> trainingSets, RandomGenerator random) throws OperatorException {
+        List<RandomGenerator> randomGenerators = createMemberRandomGenerators(random, trainingSets.size());
+        List<OperatorClonePool.CloneTask<AbstractMetaLearner, Model>> tasks = new ArrayList<OperatorClonePool.CloneTask<AbstractMetaLearner, Model>>(trainingSets.size());
+        for (final ExampleSet trainingSet : trainingSets) {
+            tasks.add(new OperatorClonePool.CloneTask<AbstractMetaLearner, Model>() {
+                @Override
+                public Model call(AbstractMetaLearner clone) throws OperatorException {
+                    return clone.applyInnerLearner(trainingSet);
+                }
+            });
+        }
+
+        List<Model> models;
+        OperatorClonePool<AbstractMetaLearner> clonePool = new OperatorClonePool<AbstractMetaLearner>(this, trainingSets.isEmpty() ? null : trainingSets.get(0), false, Math.min(ParallelExecutionService.getNumberOfThreads(), trainingSets.size()));
+        if (clonePool.isParallel()) {
+            models = clonePool.execute(tasks, randomGenerators);
+        } else {
+            // the inner learner cannot be applied in parallel, hence it is applied by this operator itself
+            List<Callable<Model>> members = new ArrayList<Callable<Model>>(tasks.size());
+            for (final OperatorClonePool.CloneTask<AbstractMetaLearner, Model> task : tasks) {
+                members.add(new Callable<Model>() {
+                    @Override
+                    public Model call() throws OperatorException {
+                        return task.call(AbstractMetaLearner.this);
+                    }
+                });
+            }
+            models = learnMembers(members, randomGenerators, 1, getName());
+        }
+        for (int i = 0; i < models.size(); i++) {
+            inApplyLoop();
+        }
+        return models;
+    }
+
+    /**
+     * Executes the given tasks, each learning an independent member of an ensemble, with at most
+     * the given number of threads and returns their results in the order of the members. Each
+     * member is learned with the random generator of the same index replacing the global random
+     * generator of its thread (see {@link RandomGenerator#setThreadRandomGenerator(RandomGenerator)}).
+     * Hence, the results do not depend on the order of execution as long as these generators are
+     * created in the order of the members, e.g. by {@link #createMemberRandomGenerators(RandomGenerator, int)}.
+     */
+    public static <T> List<T> learnMembers(List<? extends Callable<T>> members, List<RandomGenerator> randomGenerators, int numberOfThreads, String threadName) throws OperatorException {
+        List<Callable<T>> tasks = new ArrayList<Callable<T>>(members.size());
+        for (int i = 0; i < members.size(); i++) {
+            final Callable<T> member = members.get(i);
+            final RandomGenerator memberRandom = randomGenerators.get(i);
+            tasks.add(new Callable<T>() {
+                @Override
+                public T call() throws Exception {
+                    RandomGenerator previous = RandomGenerator.setThreadRandomGenerator(memberRandom);
+                    try {
+                        return member.call();
+                    } finally {
+                        RandomGenerator.setThreadRandomGenerator(previous);
+                    }
+                }
+            });
+        }
+        return ParallelExecutionService.execute(tasks, numberOfThreads, threadName);
+    }
+
+    /**
+     * Returns a random generator for each of the given number of ensemble members. The seeds
+     * are drawn from the given random generator in the order of the members.
+     */
+    public static List<RandomGenerator> createMemberRandomGenerators(RandomGenerator random, int numberOfMembers) {
+        List<RandomGenerator> randomGenerators = new ArrayList<RandomGenerator>(numberOfMembers);
+        for (int i = 0; i < numberOfMembers; i++) {
+            randomGenerators.add(new RandomGenerator(random.nextLong()));
+        }
+        return randomGenerators;
+    }
+
+    /**
+     * Returns the parameter type for {@link #PARAMETER_PARALLELIZE_LEARNING} which should be
+     * added by meta learners supporting the parallel learning of their members.
+     */
+    public static ParameterType getParallelizeLearningParameterType() {
+        return new ParameterTypeBoolean(PARAMETER_PARALLELIZE_LEARNING, "Indicates if the members of the ensemble should be learned in parallel on clones of the inner learner. The number of threads is defined by the global settings.", false, true);
+    }
+
     @Override
     public boolean shouldAutoConnect(OutputPort port) {
         if (port == exampleSetOutput) {
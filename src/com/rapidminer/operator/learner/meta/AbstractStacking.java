@@ -22,14 +22,19 @@
  */
 package com.rapidminer.operator.learner.meta;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 import com.rapidminer.example.Attribute;
 import com.rapidminer.example.AttributeWeights;
 import com.rapidminer.example.ExampleSet;
 import com.rapidminer.operator.ExecutionUnit;
+import com.rapidminer.operator.IOObject;
 import com.rapidminer.operator.Model;
+import com.rapidminer.operator.Operator;
 import com.rapidminer.operator.OperatorCapability;
 import com.rapidminer.operator.OperatorChain;
 import com.rapidminer.operator.OperatorDescription;
@@ -46,6 +51,10 @@ import com.rapidminer.operator.ports.metadata.ExampleSetMetaData;
 import com.rapidminer.operator.ports.metadata.GeneratePredictionModelTransformationRule;
 import com.rapidminer.operator.ports.metadata.PredictionModelMetaData;
 import com.rapidminer.operator.ports.metadata.SubprocessTransformRule;
+import com.rapidminer.parameter.ParameterType;
+import com.rapidminer.tools.OperatorClonePool;
+import com.rapidminer.tools.ParallelExecutionService;
+import com.rapidminer.tools.RandomGenerator;
 
 
 /**  
@@ -54,6 +63,11 @@ import com.rapidminer.operator.ports.metadata.SubprocessTransformRule;
  * taken to create n new features for the example set, which is finally
  * used to serve as an input of the first inner learner.  
  * 
+ * If <var>parallelize_learning</var> is checked, independent base learners, i.e. groups of
+ * operators which are not connected with each other, are executed in parallel on clones of
+ * this operator. The base models are the same as the ones learned sequentially as long as
+ * the base learners do not use random numbers.
+ * 
  * @author Ingo Mierswa, Helge Homburg
  */
 public abstract class AbstractStacking extends OperatorChain implements Learner  {
@@ -92,8 +106,12 @@ public abstract class AbstractStacking extends OperatorChain implements Learner
 
 	public Model learn(ExampleSet exampleSet) throws OperatorException {        
 		// learn base models
-		baseInputExtender.deliverToAll(exampleSet, false);
-		getBaseModelLearnerProcess().execute();
+		if (getParameterAsBoolean(AbstractMetaLearner.PARAMETER_PARALLELIZE_LEARNING)) {
+			learnBaseModelsInParallel(exampleSet);
+		} else {
+			baseInputExtender.deliverToAll(exampleSet, false);
+			getBaseModelLearnerProcess().execute();
+		}
 		List<Model> baseModels = baseModelExtender.getData(true);      
 
 		// create temporary example set for stacking
@@ -131,6 +149,128 @@ public abstract class AbstractStacking extends OperatorChain implements Learner
 	}
 
 
+	/**
+	 * Executes the independent groups of operators of the base learner process in parallel, each
+	 * on a clone of this operator in which the operators of the other groups are disabled. Groups
+	 * which do not deliver a base model are executed together with the first group. The base models
+	 * are delivered to the base model ports of this operator afterwards.
+	 */
+	private void learnBaseModelsInParallel(final ExampleSet exampleSet) throws OperatorException {
+		ExecutionUnit baseProcess = getBaseModelLearnerProcess();
+		final Map<String, Integer> groups = getIndependentGroups(baseProcess);
+
+		// each group delivering a base model is a member, the other groups are added to the first member
+		final List<Integer> memberGroups = new ArrayList<Integer>();
+		final List<Integer> portMembers = new ArrayList<Integer>();
+		final List<String> portNames = new ArrayList<String>();
+		for (InputPort port : baseModelExtender.getManagedPorts()) {
+			portNames.add(port.getName());
+			int member = -1;
+			if (port.isConnected()) {
+				Integer group = groups.get(port.getSource().getPorts().getOwner().getOperator().getName());
+				if (group != null) {
+					member = memberGroups.indexOf(group);
+					if (member < 0) {
+						member = memberGroups.size();
+						memberGroups.add(group);
+					}
+				}
+			}
+			portMembers.add(member);
+		}
+		OperatorClonePool<AbstractStacking> clonePool = null;
+		if (memberGroups.size() > 1) {
+			clonePool = new OperatorClonePool<AbstractStacking>(this, exampleSet, false, Math.min(ParallelExecutionService.getNumberOfThreads(), memberGroups.size()));
+		}
+		if (clonePool == null || !clonePool.isParallel()) {
+			baseInputExtender.deliverToAll(exampleSet, false);
+			baseProcess.execute();
+			return;
+		}
+
+		List<OperatorClonePool.CloneTask<AbstractStacking, List<IOObject>>> members = new ArrayList<OperatorClonePool.CloneTask<AbstractStacking, List<IOObject>>>(memberGroups.size());
+		for (int i = 0; i < memberGroups.size(); i++) {
+			final int member = i;
+			members.add(new OperatorClonePool.CloneTask<AbstractStacking, List<IOObject>>() {
+				@Override
+				public List<IOObject> call(AbstractStacking clone) throws OperatorException {
+					for (Operator operator : clone.getBaseModelLearnerProcess().getOperators()) {
+						int memberOfOperator = memberGroups.indexOf(groups.get(operator.getName()));
+						if (memberOfOperator < 0) {
+							memberOfOperator = 0;
+						}
+						if (memberOfOperator != member) {
+							operator.setEnabled(false);
+						}
+					}
+					clone.baseInputExtender.deliverToAll(exampleSet, true);
+					clone.getBaseModelLearnerProcess().execute();
+					List<IOObject> results = new ArrayList<IOObject>(portNames.size());
+					for (String portName : portNames) {
+						InputPort port = clone.getBaseModelLearnerProcess().getInnerSinks().getPortByName(portName);
+						results.add(port == null ? null : port.getAnyDataOrNull());
+					}
+					return results;
+				}
+			});
+		}
+		List<List<IOObject>> results = clonePool.executeOnSeparateClones(members, AbstractMetaLearner.createMemberRandomGenerators(RandomGenerator.getGlobalRandomGenerator(), members.size()), new ArrayList<AbstractStacking>(members.size()));
+
+		List<InputPort> ports = baseModelExtender.getManagedPorts();
+		for (int i = 0; i < ports.size(); i++) {
+			int member = portMembers.get(i);
+			ports.get(i).receive(member >= 0 ? results.get(member).get(i) : null);
+		}
+	}
+
+	/**
+	 * Returns the index of the group of connected operators for the name of each operator
+	 * of the given process.
+	 */
+	private static Map<String, Integer> getIndependentGroups(ExecutionUnit process) {
+		List<Operator> operators = process.getOperators();
+		Map<Operator, Integer> indices = new HashMap<Operator, Integer>();
+		for (Operator operator : operators) {
+			indices.put(operator, indices.size());
+		}
+		int[] parents = new int[operators.size()];
+		for (int i = 0; i < parents.length; i++) {
+			parents[i] = i;
+		}
+		for (Operator operator : operators) {
+			for (OutputPort port : operator.getOutputPorts().getAllPorts()) {
+				if (port.isConnected()) {
+					Integer destination = indices.get(port.getDestination().getPorts().getOwner().getOperator());
+					if (destination != null) {
+						int first = getRoot(parents, indices.get(operator));
+						int second = getRoot(parents, destination);
+						parents[Math.max(first, second)] = Math.min(first, second);
+					}
+				}
+			}
+		}
+		Map<String, Integer> groups = new HashMap<String, Integer>();
+		for (Operator operator : operators) {
+			groups.put(operator.getName(), getRoot(parents, indices.get(operator)));
+		}
+		return groups;
+	}
+
+	private static int getRoot(int[] parents, int index) {
+		while (parents[index] != index) {
+			parents[index] = parents[parents[index]];
+			index = parents[index];
+		}
+		return index;
+	}
+
+	@Override
+	public List<ParameterType> getParameterTypes() {
+		List<ParameterType> types = super.getParameterTypes();
+		types.add(AbstractMetaLearner.getParallelizeLearningParameterType());
+		return types;
+	}
+
 	/** The default implementation throws an exception. */
 	public PerformanceVector getEstimatedPerformance() throws OperatorException {
 		throw new UserError(this, 912, getName(), "estimation of performance not supported.");
@@ -22,6 +22,7 @@
  */
 package com.rapidminer.operator.learner.meta;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Vector;
 
@@ -43,6 +44,11 @@ import com.rapidminer.tools.RandomGenerator;
  * This Bagging implementation can be used with all learners available in RapidMiner, not only
  * the ones which originally are part of the Weka package.
  * 
+ * If <var>parallelize_learning</var> is checked, the subsamples are drawn in the order of
+ * the iterations beforehand and the base models are learned in parallel on clones of the
+ * inner learner, each with its own random generator. The resulting model is the same as the
+ * one learned sequentially as long as the inner learner does not use random numbers.
+ * 
  * @author Martin Scholz, Ingo Mierswa
  */
 public class Bagging extends AbstractMetaLearner {
@@ -81,11 +87,18 @@ public class Bagging extends AbstractMetaLearner {
 		final int numInterations = this.getParameterAsInt(PARAMETER_ITERATIONS);
 
 		Vector<Model> modelList = new Vector<Model>();
-		for (this.currentIteration = 0; this.currentIteration < numInterations; this.currentIteration++) {
-			SplittedExampleSet splitted = new SplittedExampleSet(exampleSet, splitRatio, SplittedExampleSet.SHUFFLED_SAMPLING, getParameterAsBoolean(RandomGenerator.PARAMETER_USE_LOCAL_RANDOM_SEED), getParameterAsInt(RandomGenerator.PARAMETER_LOCAL_RANDOM_SEED));
-			splitted.selectSingleSubset(0);
-			modelList.add(applyInnerLearner(splitted));
-			inApplyLoop();
+		if (getParameterAsBoolean(PARAMETER_PARALLELIZE_LEARNING) && numInterations > 1) {
+			List<ExampleSet> samples = new ArrayList<ExampleSet>(numInterations);
+			for (int i = 0; i < numInterations; i++) {
+				samples.add(createSample(exampleSet, splitRatio));
+			}
+			modelList.addAll(applyInnerLearnerInParallel(samples, RandomGenerator.getRandomGenerator(this)));
+			this.currentIteration = numInterations;
+		} else {
+			for (this.currentIteration = 0; this.currentIteration < numInterations; this.currentIteration++) {
+				modelList.add(applyInnerLearner(createSample(exampleSet, splitRatio)));
+				inApplyLoop();
+			}
 		}
 
 		boolean numerical = exampleSet.getAttributes().getLabel().isNumerical();
@@ -100,6 +113,13 @@ public class Bagging extends AbstractMetaLearner {
 		}
 	}
 
+	/** Returns a new subsample of the given example set. */
+	private ExampleSet createSample(ExampleSet exampleSet, double splitRatio) throws OperatorException {
+		SplittedExampleSet splitted = new SplittedExampleSet(exampleSet, splitRatio, SplittedExampleSet.SHUFFLED_SAMPLING, getParameterAsBoolean(RandomGenerator.PARAMETER_USE_LOCAL_RANDOM_SEED), getParameterAsInt(RandomGenerator.PARAMETER_LOCAL_RANDOM_SEED));
+		splitted.selectSingleSubset(0);
+		return splitted;
+	}
+
 	@Override
 	public List<ParameterType> getParameterTypes() {
 		List<ParameterType> types = super.getParameterTypes();
@@ -113,6 +133,7 @@ public class Bagging extends AbstractMetaLearner {
 		types.add(new ParameterTypeBoolean(PARAMETER_AVERAGE_CONFIDENCES, "Specifies whether to average available prediction confidences or not.", true)); 
 
 		types.addAll(RandomGenerator.getRandomGeneratorParameters(this));
+		types.add(getParallelizeLearningParameterType());
 
 		return types;
 	}
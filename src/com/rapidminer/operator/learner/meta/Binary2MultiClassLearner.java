@@ -22,10 +22,12 @@
  */
 package com.rapidminer.operator.learner.meta;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 import com.rapidminer.example.Attribute;
 import com.rapidminer.example.Attributes;
@@ -55,6 +57,10 @@ import com.rapidminer.tools.RandomGenerator;
  * for multiclass classification including procedures which are capable of using error-correcting output codes for
  * increased accuracy.
  * 
+ * If <var>parallelize_learning</var> is checked, the models of all binary problems are learned
+ * in parallel on clones of the inner learner. The temporary labels of all problems are added to the
+ * example table at the same time in this case.
+ * 
  * @author Helge Homburg
  */
 public class Binary2MultiClassLearner extends AbstractMetaLearner {
@@ -152,34 +158,30 @@ public class Binary2MultiClassLearner extends AbstractMetaLearner {
 		// upon a consistent index distribution of the corresponding substructure.
 		HashMap<Integer, Integer> classIndexMap = new HashMap<Integer, Integer>(numberOfClasses);
 
-		for (int currentFunction = 0; currentFunction < numberOfFunctions; currentFunction++) {
-			// 1. Configure a split example set and add a temporary label.
-			int counter = 0;
-			seSet.clearSelection();
-
-			for (String currentClass : classLabel.getMapping().getValues()) {
-				classIndexMap.put(classLabel.getMapping().mapString(currentClass), counter);
-				if (codePattern.partitionEnabled[counter][currentFunction]) {
-					seSet.selectAdditionalSubset(classLabel.getMapping().mapString(currentClass));
+		if (getParameterAsBoolean(PARAMETER_PARALLELIZE_LEARNING) && numberOfFunctions > 1) {
+			// 1. Configure a copy of the split example set with its own temporary label for each function.
+			List<ExampleSet> trainingSets = new ArrayList<ExampleSet>(numberOfFunctions);
+			List<Attribute> workingLabels = new ArrayList<Attribute>(numberOfFunctions);
+			try {
+				for (int currentFunction = 0; currentFunction < numberOfFunctions; currentFunction++) {
+					SplittedExampleSet trainingSet = new SplittedExampleSet(seSet);
+					workingLabels.add(addWorkingLabel(trainingSet, classLabel, codePattern, currentFunction, classIndexMap));
+					trainingSets.add(trainingSet);
 				}
-				counter++;
-			}
-			Attribute workingLabel = AttributeFactory.createAttribute("multiclass_working_label", Ontology.BINOMINAL);
-			seSet.getExampleTable().addAttribute(workingLabel);
-			seSet.getAttributes().addRegular(workingLabel);
-			int currentIndex = 0;
-
-			Iterator<Example> iterator = seSet.iterator();
-			while (iterator.hasNext()) {
-				Example e = iterator.next();
-				currentIndex = classIndexMap.get((int) e.getValue(classLabel));
-
-				if (codePattern.partitionEnabled[currentIndex][currentFunction]) {
-					e.setValue(workingLabel, workingLabel.getMapping().mapString(codePattern.data[currentIndex][currentFunction]));
+
+				// 2. Apply the example sets to clones of the inner learner.
+				return applyInnerLearnerInParallel(trainingSets, RandomGenerator.getRandomGenerator(this)).toArray(models);
+			} finally {
+				// 3. Clean up.
+				for (Attribute workingLabel : workingLabels) {
+					seSet.getExampleTable().removeAttribute(workingLabel);
 				}
 			}
-			seSet.getAttributes().remove(workingLabel);
-			seSet.getAttributes().setLabel(workingLabel);
+		}
+
+		for (int currentFunction = 0; currentFunction < numberOfFunctions; currentFunction++) {
+			// 1. Configure a split example set and add a temporary label.
+			Attribute workingLabel = addWorkingLabel(seSet, classLabel, codePattern, currentFunction, classIndexMap);
 
 			// 2. Apply the example set to the inner learner.
 			models[currentFunction] = applyInnerLearner(seSet);
@@ -192,6 +194,40 @@ public class Binary2MultiClassLearner extends AbstractMetaLearner {
 		return models;
 	}
 
+	/**
+	 * Selects the classes of the given function in the split example set and sets a new temporary label
+	 * containing the code of the function. Returns the temporary label.
+	 */
+	private Attribute addWorkingLabel(SplittedExampleSet seSet, Attribute classLabel, CodePattern codePattern, int currentFunction, Map<Integer, Integer> classIndexMap) {
+		int counter = 0;
+		seSet.clearSelection();
+
+		for (String currentClass : classLabel.getMapping().getValues()) {
+			classIndexMap.put(classLabel.getMapping().mapString(currentClass), counter);
+			if (codePattern.partitionEnabled[counter][currentFunction]) {
+				seSet.selectAdditionalSubset(classLabel.getMapping().mapString(currentClass));
+			}
+			counter++;
+		}
+		Attribute workingLabel = AttributeFactory.createAttribute("multiclass_working_label", Ontology.BINOMINAL);
+		seSet.getExampleTable().addAttribute(workingLabel);
+		seSet.getAttributes().addRegular(workingLabel);
+		int currentIndex = 0;
+
+		Iterator<Example> iterator = seSet.iterator();
+		while (iterator.hasNext()) {
+			Example e = iterator.next();
+			currentIndex = classIndexMap.get((int) e.getValue(classLabel));
+
+			if (codePattern.partitionEnabled[currentIndex][currentFunction]) {
+				e.setValue(workingLabel, workingLabel.getMapping().mapString(codePattern.data[currentIndex][currentFunction]));
+			}
+		}
+		seSet.getAttributes().remove(workingLabel);
+		seSet.getAttributes().setLabel(workingLabel);
+		return workingLabel;
+	}
+
 	/**
 	 * Builds a code pattern according to the "1 against all" classification scheme.
 	 */
@@ -402,6 +438,7 @@ public class Binary2MultiClassLearner extends AbstractMetaLearner {
 		types.add(type);
 
 		types.addAll(RandomGenerator.getRandomGeneratorParameters(this));
+		types.add(getParallelizeLearningParameterType());
 
 		return types;
 	}
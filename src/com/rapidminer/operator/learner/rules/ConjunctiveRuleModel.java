@@ -166,6 +166,12 @@ public class ConjunctiveRuleModel extends SimplePredictionModel {
 		return this.predictedLabel;
 	}
 
+	/** The literals are only tested during the prediction. */
+	@Override
+	protected boolean supportsParallelPrediction() {
+		return true;
+	}
+
 	/** @return the number of literals */
 	public int getRuleLength() {
 		return this.myLiterals.size();
@@ -65,6 +65,12 @@ public class RuleModel extends SimplePredictionModel implements Readable {
         }
         return (Double.NaN); // return unknown if no rule exists
 	}
+
+	/** The rules are only read during the prediction. */
+	@Override
+	protected boolean supportsParallelPrediction() {
+		return true;
+	}
     
     public double getPrediction(Example example) {
         for (Rule rule : rules) {
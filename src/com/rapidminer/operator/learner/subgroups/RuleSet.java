@@ -109,6 +109,12 @@ public class RuleSet extends SimplePredictionModel implements Iterable<Rule> {
 		return (predictUncoveredRules ? example.getAttributes().getLabel().getMapping().getNegativeIndex() : Double.NaN);
 	}
 
+	/** The rules are only read during the prediction. */
+	@Override
+	protected boolean supportsParallelPrediction() {
+		return true;
+	}
+
 	public UtilityFunction[] getUtilityFunctions() {
 		UtilityFunction[] functions = new UtilityFunction[utilityFunctions.size()];
 		functions = utilityFunctions.toArray(functions);
@@ -37,9 +37,11 @@ import com.rapidminer.operator.learner.tree.criterions.GainRatioCriterion;
 import com.rapidminer.operator.learner.tree.criterions.GiniIndexCriterion;
 import com.rapidminer.operator.learner.tree.criterions.InfoGainCriterion;
 import com.rapidminer.parameter.ParameterType;
+import com.rapidminer.parameter.ParameterTypeBoolean;
 import com.rapidminer.parameter.ParameterTypeDouble;
 import com.rapidminer.parameter.ParameterTypeInt;
 import com.rapidminer.parameter.ParameterTypeStringCategory;
+import com.rapidminer.tools.ParallelExecutionService;
 
 /**
  * This is the abstract super class for all decision tree learners. The actual
@@ -62,6 +64,9 @@ public abstract class AbstractTreeLearner extends AbstractLearner {
 	/** The parameter name for the minimal gain. */
 	public static final String PARAMETER_MINIMAL_GAIN = "minimal_gain";
 
+	/** The parameter name for &quot;Indicates if the benefits of the attributes should be calculated in parallel.&quot; */
+	public static final String PARAMETER_PARALLELIZE_SPLIT_SEARCH = "parallelize_split_search";
+
 	public static final String[] CRITERIA_NAMES = {
 		"gain_ratio",
 		"information_gain",
@@ -114,6 +119,9 @@ public abstract class AbstractTreeLearner extends AbstractLearner {
 
 		// create tree builder
 		TreeBuilder builder = getTreeBuilder(exampleSet); 
+		if (getParameterAsBoolean(PARAMETER_PARALLELIZE_SPLIT_SEARCH)) {
+			builder.setNumberOfThreads(ParallelExecutionService.getNumberOfThreads());
+		}
 
 		// learn tree
 		Tree root = builder.learnTree(exampleSet);
@@ -141,6 +149,7 @@ public abstract class AbstractTreeLearner extends AbstractLearner {
 		type.setExpert(false);
 		types.add(type);
 		types.add(new ParameterTypeDouble(PARAMETER_MINIMAL_GAIN, "The minimal gain which must be achieved in order to produce a split.", 0.0d, Double.POSITIVE_INFINITY, 0.1d));
+		types.add(new ParameterTypeBoolean(PARAMETER_PARALLELIZE_SPLIT_SEARCH, "Indicates if the benefits of the attributes should be calculated in parallel. The number of threads is defined by the global settings.", false, true));
 		return types;
 	} 
 }
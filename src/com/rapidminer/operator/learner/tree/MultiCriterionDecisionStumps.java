@@ -117,6 +117,12 @@ public class MultiCriterionDecisionStumps extends AbstractLearner {
 			else return this.getLabel().getMapping().getNegativeIndex();
 		}
 
+		/** The stump only tests a single value of each example. */
+		@Override
+		protected boolean supportsParallelPrediction() {
+			return true;
+		}
+
 		/** @return a <code>String</code> representation of this rule model. */
 		@Override
 		public String toString() {
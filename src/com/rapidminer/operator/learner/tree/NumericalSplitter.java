@@ -22,13 +22,11 @@
  */
 package com.rapidminer.operator.learner.tree;
 
-import java.util.Iterator;
-
 import com.rapidminer.example.Attribute;
 import com.rapidminer.example.Example;
 import com.rapidminer.example.ExampleSet;
-import com.rapidminer.example.set.SortedExampleSet;
 import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.learner.tree.criterions.AbstractCriterion;
 import com.rapidminer.operator.learner.tree.criterions.Criterion;
 import com.rapidminer.tools.Tools;
 
@@ -36,10 +34,24 @@ import com.rapidminer.tools.Tools;
  * Calculates the best split point for numerical attributes according to 
  * a given criterion.
  * 
+ * The values, label indices and weights of the examples are copied into primitive
+ * arrays which are sorted by the attribute values. All candidate split points are
+ * then evaluated in a single pass by moving the weights of the examples from the
+ * right to the left label histogram. Criteria extending {@link AbstractCriterion}
+ * and supporting the incremental calculation are updated directly, all other criteria
+ * are asked for the benefit of the current histograms by {@link Criterion#getBenefit(double[][])}.
+ * Hence, the calculation needs O(n log n) time for all criteria.
+ * 
+ * The incremental calculation is performed on a copy of the criterion, so a splitter can be used by
+ * several threads at the same time as long as the benefit calculation of the criterion is thread safe.
+ * 
  * @author Ingo Mierswa
  */
 public class NumericalSplitter {
 	
+	/** Arrays shorter than this are sorted by insertion sort. */
+	private static final int INSERTION_SORT_THRESHOLD = 7;
+	
     private Criterion criterion;
     
     
@@ -47,57 +59,105 @@ public class NumericalSplitter {
         this.criterion = criterion;
     }
     
-    public double getBestSplit(ExampleSet inputSet, Attribute attribute) throws OperatorException {
-        SortedExampleSet exampleSet = new SortedExampleSet((ExampleSet)inputSet.clone(), attribute, SortedExampleSet.INCREASING);
-        // Attribute labelAttribute = exampleSet.getAttributes().getLabel(); // see bug report 952
-        //double oldLabel = Double.NaN; // see bug report 952
+    public double getBestSplit(ExampleSet exampleSet, Attribute attribute) throws OperatorException {
+        Attribute labelAttribute = exampleSet.getAttributes().getLabel();
+        Attribute weightAttribute = exampleSet.getAttributes().getWeight();
+        int numberOfLabels = labelAttribute.getMapping().size();
+
+        // copy values, label indices and weights
+        int size = exampleSet.size();
+        double[] values = new double[size];
+        int[] labels = new int[size];
+        double[] weights = new double[size];
+        double[] labelWeights = new double[numberOfLabels];
+        int i = 0;
+        for (Example example : exampleSet) {
+        	values[i] = example.getValue(attribute);
+        	labels[i] = (int)example.getValue(labelAttribute);
+        	weights[i] = weightAttribute == null ? 1.0d : example.getValue(weightAttribute);
+        	labelWeights[labels[i]] += weights[i];
+        	i++;
+        }
+        int[] order = sort(values);
+
+        boolean incremental = criterion.supportsIncrementalCalculation() && criterion instanceof AbstractCriterion;
+        AbstractCriterion incrementalCriterion = null;
+        double[][] weightCounts = null;
+        if (incremental) {
+        	incrementalCriterion = ((AbstractCriterion)criterion).clone();
+        	incrementalCriterion.startIncrementalCalculation(labelWeights);
+        } else {
+        	weightCounts = new double[][] { new double[numberOfLabels], labelWeights };
+        }
+
         double bestSplit = Double.NaN;
         double lastValue = Double.NaN;
         double bestSplitBenefit = Double.NEGATIVE_INFINITY;
-      
-        Example lastExample = null;
-        if (this.criterion.supportsIncrementalCalculation()) {
-        	this.criterion.startIncrementalCalculation(exampleSet);
-        }
-        
-        Iterator<Example> exampleIterator = exampleSet.iterator();
-        while(exampleIterator.hasNext()) {
-        	Example e = exampleIterator.next();
-        	//boolean isLast = !(exampleIterator.hasNext()); // see bug report 952
-        	double currentValue = e.getValue(attribute);
-        	
-        	// double label = e.getValue(labelAttribute);  // see bug report 952
-    		if (this.criterion.supportsIncrementalCalculation()) {
-    			if (lastExample != null) 
-    				this.criterion.swapExample(lastExample);
-    			lastExample = e;
-    			//if ((Double.isNaN(oldLabel)) || (oldLabel != label) || isLast) {  // see bug report 952
-    			//if ((Double.isNaN(oldLabel)) || (oldLabel != label)) {  // see bug report 952
-    			if (!Tools.isEqual(currentValue, lastValue)) {
-    				double benefit = this.criterion.getIncrementalBenefit();
+        int lastIndex = -1;
+        for (int index : order) {
+        	double currentValue = values[index];
+        	// all examples before the current one are on the left side
+        	if (lastIndex >= 0) {
+        		if (incremental) {
+        			incrementalCriterion.swapWeight(labels[lastIndex], weights[lastIndex]);
+        		} else {
+        			weightCounts[0][labels[lastIndex]] += weights[lastIndex];
+        			weightCounts[1][labels[lastIndex]] -= weights[lastIndex];
+        		}
+        	}
+        	lastIndex = index;
 
-    				if (benefit > bestSplitBenefit) {
-    					bestSplitBenefit = benefit;
-    					bestSplit = (lastValue + currentValue) / 2.0d;
-    				}
-    				// oldLabel = label; // see bug report 952
-    			}
-        		//} // see bug report 952
-        	//} else if ((Double.isNaN(oldLabel)) || (oldLabel != label)) {  // see bug report 952
-    		} else {  
-        		if (!Tools.isEqual(currentValue, lastValue)) {
-        			double splitValue = (lastValue + currentValue) / 2.0d;
-        			double benefit = this.criterion.getNumericalBenefit(exampleSet, attribute, splitValue);
-        			if (benefit > bestSplitBenefit) {
-        				bestSplitBenefit = benefit;
-        				bestSplit = splitValue;
-        			}
-        			// oldLabel = label; // see bug report 952
+        	if (!Tools.isEqual(currentValue, lastValue)) {
+        		double benefit = incremental ? incrementalCriterion.getIncrementalBenefit() : criterion.getBenefit(weightCounts);
+        		if (benefit > bestSplitBenefit) {
+        			bestSplitBenefit = benefit;
+        			bestSplit = (lastValue + currentValue) / 2.0d;
         		}
         	}
-    		
             lastValue = currentValue;
         }
         return bestSplit;
     }
+
+    /**
+     * Returns the indices of the given values in increasing order of the values. The sorting is
+     * stable and orders the values like {@link Double#compare(double, double)}, hence missing
+     * values are placed at the end.
+     */
+    static int[] sort(double[] values) {
+    	int[] order = new int[values.length];
+    	for (int i = 0; i < order.length; i++) {
+    		order[i] = i;
+    	}
+    	mergeSort(order.clone(), order, 0, order.length, values);
+    	return order;
+    }
+
+    /** Sorts the given range of destination using source as buffer. Both must contain the same indices in this range. */
+    private static void mergeSort(int[] source, int[] destination, int low, int high, double[] values) {
+    	int length = high - low;
+    	if (length < INSERTION_SORT_THRESHOLD) {
+    		for (int i = low + 1; i < high; i++) {
+    			for (int j = i; j > low && Double.compare(values[destination[j - 1]], values[destination[j]]) > 0; j--) {
+    				int swap = destination[j];
+    				destination[j] = destination[j - 1];
+    				destination[j - 1] = swap;
+    			}
+    		}
+    		return;
+    	}
+
+    	int middle = (low + high) >>> 1;
+    	mergeSort(destination, source, low, middle, values);
+    	mergeSort(destination, source, middle, high, values);
+
+    	// merge the sorted halves of source into destination
+    	for (int i = low, p = low, q = middle; i < high; i++) {
+    		if (q >= high || (p < middle && Double.compare(values[source[p]], values[source[q]]) <= 0)) {
+    			destination[i] = source[p++];
+    		} else {
+    			destination[i] = source[q++];
+    		}
+    	}
+    }
 }
@@ -22,8 +22,10 @@
  */
 package com.rapidminer.operator.learner.tree;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 import com.rapidminer.example.ExampleSet;
 import com.rapidminer.operator.Model;
@@ -32,14 +34,26 @@ import com.rapidminer.operator.OperatorCreationException;
 import com.rapidminer.operator.OperatorDescription;
 import com.rapidminer.operator.OperatorException;
 import com.rapidminer.operator.learner.PredictionModel;
+import com.rapidminer.operator.learner.meta.AbstractMetaLearner;
 import com.rapidminer.operator.preprocessing.sampling.BootstrappingOperator;
 import com.rapidminer.parameter.ParameterType;
+import com.rapidminer.parameter.ParameterTypeBoolean;
 import com.rapidminer.parameter.ParameterTypeInt;
 import com.rapidminer.tools.OperatorService;
+import com.rapidminer.tools.ParallelExecutionService;
+import com.rapidminer.tools.RandomGenerator;
 
 /**
  * This operators learns a random forest. The resulting forest model contains several 
  * single random tree models.
+ * 
+ * If <var>parallelize_tree_learning</var> is checked, the trees are learned in parallel.
+ * The bootstrap samples and the random generators for the attribute subsets are created
+ * in the order of the trees beforehand, hence the forest only depends on the random seed
+ * and not on the number of threads. If a local random seed is used, the forest is the same
+ * as the one learned sequentially. Like the members of other ensembles, each tree is learned
+ * with its own random generator replacing the global one (see
+ * {@link AbstractMetaLearner#learnMembers(List, List, int, String)}).
  *
  * @author Ingo Mierswa, Sebastian Land
  */
@@ -48,6 +62,9 @@ public class RandomForestLearner extends RandomTreeLearner {
 	/** The parameter name for the number of trees. */
 	public static final String PARAMETER_NUMBER_OF_TREES = "number_of_trees";
 
+	/** The parameter name for &quot;Indicates if the trees should be learned in parallel.&quot; */
+	public static final String PARAMETER_PARALLELIZE_TREE_LEARNING = "parallelize_tree_learning";
+
 	public RandomForestLearner(OperatorDescription description) {
 		super(description);
 	}
@@ -72,6 +89,11 @@ public class RandomForestLearner extends RandomTreeLearner {
 		List<TreeModel> baseModels = new LinkedList<TreeModel>();
 		int numberOfTrees = getParameterAsInt(PARAMETER_NUMBER_OF_TREES);
 		
+		if (getParameterAsBoolean(PARAMETER_PARALLELIZE_TREE_LEARNING) && numberOfTrees > 1) {
+			baseModels.addAll(learnTreesInParallel(exampleSet, bootstrapping, numberOfTrees));
+			return new RandomForestModel(exampleSet, baseModels);
+		}
+
 		for (int i = 0; i < numberOfTrees; i++) {
 			TreeModel model = (TreeModel)super.learn(bootstrapping.apply(exampleSet));
 			model.setSource(getName());
@@ -82,6 +104,38 @@ public class RandomForestLearner extends RandomTreeLearner {
 		return new RandomForestModel(exampleSet, baseModels);
 	}
 
+	/**
+	 * Learns the trees in parallel. All random decisions which are not made by the random generators
+	 * of the single trees are made in the calling thread in the order of the trees.
+	 */
+	private List<TreeModel> learnTreesInParallel(ExampleSet exampleSet, BootstrappingOperator bootstrapping, int numberOfTrees) throws OperatorException {
+		boolean useLocalRandomSeed = getParameterAsBoolean(RandomGenerator.PARAMETER_USE_LOCAL_RANDOM_SEED);
+		RandomGenerator random = RandomGenerator.getRandomGenerator(this);
+
+		List<Callable<TreeModel>> tasks = new ArrayList<Callable<TreeModel>>(numberOfTrees);
+		List<RandomGenerator> treeRandomGenerators = new ArrayList<RandomGenerator>(numberOfTrees);
+		for (int i = 0; i < numberOfTrees; i++) {
+			final ExampleSet sample = (ExampleSet) bootstrapping.apply(exampleSet).clone();
+			final TreeBuilder builder = getTreeBuilder(sample);
+			RandomGenerator treeRandom = new RandomGenerator(random.nextLong());
+			if (!useLocalRandomSeed) {
+				// the global random generator would make the trees depend on the order of execution
+				builder.setSplitPreprocessing(getSplitPreprocessing(treeRandom));
+			}
+			treeRandomGenerators.add(treeRandom);
+			tasks.add(new Callable<TreeModel>() {
+				@Override
+				public TreeModel call() throws OperatorException {
+					checkForStop();
+					TreeModel model = new TreeModel(sample, builder.learnTree(sample));
+					model.setSource(getName());
+					return model;
+				}
+			});
+		}
+		return AbstractMetaLearner.learnMembers(tasks, treeRandomGenerators, ParallelExecutionService.getNumberOfThreads(), getName());
+	}
+
 	@Override
 	public boolean supportsCapability(OperatorCapability capability) {
 		if (capability == com.rapidminer.operator.OperatorCapability.BINOMINAL_ATTRIBUTES)
@@ -110,6 +164,8 @@ public class RandomForestLearner extends RandomTreeLearner {
 
 		types.addAll(super.getParameterTypes());
 
+		types.add(new ParameterTypeBoolean(PARAMETER_PARALLELIZE_TREE_LEARNING, "Indicates if the trees should be learned in parallel. The number of threads is defined by the global settings.", false, true));
+
 		return types;
 	}
 }
@@ -59,13 +59,18 @@ public class RandomTreeLearner extends DecisionTreeLearner {
 	public SplitPreprocessing getSplitPreprocessing() {
 		SplitPreprocessing preprocessing = null;
 		try {
-			preprocessing = new RandomSubsetPreprocessing(getParameterAsBoolean(PARAMETER_USE_HEURISTIC_SUBSET_RATION), getParameterAsDouble(PARAMETER_SUBSET_RATIO), RandomGenerator.getRandomGenerator(getParameterAsBoolean(RandomGenerator.PARAMETER_USE_LOCAL_RANDOM_SEED), getParameterAsInt(RandomGenerator.PARAMETER_LOCAL_RANDOM_SEED)));
+			preprocessing = getSplitPreprocessing(RandomGenerator.getRandomGenerator(getParameterAsBoolean(RandomGenerator.PARAMETER_USE_LOCAL_RANDOM_SEED), getParameterAsInt(RandomGenerator.PARAMETER_LOCAL_RANDOM_SEED)));
 		} catch (UndefinedParameterError e) {
 			// cannot happen
 		}
 		return preprocessing;
 	}
 
+	/** Returns a random feature subset sampling using the given random generator. */
+	protected SplitPreprocessing getSplitPreprocessing(RandomGenerator random) throws UndefinedParameterError {
+		return new RandomSubsetPreprocessing(getParameterAsBoolean(PARAMETER_USE_HEURISTIC_SUBSET_RATION), getParameterAsDouble(PARAMETER_SUBSET_RATIO), random);
+	}
+
 	@Override
 	public List<ParameterType> getParameterTypes() {
 		List<ParameterType> types = super.getParameterTypes();
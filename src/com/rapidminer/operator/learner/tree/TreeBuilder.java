@@ -22,18 +22,26 @@
  */
 package com.rapidminer.operator.learner.tree;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Vector;
+import java.util.concurrent.Callable;
 
 import com.rapidminer.example.Attribute;
 import com.rapidminer.example.ExampleSet;
 import com.rapidminer.example.set.SplittedExampleSet;
 import com.rapidminer.operator.OperatorException;
 import com.rapidminer.operator.learner.tree.criterions.Criterion;
+import com.rapidminer.tools.ParallelExecutionService;
 
 /**
  * Build a tree from an example set.
+ * 
+ * If more than one thread is allowed by {@link #setNumberOfThreads(int)}, the benefits of the
+ * attributes are calculated in parallel for all nodes which are large enough. Since the benefits
+ * are collected in the order of the attributes, the resulting tree is the same as for the
+ * sequential calculation.
  *
  * @author Ingo Mierswa
  */
@@ -59,6 +67,14 @@ public class TreeBuilder {
 	
 	protected boolean usePrePruning = true;
 	
+	/** Nodes with less values (examples times attributes) are always handled sequentially. */
+	private static final long MINIMAL_NUMBER_OF_VALUES_FOR_PARALLEL_SPLIT_SEARCH = 100000;
+	
+	/** The number of attribute blocks per thread used for balancing the load of the threads. */
+	private static final int BLOCKS_PER_THREAD = 4;
+	
+	private int numberOfThreads = 1;
+	
 	
 	public TreeBuilder(Criterion criterion, 
 			List<Terminator> terminationCriteria, 
@@ -85,6 +101,16 @@ public class TreeBuilder {
 	}
 
 	
+	/** Sets the number of threads used for the calculation of the benefits. The default is 1. */
+	public void setNumberOfThreads(int numberOfThreads) {
+		this.numberOfThreads = Math.max(1, numberOfThreads);
+	}
+	
+	/** Replaces the preprocessing applied before each split. */
+	public void setSplitPreprocessing(SplitPreprocessing preprocessing) {
+		this.preprocessing = preprocessing;
+	}
+	
 	public Tree learnTree(ExampleSet exampleSet) throws OperatorException {
 		// grow tree
 		Tree root = new Tree((ExampleSet)exampleSet.clone());
@@ -130,6 +156,10 @@ public class TreeBuilder {
 	}
 
 	protected Vector<Benefit> calculateAllBenefits(ExampleSet trainingSet) throws OperatorException {
+		int numberOfAttributes = trainingSet.getAttributes().size();
+		if (numberOfThreads > 1 && numberOfAttributes > 1 && (long)numberOfAttributes * trainingSet.size() >= MINIMAL_NUMBER_OF_VALUES_FOR_PARALLEL_SPLIT_SEARCH) {
+			return calculateAllBenefitsInParallel(trainingSet);
+		}
 		Vector<Benefit> benefits = new Vector<Benefit>();
 		for (Attribute attribute : trainingSet.getAttributes()) {
 			Benefit currentBenefit = calculateBenefit(trainingSet, attribute);
@@ -139,6 +169,42 @@ public class TreeBuilder {
 		}
 		return benefits;
 	}
+
+	/**
+	 * Calculates the benefits of blocks of attributes in parallel. The benefits are returned in
+	 * the order of the attributes like in {@link #calculateAllBenefits(ExampleSet)}.
+	 */
+	private Vector<Benefit> calculateAllBenefitsInParallel(final ExampleSet trainingSet) throws OperatorException {
+		List<Attribute> attributes = new ArrayList<Attribute>(trainingSet.getAttributes().size());
+		for (Attribute attribute : trainingSet.getAttributes()) {
+			attributes.add(attribute);
+		}
+
+		int numberOfBlocks = Math.min(attributes.size(), numberOfThreads * BLOCKS_PER_THREAD);
+		List<Callable<List<Benefit>>> tasks = new ArrayList<Callable<List<Benefit>>>(numberOfBlocks);
+		for (int i = 0; i < numberOfBlocks; i++) {
+			final List<Attribute> block = attributes.subList(i * attributes.size() / numberOfBlocks, (i + 1) * attributes.size() / numberOfBlocks);
+			tasks.add(new Callable<List<Benefit>>() {
+				@Override
+				public List<Benefit> call() throws OperatorException {
+					List<Benefit> blockBenefits = new ArrayList<Benefit>(block.size());
+					for (Attribute attribute : block) {
+						Benefit currentBenefit = calculateBenefit(trainingSet, attribute);
+						if (currentBenefit != null) {
+							blockBenefits.add(currentBenefit);
+						}
+					}
+					return blockBenefits;
+				}
+			});
+		}
+
+		Vector<Benefit> benefits = new Vector<Benefit>();
+		for (List<Benefit> blockBenefits : ParallelExecutionService.execute(tasks, numberOfThreads, "TreeBuilder")) {
+			benefits.addAll(blockBenefits);
+		}
+		return benefits;
+	}
 	
 	protected void buildTree(Tree current, ExampleSet exampleSet, int depth) throws OperatorException {
 		// terminate (beginning of recursive method!)
@@ -54,6 +54,12 @@ public class TreeModel extends SimplePredictionModel {
 		return predict(example, root);
 	}
 
+	/** The tree is only traversed during the prediction. */
+	@Override
+	protected boolean supportsParallelPrediction() {
+		return true;
+	}
+
 	private double predict(Example example, Tree node) {
 		if (node.isLeaf()) {
 			Iterator<String> s = node.getCounterMap().keySet().iterator();
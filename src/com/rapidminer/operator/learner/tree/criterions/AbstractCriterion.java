@@ -39,7 +39,7 @@ import com.rapidminer.tools.Tools;
  * 
  * @author Sebastian Land
  */
-public abstract class AbstractCriterion implements Criterion {
+public abstract class AbstractCriterion implements Criterion, Cloneable {
 	
 
     // data for incremental calculation
@@ -59,33 +59,58 @@ public abstract class AbstractCriterion implements Criterion {
 
 	public void startIncrementalCalculation(ExampleSet exampleSet) {
 		FrequencyCalculator calculator = new FrequencyCalculator();
-		rightLabelWeights = calculator.getLabelWeights(exampleSet);
-		leftLabelWeights = new double[rightLabelWeights.length];
-		totalLabelWeights = new double[rightLabelWeights.length];
-		System.arraycopy(rightLabelWeights, 0, totalLabelWeights, 0, rightLabelWeights.length);
-		leftWeight = 0;
-		rightWeight = calculator.getTotalWeight(totalLabelWeights);
-		totalWeight = rightWeight;
+		startIncrementalCalculation(calculator.getLabelWeights(exampleSet));
 		
 		labelAttribute = exampleSet.getAttributes().getLabel();
 		weightAttribute = exampleSet.getAttributes().getWeight();
 	}
 
+	/**
+	 * Starts the incremental calculation with all weight on the right side. The given array
+	 * contains the weight sum for each label index and is not modified.
+	 */
+	public void startIncrementalCalculation(double[] labelWeights) {
+		rightLabelWeights = labelWeights.clone();
+		leftLabelWeights = new double[rightLabelWeights.length];
+		totalLabelWeights = labelWeights.clone();
+		leftWeight = 0;
+		rightWeight = new FrequencyCalculator().getTotalWeight(totalLabelWeights);
+		totalWeight = rightWeight;
+	}
+
 	public void swapExample(Example example) {
 		double weight = 1;
 		if (weightAttribute != null) {
 			weight = example.getValue(weightAttribute);
 		}
-		int label = (int)example.getValue(labelAttribute);
+		swapWeight((int)example.getValue(labelAttribute), weight);
+	}
+
+	/** Moves the given weight of the given label index from the right to the left side. */
+	public void swapWeight(int labelIndex, double weight) {
 		leftWeight += weight;
 		rightWeight -= weight;
-		leftLabelWeights[label] += weight;
-		rightLabelWeights[label] -= weight;
+		leftLabelWeights[labelIndex] += weight;
+		rightLabelWeights[labelIndex] -= weight;
 	}
 	
 	public double getIncrementalBenefit() {
 		return 0;
 	}
+
+	/**
+	 * Returns a shallow copy of this criterion. Since the data for the incremental calculation is
+	 * recreated by {@link #startIncrementalCalculation(double[])}, the copy can be used for an
+	 * incremental calculation independently of this criterion, e.g. in another thread.
+	 */
+	@Override
+	public AbstractCriterion clone() {
+		try {
+			return (AbstractCriterion) super.clone();
+		} catch (CloneNotSupportedException e) {
+			throw new RuntimeException("Cannot clone criterion: " + e, e);
+		}
+	}
 	
 	
 	/**
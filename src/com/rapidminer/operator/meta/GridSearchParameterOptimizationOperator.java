@@ -22,16 +22,32 @@
  */
 package com.rapidminer.operator.meta;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.operator.IOObject;
 import com.rapidminer.operator.Operator;
 import com.rapidminer.operator.OperatorDescription;
 import com.rapidminer.operator.OperatorException;
 import com.rapidminer.operator.UserError;
+import com.rapidminer.operator.learner.meta.AbstractMetaLearner;
 import com.rapidminer.operator.performance.PerformanceVector;
+import com.rapidminer.operator.ports.InputPort;
+import com.rapidminer.operator.ports.PortPairExtender.PortPair;
+import com.rapidminer.operator.visualization.ProcessLogOperator;
+import com.rapidminer.parameter.ParameterType;
+import com.rapidminer.parameter.ParameterTypeBoolean;
+import com.rapidminer.parameter.ParameterTypeInt;
+import com.rapidminer.parameter.conditions.BooleanParameterCondition;
 import com.rapidminer.parameter.value.ParameterValueRange;
 import com.rapidminer.parameter.value.ParameterValues;
+import com.rapidminer.tools.OperatorClonePool;
+import com.rapidminer.tools.ParallelExecutionService;
+import com.rapidminer.tools.RandomGenerator;
 
 
 /**
@@ -64,10 +80,26 @@ import com.rapidminer.parameter.value.ParameterValues;
  * especially useful for plotting purposes.
  * </p>
  * 
+ * <p>If <var>parallelize_evaluation</var> is checked, several parameter combinations are evaluated
+ * at the same time on clones of the subprocess. The number of concurrently evaluated combinations is
+ * limited by <var>number_of_threads</var> and is reduced if the memory needed by the previous combinations
+ * indicates that the free memory would not suffice. The combinations are compared in the same order as in
+ * the sequential evaluation, hence the same parameter set is selected if the subprocess does not use the global
+ * random generator. Instead, each combination is evaluated with its own random generator whose seed is drawn from
+ * the global random generator in the order of the combinations. Process log operators placed directly
+ * into the subprocess log the values of each evaluated clone in this order, too.
+ * This is only possible if all optimized operators are part of the subprocess.</p>
+ * 
  * @author Simon Fischer, Helge Homburg, Ingo Mierswa, Tobias Malbrecht
  *          15:35:49 ingomierswa Exp $
  */
 public class GridSearchParameterOptimizationOperator extends ParameterOptimizationOperator {
+
+	/** The parameter name for &quot;Indicates if several parameter combinations should be evaluated in parallel.&quot; */
+	public static final String PARAMETER_PARALLELIZE_EVALUATION = "parallelize_evaluation";
+
+	/** The parameter name for &quot;The maximal number of parameter combinations which are evaluated at the same time.&quot; */
+	public static final String PARAMETER_NUMBER_OF_THREADS = "number_of_threads";
     
 	protected Operator[] operators;
 
@@ -152,8 +184,29 @@ public class GridSearchParameterOptimizationOperator extends ParameterOptimizati
         if (numberOfCombinations <= 1)
             throw new UserError(this, 922);
         
-        int counter = 1;
 		best = null;
+		if (getParameterAsBoolean(PARAMETER_PARALLELIZE_EVALUATION)) {
+			int numberOfThreads = getParameterAsInt(PARAMETER_NUMBER_OF_THREADS);
+			if (numberOfThreads <= 0) {
+				numberOfThreads = ParallelExecutionService.getNumberOfThreads();
+			}
+			if (numberOfThreads > 1) {
+				if (getInnerOperatorsToOptimize(this) == null) {
+					logWarning("Cannot evaluate parameter combinations in parallel since not all optimized operators are part of the subprocess, using sequential evaluation.");
+				} else if (containsNestedProcessLog()) {
+					logWarning("Cannot evaluate parameter combinations in parallel since the subprocess contains nested process logs, using sequential evaluation.");
+				} else {
+					OperatorClonePool<GridSearchParameterOptimizationOperator> clonePool = new OperatorClonePool<GridSearchParameterOptimizationOperator>(this, getInputExampleSet(), true, numberOfThreads);
+					if (clonePool.isParallel()) {
+						optimizeInParallel(clonePool);
+						deliver(best);
+						return;
+					}
+				}
+			}
+		}
+
+        int counter = 1;
 		while (true) {
 			getLogger().fine("Using parameter set " + counter + " / " + numberOfCombinations + ":");
 			PerformanceVector performance = computeCurrentPerformeance();
@@ -187,4 +240,153 @@ public class GridSearchParameterOptimizationOperator extends ParameterOptimizati
 
 		deliver(best);
 	}
+
+	/**
+	 * Evaluates the parameter combinations in batches on clones of this operator. Each combination is
+	 * evaluated with its own random generator whose seed is drawn from the global random generator in
+	 * the order of the combinations. The results of each batch are merged in the order of the combinations,
+	 * so that the selected parameter set does not depend on the number of threads. The size of the next
+	 * batch is reduced if the memory consumed by the last batch indicates that the free memory does not
+	 * suffice for the given number of threads.
+	 */
+	private void optimizeInParallel(OperatorClonePool<GridSearchParameterOptimizationOperator> clonePool) throws OperatorException {
+		List<ProcessLogOperator> processLogs = new ArrayList<ProcessLogOperator>();
+		for (Operator operator : getSubprocess(0).getOperators()) {
+			if (operator instanceof ProcessLogOperator && operator.isEnabled()) {
+				processLogs.add((ProcessLogOperator) operator);
+			}
+		}
+
+		long memoryPerCombination = 0;
+		int combination = 0;
+		while (combination < numberOfCombinations) {
+			int batchSize = Math.min(numberOfCombinations - combination, ParallelExecutionService.getNumberOfThreads(clonePool.getNumberOfThreads(), memoryPerCombination));
+			List<String[]> batchValues = new ArrayList<String[]>(batchSize);
+			List<OperatorClonePool.CloneTask<GridSearchParameterOptimizationOperator, PerformanceVector>> tasks = new ArrayList<OperatorClonePool.CloneTask<GridSearchParameterOptimizationOperator, PerformanceVector>>(batchSize);
+			for (int i = 0; i < batchSize; i++) {
+				final String[] currentValues = getParameterValues(combination + i);
+				batchValues.add(currentValues);
+				tasks.add(new OperatorClonePool.CloneTask<GridSearchParameterOptimizationOperator, PerformanceVector>() {
+					@Override
+					public PerformanceVector call(GridSearchParameterOptimizationOperator clone) throws OperatorException {
+						Operator[] cloneOperators = getInnerOperatorsToOptimize(clone);
+						for (int j = 0; j < cloneOperators.length; j++) {
+							cloneOperators[j].getParameters().setParameter(parameters[j], currentValues[j]);
+						}
+						return clone.getPerformance();
+					}
+				});
+			}
+
+			// the clones are kept for the merge since their logged values and results are needed there
+			List<GridSearchParameterOptimizationOperator> clones = new ArrayList<GridSearchParameterOptimizationOperator>(batchSize);
+			long usedMemoryBefore = getUsedMemory();
+			// the seeds are drawn in the order of the combinations, hence they do not depend on the batch sizes
+			List<RandomGenerator> randomGenerators = AbstractMetaLearner.createMemberRandomGenerators(RandomGenerator.getGlobalRandomGenerator(), batchSize);
+			List<PerformanceVector> performances = clonePool.executeOnSeparateClones(tasks, randomGenerators, clones);
+			memoryPerCombination = Math.max(0, getUsedMemory() - usedMemoryBefore) / batchSize;
+
+			for (int i = 0; i < batchSize; i++) {
+				String[] currentValues = batchValues.get(i);
+				getLogger().fine("Using parameter set " + (combination + 1) + " / " + numberOfCombinations + ":");
+				for (int j = 0; j < operators.length; j++) {
+					operators[j].getParameters().setParameter(parameters[j], currentValues[j]);
+					getLogger().fine(operators[j] + "." + parameters[j] + " = " + currentValues[j]);
+				}
+				// the clones log the best performance so far like this operator in the sequential evaluation
+				clones.get(i).best = best;
+				for (ProcessLogOperator processLog : processLogs) {
+					Operator cloneLog = clones.get(i).getSubprocess(0).getOperatorByName(processLog.getName());
+					if (cloneLog instanceof ProcessLogOperator) {
+						processLog.logValues((ProcessLogOperator) cloneLog);
+					}
+				}
+
+				PerformanceVector performance = performances.get(i);
+				if ((best == null) || ((performance != null) && (performance.compareTo(best.getPerformance()) > 0))) {
+					best = new ParameterSet(operators, parameters, currentValues, performance);
+					List<PortPair> clonePairs = clones.get(i).getInnerSinkExtender().getManagedPairs();
+					List<PortPair> pairs = getInnerSinkExtender().getManagedPairs();
+					for (int j = 0; j < pairs.size() && j < clonePairs.size(); j++) {
+						pairs.get(j).getOutputPort().deliver(clonePairs.get(j).getInputPort().getDataOrNull());
+					}
+				}
+
+				combination++;
+				if (combination < numberOfCombinations) {
+					inApplyLoop();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns true if an enabled process log is nested below the top level of the subprocess. Only the
+	 * process logs on the top level can be replayed in the order of the sequential evaluation.
+	 */
+	private boolean containsNestedProcessLog() {
+		List<Operator> topLevelOperators = getSubprocess(0).getOperators();
+		for (Operator operator : getSubprocess(0).getAllInnerOperators()) {
+			if (operator instanceof ProcessLogOperator && operator.isEnabled() && !topLevelOperators.contains(operator)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/** Returns the first example set delivered to this operator or null if there is none. */
+	private ExampleSet getInputExampleSet() throws OperatorException {
+		for (InputPort port : getInputPorts().getAllPorts()) {
+			IOObject input = port.getDataOrNull();
+			if (input instanceof ExampleSet) {
+				return (ExampleSet) input;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the operators of the subprocess of the given operator which correspond to the
+	 * optimized operators of this operator or null if not all of them are part of the subprocess.
+	 */
+	private Operator[] getInnerOperatorsToOptimize(GridSearchParameterOptimizationOperator operator) {
+		Map<String, Operator> innerOperators = new HashMap<String, Operator>();
+		for (Operator innerOperator : operator.getSubprocess(0).getAllInnerOperators()) {
+			innerOperators.put(innerOperator.getName(), innerOperator);
+		}
+		Operator[] result = new Operator[operators.length];
+		for (int j = 0; j < operators.length; j++) {
+			result[j] = innerOperators.get(operators[j].getName());
+			if (result[j] == null) {
+				return null;
+			}
+		}
+		return result;
+	}
+
+	/** Returns the parameter values of the combination with the given index in the order of the sequential evaluation. */
+	private String[] getParameterValues(int combination) {
+		String[] result = new String[parameters.length];
+		for (int j = 0; j < parameters.length; j++) {
+			result[j] = values[j][combination % values[j].length];
+			combination /= values[j].length;
+		}
+		return result;
+	}
+
+	private static long getUsedMemory() {
+		Runtime runtime = Runtime.getRuntime();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	@Override
+	public List<ParameterType> getParameterTypes() {
+		List<ParameterType> types = super.getParameterTypes();
+		types.add(new ParameterTypeBoolean(PARAMETER_PARALLELIZE_EVALUATION, "Indicates if several parameter combinations should be evaluated in parallel on clones of the subprocess.", false, true));
+		ParameterType type = new ParameterTypeInt(PARAMETER_NUMBER_OF_THREADS, "The maximal number of parameter combinations which are evaluated at the same time. If set to 0, the number defined by the global settings is used.", 0, Integer.MAX_VALUE, 0);
+		type.setExpert(true);
+		type.registerDependencyCondition(new BooleanParameterCondition(this, PARAMETER_PARALLELIZE_EVALUATION, true, true));
+		types.add(type);
+		return types;
+	}
 }
@@ -22,6 +22,7 @@
  */
 package com.rapidminer.operator.meta;
 
+import java.util.Iterator;
 import java.util.List;
 
 import Jama.Matrix;
@@ -373,6 +374,14 @@ public class QuadraticParameterOptimizationOperator extends GridSearchParameterO
 	@Override
 	public List<ParameterType> getParameterTypes() {
 		List<ParameterType> types = super.getParameterTypes();
+		// the quadratic optimization does not support the parallel evaluation of the grid search
+		Iterator<ParameterType> iterator = types.iterator();
+		while (iterator.hasNext()) {
+			String key = iterator.next().getKey();
+			if (key.equals(PARAMETER_PARALLELIZE_EVALUATION) || key.equals(PARAMETER_NUMBER_OF_THREADS)) {
+				iterator.remove();
+			}
+		}
 		types.add(new ParameterTypeCategory(PARAMETER_IF_EXCEEDS_REGION, "What to do if range is exceeded.", EXCEED_BEHAVIORS, CLIP));
 		types.add(new ParameterTypeCategory(PARAMETER_IF_EXCEEDS_RANGE, "What to do if range is exceeded.", EXCEED_BEHAVIORS, FAIL));
 		return types;
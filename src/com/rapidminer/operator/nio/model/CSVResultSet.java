@@ -147,20 +147,25 @@ public class CSVResultSet implements DataResultSet {
                     break;
                 }
             } catch (CSVParseException e) {
-            	ParsingError parsingError = new ParsingError(currentRow, -1, ErrorCode.FILE_SYNTAX_ERROR, line, e);
-                getErrors().add(parsingError);
-                String warning = "Could not parse line " + currentRow + " in input: " + e.toString();
-                if (operator != null) {
-                	operator.logWarning(warning);
-                } else {
-                	Logger.getLogger(getClass().getName()).warning(warning);
-                }
+                reportSyntaxError(currentRow, line, e);
                 next = new String[] { line };
             }
         } while (true);
         numColumns = Math.max(numColumns, next.length);
     }
 
+    /** Registers and logs that the given line could not be parsed. */
+    void reportSyntaxError(int row, String line, CSVParseException e) {
+        ParsingError parsingError = new ParsingError(row, -1, ErrorCode.FILE_SYNTAX_ERROR, line, e);
+        getErrors().add(parsingError);
+        String warning = "Could not parse line " + row + " in input: " + e.toString();
+        if (operator != null) {
+            operator.logWarning(warning);
+        } else {
+            Logger.getLogger(getClass().getName()).warning(warning);
+        }
+    }
+
     @Override
     public boolean hasNext() {
         return next != null;
@@ -253,4 +258,8 @@ public class CSVResultSet implements DataResultSet {
     public List<ParsingError> getErrors() {
         return errors;
     }
+
+    CSVResultSetConfiguration getConfiguration() {
+        return configuration;
+    }
 }
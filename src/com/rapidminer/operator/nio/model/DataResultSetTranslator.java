@@ -28,6 +28,8 @@ import java.text.ParseException;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
 import com.rapidminer.RapidMiner;
@@ -36,14 +38,18 @@ import com.rapidminer.example.AttributeTypeException;
 import com.rapidminer.example.Attributes;
 import com.rapidminer.example.ExampleSet;
 import com.rapidminer.example.table.AttributeFactory;
+import com.rapidminer.example.table.ColumnarExampleTable;
 import com.rapidminer.example.table.DataRow;
 import com.rapidminer.example.table.DataRowFactory;
-import com.rapidminer.example.table.MemoryExampleTable;
+import com.rapidminer.example.table.ExpandableExampleTable;
 import com.rapidminer.operator.Operator;
 import com.rapidminer.operator.OperatorException;
 import com.rapidminer.operator.UserError;
 import com.rapidminer.operator.nio.ImportWizardUtils;
 import com.rapidminer.operator.nio.model.DataResultSet.ValueType;
+import com.rapidminer.operator.nio.model.ParallelCSVReader.CellError;
+import com.rapidminer.operator.nio.model.ParallelCSVReader.LineError;
+import com.rapidminer.operator.nio.model.ParallelCSVReader.ParsedChunk;
 import com.rapidminer.operator.nio.model.ParsingError.ErrorCode;
 import com.rapidminer.tools.Ontology;
 import com.rapidminer.tools.ParameterService;
@@ -129,18 +135,24 @@ public class DataResultSetTranslator {
         }
 
         // building example table
-        MemoryExampleTable exampleTable = new MemoryExampleTable(attributes);
+        DataRowFactory factory = new DataRowFactory(configuration.getDataManagementType(), '.');
+        ExpandableExampleTable exampleTable = factory.createExampleTable(Arrays.asList(attributes));
 
         // now iterate over complete dataResultSet and copy data
         int currentRow = 0; 		// The row in the underlying DataResultSet
         int exampleIndex = 0;		// The row in the example set
         dataResultSet.reset(listener);
-        DataRowFactory factory = new DataRowFactory(configuration.getDataManagementType(), '.');
         int maxAnnotatedRow = configuration.getLastAnnotatedRowIndex();
+        ParallelCSVReader parallelReader = maxRows < 0 ? ParallelCSVReader.create(dataResultSet, operator) : null;
         while (dataResultSet.hasNext() && !shouldStop && (currentRow < maxRows || maxRows < 0)) {
             if (cancelLoadingRequested) {
                 break;
             }
+            if (parallelReader != null && currentRow > maxAnnotatedRow) {
+                // all remaining rows are data rows
+                readInParallel(parallelReader, (CSVResultSet) dataResultSet, currentRow, exampleIndex, attributes, attributeColumns, configuration, factory, exampleTable, listener);
+                break;
+            }
             dataResultSet.next(listener);
             // checking for annotation
             String currentAnnotation;
@@ -179,7 +191,6 @@ public class DataResultSetTranslator {
                 // creating data row
                 DataRow row = factory.create(attributes.length);
                 //DoubleArrayDataRow row = new DoubleArrayDataRow(new double[attributes.length]);
-                exampleTable.addDataRow(row);
                 int attributeIndex = 0;
                 for (Attribute attribute : attributes) {
                     // check for missing
@@ -206,6 +217,7 @@ public class DataResultSetTranslator {
                     }
                     attributeIndex++;
                 }
+                exampleTable.addDataRow(row);
                 exampleIndex++;
             }
             currentRow++;
@@ -237,6 +249,132 @@ public class DataResultSetTranslator {
         return exampleSet;
     }
 
+    /**
+     * Reads the remaining rows of the CSV file starting with the given row in chunks which are
+     * parsed in parallel. The rows are added to the example table in the order of the file,
+     * and nominal values are mapped in the order of their occurrence. Hence, the result is
+     * the same as when reading the rows one after another. The progress is reported in percent
+     * of the file after each chunk.
+     */
+    private void readInParallel(ParallelCSVReader reader, CSVResultSet resultSet, int firstRow, int firstExampleIndex, Attribute[] attributes, int[] attributeColumns, DataResultSetTranslationConfiguration configuration, DataRowFactory factory, ExpandableExampleTable exampleTable, ProgressListener listener) throws OperatorException {
+        int currentRow = firstRow;
+        int exampleIndex = firstExampleIndex;
+        reader.open(firstRow);
+        if (listener != null) {
+            listener.setTotal(100);
+        }
+        try {
+            while (!shouldStop && !cancelLoadingRequested) {
+                List<ParsedChunk> chunks = reader.readChunks(attributes, attributeColumns, configuration);
+                if (chunks.isEmpty()) {
+                    break;
+                }
+                for (ParsedChunk chunk : chunks) {
+                    for (LineError lineError : chunk.getLineErrors()) {
+                        int precedingRows = currentRow + lineError.getRow();
+                        // the result set has already read ahead up to the first row and reported the preceding errors
+                        if (precedingRows > firstRow) {
+                            resultSet.reportSyntaxError(precedingRows - 1, lineError.getLine(), lineError.getCause());
+                        }
+                    }
+                    addChunk(chunk, currentRow, exampleIndex, attributes, attributeColumns, configuration.isFaultTolerant(), factory, exampleTable);
+                    currentRow += chunk.size();
+                    exampleIndex += chunk.size();
+                    if (listener != null && reader.getLength() > 0) {
+                        listener.setCompleted((int) Math.min(100, 100 * chunk.getEndPosition() / reader.getLength()));
+                    }
+                }
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    /** Maps the nominal values of the chunk, registers its errors and adds its rows to the example table. */
+    private void addChunk(ParsedChunk chunk, int firstRow, int firstExampleIndex, Attribute[] attributes, int[] attributeColumns, boolean isFaultTolerant, DataRowFactory factory, ExpandableExampleTable exampleTable) throws UserError {
+        int size = chunk.size();
+        int[][] mappedIndices = new int[attributes.length][];
+        AttributeTypeException[][] mappingErrors = new AttributeTypeException[attributes.length][];
+        boolean hasMappingErrors = false;
+        for (int i = 0; i < attributes.length; i++) {
+            List<String> nominalValues = chunk.getNominalValues(i);
+            if (nominalValues != null) {
+                mappedIndices[i] = new int[nominalValues.size()];
+                int valueIndex = 0;
+                for (String value : nominalValues) {
+                    try {
+                        mappedIndices[i][valueIndex] = attributes[i].getMapping().mapString(value);
+                    } catch (AttributeTypeException e) {
+                        // more than two values for a binominal attribute
+                        mappedIndices[i][valueIndex] = -1;
+                        if (mappingErrors[i] == null) {
+                            mappingErrors[i] = new AttributeTypeException[nominalValues.size()];
+                        }
+                        mappingErrors[i][valueIndex] = e;
+                        hasMappingErrors = true;
+                    }
+                    valueIndex++;
+                }
+            }
+        }
+
+        // errors are registered in the order of rows and attributes such that the first one is thrown
+        if (hasMappingErrors) {
+            Iterator<CellError> errorIterator = chunk.getErrors().iterator();
+            CellError nextError = errorIterator.hasNext() ? errorIterator.next() : null;
+            for (int row = 0; row < size; row++) {
+                for (int i = 0; i < attributes.length; i++) {
+                    if (nextError != null && nextError.getRow() == row && nextError.getAttribute() == i) {
+                        addOrThrow(isFaultTolerant, nextError.createError(firstRow), firstExampleIndex + row);
+                        nextError = errorIterator.hasNext() ? errorIterator.next() : null;
+                    } else if (mappingErrors[i] != null) {
+                        double value = chunk.getValues(i)[row];
+                        if (!Double.isNaN(value) && mappingErrors[i][(int) value] != null) {
+                            ParsingError error = new ParsingError(firstRow + row, attributeColumns[i], ErrorCode.MORE_THAN_TWO_VALUES, chunk.getNominalValues(i).get((int) value), mappingErrors[i][(int) value]);
+                            addOrThrow(isFaultTolerant, error, firstExampleIndex + row);
+                        }
+                    }
+                }
+            }
+        } else {
+            for (CellError error : chunk.getErrors()) {
+                addOrThrow(isFaultTolerant, error.createError(firstRow), firstExampleIndex + error.getRow());
+            }
+        }
+
+        for (int i = 0; i < attributes.length; i++) {
+            if (mappedIndices[i] != null) {
+                double[] values = chunk.getValues(i);
+                for (int row = 0; row < size; row++) {
+                    if (!Double.isNaN(values[row])) {
+                        int index = mappedIndices[i][(int) values[row]];
+                        values[row] = index < 0 ? Double.NaN : index;
+                    }
+                }
+            }
+        }
+        if (exampleTable instanceof ColumnarExampleTable) {
+            ColumnarExampleTable columnarTable = (ColumnarExampleTable) exampleTable;
+            int offset = columnarTable.size();
+            columnarTable.addMissingRows(size);
+            for (int i = 0; i < attributes.length; i++) {
+                int tableIndex = attributes[i].getTableIndex();
+                double[] values = chunk.getValues(i);
+                for (int row = 0; row < size; row++) {
+                    columnarTable.setValue(offset + row, tableIndex, values[row]);
+                }
+            }
+        } else {
+            for (int row = 0; row < size; row++) {
+                DataRow dataRow = factory.create(attributes.length);
+                for (int i = 0; i < attributes.length; i++) {
+                    dataRow.set(attributes[i], chunk.getValues(i)[row]);
+                }
+                exampleTable.addDataRow(dataRow);
+            }
+        }
+    }
+
     /** If native type is date, returns the date. Otherwise, uses string and parses.
      */
     private double getOrParseDate(DataResultSetTranslationConfiguration config, DataResultSet dataResultSet, int row, int column, boolean isFaultTolerant) throws OperatorException {
@@ -0,0 +1,1004 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2011 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.operator.nio.model;
+
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.text.DateFormat;
+import java.text.NumberFormat;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.operator.Operator;
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.UserError;
+import com.rapidminer.operator.nio.model.ParsingError.ErrorCode;
+import com.rapidminer.tools.CSVParseException;
+import com.rapidminer.tools.LineParser;
+import com.rapidminer.tools.Ontology;
+import com.rapidminer.tools.ParallelExecutionService;
+
+/**
+ * Reads the data rows of a CSV file in chunks of bytes which are parsed in parallel. Each chunk
+ * ends at a line break, hence, it contains complete rows only. The values of a chunk are
+ * stored column by column in primitive arrays. Nominal values are mapped to indices which are
+ * local to the chunk and must be mapped by the caller in the order of the chunks, see
+ * {@link ParsedChunk#getNominalValues(int)}. This results in the same example set as reading
+ * the {@link CSVResultSet} row by row.
+ *
+ * Lines are tokenized on the level of bytes if they contain neither escape characters, comment
+ * characters, nor escaped quotes. All other lines are parsed by the {@link LineParser} as usual.
+ * This reader can only be used for files whose column separator is a single character and
+ * whose encoding is compatible to ASCII, see {@link #create(DataResultSet, Operator)}.
+ *
+ * @author Simon Fischer
+ */
+public class ParallelCSVReader {
+
+	/** The number of bytes which are parsed by a single task unless a line is longer. */
+	private static final int CHUNK_SIZE = 1 << 22;
+
+	/** Numbers with at most this many digits are parsed directly from the bytes. */
+	private static final int MAX_FAST_DIGITS = 15;
+
+	private static final double[] POWERS_OF_TEN = new double[MAX_FAST_DIGITS + 1];
+
+	static {
+		POWERS_OF_TEN[0] = 1;
+		for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+			POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+		}
+	}
+
+	private static final int NUMBER = 0;
+	private static final int DATE = 1;
+	private static final int NOMINAL = 2;
+
+	private final CSVResultSetConfiguration configuration;
+
+	private final Operator operator;
+
+	private final Charset encoding;
+
+	private final byte separator;
+
+	private final byte quote;
+
+	/** Lines containing one of these bytes are parsed by the {@link LineParser}. */
+	private final boolean[] special = new boolean[256];
+
+	private InputStream in;
+
+	/** The length of the file in bytes. */
+	private long length;
+
+	/** The position of the first byte of the {@link #remainder} within the file. */
+	private long position;
+
+	private boolean endOfFile;
+
+	/** The bytes read after the last complete line. */
+	private byte[] remainder = new byte[0];
+
+	/** The part of the file which was read while skipping rows but not parsed yet. */
+	private Chunk pending;
+
+	private ParallelCSVReader(CSVResultSetConfiguration configuration, Operator operator) {
+		this.configuration = configuration;
+		this.operator = operator;
+		this.encoding = configuration.getEncoding();
+		this.separator = (byte) configuration.getColumnSeparators().charAt(0);
+		this.quote = configuration.isUseQuotes() ? (byte) configuration.getQuoteCharacter() : 0;
+		special[0] = true;
+		special[configuration.getEscapeCharacter()] = true;
+		if (configuration.isSkipComments()) {
+			for (char commentCharacter : configuration.getCommentCharacters().toCharArray()) {
+				special[commentCharacter] = true;
+			}
+		}
+	}
+
+	/**
+	 * Returns a reader for the file of the given result set or null if the result set cannot be
+	 * read in parallel. This is the case if it is not a {@link CSVResultSet} reading a local
+	 * file, if the column separator is a regular expression, if separator, quote, escape or
+	 * comment characters are no ASCII characters, or if the encoding is not compatible to ASCII.
+	 */
+	public static ParallelCSVReader create(DataResultSet dataResultSet, Operator operator) {
+		if (!(dataResultSet instanceof CSVResultSet)) {
+			return null;
+		}
+		CSVResultSetConfiguration configuration = ((CSVResultSet) dataResultSet).getConfiguration();
+		String csvFile = configuration.getCsvFile();
+		if (csvFile == null || isURL(csvFile) || !configuration.getCsvFileAsFile().isFile()) {
+			return null;
+		}
+		// the line parser splits by regular expressions unless the separator is a single character
+		String separators = configuration.getColumnSeparators();
+		if (separators == null || separators.length() != 1 || !isASCII(separators.charAt(0)) ||
+				separators.charAt(0) == '\n' || separators.charAt(0) == '\r') {
+			return null;
+		}
+		if (configuration.isUseQuotes() && !isASCII(configuration.getQuoteCharacter())) {
+			return null;
+		}
+		if (!isASCII(configuration.getEscapeCharacter())) {
+			return null;
+		}
+		if (configuration.isSkipComments()) {
+			if (configuration.getCommentCharacters() == null) {
+				return null;
+			}
+			for (char commentCharacter : configuration.getCommentCharacters().toCharArray()) {
+				if (!isASCII(commentCharacter)) {
+					return null;
+				}
+			}
+		}
+		if (!isASCIICompatible(configuration.getEncoding())) {
+			return null;
+		}
+		return new ParallelCSVReader(configuration, operator);
+	}
+
+	private static boolean isURL(String csvFile) {
+		try {
+			new URL(csvFile);
+			return true;
+		} catch (MalformedURLException e) {
+			return false;
+		}
+	}
+
+	private static boolean isASCII(char c) {
+		return c < 128;
+	}
+
+	/**
+	 * Returns true if ASCII characters are encoded by single bytes of the same value and
+	 * if these bytes never occur within the encoding of other characters. This holds for UTF-8
+	 * and for ASCII compatible single byte encodings.
+	 */
+	private static boolean isASCIICompatible(Charset encoding) {
+		if (encoding == null || !encoding.canEncode()) {
+			return false;
+		}
+		CharsetEncoder encoder = encoding.newEncoder();
+		if (!encoding.name().equals("UTF-8") && encoder.maxBytesPerChar() != 1) {
+			return false;
+		}
+		byte[] ascii = new byte[128];
+		for (int i = 0; i < ascii.length; i++) {
+			ascii[i] = (byte) i;
+		}
+		try {
+			return Arrays.equals(ascii, new String(ascii, "US-ASCII").getBytes(encoding.name()));
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Opens the file and skips the given number of rows, i.e. lines which are neither empty,
+	 * nor comments, nor syntactically wrong. A UTF-8 byte order mark is skipped as done by the {@link CSVResultSet}.
+	 */
+	public void open(int skippedRows) throws OperatorException {
+		close();
+		String csvFile = configuration.getCsvFile();
+		try {
+			in = new FileInputStream(csvFile);
+		} catch (FileNotFoundException e) {
+			throw new UserError(operator, 301, e, csvFile);
+		}
+		length = configuration.getCsvFileAsFile().length();
+		position = 0;
+		endOfFile = false;
+		remainder = new byte[0];
+		pending = null;
+		try {
+			Chunk chunk = readChunk();
+			if (chunk != null && encoding.name().equals("UTF-8") && chunk.end >= 3 &&
+					(chunk.data[0] & 0xFF) == 239 && (chunk.data[1] & 0xFF) == 187 && (chunk.data[2] & 0xFF) == 191) {
+				chunk.start = 3;
+			}
+			LineParser parser = new LineParser(configuration);
+			while (chunk != null && skippedRows > 0) {
+				int lineStart = chunk.start;
+				for (int i = chunk.start; i < chunk.end && skippedRows > 0; i++) {
+					if (chunk.data[i] == '\n' || chunk.data[i] == '\r') {
+						if (i > lineStart && isRow(parser, new String(chunk.data, lineStart, i - lineStart, encoding))) {
+							skippedRows--;
+						}
+						lineStart = i + 1;
+					}
+				}
+				if (skippedRows > 0 && lineStart < chunk.end) {
+					// the last line of the file need not be terminated
+					if (isRow(parser, new String(chunk.data, lineStart, chunk.end - lineStart, encoding))) {
+						skippedRows--;
+					}
+					lineStart = chunk.end;
+				}
+				chunk.start = lineStart;
+				if (skippedRows > 0) {
+					chunk = readChunk();
+				}
+			}
+			pending = chunk;
+		} catch (IOException e) {
+			throw new UserError(operator, e, 321, csvFile, e.toString());
+		}
+	}
+
+	/** Returns true if the {@link LineParser} returns a row for the given line. */
+	private static boolean isRow(LineParser parser, String line) {
+		try {
+			return parser.parse(line) != null;
+		} catch (CSVParseException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Reads the next chunks of the file, one for each thread, and parses them in parallel. The
+	 * chunks are returned in the order of the file. If the end of the file was reached, the
+	 * returned list is empty.
+	 */
+	public List<ParsedChunk> readChunks(Attribute[] attributes, int[] attributeColumns, DataResultSetTranslationConfiguration translationConfiguration) throws OperatorException {
+		int numberOfThreads = ParallelExecutionService.getNumberOfThreads();
+		// the formats are not thread safe and must be cloned for each task
+		NumberFormat numberFormat = translationConfiguration.getNumberFormat();
+		DateFormat dateFormat = translationConfiguration.getDateFormat();
+		List<ChunkParser> tasks = new ArrayList<ChunkParser>(numberOfThreads);
+		try {
+			while (tasks.size() < numberOfThreads) {
+				Chunk chunk;
+				if (pending != null) {
+					chunk = pending;
+					pending = null;
+				} else {
+					chunk = readChunk();
+				}
+				if (chunk == null) {
+					break;
+				}
+				tasks.add(new ChunkParser(chunk, attributes, attributeColumns,
+						numberFormat == null ? null : (NumberFormat) numberFormat.clone(),
+						dateFormat == null ? null : (DateFormat) dateFormat.clone()));
+			}
+		} catch (IOException e) {
+			throw new UserError(operator, e, 321, configuration.getCsvFile(), e.toString());
+		}
+		return ParallelExecutionService.execute(tasks, numberOfThreads, "CSV import");
+	}
+
+	/** Returns the length of the file in bytes. */
+	public long getLength() {
+		return length;
+	}
+
+	public void close() throws OperatorException {
+		if (in == null) {
+			return;
+		}
+		try {
+			in.close();
+		} catch (IOException e) {
+			throw new UserError(operator, 321, e, configuration.getCsvFile(), e.toString());
+		} finally {
+			in = null;
+			pending = null;
+		}
+	}
+
+	/**
+	 * Reads the next chunk which ends after the last line break read or at the end of the file.
+	 * Returns null if there are no more bytes.
+	 */
+	private Chunk readChunk() throws IOException {
+		byte[] data = new byte[Math.max(CHUNK_SIZE, 2 * remainder.length)];
+		System.arraycopy(remainder, 0, data, 0, remainder.length);
+		int length = remainder.length;
+		int end;
+		while (true) {
+			while (length < data.length && !endOfFile) {
+				int read = in.read(data, length, data.length - length);
+				if (read < 0) {
+					endOfFile = true;
+				} else {
+					length += read;
+				}
+			}
+			if (endOfFile) {
+				end = length;
+				break;
+			}
+			end = length;
+			while (end > 0 && data[end - 1] != '\n' && data[end - 1] != '\r') {
+				end--;
+			}
+			if (end > 0) {
+				break;
+			}
+			// a single line is longer than the chunk
+			data = Arrays.copyOf(data, 2 * data.length);
+		}
+		remainder = Arrays.copyOfRange(data, end, length);
+		if (end == 0) {
+			return null;
+		}
+		Chunk chunk = new Chunk(data, 0, end, position);
+		position += end;
+		return chunk;
+	}
+
+	/** A part of the file consisting of complete lines. */
+	private static class Chunk {
+
+		private final byte[] data;
+
+		private int start;
+
+		private final int end;
+
+		/** The position of the first byte of the data within the file. */
+		private final long position;
+
+		private Chunk(byte[] data, int start, int end, long position) {
+			this.data = data;
+			this.start = start;
+			this.end = end;
+			this.position = position;
+		}
+	}
+
+	/**
+	 * The rows of a chunk. For each attribute, the values of all rows are stored in an array.
+	 * Values of nominal attributes are indices of {@link #getNominalValues(int)}.
+	 */
+	public static class ParsedChunk {
+
+		private final int size;
+
+		private final double[][] values;
+
+		private final List<List<String>> nominalValues;
+
+		private final List<CellError> errors;
+
+		private final List<LineError> lineErrors;
+
+		private final long endPosition;
+
+		private ParsedChunk(int size, double[][] values, List<List<String>> nominalValues, List<CellError> errors, List<LineError> lineErrors, long endPosition) {
+			this.size = size;
+			this.values = values;
+			this.nominalValues = nominalValues;
+			this.errors = errors;
+			this.lineErrors = lineErrors;
+			this.endPosition = endPosition;
+		}
+
+		/** Returns the number of rows of this chunk. */
+		public int size() {
+			return size;
+		}
+
+		/** Returns the values of the given attribute. The array might be longer than {@link #size()}. */
+		public double[] getValues(int attribute) {
+			return values[attribute];
+		}
+
+		/**
+		 * Returns the nominal values of the given attribute in the order of their first
+		 * occurrence within this chunk or null if the attribute is not nominal. The values of
+		 * nominal attributes are indices of this list.
+		 */
+		public List<String> getNominalValues(int attribute) {
+			return nominalValues.get(attribute);
+		}
+
+		/** Returns the errors which occurred while parsing values ordered by row and attribute. */
+		public List<CellError> getErrors() {
+			return errors;
+		}
+
+		/** Returns the lines which could not be parsed ordered by row. */
+		public List<LineError> getLineErrors() {
+			return lineErrors;
+		}
+
+		/** Returns the position within the file after the last byte of this chunk. */
+		public long getEndPosition() {
+			return endPosition;
+		}
+	}
+
+	/** An error of a value whose row is relative to the first row of its chunk. */
+	public static class CellError {
+
+		private final int row;
+
+		private final int attribute;
+
+		private final int column;
+
+		private final ErrorCode errorCode;
+
+		private final String value;
+
+		private final Throwable cause;
+
+		private CellError(int row, int attribute, int column, ErrorCode errorCode, String value, Throwable cause) {
+			this.row = row;
+			this.attribute = attribute;
+			this.column = column;
+			this.errorCode = errorCode;
+			this.value = value;
+			this.cause = cause;
+		}
+
+		public int getRow() {
+			return row;
+		}
+
+		public int getAttribute() {
+			return attribute;
+		}
+
+		/** Returns the parsing error for the given index of the first row of the chunk. */
+		public ParsingError createError(int firstRow) {
+			return new ParsingError(firstRow + row, column, errorCode, value, cause);
+		}
+	}
+
+	/** A line which could not be split. Like in the {@link CSVResultSet}, such lines are skipped. */
+	public static class LineError {
+
+		private final int row;
+
+		private final String line;
+
+		private final CSVParseException cause;
+
+		private LineError(int row, String line, CSVParseException cause) {
+			this.row = row;
+			this.line = line;
+			this.cause = cause;
+		}
+
+		/** Returns the number of rows of the chunk preceding the line. */
+		public int getRow() {
+			return row;
+		}
+
+		public String getLine() {
+			return line;
+		}
+
+		public CSVParseException getCause() {
+			return cause;
+		}
+	}
+
+	/**
+	 * Parses the lines of a chunk. Lines are split by the same state machine as
+	 * {@link LineParser#fastSplit(String, char, boolean, char, char)} but on bytes and without
+	 * copying the values. Whenever this is not possible, the line is passed to the {@link LineParser}.
+	 */
+	private class ChunkParser implements Callable<ParsedChunk> {
+
+		private static final int NEW_SPLIT = 0;
+		private static final int START_WHITESPACE = 1;
+		private static final int WRITE_NOT_QUOTE = 2;
+		private static final int QUOTE_OPENED = 3;
+		private static final int QUOTE_CLOSED = 4;
+		private static final int WRITE_QUOTE = 5;
+		private static final int END_OF_LINE = 6;
+
+		private final Chunk chunk;
+
+		private final int[] attributeColumns;
+
+		private final int[] types;
+
+		private final NumberFormat numberFormat;
+
+		private final DateFormat dateFormat;
+
+		private final NominalDictionary[] dictionaries;
+
+		private final boolean trimLine;
+
+		private LineParser parser;
+
+		/** The start and end positions of the values of the current line. */
+		private int[] bounds = new int[64];
+
+		private int numberOfValues;
+
+		private double[][] values;
+
+		private int size = 0;
+
+		private final List<CellError> errors = new LinkedList<CellError>();
+
+		private final List<LineError> lineErrors = new LinkedList<LineError>();
+
+		private ChunkParser(Chunk chunk, Attribute[] attributes, int[] attributeColumns, NumberFormat numberFormat, DateFormat dateFormat) {
+			this.chunk = chunk;
+			this.attributeColumns = attributeColumns;
+			this.numberFormat = numberFormat;
+			this.dateFormat = dateFormat;
+			this.trimLine = configuration.isTrimLines();
+			this.types = new int[attributes.length];
+			this.dictionaries = new NominalDictionary[attributes.length];
+			for (int i = 0; i < attributes.length; i++) {
+				switch (attributes[i].getValueType()) {
+				case Ontology.INTEGER:
+				case Ontology.NUMERICAL:
+				case Ontology.REAL:
+					types[i] = NUMBER;
+					break;
+				case Ontology.DATE_TIME:
+				case Ontology.TIME:
+				case Ontology.DATE:
+					types[i] = DATE;
+					break;
+				default:
+					types[i] = NOMINAL;
+					dictionaries[i] = new NominalDictionary(encoding);
+				}
+			}
+		}
+
+		public ParsedChunk call() throws OperatorException {
+			parser = new LineParser(configuration);
+			values = new double[types.length][Math.max(16, (chunk.end - chunk.start) / (8 * Math.max(1, types.length)))];
+			byte[] data = chunk.data;
+			int lineStart = chunk.start;
+			for (int i = chunk.start; i <= chunk.end; i++) {
+				if (i == chunk.end || data[i] == '\n' || data[i] == '\r') {
+					// empty lines are no rows
+					if (i > lineStart) {
+						parseLine(data, lineStart, i);
+					}
+					lineStart = i + 1;
+				}
+			}
+			List<List<String>> nominalValues = new ArrayList<List<String>>(types.length);
+			for (int i = 0; i < types.length; i++) {
+				nominalValues.add(dictionaries[i] != null ? dictionaries[i].getValues() : null);
+			}
+			return new ParsedChunk(size, values, nominalValues, errors, lineErrors, chunk.position + chunk.end);
+		}
+
+		private void parseLine(byte[] data, int start, int end) {
+			if (!split(data, start, end)) {
+				String line = new String(data, start, end - start, encoding);
+				try {
+					String[] row = parser.parse(line);
+					if (row != null) {
+						addRow(row);
+					}
+				} catch (CSVParseException e) {
+					lineErrors.add(new LineError(size, line, e));
+				}
+			} else if (numberOfValues >= 0) {
+				addRow(data);
+			}
+		}
+
+		/**
+		 * Splits the given line and stores the bounds of its values. Returns false if the line
+		 * must be parsed by the {@link LineParser}. Sets the number of values to -1 if the line
+		 * is empty.
+		 */
+		private boolean split(byte[] data, int start, int end) {
+			for (int i = start; i < end; i++) {
+				if (special[data[i] & 0xFF]) {
+					return false;
+				}
+			}
+			int trimmedStart = start;
+			int trimmedEnd = end;
+			while (trimmedStart < trimmedEnd && (data[trimmedStart] & 0xFF) <= ' ') {
+				trimmedStart++;
+			}
+			while (trimmedStart < trimmedEnd && (data[trimmedEnd - 1] & 0xFF) <= ' ') {
+				trimmedEnd--;
+			}
+			if (trimmedStart == trimmedEnd) {
+				numberOfValues = -1;
+				return true;
+			}
+			if (trimLine) {
+				start = trimmedStart;
+				end = trimmedEnd;
+			}
+			numberOfValues = 0;
+			int state = NEW_SPLIT;
+			int valueStart = start;
+			int valueEnd = start;
+			for (int i = start; i < end; i++) {
+				byte current = data[i];
+				boolean last = i + 1 == end;
+				switch (state) {
+				case NEW_SPLIT:
+				case START_WHITESPACE:
+					if (current == separator) {
+						addValue(i, i);
+						state = NEW_SPLIT;
+					} else if (current == ' ' || current == '\t') {
+						state = START_WHITESPACE;
+					} else if (current == quote) {
+						valueStart = i + 1;
+						state = QUOTE_OPENED;
+					} else {
+						valueStart = i;
+						state = WRITE_NOT_QUOTE;
+					}
+					break;
+				case WRITE_NOT_QUOTE:
+					if (current == separator) {
+						addValue(valueStart, i);
+						if (last) {
+							addValue(i, i);
+							state = END_OF_LINE;
+						} else {
+							state = NEW_SPLIT;
+						}
+					} else if (current == quote) {
+						// misplaced quote
+						return false;
+					}
+					break;
+				case QUOTE_OPENED:
+				case WRITE_QUOTE:
+					if (current == quote) {
+						if (state == WRITE_QUOTE && !last && data[i + 1] == quote) {
+							// escaped quote
+							return false;
+						}
+						valueEnd = i;
+						state = QUOTE_CLOSED;
+					} else {
+						state = WRITE_QUOTE;
+					}
+					break;
+				case QUOTE_CLOSED:
+					if (current == separator) {
+						addTrimmedValue(data, valueStart, valueEnd);
+						if (last) {
+							addValue(i, i);
+							state = END_OF_LINE;
+						} else {
+							state = NEW_SPLIT;
+						}
+					} else if (current != ' ' && current != '\t') {
+						// unexpected character after closed quote
+						return false;
+					}
+					break;
+				default:
+				}
+			}
+			switch (state) {
+			case QUOTE_OPENED:
+			case WRITE_QUOTE:
+				// quotes not closed
+				return false;
+			case WRITE_NOT_QUOTE:
+				addValue(valueStart, end);
+				break;
+			case QUOTE_CLOSED:
+				addTrimmedValue(data, valueStart, valueEnd);
+				break;
+			default:
+			}
+			return true;
+		}
+
+		private void addTrimmedValue(byte[] data, int start, int end) {
+			while (start < end && (data[start] & 0xFF) <= ' ') {
+				start++;
+			}
+			while (start < end && (data[end - 1] & 0xFF) <= ' ') {
+				end--;
+			}
+			addValue(start, end);
+		}
+
+		private void addValue(int start, int end) {
+			if (2 * numberOfValues + 2 > bounds.length) {
+				bounds = Arrays.copyOf(bounds, 2 * bounds.length);
+			}
+			bounds[2 * numberOfValues] = start;
+			bounds[2 * numberOfValues + 1] = end;
+			numberOfValues++;
+		}
+
+		private void ensureCapacity() {
+			if (size == values[0].length) {
+				int capacity = size + (size >> 1) + 1;
+				for (int i = 0; i < values.length; i++) {
+					values[i] = Arrays.copyOf(values[i], capacity);
+				}
+			}
+		}
+
+		/** Adds a row whose values were split by {@link #split(byte[], int, int)}. */
+		private void addRow(byte[] data) {
+			if (values.length > 0) {
+				ensureCapacity();
+			}
+			for (int i = 0; i < types.length; i++) {
+				int column = attributeColumns[i];
+				double value;
+				if (column >= numberOfValues || bounds[2 * column] == bounds[2 * column + 1]) {
+					value = Double.NaN;
+				} else {
+					int start = bounds[2 * column];
+					int end = bounds[2 * column + 1];
+					switch (types[i]) {
+					case NUMBER:
+						value = numberFormat == null ? parseDecimal(data, start, end) : Double.NaN;
+						if (Double.isNaN(value)) {
+							value = parseNumber(new String(data, start, end - start, encoding), i);
+						}
+						break;
+					case DATE:
+						value = parseDate(new String(data, start, end - start, encoding), i);
+						break;
+					default:
+						value = dictionaries[i].getIndex(data, start, end);
+					}
+				}
+				values[i][size] = value;
+			}
+			size++;
+		}
+
+		/** Adds a row parsed by the {@link LineParser}. */
+		private void addRow(String[] row) {
+			if (values.length > 0) {
+				ensureCapacity();
+			}
+			for (int i = 0; i < types.length; i++) {
+				int column = attributeColumns[i];
+				double value;
+				if (column >= row.length || row[column] == null || row[column].isEmpty()) {
+					value = Double.NaN;
+				} else {
+					switch (types[i]) {
+					case NUMBER:
+						value = parseNumber(row[column], i);
+						break;
+					case DATE:
+						value = parseDate(row[column], i);
+						break;
+					default:
+						value = dictionaries[i].getIndex(row[column]);
+					}
+				}
+				values[i][size] = value;
+			}
+			size++;
+		}
+
+		/**
+		 * Parses plain decimal numbers with at most {@link #MAX_FAST_DIGITS} digits. Since both
+		 * the digits and the power of ten are exactly represented as doubles, the division is
+		 * rounded correctly like {@link Double#parseDouble(String)}. Returns NaN for all other
+		 * numbers.
+		 */
+		private double parseDecimal(byte[] data, int start, int end) {
+			int i = start;
+			boolean negative = false;
+			if (i < end && (data[i] == '-' || data[i] == '+')) {
+				negative = data[i] == '-';
+				i++;
+			}
+			long digits = 0;
+			int numberOfDigits = 0;
+			int fractionDigits = 0;
+			boolean fraction = false;
+			for (; i < end; i++) {
+				byte current = data[i];
+				if (current >= '0' && current <= '9') {
+					if (++numberOfDigits > MAX_FAST_DIGITS) {
+						return Double.NaN;
+					}
+					digits = 10 * digits + (current - '0');
+					if (fraction) {
+						fractionDigits++;
+					}
+				} else if (current == '.' && !fraction) {
+					fraction = true;
+				} else {
+					return Double.NaN;
+				}
+			}
+			if (numberOfDigits == 0) {
+				return Double.NaN;
+			}
+			double value = digits / POWERS_OF_TEN[fractionDigits];
+			return negative ? -value : value;
+		}
+
+		private double parseNumber(String value, int attribute) {
+			try {
+				if (numberFormat != null) {
+					return numberFormat.parse(value).doubleValue();
+				} else {
+					return Double.parseDouble(value);
+				}
+			} catch (ParseException e) {
+				errors.add(new CellError(size, attribute, attributeColumns[attribute], ErrorCode.UNPARSEABLE_REAL, value, e));
+			} catch (NumberFormatException e) {
+				errors.add(new CellError(size, attribute, attributeColumns[attribute], ErrorCode.UNPARSEABLE_REAL, value, e));
+			}
+			return Double.NaN;
+		}
+
+		private double parseDate(String value, int attribute) {
+			try {
+				return dateFormat.parse(value).getTime();
+			} catch (ParseException e) {
+				errors.add(new CellError(size, attribute, attributeColumns[attribute], ErrorCode.UNPARSEABLE_DATE, value, e));
+				return Double.NaN;
+			}
+		}
+	}
+
+	/**
+	 * Maps the nominal values of a chunk to indices in the order of their first occurrence.
+	 * Values are looked up by their bytes such that each distinct value is decoded only once.
+	 */
+	private static class NominalDictionary {
+
+		private final Charset encoding;
+
+		private final List<String> values = new ArrayList<String>();
+
+		private final Map<String, Integer> indices = new HashMap<String, Integer>();
+
+		/** Entry number + 1 for each slot, 0 for empty slots. */
+		private int[] slots = new int[64];
+
+		private int[] hashes = new int[32];
+
+		private int[] keyStarts = new int[32];
+
+		private int[] keyEnds = new int[32];
+
+		private int[] entryIndices = new int[32];
+
+		private byte[] keys = new byte[1024];
+
+		private int numberOfEntries = 0;
+
+		private int keysLength = 0;
+
+		private NominalDictionary(Charset encoding) {
+			this.encoding = encoding;
+		}
+
+		private List<String> getValues() {
+			return values;
+		}
+
+		private int getIndex(String value) {
+			Integer index = indices.get(value);
+			if (index == null) {
+				index = values.size();
+				values.add(value);
+				indices.put(value, index);
+			}
+			return index;
+		}
+
+		private int getIndex(byte[] data, int start, int end) {
+			int hash = 1;
+			for (int i = start; i < end; i++) {
+				hash = 31 * hash + data[i];
+			}
+			int mask = slots.length - 1;
+			int slot = (hash ^ (hash >>> 16)) & mask;
+			while (slots[slot] != 0) {
+				int entry = slots[slot] - 1;
+				if (hashes[entry] == hash && equalKeys(entry, data, start, end)) {
+					return entryIndices[entry];
+				}
+				slot = (slot + 1) & mask;
+			}
+			// different bytes might be decoded to the same value
+			int index = getIndex(new String(data, start, end - start, encoding));
+			addEntry(slot, hash, data, start, end, index);
+			return index;
+		}
+
+		private boolean equalKeys(int entry, byte[] data, int start, int end) {
+			int keyStart = keyStarts[entry];
+			if (keyEnds[entry] - keyStart != end - start) {
+				return false;
+			}
+			for (int i = start; i < end; i++) {
+				if (keys[keyStart++] != data[i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private void addEntry(int slot, int hash, byte[] data, int start, int end, int index) {
+			int entry = numberOfEntries++;
+			if (entry == hashes.length) {
+				hashes = Arrays.copyOf(hashes, 2 * entry);
+				keyStarts = Arrays.copyOf(keyStarts, 2 * entry);
+				keyEnds = Arrays.copyOf(keyEnds, 2 * entry);
+				entryIndices = Arrays.copyOf(entryIndices, 2 * entry);
+			}
+			int length = end - start;
+			if (keysLength + length > keys.length) {
+				keys = Arrays.copyOf(keys, Math.max(2 * keys.length, keysLength + length));
+			}
+			System.arraycopy(data, start, keys, keysLength, length);
+			hashes[entry] = hash;
+			keyStarts[entry] = keysLength;
+			keyEnds[entry] = keysLength + length;
+			entryIndices[entry] = index;
+			keysLength += length;
+			slots[slot] = entry + 1;
+			if (2 * numberOfEntries > slots.length) {
+				rehash();
+			}
+		}
+
+		private void rehash() {
+			slots = new int[2 * slots.length];
+			int mask = slots.length - 1;
+			for (int entry = 0; entry < numberOfEntries; entry++) {
+				int hash = hashes[entry];
+				int slot = (hash ^ (hash >>> 16)) & mask;
+				while (slots[slot] != 0) {
+					slot = (slot + 1) & mask;
+				}
+				slots[slot] = entry + 1;
+			}
+		}
+	}
+}
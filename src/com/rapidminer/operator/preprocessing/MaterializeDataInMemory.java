@@ -35,7 +35,7 @@ import com.rapidminer.example.ExampleSet;
 import com.rapidminer.example.table.AttributeFactory;
 import com.rapidminer.example.table.DataRow;
 import com.rapidminer.example.table.DataRowFactory;
-import com.rapidminer.example.table.MemoryExampleTable;
+import com.rapidminer.example.table.ExpandableExampleTable;
 import com.rapidminer.operator.MemoryCleanUp;
 import com.rapidminer.operator.OperatorDescription;
 import com.rapidminer.operator.OperatorException;
@@ -104,8 +104,8 @@ public class MaterializeDataInMemory extends AbstractDataProcessing {
 		}
 
 		// fill table with data
-		MemoryExampleTable table = new MemoryExampleTable(attributes);
 		DataRowFactory factory = new DataRowFactory(dataManagement, '.');
+		ExpandableExampleTable table = factory.createExampleTable(attributes);
 		for (Example example : exampleSet) {
 			Iterator<Attribute> i = exampleSet.getAttributes().allAttributes();
 			int attributeCounter = 0;
@@ -23,16 +23,15 @@
 package com.rapidminer.operator.preprocessing.filter;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
 
 import com.rapidminer.example.Attribute;
 import com.rapidminer.example.Example;
 import com.rapidminer.example.ExampleSet;
-import com.rapidminer.example.set.Partition;
-import com.rapidminer.example.set.SplittedExampleSet;
+import com.rapidminer.example.set.MappedExampleSet;
 import com.rapidminer.operator.OperatorDescription;
 import com.rapidminer.operator.OperatorException;
 import com.rapidminer.operator.UserError;
@@ -43,12 +42,21 @@ import com.rapidminer.operator.preprocessing.AbstractDataProcessing;
 import com.rapidminer.operator.tools.AttributeSubsetSelector;
 import com.rapidminer.parameter.ParameterType;
 import com.rapidminer.parameter.ParameterTypeBoolean;
+import com.rapidminer.parameter.ParameterTypeCategory;
 import com.rapidminer.parameter.UndefinedParameterError;
 import com.rapidminer.tools.OperatorResourceConsumptionHandler;
+import com.rapidminer.tools.ParallelExecutionService;
 
 /**
  * This operator removed duplicate examples from an example set by comparing all examples
- * with each other on basis of the specified attributes.
+ * with each other on basis of the specified attributes. Either the first or the last
+ * example of each group of duplicates is kept.
+ * 
+ * The examples are put into a hash set which only stores fingerprints and indices of the
+ * examples and compares the values of examples with equal fingerprints. By default, the
+ * examples are streamed and only the values of the kept examples are stored. For large
+ * example sets, the examples are divided into partitions by their fingerprints which are
+ * processed in parallel. 
  * 
  * @author Ingo Mierswa, Sebastian Land, Zoltan Prekopcsak
  */
@@ -57,6 +65,18 @@ public class RemoveDuplicates extends AbstractDataProcessing {
 	/** parameter to define the handling of missing values */
 	private static final String PARAMETER_TREAT_MISSING_VALUES_AS_DUPLICATES = "treat_missing_values_as_duplicates";
 
+	/** parameter to define which example of a group of duplicates is kept */
+	private static final String PARAMETER_KEEP_OCCURRENCE = "keep_occurrence";
+
+	private static final String[] KEEP_OCCURRENCES = { "first", "last" };
+
+	private static final int KEEP_FIRST = 0;
+
+	private static final int KEEP_LAST = 1;
+
+	/** The minimal number of examples for which the partitions are processed in parallel. */
+	private static final int MIN_EXAMPLES_FOR_PARALLEL = 200000;
+
 	private AttributeSubsetSelector subsetSelector = new AttributeSubsetSelector(this, getExampleSetInputPort());
 
 	public RemoveDuplicates(OperatorDescription description) {
@@ -71,63 +91,130 @@ public class RemoveDuplicates extends AbstractDataProcessing {
 
 	@Override
 	public ExampleSet apply(ExampleSet exampleSet) throws OperatorException {		 		
-		// partition: 0 select, 1 deselect
-		int[] partition = new int[exampleSet.size()];
-		Set<Attribute> compareAttributes = subsetSelector.getAttributeSubset(exampleSet, false);
+		Set<Attribute> compareAttributeSet = subsetSelector.getAttributeSubset(exampleSet, false);
 
 		// if set is empty: Nothing can be done!
-		if (compareAttributes.isEmpty())
+		if (compareAttributeSet.isEmpty())
 			throw new UserError(this, 153, 1, 0);
 
-		// Creating hash buckets and check in case of collision if the example is equal to any other in the bucket
-		HashMap<Integer, List<Integer>> buckets = new HashMap<Integer, List<Integer>>();
-		for (int i = 0; i < exampleSet.size(); i++) {
-			Example example = exampleSet.getExample(i);
-			int hash = 0;
-			for (Attribute attribute : compareAttributes) {
-				long bits = Double.doubleToLongBits(example.getValue(attribute));
-				hash = hash * 31 + (int)(bits ^ (bits >>> 32));
+		Attribute[] compareAttributes = compareAttributeSet.toArray(new Attribute[compareAttributeSet.size()]);
+		boolean missingsEqual = getParameterAsBoolean(PARAMETER_TREAT_MISSING_VALUES_AS_DUPLICATES);
+		boolean keepLast = getParameterAsInt(PARAMETER_KEEP_OCCURRENCE) == KEEP_LAST;
+
+		int[] keptExamples;
+		int numberOfThreads = ParallelExecutionService.getNumberOfThreads();
+		if (numberOfThreads > 1 && exampleSet.size() >= MIN_EXAMPLES_FOR_PARALLEL) {
+			keptExamples = findDistinctExamplesInParallel(exampleSet, compareAttributes, missingsEqual, keepLast, numberOfThreads);
+		} else {
+			keptExamples = findDistinctExamples(exampleSet, compareAttributes, missingsEqual, keepLast);
+		}
+		return new MappedExampleSet(exampleSet, keptExamples, true, false);
+	}
+
+	/**
+	 * Returns the ascending indices of the examples which are kept. The examples are read one
+	 * after another, only the values of the distinct examples are stored.
+	 */
+	private int[] findDistinctExamples(ExampleSet exampleSet, Attribute[] compareAttributes, boolean missingsEqual, boolean keepLast) throws OperatorException {
+		int size = exampleSet.size();
+		double[][] distinctValues = new double[compareAttributes.length][16];
+		RowSet distinctRows = new RowSet(distinctValues, missingsEqual);
+		int numberOfDistinctRows = 0;
+		int[] keptExamples = new int[16];
+		int numberOfKeptExamples = 0;
+		for (int i = 0; i < size; i++) {
+			int exampleIndex = keepLast ? size - 1 - i : i;
+			Example example = exampleSet.getExample(exampleIndex);
+			if (numberOfDistinctRows == distinctValues[0].length) {
+				int newCapacity = numberOfDistinctRows + (numberOfDistinctRows >> 1) + 1;
+				for (int j = 0; j < compareAttributes.length; j++) {
+					distinctValues[j] = Arrays.copyOf(distinctValues[j], newCapacity);
+				}
 			}
-			if (! buckets.containsKey(hash)) {
-				buckets.put(hash, Collections.singletonList(Integer.valueOf(i)));
-			} else {
-				List<Integer> bucketExampleIndicesList = buckets.get(hash);
-				for (Integer exampleIndex: bucketExampleIndicesList) {
-					boolean equal = true;
-					Example compExample = exampleSet.getExample(exampleIndex);
-					for (Attribute attribute : compareAttributes) {
-							if (getParameterAsBoolean(PARAMETER_TREAT_MISSING_VALUES_AS_DUPLICATES)) {
-								if (Double.isNaN(example.getValue(attribute)) && Double.isNaN(compExample.getValue(attribute))) {
-									continue;
-								}
-							}
-							if (example.getValue(attribute) != compExample.getValue(attribute)) {
-								equal = false;
-								break;
-							}
-					}
-					if (equal) {
-						partition[i] = 1;
-					}
+			// the values are stored as next distinct row and kept if they are not contained yet
+			for (int j = 0; j < compareAttributes.length; j++) {
+				distinctValues[j][numberOfDistinctRows] = example.getValue(compareAttributes[j]);
+			}
+			boolean excluded = distinctRows.isExcluded(numberOfDistinctRows);
+			if (excluded || distinctRows.add(numberOfDistinctRows, RowSet.getFingerprint(distinctValues, numberOfDistinctRows))) {
+				if (!excluded) {
+					numberOfDistinctRows++;
 				}
-				if (partition[i] == 0) { // then it is unequal with same hash value
-					if (bucketExampleIndicesList.size() == 1) {
-						// in case of a collision we have to replace the singeltonList by an extendable collection.
-						List<Integer> newList = new ArrayList<Integer>(bucketExampleIndicesList);
-						newList.add(Integer.valueOf(i));
-						buckets.put(hash, newList);
-					} else {
-						// in this case we already have put in an ArrayList, because we had to store a second example on a previous collision
-						bucketExampleIndicesList.add(i);
-					}
+				if (numberOfKeptExamples == keptExamples.length) {
+					keptExamples = Arrays.copyOf(keptExamples, numberOfKeptExamples + (numberOfKeptExamples >> 1) + 1);
 				}
+				keptExamples[numberOfKeptExamples++] = exampleIndex;
+			}
+			if (i % 1000 == 0)
+				checkForStop();
+		}
+		keptExamples = Arrays.copyOf(keptExamples, numberOfKeptExamples);
+		if (keepLast) {
+			for (int i = 0, j = numberOfKeptExamples - 1; i < j; i++, j--) {
+				int swap = keptExamples[i];
+				keptExamples[i] = keptExamples[j];
+				keptExamples[j] = swap;
+			}
+		}
+		return keptExamples;
+	}
+
+	/**
+	 * Returns the ascending indices of the examples which are kept. All values are read first,
+	 * afterwards the examples are divided into partitions by their fingerprints. Since duplicates
+	 * always belong to the same partition, the partitions are processed independently in parallel.
+	 */
+	private int[] findDistinctExamplesInParallel(ExampleSet exampleSet, Attribute[] compareAttributes, final boolean missingsEqual, final boolean keepLast, int numberOfThreads) throws OperatorException {
+		final int size = exampleSet.size();
+		final double[][] values = new double[compareAttributes.length][size];
+		int row = 0;
+		for (Example example : exampleSet) {
+			for (int j = 0; j < compareAttributes.length; j++) {
+				values[j][row] = example.getValue(compareAttributes[j]);
 			}
+			row++;
 		}
+		final long[] fingerprints = new long[size];
+		for (int i = 0; i < size; i++) {
+			fingerprints[i] = RowSet.getFingerprint(values, i);
+		}
+		checkForStop();
 
-		SplittedExampleSet result = new SplittedExampleSet(exampleSet, new Partition(partition, 2));
-		result.selectSingleSubset(0);
+		final boolean[] duplicate = new boolean[size];
+		final int numberOfPartitions = numberOfThreads;
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(numberOfPartitions);
+		for (int partition = 0; partition < numberOfPartitions; partition++) {
+			final int currentPartition = partition;
+			tasks.add(new Callable<Void>() {
+				public Void call() throws OperatorException {
+					RowSet rows = new RowSet(values, missingsEqual);
+					for (int i = 0; i < size; i++) {
+						int exampleIndex = keepLast ? size - 1 - i : i;
+						long fingerprint = fingerprints[exampleIndex];
+						if ((int) ((fingerprint >>> 33) % numberOfPartitions) == currentPartition && !rows.isExcluded(exampleIndex) && !rows.add(exampleIndex, fingerprint)) {
+							duplicate[exampleIndex] = true;
+						}
+						if (i % 10000 == 0)
+							checkForStop();
+					}
+					return null;
+				}
+			});
+		}
+		ParallelExecutionService.execute(tasks, numberOfThreads, "RemoveDuplicates");
 
-		return result;
+		int numberOfKeptExamples = 0;
+		for (int i = 0; i < size; i++) {
+			if (!duplicate[i])
+				numberOfKeptExamples++;
+		}
+		int[] keptExamples = new int[numberOfKeptExamples];
+		int index = 0;
+		for (int i = 0; i < size; i++) {
+			if (!duplicate[i])
+				keptExamples[index++] = i;
+		}
+		return keptExamples;
 	}
 
 	@Override
@@ -139,6 +226,8 @@ public class RemoveDuplicates extends AbstractDataProcessing {
 		type.setExpert(false);
 		types.add(type);
 
+		types.add(new ParameterTypeCategory(PARAMETER_KEEP_OCCURRENCE, "Specifies whether the first or the last example of duplicates is kept.", KEEP_OCCURRENCES, KEEP_FIRST));
+
 		return types;
 	}
 	
@@ -151,4 +240,100 @@ public class RemoveDuplicates extends AbstractDataProcessing {
 	public ResourceConsumptionEstimator getResourceConsumptionEstimator() {
 		return OperatorResourceConsumptionHandler.getResourceConsumptionEstimator(getInputPort(), RemoveDuplicates.class, null);
 	}
+
+	/**
+	 * An open addressing hash set of rows of column wise stored values. Only the fingerprints and the
+	 * indices of the rows are stored, the values of rows with equal fingerprints are compared.
+	 */
+	private static class RowSet {
+
+		private final double[][] columns;
+
+		private final boolean missingsEqual;
+
+		private long[] fingerprints = new long[16];
+
+		/** The index of the row in each slot plus one. Empty slots contain 0. */
+		private int[] rows = new int[16];
+
+		private int size = 0;
+
+		private RowSet(double[][] columns, boolean missingsEqual) {
+			this.columns = columns;
+			this.missingsEqual = missingsEqual;
+		}
+
+		/** Returns a 64 bit hash code of the values of the given row. */
+		private static long getFingerprint(double[][] columns, int row) {
+			long hash = 1;
+			for (double[] column : columns) {
+				hash = (hash ^ Double.doubleToLongBits(column[row])) * 0x9e3779b97f4a7c15L;
+				hash ^= hash >>> 29;
+			}
+			hash ^= hash >>> 33;
+			hash *= 0xc4ceb9fe1a85ec53L;
+			hash ^= hash >>> 33;
+			return hash;
+		}
+
+		/** Returns true if the row must not be added since it has a missing value which is not equal to other missing values. */
+		private boolean isExcluded(int row) {
+			if (missingsEqual)
+				return false;
+			for (double[] column : columns) {
+				if (Double.isNaN(column[row]))
+					return true;
+			}
+			return false;
+		}
+
+		/**
+		 * Adds the given row if no equal row is contained yet. Returns true if the row was added.
+		 * The row must not be excluded and its values must not be changed afterwards.
+		 */
+		private boolean add(int row, long fingerprint) {
+			int mask = rows.length - 1;
+			int slot = (int) fingerprint & mask;
+			while (rows[slot] != 0) {
+				if (fingerprints[slot] == fingerprint && equals(rows[slot] - 1, row))
+					return false;
+				slot = (slot + 1) & mask;
+			}
+			fingerprints[slot] = fingerprint;
+			rows[slot] = row + 1;
+			size++;
+			if (2 * size > rows.length) {
+				grow();
+			}
+			return true;
+		}
+
+		private boolean equals(int row1, int row2) {
+			for (double[] column : columns) {
+				double value1 = column[row1];
+				double value2 = column[row2];
+				if (value1 != value2 && !(missingsEqual && Double.isNaN(value1) && Double.isNaN(value2)))
+					return false;
+			}
+			return true;
+		}
+
+		private void grow() {
+			long[] oldFingerprints = fingerprints;
+			int[] oldRows = rows;
+			fingerprints = new long[oldFingerprints.length * 2];
+			rows = new int[oldRows.length * 2];
+			int mask = rows.length - 1;
+			for (int i = 0; i < oldRows.length; i++) {
+				if (oldRows[i] != 0) {
+					int slot = (int) oldFingerprints[i] & mask;
+					while (rows[slot] != 0) {
+						slot = (slot + 1) & mask;
+					}
+					fingerprints[slot] = oldFingerprints[i];
+					rows[slot] = oldRows[i];
+				}
+			}
+		}
+	}
 }
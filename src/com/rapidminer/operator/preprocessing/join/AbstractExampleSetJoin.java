@@ -33,6 +33,7 @@ import java.util.Set;
 import com.rapidminer.example.Attribute;
 import com.rapidminer.example.AttributeRole;
 import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.table.ExampleTable;
 import com.rapidminer.example.table.MemoryExampleTable;
 import com.rapidminer.operator.Operator;
 import com.rapidminer.operator.OperatorDescription;
@@ -125,6 +126,15 @@ public abstract class AbstractExampleSetJoin extends Operator {
 
     protected abstract MemoryExampleTable joinData(ExampleSet es1, ExampleSet es2, List<AttributeSource> originalAttributeSources, List<Attribute> unionAttributeList) throws OperatorException;
 
+    /**
+     * Creates the table of the joined example set. The default implementation delivers the
+     * table created by {@link #joinData(ExampleSet, ExampleSet, List, List)}. Subclasses may
+     * override this method in order to deliver another type of example table.
+     */
+    protected ExampleTable joinTable(ExampleSet es1, ExampleSet es2, List<AttributeSource> originalAttributeSources, List<Attribute> unionAttributeList) throws OperatorException {
+        return joinData(es1, es2, originalAttributeSources, unionAttributeList);
+    }
+
     protected abstract boolean isIdNeeded();
     
     @Override
@@ -225,7 +235,7 @@ public abstract class AbstractExampleSetJoin extends Operator {
         }
 
         // join data
-        MemoryExampleTable unionTable = joinData(es1, es2, originalAttributeSources, unionAttributeList);
+        ExampleTable unionTable = joinTable(es1, es2, originalAttributeSources, unionAttributeList);
 
         // create new example set
         joinOutput.deliver(unionTable.createExampleSet(unionSpecialAttributes));
@@ -23,18 +23,16 @@
 package com.rapidminer.operator.preprocessing.join;
 
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedList;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
 import com.rapidminer.example.Attribute;
 import com.rapidminer.example.Attributes;
 import com.rapidminer.example.Example;
 import com.rapidminer.example.ExampleSet;
-import com.rapidminer.example.table.DoubleArrayDataRow;
+import com.rapidminer.example.table.ColumnarExampleTable;
 import com.rapidminer.example.table.MemoryExampleTable;
 import com.rapidminer.operator.OperatorDescription;
 import com.rapidminer.operator.OperatorException;
@@ -64,40 +62,22 @@ import com.rapidminer.tools.container.Pair;
  * Please note that this check for double attributes will only be applied for regular attributes. Special attributes of the second input example set which do not exist in the first example set will
  * simply be added. If they already exist they are simply skipped.
  * </p>
+ * <p>
+ * The join is computed as hash join on the smaller example set. If both example sets are already sorted ascendingly
+ * by their key attributes, a sort-merge join can be performed instead which does not need a hash index at all. The
+ * joined data is stored column wise.
+ * </p>
  * 
  * @author Ingo Mierswa, Tobias Malbrecht, Marius Helf
  */
 public class ExampleSetJoin extends AbstractExampleSetJoin {
-	public static class DoubleArrayWrapper {
-		public DoubleArrayWrapper(double[] data) {
-			this.data = data;
-		}
-		
-		public double[] getData() {
-			return data;
-		}
-		
-		private double[] data;
-		
-		@Override
-		public boolean equals(Object other) {
-			if (!(other instanceof DoubleArrayWrapper)) {
-				return false;
-			}
-			return Arrays.equals(data, ((DoubleArrayWrapper)other).data);
-		}
-		
-		@Override
-		public int hashCode() {
-			return Arrays.hashCode(data);
-		}
-	}
 
 	public static final String PARAMETER_JOIN_TYPE = "join_type";
 	public static final String PARAMETER_LEFT_ATTRIBUTE_FOR_JOIN = "left_key_attributes";
 	public static final String PARAMETER_RIGHT_ATTRIBUTE_FOR_JOIN = "right_key_attributes";
 	public static final String PARAMETER_JOIN_ATTRIBUTES = "key_attributes";
 	public static final String PARAMETER_USE_ID = "use_id_attribute_as_key";
+	public static final String PARAMETER_SORTED_BY_KEYS = "sorted_by_keys";
 
 	public static final String[] JOIN_TYPES = { "inner" , "left" , "right" , "outer" };
 
@@ -116,28 +96,37 @@ public class ExampleSetJoin extends AbstractExampleSetJoin {
     	getRightInput().addPrecondition(new ParameterConditionedPrecondition(getRightInput(),  new ExampleSetPrecondition(getRightInput(), Ontology.ATTRIBUTE_VALUE, Attributes.ID_NAME), this, PARAMETER_USE_ID, "true"));
 	}
 
+	/**
+	 * Returns a copy of the joined table in memory. The joined example set is created from the
+	 * column wise table delivered by {@link #joinTable(ExampleSet, ExampleSet, List, List)}.
+	 */
 	@Override
 	protected MemoryExampleTable joinData(ExampleSet leftExampleSet, ExampleSet rightExampleSet, List<AttributeSource> originalAttributeSources, List<Attribute> unionAttributeList) throws OperatorException {
+		return MemoryExampleTable.createCompleteCopy(joinTable(leftExampleSet, rightExampleSet, originalAttributeSources, unionAttributeList));
+	}
+
+	@Override
+	protected ColumnarExampleTable joinTable(ExampleSet leftExampleSet, ExampleSet rightExampleSet, List<AttributeSource> originalAttributeSources, List<Attribute> unionAttributeList) throws OperatorException {
 		int joinType = getParameterAsInt(PARAMETER_JOIN_TYPE);
-		leftExampleSet.remapIds();
-		rightExampleSet.remapIds();
+		// missing ids never match, in contrast to missing values of key attributes
+		boolean matchMissings = !getParameterAsBoolean(PARAMETER_USE_ID);
 		
 		// the attributes that are used in the left and the right table as key attributes:
 		Pair<Attribute[], Attribute[]> keyAttributes = getKeyAttributes(leftExampleSet, rightExampleSet);
-		
-		switch (joinType) {
-		case JOIN_TYPE_INNER:
-			return performInnerJoin(leftExampleSet, rightExampleSet, originalAttributeSources, unionAttributeList, keyAttributes);
-		case JOIN_TYPE_LEFT:
-			return performLeftJoin( leftExampleSet, rightExampleSet, originalAttributeSources, unionAttributeList, keyAttributes, null);
-		case JOIN_TYPE_RIGHT:
-			return performRightJoin(leftExampleSet, rightExampleSet, originalAttributeSources, unionAttributeList, keyAttributes);
-		case JOIN_TYPE_OUTER:
-			return performOuterJoin(leftExampleSet, rightExampleSet, originalAttributeSources, unionAttributeList, keyAttributes);
-		default:
-			assert(false);	// illegal join type
-			return null;
+		Pair<JoinKeys, JoinKeys> keys = JoinKeys.create(leftExampleSet, keyAttributes.getFirst(), rightExampleSet, keyAttributes.getSecond());
+
+		RowPairs rowPairs = null;
+		if (getParameterAsBoolean(PARAMETER_SORTED_BY_KEYS)) {
+			if (keys.getFirst().isSorted() && keys.getSecond().isSorted()) {
+				rowPairs = performMergeJoin(keys.getFirst(), keys.getSecond(), joinType, matchMissings);
+			} else {
+				logWarning("Example sets are not sorted by the key attributes, performing hash join.");
+			}
+		}
+		if (rowPairs == null) {
+			rowPairs = performHashJoin(keys.getFirst(), keys.getSecond(), joinType, matchMissings);
 		}
+		return createJoinedTable(leftExampleSet, rightExampleSet, originalAttributeSources, unionAttributeList, keyAttributes, rowPairs);
 	}
 
 	/**
@@ -189,333 +178,175 @@ public class ExampleSetJoin extends AbstractExampleSetJoin {
 	}
 
 	/**
-	 * Performs an inner join, i.e. the result table contains all examples from the source example
-	 * sets whose key attributes match.
-	 */
-	private MemoryExampleTable performInnerJoin(ExampleSet leftExampleSet, ExampleSet rightExampleSet, List<AttributeSource> originalAttributeSources, List<Attribute> unionAttributeList, Pair<Attribute[], Attribute[]> keyAttributes) throws ProcessStoppedException {
-		MemoryExampleTable unionTable = new MemoryExampleTable(unionAttributeList);
-		
-		Attribute[] leftKeyAttributes = null;
-		Attribute[] rightKeyAttributes = null;
-		Map<DoubleArrayWrapper, List<Example>> rightKeyMapping = null;
-		boolean useId = getParameterAsBoolean(PARAMETER_USE_ID);
-		
-		if (!useId){
-			// create key mapping for right example set
-			leftKeyAttributes = keyAttributes.getFirst();
-			rightKeyAttributes = keyAttributes.getSecond();
-			rightKeyMapping = createKeyMapping(rightExampleSet, rightKeyAttributes, leftKeyAttributes);
-		}
-		
-		// iterate over all example from left table and search for matching examples in right table:
-		for (Example leftExample : leftExampleSet) {
-			List<Example> matchingRightExamples = getMatchingExamples(leftExampleSet, rightExampleSet, leftKeyAttributes, rightKeyMapping, useId, leftExample);
-			if (matchingRightExamples != null) {
-				for (Example rightExample : matchingRightExamples) {
-					addCombinedOccurence(originalAttributeSources, unionAttributeList, unionTable, leftExample, rightExample);
-				}
-			}
-		}
-		return unionTable;
-	}
-
-	/**
-	 * Performs a left join. 
+	 * Pairs the examples of both example sets by a hash index on the smaller one. The examples
+	 * are combined in the order of the left example set for inner, left and outer joins and in
+	 * the order of the right example set for right joins (the major example set). Examples of
+	 * the major example set without a matching example are kept for all joins but inner joins.
+	 * Examples of the right example set without a matching example are appended for outer joins.
 	 */
-	private MemoryExampleTable performLeftJoin(ExampleSet leftExampleSet, ExampleSet rightExampleSet, List<AttributeSource> originalAttributeSources, List<Attribute> unionAttributeList, Pair<Attribute[], Attribute[]> keyAttributes, Set<DoubleArrayWrapper> matchedExamplesInRightTable) throws ProcessStoppedException {
-		MemoryExampleTable unionTable = new MemoryExampleTable(unionAttributeList);
-
-		Attribute[] leftKeyAttributes = null;
-		Attribute[] rightKeyAttributes = null;
-		Map<DoubleArrayWrapper, List<Example>> rightKeyMapping = null;
-		boolean useId = getParameterAsBoolean(PARAMETER_USE_ID);
-		
-		leftKeyAttributes =  keyAttributes.getFirst();
-		rightKeyAttributes = keyAttributes.getSecond();
-		if (!useId){
-			// create key mapping for right example set
-			rightKeyMapping = createKeyMapping(rightExampleSet, rightKeyAttributes, leftKeyAttributes);
-		}
-		// iterate over all example from left table and search for matching examples in right table:
-		for (Example leftExample : leftExampleSet) {
-			List<Example> matchingRightExamples = getMatchingExamples(leftExampleSet, rightExampleSet, leftKeyAttributes, rightKeyMapping, useId, leftExample);
-			if (matchingRightExamples != null) {
-				// add combination of left example and all matching right examples 
-				for (Example rightExample : matchingRightExamples) {
-					addCombinedOccurence(originalAttributeSources, unionAttributeList, unionTable, leftExample, rightExample);
-					if (matchedExamplesInRightTable != null) {
-						matchedExamplesInRightTable.add(new DoubleArrayWrapper(getKeyValues(rightExample, rightKeyAttributes)));
+	private RowPairs performHashJoin(JoinKeys leftKeys, JoinKeys rightKeys, int joinType, boolean matchMissings) throws ProcessStoppedException {
+		boolean rightMajor = joinType == JOIN_TYPE_RIGHT;
+		boolean keepUnmatchedMajor = joinType != JOIN_TYPE_INNER;
+		JoinKeys majorKeys = rightMajor ? rightKeys : leftKeys;
+		JoinKeys minorKeys = rightMajor ? leftKeys : rightKeys;
+		boolean[] minorMatched = joinType == JOIN_TYPE_OUTER ? new boolean[minorKeys.size()] : null;
+
+		RowPairs rowPairs = new RowPairs(rightMajor, majorKeys.size());
+		if (minorKeys.size() <= majorKeys.size()) {
+			// the pairs are found in the order of the major example set
+			JoinKeyIndex minorIndex = new JoinKeyIndex(minorKeys, matchMissings);
+			for (int majorRow = 0; majorRow < majorKeys.size(); majorRow++) {
+				int minorRow = minorIndex.getFirstMatch(majorKeys, majorRow);
+				if (minorRow < 0) {
+					if (keepUnmatchedMajor) {
+						rowPairs.add(majorRow, -1);
 					}
+				} else {
+					do {
+						rowPairs.add(majorRow, minorRow);
+						if (minorMatched != null) {
+							minorMatched[minorRow] = true;
+						}
+						minorRow = minorIndex.getNextMatch(minorRow);
+					} while (minorRow >= 0);
 				}
-			} else { // no rows with this key in right table
-				// insert this row with null values for the right table
-				addLeftOnlyOccurence(originalAttributeSources, unionAttributeList, unionTable, leftExample);
+				checkForStop();
 			}
-			checkForStop();
-		}
-		return unionTable;
-	}
-
-	/**
-	 * Performs a right join.
-	 */
-	private MemoryExampleTable performRightJoin(ExampleSet leftExampleSet, ExampleSet rightExampleSet, List<AttributeSource> originalAttributeSources, List<Attribute> unionAttributeList, Pair<Attribute[], Attribute[]> keyAttributes) throws ProcessStoppedException {
-		MemoryExampleTable unionTable = new MemoryExampleTable(unionAttributeList);
-
-		Attribute[] leftKeyAttributes = null;
-		Attribute[] rightKeyAttributes = null;
-		Map<DoubleArrayWrapper, List<Example>> leftKeyMapping = null;
-		boolean useId = getParameterAsBoolean(PARAMETER_USE_ID);
-		
-		Attribute leftIdAttribute = null;
-		Attribute rightIdAttribute = null;
-		if (useId) {
-			// needed for getting the right id when adding examples which occur only in right table 
-			leftIdAttribute =  leftExampleSet.getAttributes().getId();
-			rightIdAttribute = rightExampleSet.getAttributes().getId();
-			leftKeyAttributes = new Attribute[]{leftIdAttribute};
-			rightKeyAttributes = new Attribute[]{rightIdAttribute};
 		} else {
-			// create key mapping for right example set
-			leftKeyAttributes = keyAttributes.getFirst();
-			rightKeyAttributes = keyAttributes.getSecond();
-			leftKeyMapping = createKeyMapping(leftExampleSet, leftKeyAttributes, rightKeyAttributes);
-		}
-
-		// iterate over all example from left table and search for matching examples in right table:
-		for (Example rightExample : rightExampleSet) {
-			List<Example> matchingLeftExamples = getMatchingExamples(rightExampleSet, leftExampleSet, rightKeyAttributes, leftKeyMapping, useId, rightExample);
-			if (matchingLeftExamples != null) {
-				// add combination of left example and all matching right examples 
-				for (Example leftExample : matchingLeftExamples) {
-					addCombinedOccurence(originalAttributeSources, unionAttributeList, unionTable, leftExample, rightExample);
+			// the pairs are found in the order of the minor example set and must be sorted afterwards
+			JoinKeyIndex majorIndex = new JoinKeyIndex(majorKeys, matchMissings);
+			for (int minorRow = 0; minorRow < minorKeys.size(); minorRow++) {
+				int majorRow = majorIndex.getFirstMatch(minorKeys, minorRow);
+				if (majorRow >= 0 && minorMatched != null) {
+					minorMatched[minorRow] = true;
 				}
-			} else {
-				addRightOnlyOccurence(originalAttributeSources,	unionAttributeList, unionTable, rightExample, leftKeyAttributes, rightKeyAttributes);
+				while (majorRow >= 0) {
+					rowPairs.add(majorRow, minorRow);
+					majorRow = majorIndex.getNextMatch(majorRow);
+				}
+				checkForStop();
 			}
-			checkForStop();
+			rowPairs = rowPairs.sortByMajorRows(majorKeys.size(), keepUnmatchedMajor);
 		}
-		return unionTable;
+		if (minorMatched != null) {
+			rowPairs.addUnmatchedMinorRows(minorMatched);
+		}
+		return rowPairs;
 	}
 
 	/**
-	 * Performs an outer join (not to be confused with a full outer join).
+	 * Pairs the examples of both example sets which must be sorted by their keys by merging them.
+	 * The resulting pairs are the same as for {@link #performHashJoin(JoinKeys, JoinKeys, int, boolean)}.
 	 */
-	private MemoryExampleTable performOuterJoin(ExampleSet leftExampleSet, ExampleSet rightExampleSet, List<AttributeSource> originalAttributeSources, List<Attribute> unionAttributeList, Pair<Attribute[], Attribute[]> keyAttributes) throws ProcessStoppedException {
-		MemoryExampleTable unionTable = new MemoryExampleTable(unionAttributeList);
-
-		Attribute[] leftKeyAttributes = keyAttributes.getFirst();
-		Attribute[] rightKeyAttributes = keyAttributes.getSecond();
-
-		// perform left join (an outer join is the union of a left join and a right join on the same tables)
-		Set<DoubleArrayWrapper> mappedRightExamples = new HashSet<DoubleArrayWrapper>();
-		unionTable = performLeftJoin(leftExampleSet, rightExampleSet, originalAttributeSources, unionAttributeList, keyAttributes, mappedRightExamples);
-		
-		for (Example rightExample : rightExampleSet) {
-			// perform right join, but add example only if it has not been matched during left join above
-			if (!mappedRightExamples.contains(new DoubleArrayWrapper(getKeyValues(rightExample, rightKeyAttributes)))) {
-				addRightOnlyOccurence(originalAttributeSources, unionAttributeList, unionTable, rightExample, leftKeyAttributes, rightKeyAttributes);
+	private RowPairs performMergeJoin(JoinKeys leftKeys, JoinKeys rightKeys, int joinType, boolean matchMissings) throws ProcessStoppedException {
+		boolean rightMajor = joinType == JOIN_TYPE_RIGHT;
+		boolean keepUnmatchedMajor = joinType != JOIN_TYPE_INNER;
+		JoinKeys majorKeys = rightMajor ? rightKeys : leftKeys;
+		JoinKeys minorKeys = rightMajor ? leftKeys : rightKeys;
+		boolean[] minorMatched = joinType == JOIN_TYPE_OUTER ? new boolean[minorKeys.size()] : null;
+
+		RowPairs rowPairs = new RowPairs(rightMajor, majorKeys.size());
+		int majorRow = 0;
+		int minorRow = 0;
+		while (majorRow < majorKeys.size()) {
+			int comparison = minorRow < minorKeys.size() ? majorKeys.compare(majorRow, minorKeys, minorRow) : -1;
+			if (comparison > 0) {
+				minorRow++;
+			} else if (comparison < 0 || (!matchMissings && majorKeys.hasMissings(majorRow))) {
+				if (keepUnmatchedMajor) {
+					rowPairs.add(majorRow, -1);
+				}
+				majorRow++;
+			} else {
+				// all examples with this key are combined with each other
+				int minorEnd = minorRow + 1;
+				while (minorEnd < minorKeys.size() && minorKeys.compare(minorEnd, minorKeys, minorRow) == 0) {
+					minorEnd++;
+				}
+				do {
+					for (int row = minorRow; row < minorEnd; row++) {
+						rowPairs.add(majorRow, row);
+					}
+					majorRow++;
+				} while (majorRow < majorKeys.size() && majorKeys.compare(majorRow, minorKeys, minorRow) == 0);
+				if (minorMatched != null) {
+					Arrays.fill(minorMatched, minorRow, minorEnd, true);
+				}
+				minorRow = minorEnd;
 			}
 			checkForStop();
 		}
-		return unionTable;
-	}
-
-	/**
-	 * Creates an example which consists of the combination of leftExample an rightExample.
-	 * Only those attributes are added, which are present in originalAttributeSources.
-	 * The newly constructed example is added to unionTable.
-	 */
-	private void addCombinedOccurence(List<AttributeSource> originalAttributeSources,
-			List<Attribute> unionAttributeList, MemoryExampleTable unionTable,
-			Example leftExample, Example rightExample) {
-		double[] unionDataRow = new double[unionAttributeList.size()];
-		int attributeIndex = 0;
-		for (AttributeSource attributeSource : originalAttributeSources) {
-			if (attributeSource.getSource() == AttributeSource.FIRST_SOURCE) {
-				unionDataRow[attributeIndex] = leftExample.getValue(attributeSource.getAttribute());
-			} else if (attributeSource.getSource() == AttributeSource.SECOND_SOURCE) {
-				unionDataRow[attributeIndex] = rightExample.getValue(attributeSource.getAttribute());
-			}
-			attributeIndex++;
+		if (minorMatched != null) {
+			rowPairs.addUnmatchedMinorRows(minorMatched);
 		}
-		unionTable.addDataRow(new DoubleArrayDataRow(unionDataRow));
+		return rowPairs;
 	}
 
-
 	/**
-	 * Creates an example and adds it to unionTable.
-	 * The example contains all attributes from leftExample, which are also in originalAttributeSources,
-	 * and NaN for all attributes which should normally be taken from a right example.   
+	 * Creates the table containing the combinations of examples given by the row pairs. Only those
+	 * attributes are added which are present in originalAttributeSources, the values of attributes of
+	 * an example set without example in a pair are missing. Exception: key attributes are always taken
+	 * from the left example set, so for examples only occurring in the right example set, the values
+	 * of the corresponding right key attributes are taken.
+	 * The table is filled column by column.
 	 */
-	private void addLeftOnlyOccurence(List<AttributeSource> originalAttributeSources, List<Attribute> unionAttributeList, MemoryExampleTable unionTable, Example leftExample) {
-		double[] unionDataRow = new double[unionAttributeList.size()];
-		int attributeIndex = 0;
+	private ColumnarExampleTable createJoinedTable(ExampleSet leftExampleSet, ExampleSet rightExampleSet, List<AttributeSource> originalAttributeSources, List<Attribute> unionAttributeList, Pair<Attribute[], Attribute[]> keyAttributes, RowPairs rowPairs) throws ProcessStoppedException {
+		int size = rowPairs.size();
+		ColumnarExampleTable unionTable = new ColumnarExampleTable(unionAttributeList, size);
+		unionTable.addMissingRows(size);
+		Iterator<Attribute> unionAttributes = unionAttributeList.iterator();
 		for (AttributeSource attributeSource : originalAttributeSources) {
+			int columnIndex = unionAttributes.next().getTableIndex();
+			Attribute attribute = attributeSource.getAttribute();
 			if (attributeSource.getSource() == AttributeSource.FIRST_SOURCE) {
-				unionDataRow[attributeIndex] = leftExample.getValue(attributeSource.getAttribute());
-			} else if (attributeSource.getSource() == AttributeSource.SECOND_SOURCE) {
-				unionDataRow[attributeIndex] = Double.NaN;
-			}
-			attributeIndex++;
-		}
-		unionTable.addDataRow(new DoubleArrayDataRow(unionDataRow));
-	}
-
-	/**
-	 * Creates an example and adds it to unionTable.
-	 * The example contains all attributes from rightExample, which are also in originalAttributeSources,
-	 * and NaN for all attributes which should normally be taken from a left example.
-	 * Exception: if key attributes would be taken from left example, instead of NaN the value
-	 * of the corresponding attribute in rightExample is taken.   
-	 */
-	private void addRightOnlyOccurence(List<AttributeSource> originalAttributeSources, List<Attribute> unionAttributeList, MemoryExampleTable unionTable, Example rightExample, Attribute[] leftKeyAttributes, Attribute[] rightKeyAttributes) {
-		double[] unionDataRow = new double[unionAttributeList.size()];
-		int attributeIndex = 0;
-		for (AttributeSource attributeSource : originalAttributeSources) {
-			if (attributeSource.getSource() == AttributeSource.FIRST_SOURCE) {
-				// since keys attributes are always taken from left example set, ID value must be fetched
-				// from right example set explicitly
-
-				// find key id
-				int id = -1;
-				for (int i = 0; i < leftKeyAttributes.length; ++i) {
-					if (attributeSource.getAttribute() == leftKeyAttributes[i]) {
-						id = i;
+				double[] leftValues = getValues(leftExampleSet, attribute);
+				Attribute rightKeyAttribute = null;
+				double[] rightKeyValues = null;
+				for (int i = 0; i < keyAttributes.getFirst().length; i++) {
+					if (keyAttributes.getFirst()[i] == attribute) {
+						rightKeyAttribute = keyAttributes.getSecond()[i];
+						rightKeyValues = getValues(rightExampleSet, rightKeyAttribute);
 						break;
 					}
 				}
-				
-				// now use correct key attribute
-				if (id >= 0) {
-					if (leftKeyAttributes[id].isNominal()) {
-						// consider different mapping in left and right attribute
-						Attribute rightAttribute = rightKeyAttributes[id];
-						Attribute leftAttribute = leftKeyAttributes[id];
-						int rightIndex = (int)rightExample.getValue(rightAttribute);
-						String valueAsString = rightAttribute.getMapping().mapIndex(rightIndex);
-						int leftIndex = leftAttribute.getMapping().mapString(valueAsString);
-						unionDataRow[attributeIndex] = leftIndex;
-					} else {
-						unionDataRow[attributeIndex] = rightExample.getValue(rightKeyAttributes[id]);
+				for (int row = 0; row < size; row++) {
+					int leftRow = rowPairs.getLeftRow(row);
+					int rightRow = rowPairs.getRightRow(row);
+					if (leftRow >= 0) {
+						unionTable.setValue(row, columnIndex, leftValues[leftRow]);
+					} else if (rightKeyValues != null && rightRow >= 0) {
+						double value = rightKeyValues[rightRow];
+						if (attribute.isNominal() && !Double.isNaN(value)) {
+							// consider different mapping in left and right attribute
+							value = attribute.getMapping().mapString(rightKeyAttribute.getMapping().mapIndex((int) value));
+						}
+						unionTable.setValue(row, columnIndex, value);
 					}
-				} else {
-					unionDataRow[attributeIndex] = Double.NaN;
 				}
 			} else if (attributeSource.getSource() == AttributeSource.SECOND_SOURCE) {
-				unionDataRow[attributeIndex] = rightExample.getValue(attributeSource.getAttribute());
-			}
-			attributeIndex++;
-		}
-		unionTable.addDataRow(new DoubleArrayDataRow(unionDataRow));
-	}
-	
-	/**
-	 * Maps all values of the keyAttributes which occur in exampleSet to a list of matching examples.
-	 * @param exampleSet The example set for whose key attributes the mapping is created 
-	 * @param keyAttributes the attributes which resemble the key attributes
-	 * @param matchKeyAttributes if not null, the values of nominal keyAttributes are mapped to match the mapping of these attributes prior to adding them to the map 
-	 * @return
-	 */
-	private Map<DoubleArrayWrapper, List<Example>> createKeyMapping(ExampleSet exampleSet, Attribute[] keyAttributes, Attribute[] matchKeyAttributes) {
-		Map<DoubleArrayWrapper, List<Example>> keyMapping = new HashMap<DoubleArrayWrapper, List<Example>>();
-		
-		assert(keyAttributes.length == matchKeyAttributes.length);
-
-		// create mapping from nominal values of keyAttributes to matchKeyAttributes
-		Map<Attribute,Map<Double,Double>> valueMapping = null;
-		if (matchKeyAttributes != null) {
-			valueMapping = new HashMap<Attribute, Map<Double,Double>>();
-			for (int attributeNumber = 0; attributeNumber < keyAttributes.length; ++attributeNumber) {
-				if (keyAttributes[attributeNumber].isNominal()) {
-					Map<Double,Double> valueMap = new HashMap<Double, Double>();
-					for (int valueNumber = 0; valueNumber < keyAttributes[attributeNumber].getMapping().size(); ++valueNumber) {
-						String valueString = keyAttributes[attributeNumber].getMapping().mapIndex(valueNumber);
-						valueMap.put((double)valueNumber, (double)matchKeyAttributes[attributeNumber].getMapping().mapString(valueString));
+				double[] rightValues = getValues(rightExampleSet, attribute);
+				for (int row = 0; row < size; row++) {
+					int rightRow = rowPairs.getRightRow(row);
+					if (rightRow >= 0) {
+						unionTable.setValue(row, columnIndex, rightValues[rightRow]);
 					}
-					valueMapping.put(keyAttributes[attributeNumber], valueMap);
 				}
 			}
+			checkForStop();
 		}
-		
-		double[] keyValues;
-		for(Example example : exampleSet) {
-			// fetch key values from example
-			keyValues = getKeyValues(example, keyAttributes);
-			if (valueMapping != null) {
-				// remap keyValues to match values of other attributes:
-				for (int i = 0; i < keyValues.length; ++i) {
-					if (keyAttributes[i].isNominal()) {
-						keyValues[i] = valueMapping.get(keyAttributes[i]).get(keyValues[i]);
-					}
-				}
-			}
-			
-			// check if this key is in keyMapping. If not, add:
-			List<Example> keyExamples = keyMapping.get(new DoubleArrayWrapper(keyValues));
-			if (keyExamples != null) {
-				// add current example:
-				keyExamples.add(example);
-			} else {
-				// create set and add to keyMapping:
-				keyExamples = new LinkedList<Example>();
-				keyExamples.add(example);
-				keyMapping.put(new DoubleArrayWrapper(keyValues), keyExamples);
-			}
-		}
-		return keyMapping;
-	}
-	
-	
-	/**
-	 * Gets examples from secondExampleSet which match the values of the 
-	 * keyAttributes from firstExample.
-	 * If PARAMETER_USE_ID_FOR_JOIN is true, the standard id-mapping of example sets is used.
-	 * If not, secondKeyMapping is used (@see createKeyMapping())   
-	 */
-	private List<Example> getMatchingExamples(ExampleSet firstExampleSet, ExampleSet secondExampleSet, Attribute[] firstKeyAttributes, Map<DoubleArrayWrapper, List<Example>> secondKeyMapping, boolean useId, Example referenceExample) {
-		// find right examples matching current left example:
-		List<Example> matchingExamples = null;
-		if (useId) {
-			// use existent id mapping of right example set
-			Attribute firstIdAttribute = firstExampleSet.getAttributes().getId();
-			Attribute secondIdAttribute = secondExampleSet.getAttributes().getId();
-			double firstIdValue = referenceExample.getValue(firstIdAttribute);
-			int[] matchingExampleIndices = null;
-			if (firstIdAttribute.isNominal()) {
-				matchingExampleIndices = secondExampleSet.getExampleIndicesFromId(secondIdAttribute.getMapping().getIndex(firstIdAttribute.getMapping().mapIndex((int) firstIdValue)));
-			} else {
-				matchingExampleIndices = secondExampleSet.getExampleIndicesFromId(firstIdValue);
-			}
-			if (matchingExampleIndices != null) {
-				matchingExamples = new LinkedList<Example>();
-				for (int secondExampleIndex : matchingExampleIndices) {
-					Example matchingExample = secondExampleSet.getExample(secondExampleIndex);
-					matchingExamples.add(matchingExample);
-				}
-			}
-		} else {
-			// use previously created mapping
-			double[] leftKeyValues = getKeyValues(referenceExample, firstKeyAttributes);
-			matchingExamples = secondKeyMapping.get(new DoubleArrayWrapper(leftKeyValues));
-		}
-		return matchingExamples;
+		return unionTable;
 	}
 
-
-	
-	/**
-	 * Returns an array of doubles, which contains the values of the keyAttributes of example.
-	 */
-	private double[] getKeyValues(Example example, Attribute[] keyAttributes) {
-		int numKeys = keyAttributes.length;
-		double[] keyValues = new double[numKeys];
-		for (int i = 0; i < numKeys; ++i) {
-			keyValues[i] = example.getValue(keyAttributes[i]);
+	/** Returns the values of the given attribute for all examples. */
+	private double[] getValues(ExampleSet exampleSet, Attribute attribute) {
+		double[] values = new double[exampleSet.size()];
+		int row = 0;
+		for (Example example : exampleSet) {
+			values[row++] = example.getValue(attribute);
 		}
-		return keyValues;
+		return values;
 	}
-	
+
 	/**
 	 * Returns all attributes from the right example which are key attributes.
 	 * 
@@ -561,6 +392,7 @@ public class ExampleSetJoin extends AbstractExampleSetJoin {
 		joinAttributes.registerDependencyCondition(new BooleanParameterCondition(this, PARAMETER_USE_ID, true, false));
 		
 		types.add(joinAttributes);			
+		types.add(new ParameterTypeBoolean(PARAMETER_SORTED_BY_KEYS, "Indicates if both example sets are sorted ascendingly by their key attributes. In this case a sort-merge join is performed instead of a hash join.", false, true));
 		return types;
 	}
 	
@@ -568,4 +400,91 @@ public class ExampleSetJoin extends AbstractExampleSetJoin {
 	public ResourceConsumptionEstimator getResourceConsumptionEstimator() {
 		return OperatorResourceConsumptionHandler.getResourceConsumptionEstimator(getInputPorts().getPortByIndex(0), ExampleSetJoin.class, null);
 	}
+
+	/**
+	 * The indices of the combined examples of both example sets in the order of the joined
+	 * example set. Missing examples are denoted by -1. The examples are stored as indices of
+	 * the major example set, whose order determines the order of the pairs, and of the minor
+	 * example set.
+	 */
+	private static class RowPairs {
+
+		private final boolean rightMajor;
+
+		private int[] majorRows;
+
+		private int[] minorRows;
+
+		private int size = 0;
+
+		private RowPairs(boolean rightMajor, int expectedSize) {
+			this.rightMajor = rightMajor;
+			this.majorRows = new int[Math.max(1, expectedSize)];
+			this.minorRows = new int[majorRows.length];
+		}
+
+		private void add(int majorRow, int minorRow) {
+			if (size == majorRows.length) {
+				int newLength = (int) Math.min(Integer.MAX_VALUE - 8, majorRows.length + (majorRows.length >> 1) + 1L);
+				majorRows = Arrays.copyOf(majorRows, newLength);
+				minorRows = Arrays.copyOf(minorRows, newLength);
+			}
+			majorRows[size] = majorRow;
+			minorRows[size] = minorRow;
+			size++;
+		}
+
+		private int size() {
+			return size;
+		}
+
+		private int getLeftRow(int index) {
+			return rightMajor ? minorRows[index] : majorRows[index];
+		}
+
+		private int getRightRow(int index) {
+			return rightMajor ? majorRows[index] : minorRows[index];
+		}
+
+		/**
+		 * Returns the pairs sorted by the major rows. Pairs with the same major row keep their order.
+		 * If unmatched major rows should be kept, a pair without minor row is added for each major row
+		 * which does not occur in any pair.
+		 */
+		private RowPairs sortByMajorRows(int numberOfMajorRows, boolean keepUnmatchedMajor) {
+			int[] positions = new int[numberOfMajorRows];
+			for (int i = 0; i < size; i++) {
+				positions[majorRows[i]]++;
+			}
+			int sortedSize = 0;
+			for (int majorRow = 0; majorRow < numberOfMajorRows; majorRow++) {
+				int count = positions[majorRow];
+				positions[majorRow] = sortedSize;
+				sortedSize += count == 0 && keepUnmatchedMajor ? 1 : count;
+			}
+			RowPairs sorted = new RowPairs(rightMajor, sortedSize);
+			sorted.size = sortedSize;
+			if (keepUnmatchedMajor) {
+				Arrays.fill(sorted.minorRows, 0, sortedSize, -1);
+				for (int majorRow = 0; majorRow < numberOfMajorRows; majorRow++) {
+					sorted.majorRows[positions[majorRow]] = majorRow;
+				}
+			}
+			for (int i = 0; i < size; i++) {
+				int position = positions[majorRows[i]]++;
+				sorted.majorRows[position] = majorRows[i];
+				sorted.minorRows[position] = minorRows[i];
+			}
+			return sorted;
+		}
+
+		/** Adds a pair without major row for each minor row which was not matched. */
+		private void addUnmatchedMinorRows(boolean[] minorMatched) {
+			for (int minorRow = 0; minorRow < minorMatched.length; minorRow++) {
+				if (!minorMatched[minorRow]) {
+					add(-1, minorRow);
+				}
+			}
+		}
+	}
 }
@@ -36,7 +36,7 @@ import com.rapidminer.example.ExampleSet;
 import com.rapidminer.example.table.AttributeFactory;
 import com.rapidminer.example.table.DataRow;
 import com.rapidminer.example.table.DataRowFactory;
-import com.rapidminer.example.table.MemoryExampleTable;
+import com.rapidminer.example.table.ExpandableExampleTable;
 import com.rapidminer.operator.MissingIOObjectException;
 import com.rapidminer.operator.Operator;
 import com.rapidminer.operator.OperatorDescription;
@@ -188,10 +188,10 @@ public class ExampleSetMerge extends Operator {
                 specialAttributesMap.put(newAttribute, role.getSpecialName());
             }
         }
-        MemoryExampleTable exampleTable = new MemoryExampleTable(newAttributeList);
+        DataRowFactory factory = new DataRowFactory(getParameterAsInt(PARAMETER_DATAMANAGEMENT), '.');
+        ExpandableExampleTable exampleTable = factory.createExampleTable(newAttributeList);
 
         // now fill table with rows, copied from source example sets
-        DataRowFactory factory = new DataRowFactory(getParameterAsInt(PARAMETER_DATAMANAGEMENT), '.');
         int numberOfAttributes = newAttributeList.size();
         for (ExampleSet exampleSet : allExampleSets) {
             for (Example example : exampleSet) {
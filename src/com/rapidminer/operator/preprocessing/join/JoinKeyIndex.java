@@ -0,0 +1,102 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2011 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.operator.preprocessing.join;
+
+import java.util.Arrays;
+
+
+/**
+ * A hash index on the keys of one input of a join. Only the indices of the examples are
+ * stored: An open addressing table holds the first example of each distinct key, all
+ * further examples with the same key are chained in ascending order by an array of
+ * successors. Hence, no objects are created per example.
+ * 
+ * @author Ingo Mierswa
+ */
+public class JoinKeyIndex {
+
+	/** The maximal number of slots of the hash table. */
+	private static final int MAXIMAL_NUMBER_OF_SLOTS = 1 << 30;
+
+	private final JoinKeys keys;
+
+	private final boolean matchMissings;
+
+	/** The first example of each slot plus one. Empty slots contain 0. */
+	private final int[] slots;
+
+	/** The next example with the same key for each example or -1 if there is no further example. */
+	private final int[] successors;
+
+	private final int mask;
+
+	/**
+	 * Creates an index on the given keys. If missings should not be matched, keys with missing
+	 * values are neither indexed nor found.
+	 */
+	public JoinKeyIndex(JoinKeys keys, boolean matchMissings) {
+		this.keys = keys;
+		this.matchMissings = matchMissings;
+		int size = keys.size();
+		int numberOfSlots = 2;
+		while (numberOfSlots < 2L * size && numberOfSlots < MAXIMAL_NUMBER_OF_SLOTS) {
+			numberOfSlots <<= 1;
+		}
+		this.slots = new int[numberOfSlots];
+		this.mask = numberOfSlots - 1;
+		this.successors = new int[size];
+		Arrays.fill(successors, -1);
+		// inserting backwards such that each chain is ascending
+		for (int row = size - 1; row >= 0; row--) {
+			if (matchMissings || !keys.hasMissings(row)) {
+				int slot = findSlot(keys, row);
+				successors[row] = slots[slot] - 1;
+				slots[slot] = row + 1;
+			}
+		}
+	}
+
+	/** Returns the slot containing the given key or the empty slot where it must be inserted. */
+	private int findSlot(JoinKeys otherKeys, int otherRow) {
+		int slot = otherKeys.hashCode(otherRow) & mask;
+		while (slots[slot] != 0 && !keys.equals(slots[slot] - 1, otherKeys, otherRow)) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	/**
+	 * Returns the first indexed example whose key equals the key of the given example of the
+	 * other keys or -1 if there is no such example.
+	 */
+	public int getFirstMatch(JoinKeys otherKeys, int otherRow) {
+		if (!matchMissings && otherKeys.hasMissings(otherRow))
+			return -1;
+		return slots[findSlot(otherKeys, otherRow)] - 1;
+	}
+
+	/** Returns the next indexed example with the same key as the given one or -1 if there is no such example. */
+	public int getNextMatch(int row) {
+		return successors[row];
+	}
+}
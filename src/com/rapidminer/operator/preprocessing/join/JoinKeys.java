@@ -0,0 +1,178 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2011 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.operator.preprocessing.join;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.Example;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.table.NominalMapping;
+import com.rapidminer.tools.container.Pair;
+
+
+/**
+ * The values of the key attributes of all examples of one input of a join. The values are
+ * stored in one primitive array per key attribute. If both attributes of a key are nominal,
+ * the values are replaced by the position of their string in the sorted union of the nominal
+ * values of both attributes. Hence, the keys of both inputs can be compared directly and are
+ * ordered like the strings. Missing values are kept as NaN.
+ *
+ * Keys are equal if all their values are equal in the sense of {@link Double#equals(Object)},
+ * i.e. missing values are equal to each other. Keys are ordered lexicographically like the
+ * Sort operator orders examples, missing nominal values are ordered like the string used for
+ * displaying them.
+ * 
+ * @author Ingo Mierswa
+ */
+public class JoinKeys {
+
+	/** The values of each key attribute (first index) for each example (second index). */
+	private final double[][] values;
+
+	/** The value which takes the place of a missing value of each key attribute when comparing keys. */
+	private final double[] missingOrder;
+
+	private final int size;
+
+	private JoinKeys(double[][] values, double[] missingOrder, int size) {
+		this.values = values;
+		this.missingOrder = missingOrder;
+		this.size = size;
+	}
+
+	/**
+	 * Reads the keys of both example sets. The attributes with the same index in both arrays
+	 * form a key. Returns the keys of the left example set as first element of the pair.
+	 */
+	public static Pair<JoinKeys, JoinKeys> create(ExampleSet leftExampleSet, Attribute[] leftAttributes, ExampleSet rightExampleSet, Attribute[] rightAttributes) {
+		double[][] leftValues = readValues(leftExampleSet, leftAttributes);
+		double[][] rightValues = readValues(rightExampleSet, rightAttributes);
+		double[] missingOrder = new double[leftAttributes.length];
+		for (int i = 0; i < leftAttributes.length; i++) {
+			missingOrder[i] = Double.NaN;
+			if (leftAttributes[i].isNominal() && rightAttributes[i].isNominal()) {
+				NominalMapping leftMapping = leftAttributes[i].getMapping();
+				NominalMapping rightMapping = rightAttributes[i].getMapping();
+				List<String> strings = new ArrayList<String>(leftMapping.size() + rightMapping.size());
+				strings.addAll(leftMapping.getValues());
+				strings.addAll(rightMapping.getValues());
+				Collections.sort(strings);
+				List<String> sortedStrings = new ArrayList<String>(strings.size());
+				for (String string : strings) {
+					if (sortedStrings.isEmpty() || !sortedStrings.get(sortedStrings.size() - 1).equals(string))
+						sortedStrings.add(string);
+				}
+				replaceByPositions(leftValues[i], leftMapping, sortedStrings);
+				replaceByPositions(rightValues[i], rightMapping, sortedStrings);
+				int missingPosition = Collections.binarySearch(sortedStrings, Attribute.MISSING_NOMINAL_VALUE);
+				missingOrder[i] = missingPosition >= 0 ? missingPosition + 0.5d : -missingPosition - 1.5d;
+			}
+		}
+		return new Pair<JoinKeys, JoinKeys>(new JoinKeys(leftValues, missingOrder, leftExampleSet.size()), new JoinKeys(rightValues, missingOrder, rightExampleSet.size()));
+	}
+
+	private static double[][] readValues(ExampleSet exampleSet, Attribute[] attributes) {
+		double[][] values = new double[attributes.length][exampleSet.size()];
+		int row = 0;
+		for (Example example : exampleSet) {
+			for (int i = 0; i < attributes.length; i++) {
+				values[i][row] = example.getValue(attributes[i]);
+			}
+			row++;
+		}
+		return values;
+	}
+
+	private static void replaceByPositions(double[] values, NominalMapping mapping, List<String> sortedStrings) {
+		double[] positions = new double[mapping.size()];
+		for (int i = 0; i < positions.length; i++) {
+			positions[i] = Collections.binarySearch(sortedStrings, mapping.mapIndex(i));
+		}
+		for (int row = 0; row < values.length; row++) {
+			if (!Double.isNaN(values[row])) {
+				values[row] = positions[(int) values[row]];
+			}
+		}
+	}
+
+	/** Returns the number of examples. */
+	public int size() {
+		return size;
+	}
+
+	/** Returns true if one of the key values of the given example is missing. */
+	public boolean hasMissings(int row) {
+		for (double[] attributeValues : values) {
+			if (Double.isNaN(attributeValues[row]))
+				return true;
+		}
+		return false;
+	}
+
+	/** Returns a hash code for the key of the given example which is consistent with {@link #equals(int, JoinKeys, int)}. */
+	public int hashCode(int row) {
+		int hash = 1;
+		for (double[] attributeValues : values) {
+			long bits = Double.doubleToLongBits(attributeValues[row]);
+			hash = 31 * hash + (int) (bits ^ (bits >>> 32));
+		}
+		// spreading the bits since the lower bits of integer values are all zero
+		hash ^= hash >>> 16;
+		hash *= 0x85ebca6b;
+		hash ^= hash >>> 13;
+		return hash;
+	}
+
+	/** Returns true if the key of the given example equals the key of the other example of the given keys. */
+	public boolean equals(int row, JoinKeys other, int otherRow) {
+		for (int i = 0; i < values.length; i++) {
+			if (Double.doubleToLongBits(values[i][row]) != Double.doubleToLongBits(other.values[i][otherRow]))
+				return false;
+		}
+		return true;
+	}
+
+	/** Compares the key of the given example with the key of the other example of the given keys. */
+	public int compare(int row, JoinKeys other, int otherRow) {
+		for (int i = 0; i < values.length; i++) {
+			double value = values[i][row];
+			double otherValue = other.values[i][otherRow];
+			int result = Double.compare(Double.isNaN(value) ? missingOrder[i] : value, Double.isNaN(otherValue) ? missingOrder[i] : otherValue);
+			if (result != 0)
+				return result;
+		}
+		return 0;
+	}
+
+	/** Returns true if the examples are sorted ascendingly by their keys. */
+	public boolean isSorted() {
+		for (int row = 1; row < size; row++) {
+			if (compare(row - 1, this, row) > 0)
+				return false;
+		}
+		return true;
+	}
+}
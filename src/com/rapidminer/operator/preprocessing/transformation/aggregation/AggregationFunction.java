@@ -133,6 +133,15 @@ public abstract class AggregationFunction {
      */
     public abstract Aggregator createAggregator();
 
+    /**
+     * This will return a {@link GroupAggregator} that computes the value of this function for
+     * the given number of groups at once. The default implementation creates one {@link Aggregator}
+     * per group. Subclasses might override this in order to keep the state of all groups in arrays.
+     */
+    public GroupAggregator createGroupAggregator(int numberOfGroups) {
+        return new DefaultGroupAggregator(this, numberOfGroups);
+    }
+
     /**
      * This determines, if any missing values will be just ignored or counted with the
      * respective aggregation function. Some functions might cope with that, others will
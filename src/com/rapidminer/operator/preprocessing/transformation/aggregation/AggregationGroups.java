@@ -0,0 +1,134 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2011 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.operator.preprocessing.transformation.aggregation;
+
+import java.util.Arrays;
+
+/**
+ * Assigns consecutive numbers to the distinct combinations of values of the group attributes.
+ * The combinations are stored in a flat array and looked up in a hash table with open addressing,
+ * so no objects are created per example or per group. Two keys are equal if all their values have
+ * the same bit representation, i.e. all missing values are equal to each other.
+ * 
+ * @author Sebastian Land
+ */
+public class AggregationGroups {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final int keyLength;
+
+    /** The values of the groups one after the other. */
+    private double[] keys;
+
+    private int[] hashes;
+
+    /** Contains the group number plus one for each occupied slot and 0 for empty slots. */
+    private int[] table;
+
+    private int size = 0;
+
+    public AggregationGroups(int keyLength) {
+        this.keyLength = keyLength;
+        this.keys = new double[INITIAL_CAPACITY * keyLength];
+        this.hashes = new int[INITIAL_CAPACITY];
+        this.table = new int[INITIAL_CAPACITY * 2];
+    }
+
+    /**
+     * Returns the number of the group with the given values and creates a new group if no such
+     * group exists. The given array is copied and might be reused by the caller.
+     */
+    public int getOrCreateGroup(double[] key) {
+        int hash = hash(key);
+        int mask = table.length - 1;
+        int slot = hash & mask;
+        while (table[slot] != 0) {
+            int group = table[slot] - 1;
+            if (hashes[group] == hash && equals(group, key)) {
+                return group;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        // creating new group
+        if (size == hashes.length) {
+            keys = Arrays.copyOf(keys, keys.length * 2);
+            hashes = Arrays.copyOf(hashes, hashes.length * 2);
+        }
+        int group = size++;
+        System.arraycopy(key, 0, keys, group * keyLength, keyLength);
+        hashes[group] = hash;
+        table[slot] = group + 1;
+        // keeping load factor at most one half
+        if (size * 2 > table.length) {
+            rehash(table.length * 2);
+        }
+        return group;
+    }
+
+    /** Returns the number of groups. */
+    public int size() {
+        return size;
+    }
+
+    /** Returns the value of the given group at the given position of the key. */
+    public double getValue(int group, int keyIndex) {
+        return keys[group * keyLength + keyIndex];
+    }
+
+    private boolean equals(int group, double[] key) {
+        int offset = group * keyLength;
+        for (int i = 0; i < keyLength; i++) {
+            if (Double.doubleToLongBits(keys[offset + i]) != Double.doubleToLongBits(key[i]))
+                return false;
+        }
+        return true;
+    }
+
+    private void rehash(int capacity) {
+        table = new int[capacity];
+        int mask = capacity - 1;
+        for (int group = 0; group < size; group++) {
+            int slot = hashes[group] & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = group + 1;
+        }
+    }
+
+    private static int hash(double[] key) {
+        long hash = 0;
+        for (double value : key) {
+            hash = hash * 31 + Double.doubleToLongBits(value);
+        }
+        // spreading bits since consecutive integer values only differ in the high bits of doubles
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return (int) hash;
+    }
+}
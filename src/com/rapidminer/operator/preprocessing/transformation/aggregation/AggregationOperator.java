@@ -23,8 +23,10 @@
 package com.rapidminer.operator.preprocessing.transformation.aggregation;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -33,6 +35,7 @@ import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
@@ -40,6 +43,7 @@ import com.rapidminer.example.Attribute;
 import com.rapidminer.example.Attributes;
 import com.rapidminer.example.Example;
 import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.set.AbstractExampleSet;
 import com.rapidminer.example.table.AttributeFactory;
 import com.rapidminer.example.table.DataRowFactory;
 import com.rapidminer.example.table.DoubleArrayDataRow;
@@ -74,6 +78,7 @@ import com.rapidminer.parameter.conditions.BooleanParameterCondition;
 import com.rapidminer.tools.Ontology;
 import com.rapidminer.tools.OperatorResourceConsumptionHandler;
 import com.rapidminer.tools.OperatorService;
+import com.rapidminer.tools.ParallelExecutionService;
 
 /**
  * <p>
@@ -86,6 +91,14 @@ import com.rapidminer.tools.OperatorService;
  * Please note that the known HAVING clause from SQL can be simulated by an additional {@link ExampleFilter} operator following this one.
  * </p>
  * 
+ * <p>
+ * The groups are numbered by {@link AggregationGroups} and aggregated by one {@link GroupAggregator} per function
+ * keeping the state of all groups. For large example sets kept in memory, consecutive ranges of examples are counted
+ * in parallel by their own aggregators, which are merged in the order of the ranges afterwards. The ranges only depend
+ * on the data, hence the results do not depend on the number of threads. Only if all combinations are counted, the
+ * {@link AggregationTreeNode}s are used.
+ * </p>
+ * 
  * @author Tobias Malbrecht, Ingo Mierswa, Sebastian Land
  */
 public class AggregationOperator extends AbstractDataProcessing {
@@ -207,6 +220,7 @@ public class AggregationOperator extends AbstractDataProcessing {
     public static final String PARAMETER_ONLY_DISTINCT = "only_distinct";
     public static final String PARAMETER_IGNORE_MISSINGS = "ignore_missings";
     public static final String PARAMETER_ALL_COMBINATIONS = "count_all_combinations";
+    public static final String PARAMETER_SORT_GROUPS = "sort_groups";
 
     /* These two only remain for compatibility */
     public static final String GENERIC_GROUP_NAME = "group";
@@ -218,6 +232,12 @@ public class AggregationOperator extends AbstractDataProcessing {
      */
     private static final OperatorVersion VERSION_5_1_6 = new OperatorVersion(5, 1, 6);
 
+    /** The minimal number of examples per range which is aggregated in parallel to other ranges. */
+    private static final int MIN_EXAMPLES_PER_RANGE = 50000;
+
+    /** The examples are aggregated in at most this number of ranges, independent of the number of threads. */
+    private static final int MAX_NUMBER_OF_RANGES = 16;
+
     private final AttributeSubsetSelector attributeSelector = new AttributeSubsetSelector(this, getExampleSetInputPort());
 
     public AggregationOperator(OperatorDescription desc) {
@@ -300,45 +320,6 @@ public class AggregationOperator extends AbstractDataProcessing {
         // getting attributes that define groups and weights
         Attribute[] groupAttributes = getMatchingAttributes(exampleSet.getAttributes(), getParameterAsString(PARAMETER_GROUP_BY_ATTRIBUTES));
         Attribute weightAttribute = exampleSet.getAttributes().getWeight();
-        boolean useWeights = weightAttribute != null;
-
-        // running over exampleSet and aggregate data of each example
-        AggregationTreeNode rootNode = new AggregationTreeNode();
-        LeafAggregationTreeNode leafNode = null;
-        if (groupAttributes.length == 0) {
-            // if no grouping, we will directly insert into leaf node
-            leafNode = new LeafAggregationTreeNode(aggregationFunctions);
-        }
-        for (Example example : exampleSet) {
-            if (groupAttributes.length > 0) {
-                AggregationTreeNode currentNode = rootNode;
-                // now traversing aggregation tree for m-1 group attributes
-                for (int i = 0; i < groupAttributes.length - 1; i++) {
-                    Attribute currentAttribute = groupAttributes[i];
-                    if (currentAttribute.isNominal()) {
-                        currentNode = currentNode.getOrCreateChild(example.getValueAsString(currentAttribute));
-                    } else {
-                        currentNode = currentNode.getOrCreateChild(example.getValue(currentAttribute));
-                    }
-                }
-
-                // now we have to get the leaf node containing the aggregators
-                Attribute currentAttribute = groupAttributes[groupAttributes.length - 1];
-                if (currentAttribute.isNominal()) {
-                    leafNode = currentNode.getOrCreateLeaf(example.getValueAsString(currentAttribute), aggregationFunctions);
-                } else {
-                    leafNode = currentNode.getOrCreateLeaf(example.getValue(currentAttribute), aggregationFunctions);
-                }
-            }
-            // now count current example
-            if (!useWeights)
-                leafNode.count(example);
-            else
-                leafNode.count(example, example.getValue(weightAttribute));
-        }
-
-        // now derive new example set from aggregated values
-        boolean isCountingAllCombinations = getParameterAsBoolean(PARAMETER_ALL_COMBINATIONS);
 
         // building new attributes from grouping attributes and aggregation functions
         Attribute[] newAttributes = new Attribute[groupAttributes.length + aggregationFunctions.size()];
@@ -353,16 +334,10 @@ public class AggregationOperator extends AbstractDataProcessing {
 
         // creating example table
         MemoryExampleTable table = new MemoryExampleTable(newAttributes);
-        ;
-        DataRowFactory factory = new DataRowFactory(DataRowFactory.TYPE_DOUBLE_ARRAY, '.');
-        double[] dataOfUpperLevels = new double[groupAttributes.length];
-
-        if (groupAttributes.length > 0) {
-            // going through all possible groups recursively
-            parseTree(rootNode, groupAttributes, dataOfUpperLevels, 0, table, factory, newAttributes, isCountingAllCombinations, aggregationFunctions);
+        if (getParameterAsBoolean(PARAMETER_ALL_COMBINATIONS) && groupAttributes.length > 0) {
+            aggregateByTree(exampleSet, groupAttributes, weightAttribute, aggregationFunctions, newAttributes, table);
         } else {
-            // just enter values from single leaf node
-            parseLeaf(leafNode, dataOfUpperLevels, table, factory, newAttributes, aggregationFunctions);
+            aggregateByGroups(exampleSet, groupAttributes, weightAttribute, aggregationFunctions, newAttributes, table);
         }
 
         // postprocessing for remaining compatibility: Old versions automatically added group "all". Must remain this way for old operator
@@ -398,6 +373,211 @@ public class AggregationOperator extends AbstractDataProcessing {
         return table.createExampleSet();
     }
 
+    /**
+     * Aggregates the examples using a tree of {@link AggregationTreeNode}s and creates rows for all combinations
+     * of nominal values, including those not occurring.
+     */
+    private void aggregateByTree(ExampleSet exampleSet, Attribute[] groupAttributes, Attribute weightAttribute, List<AggregationFunction> aggregationFunctions, Attribute[] newAttributes, MemoryExampleTable table) throws OperatorException {
+        boolean useWeights = weightAttribute != null;
+
+        // running over exampleSet and aggregate data of each example
+        AggregationTreeNode rootNode = new AggregationTreeNode();
+        for (Example example : exampleSet) {
+            AggregationTreeNode currentNode = rootNode;
+            // now traversing aggregation tree for m-1 group attributes
+            for (int i = 0; i < groupAttributes.length - 1; i++) {
+                Attribute currentAttribute = groupAttributes[i];
+                if (currentAttribute.isNominal()) {
+                    currentNode = currentNode.getOrCreateChild(example.getValueAsString(currentAttribute));
+                } else {
+                    currentNode = currentNode.getOrCreateChild(example.getValue(currentAttribute));
+                }
+            }
+
+            // now we have to get the leaf node containing the aggregators
+            Attribute currentAttribute = groupAttributes[groupAttributes.length - 1];
+            LeafAggregationTreeNode leafNode;
+            if (currentAttribute.isNominal()) {
+                leafNode = currentNode.getOrCreateLeaf(example.getValueAsString(currentAttribute), aggregationFunctions);
+            } else {
+                leafNode = currentNode.getOrCreateLeaf(example.getValue(currentAttribute), aggregationFunctions);
+            }
+            // now count current example
+            if (!useWeights)
+                leafNode.count(example);
+            else
+                leafNode.count(example, example.getValue(weightAttribute));
+        }
+
+        // going through all possible groups recursively
+        DataRowFactory factory = new DataRowFactory(DataRowFactory.TYPE_DOUBLE_ARRAY, '.');
+        double[] dataOfUpperLevels = new double[groupAttributes.length];
+        parseTree(rootNode, groupAttributes, dataOfUpperLevels, 0, table, factory, newAttributes, true, aggregationFunctions);
+    }
+
+    /**
+     * Aggregates the examples by numbering the groups with {@link AggregationGroups} and counting them with
+     * {@link GroupAggregator}s.
+     */
+    private void aggregateByGroups(final ExampleSet exampleSet, Attribute[] groupAttributes, final Attribute weightAttribute, List<AggregationFunction> aggregationFunctions, Attribute[] newAttributes, MemoryExampleTable table) throws OperatorException {
+        // missing nominal values are grouped like the nominal value "?"
+        double[] missingKeyValues = new double[groupAttributes.length];
+        for (int i = 0; i < groupAttributes.length; i++) {
+            missingKeyValues[i] = Double.NaN;
+            if (groupAttributes[i].isNominal()) {
+                int index = groupAttributes[i].getMapping().getIndex(Attribute.MISSING_NOMINAL_VALUE);
+                if (index >= 0)
+                    missingKeyValues[i] = index;
+            }
+        }
+
+        // numbering groups
+        AggregationGroups groups = new AggregationGroups(groupAttributes.length);
+        double[] key = new double[groupAttributes.length];
+        if (groupAttributes.length == 0) {
+            // there is always exactly one group
+            groups.getOrCreateGroup(key);
+        }
+        final int[] exampleGroups = new int[exampleSet.size()];
+        int row = 0;
+        for (Example example : exampleSet) {
+            for (int i = 0; i < groupAttributes.length; i++) {
+                double value = example.getValue(groupAttributes[i]);
+                key[i] = Double.isNaN(value) ? missingKeyValues[i] : value;
+            }
+            exampleGroups[row] = groups.getOrCreateGroup(key);
+            row++;
+        }
+        checkForStop();
+
+        // counting examples
+        final List<AggregationFunction> functions = aggregationFunctions;
+        final int numberOfGroups = groups.size();
+        // the ranges only depend on the data, hence the merged values are independent of the number of threads.
+        // Since each range needs its own aggregators for all groups, a range contains at least as many examples as groups.
+        int numberOfRanges = Math.max(1, Math.min(MAX_NUMBER_OF_RANGES, exampleSet.size() / Math.max(MIN_EXAMPLES_PER_RANGE, numberOfGroups)));
+        if (!AbstractExampleSet.isMemoryTable(exampleSet.getExampleTable()))
+            numberOfRanges = 1;
+        GroupAggregator[] aggregators = createGroupAggregators(functions, numberOfGroups);
+        for (GroupAggregator aggregator : aggregators) {
+            if (!(aggregator instanceof MergeableGroupAggregator))
+                numberOfRanges = 1;
+        }
+        if (numberOfRanges == 1) {
+            int currentRow = 0;
+            for (Example example : exampleSet) {
+                countExample(aggregators, exampleGroups[currentRow], example, weightAttribute);
+                currentRow++;
+            }
+        } else {
+            // each range of examples is counted with its own aggregators, which are merged in the order of the ranges
+            List<Callable<GroupAggregator[]>> tasks = new ArrayList<Callable<GroupAggregator[]>>(numberOfRanges);
+            for (int range = 0; range < numberOfRanges; range++) {
+                final int start = (int) ((long) exampleSet.size() * range / numberOfRanges);
+                final int end = (int) ((long) exampleSet.size() * (range + 1) / numberOfRanges);
+                tasks.add(new Callable<GroupAggregator[]>() {
+
+                    public GroupAggregator[] call() {
+                        GroupAggregator[] rangeAggregators = createGroupAggregators(functions, numberOfGroups);
+                        for (int currentRow = start; currentRow < end; currentRow++) {
+                            countExample(rangeAggregators, exampleGroups[currentRow], exampleSet.getExample(currentRow), weightAttribute);
+                        }
+                        return rangeAggregators;
+                    }
+                });
+            }
+            List<GroupAggregator[]> rangeAggregators = ParallelExecutionService.execute(tasks, getName());
+            aggregators = rangeAggregators.get(0);
+            for (int range = 1; range < numberOfRanges; range++) {
+                for (int i = 0; i < aggregators.length; i++) {
+                    ((MergeableGroupAggregator) aggregators[i]).merge(rangeAggregators.get(range)[i]);
+                }
+            }
+        }
+
+        // creating rows in the requested order
+        Integer[] groupOrder = new Integer[groups.size()];
+        for (int group = 0; group < groupOrder.length; group++) {
+            groupOrder[group] = group;
+        }
+        if (getParameterAsBoolean(PARAMETER_SORT_GROUPS) && groupAttributes.length > 0) {
+            Arrays.sort(groupOrder, new GroupComparator(groups, groupAttributes));
+        }
+        for (int group : groupOrder) {
+            double[] data = new double[newAttributes.length];
+            for (int i = 0; i < groupAttributes.length; i++) {
+                if (groupAttributes[i].isNominal()) {
+                    data[i] = newAttributes[i].getMapping().mapString(getNominalValue(groups, group, i, groupAttributes[i]));
+                } else {
+                    data[i] = groups.getValue(group, i);
+                }
+            }
+            DoubleArrayDataRow dataRow = new DoubleArrayDataRow(data);
+            for (int i = 0; i < aggregators.length; i++) {
+                aggregators[i].set(group, newAttributes[groupAttributes.length + i], dataRow);
+            }
+            table.addDataRow(dataRow);
+        }
+    }
+
+    private static GroupAggregator[] createGroupAggregators(List<AggregationFunction> aggregationFunctions, int numberOfGroups) {
+        GroupAggregator[] aggregators = new GroupAggregator[aggregationFunctions.size()];
+        for (int i = 0; i < aggregators.length; i++) {
+            aggregators[i] = aggregationFunctions.get(i).createGroupAggregator(numberOfGroups);
+        }
+        return aggregators;
+    }
+
+    private static void countExample(GroupAggregator[] aggregators, int group, Example example, Attribute weightAttribute) {
+        if (weightAttribute == null) {
+            for (GroupAggregator aggregator : aggregators) {
+                aggregator.count(group, example);
+            }
+        } else {
+            double weight = example.getValue(weightAttribute);
+            for (GroupAggregator aggregator : aggregators) {
+                aggregator.count(group, example, weight);
+            }
+        }
+    }
+
+    private static String getNominalValue(AggregationGroups groups, int group, int keyIndex, Attribute attribute) {
+        double value = groups.getValue(group, keyIndex);
+        if (Double.isNaN(value))
+            return Attribute.MISSING_NOMINAL_VALUE;
+        return attribute.getMapping().mapIndex((int) value);
+    }
+
+    /**
+     * Orders the groups lexicographically by the values of the group attributes. Nominal values are compared
+     * by their strings, like the keys of the {@link AggregationTreeNode}s.
+     */
+    private static class GroupComparator implements Comparator<Integer> {
+
+        private final AggregationGroups groups;
+        private final Attribute[] groupAttributes;
+
+        private GroupComparator(AggregationGroups groups, Attribute[] groupAttributes) {
+            this.groups = groups;
+            this.groupAttributes = groupAttributes;
+        }
+
+        @Override
+        public int compare(Integer group1, Integer group2) {
+            for (int i = 0; i < groupAttributes.length; i++) {
+                int result;
+                if (groupAttributes[i].isNominal()) {
+                    result = getNominalValue(groups, group1, i, groupAttributes[i]).compareTo(getNominalValue(groups, group2, i, groupAttributes[i]));
+                } else {
+                    result = Double.compare(groups.getValue(group1, i), groups.getValue(group2, i));
+                }
+                if (result != 0)
+                    return result;
+            }
+            return 0;
+        }
+    }
+
     private void parseLeaf(LeafAggregationTreeNode node, double[] dataOfUpperLevels, MemoryExampleTable table, DataRowFactory factory, Attribute[] newAttributes, List<AggregationFunction> aggregationFunctions) {
         // first copying data from groups
         double[] newData = new double[newAttributes.length];
@@ -540,6 +720,7 @@ public class AggregationOperator extends AbstractDataProcessing {
                 new ParameterTypeAttribute("aggregation_attribute", "Specifies the attribute which is aggregated.", getExampleSetInputPort()),
                 new ParameterTypeStringCategory(PARAMETER_AGGREGATION_FUNCTIONS, "The type of the used aggregation function.", functions, functions[0]), false));
         types.add(new ParameterTypeAttributes(PARAMETER_GROUP_BY_ATTRIBUTES, "Performs a grouping by the values of the attributes whose names match the given regular expression.", getExampleSetInputPort(), true, false));
+        types.add(new ParameterTypeBoolean(PARAMETER_SORT_GROUPS, "Indicates if the groups are sorted by the values of the group by attributes. Otherwise they are delivered in the order of their first occurrence, which is faster for many groups.", true));
         types.add(new ParameterTypeBoolean(PARAMETER_ALL_COMBINATIONS, "Indicates that all possible combinations of the values of the group by attributes are counted, even if they don't occur. Please handle with care, since the number might be enormous.", false));
         type = new ParameterTypeBoolean(PARAMETER_ONLY_DISTINCT, "Indicates if only rows with distinct values for the aggregation attribute should be used for the calculation of the aggregation function.", false);
         type.registerDependencyCondition(new BooleanParameterCondition(this, PARAMETER_ALL_COMBINATIONS, false, false));
@@ -0,0 +1,75 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2011 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.operator.preprocessing.transformation.aggregation;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.Example;
+import com.rapidminer.example.table.DataRow;
+
+/**
+ * This is a {@link GroupAggregator} for the {@link CountAggregationFunction} and the
+ * {@link CountIgnoringMissingsAggregationFunction}. Like the {@link CountAggregator},
+ * it counts all non-NaN values.
+ * 
+ * @author Sebastian Land
+ */
+public class CountGroupAggregator implements MergeableGroupAggregator {
+
+    private final Attribute sourceAttribute;
+    private final boolean isIgnoringMissings;
+    private final double[] counts;
+
+    public CountGroupAggregator(AggregationFunction function, int numberOfGroups) {
+        this.sourceAttribute = function.getSourceAttribute();
+        this.isIgnoringMissings = function.isIgnoringMissings();
+        this.counts = new double[numberOfGroups];
+    }
+
+    @Override
+    public void count(int group, Example example) {
+        count(group, example, 1d);
+    }
+
+    @Override
+    public void count(int group, Example example, double weight) {
+        double value = example.getValue(sourceAttribute);
+        if (!Double.isNaN(value)) {
+            counts[group] += weight;
+        } else if (!isIgnoringMissings) {
+            counts[group] = Double.NaN;
+        }
+    }
+
+    @Override
+    public void merge(GroupAggregator aggregator) {
+        double[] otherCounts = ((CountGroupAggregator) aggregator).counts;
+        for (int group = 0; group < counts.length; group++) {
+            counts[group] += otherCounts[group];
+        }
+    }
+
+    @Override
+    public void set(int group, Attribute attribute, DataRow row) {
+        row.set(attribute, counts[group]);
+    }
+}
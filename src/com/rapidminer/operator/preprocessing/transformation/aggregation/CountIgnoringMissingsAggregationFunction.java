@@ -50,6 +50,13 @@ public class CountIgnoringMissingsAggregationFunction extends NumericalAggregati
         return new CountAggregator(this);
     }
 
+    @Override
+    public GroupAggregator createGroupAggregator(int numberOfGroups) {
+        if (isCountingOnlyDistinct())
+            return super.createGroupAggregator(numberOfGroups);
+        return new CountGroupAggregator(this, numberOfGroups);
+    }
+
     @Override
     public boolean isCompatible() {
         return true;
@@ -0,0 +1,70 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2011 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.operator.preprocessing.transformation.aggregation;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.Example;
+import com.rapidminer.example.table.DataRow;
+
+/**
+ * This {@link GroupAggregator} creates one {@link Aggregator} per group using
+ * {@link AggregationFunction#createAggregator()}. It is used for all functions which
+ * do not provide a more efficient implementation.
+ * 
+ * @author Sebastian Land
+ */
+public class DefaultGroupAggregator implements GroupAggregator {
+
+    private final AggregationFunction function;
+
+    private final Aggregator[] aggregators;
+
+    public DefaultGroupAggregator(AggregationFunction function, int numberOfGroups) {
+        this.function = function;
+        this.aggregators = new Aggregator[numberOfGroups];
+    }
+
+    @Override
+    public void count(int group, Example example) {
+        getAggregator(group).count(example);
+    }
+
+    @Override
+    public void count(int group, Example example, double weight) {
+        getAggregator(group).count(example, weight);
+    }
+
+    @Override
+    public void set(int group, Attribute attribute, DataRow row) {
+        getAggregator(group).set(attribute, row);
+    }
+
+    private Aggregator getAggregator(int group) {
+        Aggregator aggregator = aggregators[group];
+        if (aggregator == null) {
+            aggregator = function.createAggregator();
+            aggregators[group] = aggregator;
+        }
+        return aggregator;
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2011 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.operator.preprocessing.transformation.aggregation;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.Example;
+import com.rapidminer.example.table.DataRow;
+
+/**
+ * A {@link GroupAggregator} computes the value of an {@link AggregationFunction} for all
+ * groups at once. The groups are identified by consecutive numbers starting with 0, so
+ * implementations can keep their state in arrays instead of one {@link Aggregator} object per group.
+ * 
+ * Implementations which can be used for parts of the examples in parallel should implement
+ * {@link MergeableGroupAggregator}.
+ * 
+ * @author Sebastian Land
+ */
+public interface GroupAggregator {
+
+    /**
+     * This will count the given example to the given group.
+     */
+    public void count(int group, Example example);
+
+    /**
+     * This does the same as {@link #count(int, Example)}, but will take the weight of
+     * the current example into account.
+     */
+    public void count(int group, Example example, double weight);
+
+    /**
+     * This will set the result value of the given group into the data row onto the position of the given attribute.
+     */
+    public void set(int group, Attribute attribute, DataRow row);
+}
@@ -47,6 +47,13 @@ public class MaxAggregationFunction extends NumericalAggregationFunction {
     public Aggregator createAggregator() {
         return new MaxAggregator(this);
     }
+
+    @Override
+    public GroupAggregator createGroupAggregator(int numberOfGroups) {
+        if (isCountingOnlyDistinct())
+            return super.createGroupAggregator(numberOfGroups);
+        return new MaxGroupAggregator(this, numberOfGroups);
+    }
     
 	@Override
 	protected int getTargetValueType(int sourceValueType) {
@@ -0,0 +1,72 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2011 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.operator.preprocessing.transformation.aggregation;
+
+import java.util.Arrays;
+
+/**
+ * This is a {@link GroupAggregator} for the {@link MaxAggregationFunction}
+ * 
+ * @author Sebastian Land
+ */
+public class MaxGroupAggregator extends NumericalGroupAggregator {
+
+    private final double[] maxs;
+    private final boolean[] hasValue;
+
+    public MaxGroupAggregator(AggregationFunction function, int numberOfGroups) {
+        super(function, numberOfGroups);
+        maxs = new double[numberOfGroups];
+        Arrays.fill(maxs, Double.NEGATIVE_INFINITY);
+        hasValue = new boolean[numberOfGroups];
+    }
+
+    @Override
+    protected void count(int group, double value, double weight) {
+        hasValue[group] = true;
+        if (maxs[group] < value) {
+            maxs[group] = value;
+        }
+    }
+
+    @Override
+    protected void mergeValues(NumericalGroupAggregator aggregator) {
+        MaxGroupAggregator other = (MaxGroupAggregator) aggregator;
+        for (int group = 0; group < maxs.length; group++) {
+            if (other.hasValue[group]) {
+                hasValue[group] = true;
+                if (maxs[group] < other.maxs[group]) {
+                    maxs[group] = other.maxs[group];
+                }
+            }
+        }
+    }
+
+    @Override
+    protected double getValue(int group) {
+        if (hasValue[group])
+            return maxs[group];
+        else
+            return Double.NaN;
+    }
+}
@@ -47,6 +47,13 @@ public class MeanAggregationFunction extends NumericalAggregationFunction {
     public Aggregator createAggregator() {
         return new MeanAggregator(this);
     }
+
+    @Override
+    public GroupAggregator createGroupAggregator(int numberOfGroups) {
+        if (isCountingOnlyDistinct())
+            return super.createGroupAggregator(numberOfGroups);
+        return new MeanGroupAggregator(this, numberOfGroups);
+    }
     
 	@Override
 	protected int getTargetValueType(int sourceValueType) {
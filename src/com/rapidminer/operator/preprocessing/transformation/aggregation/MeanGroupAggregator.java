@@ -0,0 +1,60 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2011 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.operator.preprocessing.transformation.aggregation;
+
+/**
+ * This is a {@link GroupAggregator} for the {@link MeanAggregationFunction}
+ * 
+ * @author Sebastian Land
+ */
+public class MeanGroupAggregator extends NumericalGroupAggregator {
+
+    private final double[] sums;
+    private final double[] totalWeights;
+
+    public MeanGroupAggregator(AggregationFunction function, int numberOfGroups) {
+        super(function, numberOfGroups);
+        sums = new double[numberOfGroups];
+        totalWeights = new double[numberOfGroups];
+    }
+
+    @Override
+    protected void count(int group, double value, double weight) {
+        sums[group] += value * weight;
+        totalWeights[group] += weight;
+    }
+
+    @Override
+    protected void mergeValues(NumericalGroupAggregator aggregator) {
+        MeanGroupAggregator other = (MeanGroupAggregator) aggregator;
+        for (int group = 0; group < sums.length; group++) {
+            sums[group] += other.sums[group];
+            totalWeights[group] += other.totalWeights[group];
+        }
+    }
+
+    @Override
+    protected double getValue(int group) {
+        return sums[group] / totalWeights[group];
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2011 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.operator.preprocessing.transformation.aggregation;
+
+/**
+ * A {@link GroupAggregator} whose counts can be calculated independently for disjoint parts of
+ * the examples and combined afterwards. This allows to aggregate large example sets in parallel.
+ * 
+ * @author Sebastian Land
+ */
+public interface MergeableGroupAggregator extends GroupAggregator {
+
+    /**
+     * Adds the values counted by the given aggregator to this one. The given aggregator is of the
+     * same class and was created by the same {@link AggregationFunction} for the same number of groups.
+     * Its values are treated as if they were counted after the values of this aggregator, hence merging
+     * the aggregators of consecutive parts of the examples in their order delivers the same results
+     * as counting all examples at once (apart from rounding errors).
+     */
+    public void merge(GroupAggregator aggregator);
+}
@@ -47,6 +47,13 @@ public class MinAggregationFunction extends NumericalAggregationFunction {
     public Aggregator createAggregator() {
         return new MinAggregator(this);
     }
+
+    @Override
+    public GroupAggregator createGroupAggregator(int numberOfGroups) {
+        if (isCountingOnlyDistinct())
+            return super.createGroupAggregator(numberOfGroups);
+        return new MinGroupAggregator(this, numberOfGroups);
+    }
     
 	@Override
 	protected int getTargetValueType(int sourceValueType) {
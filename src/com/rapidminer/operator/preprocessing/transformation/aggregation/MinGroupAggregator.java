@@ -0,0 +1,72 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2011 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.operator.preprocessing.transformation.aggregation;
+
+import java.util.Arrays;
+
+/**
+ * This is a {@link GroupAggregator} for the {@link MinAggregationFunction}
+ * 
+ * @author Sebastian Land
+ */
+public class MinGroupAggregator extends NumericalGroupAggregator {
+
+    private final double[] mins;
+    private final boolean[] hasValue;
+
+    public MinGroupAggregator(AggregationFunction function, int numberOfGroups) {
+        super(function, numberOfGroups);
+        mins = new double[numberOfGroups];
+        Arrays.fill(mins, Double.POSITIVE_INFINITY);
+        hasValue = new boolean[numberOfGroups];
+    }
+
+    @Override
+    protected void count(int group, double value, double weight) {
+        hasValue[group] = true;
+        if (mins[group] > value) {
+            mins[group] = value;
+        }
+    }
+
+    @Override
+    protected void mergeValues(NumericalGroupAggregator aggregator) {
+        MinGroupAggregator other = (MinGroupAggregator) aggregator;
+        for (int group = 0; group < mins.length; group++) {
+            if (other.hasValue[group]) {
+                hasValue[group] = true;
+                if (mins[group] > other.mins[group]) {
+                    mins[group] = other.mins[group];
+                }
+            }
+        }
+    }
+
+    @Override
+    protected double getValue(int group) {
+        if (hasValue[group])
+            return mins[group];
+        else
+            return Double.NaN;
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2011 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.operator.preprocessing.transformation.aggregation;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.Example;
+import com.rapidminer.example.table.DataRow;
+
+/**
+ * This is the {@link GroupAggregator} counterpart of the {@link NumericalAggregator}. It takes over
+ * the handling of missing values, while subclasses keep their state in arrays indexed by the group.
+ * Counting only distinct values is not supported, since this would need a set of values per group.
+ * 
+ * Since the weight of unweighted examples is 1 and multiplying with 1 is exact, subclasses only
+ * need to implement the weighted case while delivering the same results as the respective {@link NumericalAggregator}.
+ * 
+ * @author Sebastian Land
+ */
+public abstract class NumericalGroupAggregator implements MergeableGroupAggregator {
+
+    private final Attribute sourceAttribute;
+    private final boolean ignoreMissings;
+    private final boolean[] isMissing;
+
+    public NumericalGroupAggregator(AggregationFunction function, int numberOfGroups) {
+        this.sourceAttribute = function.getSourceAttribute();
+        this.ignoreMissings = function.isIgnoringMissings();
+        this.isMissing = new boolean[numberOfGroups];
+    }
+
+    @Override
+    public final void count(int group, Example example) {
+        count(group, example, 1d);
+    }
+
+    @Override
+    public final void count(int group, Example example, double weight) {
+        // check whether we have to count at all
+        if (!isMissing[group] || ignoreMissings) {
+            double value = example.getValue(sourceAttribute);
+            if (Double.isNaN(value)) {
+                isMissing[group] = true;
+            } else {
+                count(group, value, weight);
+            }
+        }
+    }
+
+    /**
+     * This method will count the given numerical value for the given group. It will not be called
+     * for missing values.
+     */
+    protected abstract void count(int group, double value, double weight);
+
+    @Override
+    public final void merge(GroupAggregator aggregator) {
+        NumericalGroupAggregator other = (NumericalGroupAggregator) aggregator;
+        for (int group = 0; group < isMissing.length; group++) {
+            isMissing[group] |= other.isMissing[group];
+        }
+        mergeValues(other);
+    }
+
+    /**
+     * This method has to add the numerical values counted by the given aggregator of the same class
+     * to the ones of this aggregator.
+     */
+    protected abstract void mergeValues(NumericalGroupAggregator aggregator);
+
+    @Override
+    public final void set(int group, Attribute attribute, DataRow row) {
+        if (isMissing[group] && !ignoreMissings)
+            row.set(attribute, Double.NaN);
+        else
+            row.set(attribute, getValue(group));
+    }
+
+    /**
+     * This method has to return the numerical value of the given group.
+     */
+    protected abstract double getValue(int group);
+}
@@ -47,6 +47,13 @@ public class StandardDeviationAggregationFunction extends NumericalAggregationFu
     public Aggregator createAggregator() {
         return new StandardDeviationAggregator(this);
     }
+
+    @Override
+    public GroupAggregator createGroupAggregator(int numberOfGroups) {
+        if (isCountingOnlyDistinct())
+            return super.createGroupAggregator(numberOfGroups);
+        return new VarianceGroupAggregator(this, numberOfGroups, true);
+    }
     
 	@Override
 	protected int getTargetValueType(int sourceValueType) {
@@ -48,6 +48,13 @@ public class SumAggregationFunction extends NumericalAggregationFunction {
         return new SumAggregator(this);
     }
 
+    @Override
+    public GroupAggregator createGroupAggregator(int numberOfGroups) {
+        if (isCountingOnlyDistinct())
+            return super.createGroupAggregator(numberOfGroups);
+        return new SumGroupAggregator(this, numberOfGroups);
+    }
+
     @Override
     public void setDefault(Attribute attribute, DoubleArrayDataRow row) {
         row.set(attribute, 0);
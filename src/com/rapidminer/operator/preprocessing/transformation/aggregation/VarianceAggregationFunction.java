@@ -47,6 +47,13 @@ public class VarianceAggregationFunction extends NumericalAggregationFunction {
     public Aggregator createAggregator() {
         return new VarianceAggregator(this);
     }
+
+    @Override
+    public GroupAggregator createGroupAggregator(int numberOfGroups) {
+        if (isCountingOnlyDistinct())
+            return super.createGroupAggregator(numberOfGroups);
+        return new VarianceGroupAggregator(this, numberOfGroups, false);
+    }
     
 	@Override
 	protected int getTargetValueType(int sourceValueType) {
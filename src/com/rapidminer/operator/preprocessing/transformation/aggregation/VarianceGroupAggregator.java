@@ -0,0 +1,82 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2011 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.operator.preprocessing.transformation.aggregation;
+
+/**
+ * This is a {@link GroupAggregator} for the {@link VarianceAggregationFunction} and
+ * the {@link StandardDeviationAggregationFunction}.
+ * 
+ * @author Sebastian Land
+ */
+public class VarianceGroupAggregator extends NumericalGroupAggregator {
+
+    private final double[] valueSums;
+    private final double[] squaredValueSums;
+    private final double[] totalWeightSums;
+    private final double[] counts;
+    private final boolean isStandardDeviation;
+
+    public VarianceGroupAggregator(AggregationFunction function, int numberOfGroups, boolean isStandardDeviation) {
+        super(function, numberOfGroups);
+        this.isStandardDeviation = isStandardDeviation;
+        valueSums = new double[numberOfGroups];
+        squaredValueSums = new double[numberOfGroups];
+        totalWeightSums = new double[numberOfGroups];
+        counts = new double[numberOfGroups];
+    }
+
+    @Override
+    protected void count(int group, double value, double weight) {
+        valueSums[group] += weight * value;
+        squaredValueSums[group] += weight * value * value;
+        totalWeightSums[group] += weight;
+        counts[group]++;
+    }
+
+    @Override
+    protected void mergeValues(NumericalGroupAggregator aggregator) {
+        VarianceGroupAggregator other = (VarianceGroupAggregator) aggregator;
+        for (int group = 0; group < counts.length; group++) {
+            valueSums[group] += other.valueSums[group];
+            squaredValueSums[group] += other.squaredValueSums[group];
+            totalWeightSums[group] += other.totalWeightSums[group];
+            counts[group] += other.counts[group];
+        }
+    }
+
+    @Override
+    protected double getValue(int group) {
+        double count = counts[group];
+        if (count > 0) {
+            double totalWeightSum = totalWeightSums[group];
+            double variance = (squaredValueSums[group] - valueSums[group] * valueSums[group] / totalWeightSum) / ((count - 1) / count * totalWeightSum);
+            if (isStandardDeviation) {
+                if (variance > 0d)
+                    return Math.sqrt(variance);
+                return 0d;
+            }
+            return variance;
+        } else
+            return Double.NaN;
+    }
+}
@@ -0,0 +1,272 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2011 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.operator.tools;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.AttributeRole;
+import com.rapidminer.example.Example;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.table.ColumnarExampleTable;
+import com.rapidminer.example.table.SparseDataRow;
+import com.rapidminer.operator.tools.ExampleSetToStream.ColumnType;
+import com.rapidminer.operator.tools.ExampleSetToStream.Header;
+
+/** Writes and reads dense example sets to and from streams using a column blocked layout with
+ *  fixed width values. In contrast to {@link ExampleSetToStream}, the data of a file in this
+ *  format can be memory mapped by {@link #read(FileChannel, long)} instead of being copied
+ *  onto the heap. The format is:
+ *
+ *  - the length of the header in bytes (int)
+ *  - the header as written by {@link ExampleSetToStream#writeHeader(com.rapidminer.operator.Annotations, List, DataOutputStream, boolean)}
+ *    using {@link ExampleSetToStream#VERSION_3}, always non-sparse
+ *  - the number of examples (int) and the number of examples per block (int)
+ *  - the blocks. Each block contains the values of its examples column after column. Nominal values
+ *    are stored with one, two, or four bytes depending on the {@link ColumnType} where -1 encodes
+ *    missing values. All other values are stored as doubles.
+ *
+ *  Blocks are limited to {@link #BLOCK_SIZE} bytes (unless a single example is larger) such that
+ *  each block can be mapped by a single buffer and only one block must be kept in memory while writing.
+ *
+ * @author Simon Fischer
+ *
+ */
+public class ExampleSetToColumnBlocks {
+
+	/** The maximal number of bytes of a block. */
+	public static final int BLOCK_SIZE = 1 << 23;
+
+	private final ExampleSetToStream headerStream = new ExampleSetToStream(ExampleSetToStream.VERSION_3);
+
+	/** Returns true if the example set can be written without loss, i.e. if it is not sparse. */
+	public static boolean isApplicable(ExampleSet exampleSet) {
+		// same check as in ExampleSetToStream
+		return !((exampleSet.size() > 0) && (exampleSet.getExample(0).getDataRow() instanceof SparseDataRow));
+	}
+
+	/** Writes header and data of the example set to the stream. */
+	public void write(ExampleSet exampleSet, OutputStream outputStream) throws IOException {
+		DataOutputStream out = new DataOutputStream(outputStream);
+		List<AttributeRole> allRoles = new LinkedList<AttributeRole>();
+		Iterator<AttributeRole> r = exampleSet.getAttributes().allAttributeRoles();
+		while (r.hasNext()) {
+			allRoles.add(r.next());
+		}
+		ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+		DataOutputStream headerOut = new DataOutputStream(headerBytes);
+		headerStream.writeHeader(exampleSet.getAnnotations(), allRoles, headerOut, false);
+		headerOut.flush();
+		out.writeInt(headerBytes.size());
+		headerBytes.writeTo(out);
+
+		Attribute[] attributes = new Attribute[allRoles.size()];
+		int i = 0;
+		for (AttributeRole role : allRoles) {
+			attributes[i++] = role.getAttribute();
+		}
+		int[] bytesPerValue = getBytesPerValue(headerStream.convertToColumnTypes(allRoles));
+		int[] columnOffsets = new int[bytesPerValue.length];
+		int rowWidth = 0;
+		for (int column = 0; column < bytesPerValue.length; column++) {
+			columnOffsets[column] = rowWidth;
+			rowWidth += bytesPerValue[column];
+		}
+		int size = exampleSet.size();
+		int rowsPerBlock = getRowsPerBlock(rowWidth);
+		out.writeInt(size);
+		out.writeInt(rowsPerBlock);
+
+		ByteBuffer block = ByteBuffer.allocate(Math.min(size, rowsPerBlock) * rowWidth);
+		Iterator<Example> examples = exampleSet.iterator();
+		for (int firstRow = 0; firstRow < size; firstRow += rowsPerBlock) {
+			int rowsInBlock = Math.min(rowsPerBlock, size - firstRow);
+			for (int row = 0; row < rowsInBlock; row++) {
+				Example example = examples.next();
+				for (int column = 0; column < attributes.length; column++) {
+					double value = example.getValue(attributes[column]);
+					int position = rowsInBlock * columnOffsets[column] + row * bytesPerValue[column];
+					switch (bytesPerValue[column]) {
+					case 1:
+						block.put(position, Double.isNaN(value) ? (byte) -1 : (byte) value);
+						break;
+					case 2:
+						block.putShort(position, Double.isNaN(value) ? (short) -1 : (short) value);
+						break;
+					case 4:
+						block.putInt(position, Double.isNaN(value) ? -1 : (int) value);
+						break;
+					default:
+						block.putDouble(position, value);
+					}
+				}
+			}
+			out.write(block.array(), 0, rowsInBlock * rowWidth);
+		}
+		out.flush();
+	}
+
+	/** Reads an example set as written by {@link #write(ExampleSet, OutputStream)} into memory.
+	 *  The blocks are kept as they are and back the columns of the example table. */
+	public ExampleSet read(InputStream inputStream) throws IOException {
+		DataInputStream in = new DataInputStream(inputStream);
+		Header header = readHeader(in);
+		int[] bytesPerValue = getBytesPerValue(headerStream.convertToColumnTypes(header.getAllRoles()));
+		int rowWidth = 0;
+		for (int width : bytesPerValue) {
+			rowWidth += width;
+		}
+		int size = in.readInt();
+		int rowsPerBlock = in.readInt();
+		List<ByteBuffer> blocks = new ArrayList<ByteBuffer>();
+		for (int firstRow = 0; firstRow < size; firstRow += rowsPerBlock) {
+			byte[] block = new byte[Math.min(rowsPerBlock, size - firstRow) * rowWidth];
+			in.readFully(block);
+			blocks.add(ByteBuffer.wrap(block));
+		}
+		ColumnarExampleTable table = createTable(header, size, blocks.toArray(new ByteBuffer[blocks.size()]), rowsPerBlock, bytesPerValue);
+		return createExampleSet(header, table);
+	}
+
+	/** Reads an example set as written by {@link #write(ExampleSet, OutputStream)} starting at the
+	 *  given position of the file channel. The data is memory mapped, i.e. it is paged in by the
+	 *  operating system on access and not copied onto the heap until values are modified. The
+	 *  channel might be closed afterwards. */
+	public ExampleSet read(FileChannel channel, long position) throws IOException {
+		channel.position(position);
+		DataInputStream in = new DataInputStream(new ChannelInputStream(channel));
+		Header header = readHeader(in);
+		int[] bytesPerValue = getBytesPerValue(headerStream.convertToColumnTypes(header.getAllRoles()));
+		int rowWidth = 0;
+		for (int width : bytesPerValue) {
+			rowWidth += width;
+		}
+		int size = in.readInt();
+		int rowsPerBlock = in.readInt();
+		long blockPosition = channel.position();
+		List<ByteBuffer> blocks = new ArrayList<ByteBuffer>();
+		for (int firstRow = 0; firstRow < size; firstRow += rowsPerBlock) {
+			long blockLength = (long) Math.min(rowsPerBlock, size - firstRow) * rowWidth;
+			if (blockPosition + blockLength > channel.size()) {
+				throw new IOException("Unexpected end of file.");
+			}
+			// the table never writes to the buffers but copies modified columns onto the heap
+			blocks.add(channel.map(FileChannel.MapMode.READ_ONLY, blockPosition, blockLength));
+			blockPosition += blockLength;
+		}
+		ColumnarExampleTable table = createTable(header, size, blocks.toArray(new ByteBuffer[blocks.size()]), rowsPerBlock, bytesPerValue);
+		return createExampleSet(header, table);
+	}
+
+	private Header readHeader(DataInputStream in) throws IOException {
+		byte[] headerBytes = new byte[in.readInt()];
+		in.readFully(headerBytes);
+		return headerStream.readHeader(new DataInputStream(new ByteArrayInputStream(headerBytes)));
+	}
+
+	private ColumnarExampleTable createTable(Header header, int size, ByteBuffer[] blocks, int rowsPerBlock, int[] bytesPerValue) {
+		return new ColumnarExampleTable(getAttributes(header), size, blocks, rowsPerBlock, bytesPerValue);
+	}
+
+	private List<Attribute> getAttributes(Header header) {
+		List<Attribute> attributes = new ArrayList<Attribute>();
+		for (AttributeRole role : header.getAllRoles()) {
+			attributes.add(role.getAttribute());
+		}
+		return attributes;
+	}
+
+	private ExampleSet createExampleSet(Header header, ColumnarExampleTable table) {
+		ExampleSet exampleSet = table.createExampleSet();
+		for (AttributeRole role : header.getAllRoles()) {
+			if (role.isSpecial()) {
+				Attribute att = exampleSet.getAttributes().get(role.getAttribute().getName());
+				exampleSet.getAttributes().getRole(att).setSpecial(role.getSpecialName());
+			}
+		}
+		exampleSet.getAnnotations().putAll(header.getAnnotations());
+		return exampleSet;
+	}
+
+	/** Returns the number of bytes used for the values of each column. */
+	private static int[] getBytesPerValue(ColumnType[] columnTypes) {
+		int[] bytesPerValue = new int[columnTypes.length];
+		for (int i = 0; i < columnTypes.length; i++) {
+			switch (columnTypes[i]) {
+			case NOMINAL_BYTE:
+				bytesPerValue[i] = 1;
+				break;
+			case NOMINAL_SHORT:
+				bytesPerValue[i] = 2;
+				break;
+			case NOMINAL_INTEGER:
+				bytesPerValue[i] = 4;
+				break;
+			default:
+				bytesPerValue[i] = 8;
+			}
+		}
+		return bytesPerValue;
+	}
+
+	private static int getRowsPerBlock(int rowWidth) {
+		return Math.max(1, BLOCK_SIZE / Math.max(1, rowWidth));
+	}
+
+	/** Reads from the current position of the channel without buffering, such that the
+	 *  position of the channel always corresponds to the bytes read so far. */
+	private static class ChannelInputStream extends InputStream {
+
+		private final FileChannel channel;
+
+		private ChannelInputStream(FileChannel channel) {
+			this.channel = channel;
+		}
+
+		@Override
+		public int read() throws IOException {
+			byte[] single = new byte[1];
+			return read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (len == 0) {
+				return 0;
+			}
+			return channel.read(ByteBuffer.wrap(b, off, len));
+		}
+	}
+}
@@ -107,7 +107,10 @@ public enum SerializationType {
 	
 	STREAMED_EXAMPLE_SET_DENSE_2(new StreamedExampleSetBodySerializer(ExampleSetToStream.VERSION_2)),
 	
-	STREAMED_EXAMPLE_SET_DENSE_3(new StreamedExampleSetBodySerializer(ExampleSetToStream.VERSION_3));
+	STREAMED_EXAMPLE_SET_DENSE_3(new StreamedExampleSetBodySerializer(ExampleSetToStream.VERSION_3)),
+	
+	/** Column blocked layout with fixed width values which can be memory mapped, see {@link ExampleSetToColumnBlocks}. */
+	EXAMPLE_SET_COLUMN_BLOCKS(new ColumnBlockedExampleSetBodySerializer());
 	
 	public static SerializationType STREAMED_EXAMPLE_SET_DENSE_CURRENT_VERSION = STREAMED_EXAMPLE_SET_DENSE_3; 
 	
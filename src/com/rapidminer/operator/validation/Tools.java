@@ -130,6 +130,13 @@ public class Tools {
 	 *  Null inputs are ignored. */
 	public static void buildAverages(InputPort inputPort, OutputPort outputPort) throws OperatorException {
 		AverageVector performance = inputPort.getDataOrNull();
+		buildAverages(performance, outputPort);
+	}
+
+	/* Copies the given AverageVector to the output if the output is still null
+	 *  or builds the average with the vector of the output port otherwise. 
+	 *  Null vectors are ignored. */
+	public static void buildAverages(AverageVector performance, OutputPort outputPort) throws OperatorException {
 		if (performance == null) {
 			return;
 		}
@@ -22,6 +22,7 @@
  */
 package com.rapidminer.operator.validation;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import com.rapidminer.example.Attribute;
@@ -333,6 +334,33 @@ public abstract class ValidationChain extends OperatorChain implements Capabilit
         }
     }
 
+    /**
+     * Returns the averagable results of this operator in the order of the
+     * averagable ports. The list contains null for unconnected ports. This can be
+     * used to collect the results of clones executed in parallel.
+     */
+    protected List<AverageVector> getAveragableResults() throws OperatorException {
+        List<AverageVector> results = new ArrayList<AverageVector>();
+        for (PortPairExtender.PortPair pair : applyProcessPerformancePortExtender.getManagedPairs()) {
+            results.add(pair.getOutputPort().<AverageVector>getDataOrNull());
+        }
+        return results;
+    }
+
+    /**
+     * Builds the averages of the given results, as delivered by {@link #getAveragableResults()}
+     * of a clone of this operator, with the results of this operator.
+     */
+    protected void addAveragableResults(List<AverageVector> results) throws OperatorException {
+        int i = 0;
+        for (PortPairExtender.PortPair pair : applyProcessPerformancePortExtender.getManagedPairs()) {
+            if (i < results.size()) {
+                Tools.buildAverages(results.get(i), pair.getOutputPort());
+            }
+            i++;
+        }
+    }
+
     @Override
     public List<ParameterType> getParameterTypes() {
         List<ParameterType> types = super.getParameterTypes();
@@ -22,6 +22,7 @@
  */
 package com.rapidminer.operator.validation;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import com.rapidminer.example.ExampleSet;
@@ -32,6 +33,8 @@ import com.rapidminer.operator.OperatorException;
 import com.rapidminer.operator.OperatorVersion;
 import com.rapidminer.operator.ProcessStoppedException;
 import com.rapidminer.operator.ValueDouble;
+import com.rapidminer.operator.learner.meta.AbstractMetaLearner;
+import com.rapidminer.operator.ports.Port;
 import com.rapidminer.operator.ports.metadata.AttributeMetaData;
 import com.rapidminer.operator.ports.metadata.CapabilityPrecondition;
 import com.rapidminer.operator.ports.metadata.MDInteger;
@@ -46,7 +49,9 @@ import com.rapidminer.parameter.ParameterTypeInt;
 import com.rapidminer.parameter.UndefinedParameterError;
 import com.rapidminer.parameter.conditions.BooleanParameterCondition;
 import com.rapidminer.parameter.conditions.EqualTypeCondition;
+import com.rapidminer.tools.OperatorClonePool;
 import com.rapidminer.tools.RandomGenerator;
+import com.rapidminer.tools.math.AverageVector;
 
 /**
  * <p>
@@ -83,6 +88,17 @@ import com.rapidminer.tools.RandomGenerator;
  * <li>for the main criterion, also the variance and the standard deviation can be accessed where applicable.</li>
  * </ul>
  * 
+ * <p>
+ * If <var>parallelize_folds</var> is checked, the folds are evaluated in parallel on clones of the training and testing
+ * subprocesses. The number of threads is defined by the global property
+ * {@link com.rapidminer.RapidMiner#PROPERTY_RAPIDMINER_GENERAL_NUMBER_OF_THREADS}. Each fold uses its own random generator
+ * instead of the global one, whose seed is drawn from the global random generator in the order of the folds. The results
+ * are merged in the order of the folds, hence the averages do not depend on the number of threads. They are the same as
+ * for the sequential evaluation only if the inner operators do not use the global random generator.
+ * The folds are evaluated sequentially if the inner operators contain a log operator or might add an unknown number of
+ * attributes to the example table (see {@link OperatorClonePool}).
+ * </p>
+ * 
  * @rapidminer.index cross-validation
  * @author Ingo Mierswa
  */
@@ -108,6 +124,11 @@ public class XValidation extends ValidationChain {
      */
     public static final String PARAMETER_AVERAGE_PERFORMANCES_ONLY = "average_performances_only";
 
+    /**
+     * The parameter name for &quot;Indicates if the folds should be evaluated in parallel on clones of the inner processes.&quot;
+     */
+    public static final String PARAMETER_PARALLELIZE_FOLDS = "parallelize_folds";
+
     private int iteration;
 
     public XValidation(OperatorDescription description) {
@@ -147,13 +168,54 @@ public class XValidation extends ValidationChain {
         SplittedExampleSet splittedES = new SplittedExampleSet(inputSet, number, samplingType, getParameterAsBoolean(RandomGenerator.PARAMETER_USE_LOCAL_RANDOM_SEED), getParameterAsInt(RandomGenerator.PARAMETER_LOCAL_RANDOM_SEED), getCompatibilityLevel().isAtMost(SplittedExampleSet.VERSION_SAMPLING_CHANGED));
 
         // start crossvalidation
-        for (iteration = 0; iteration < number; iteration++) {
-            performIteration(splittedES, iteration);
+        OperatorClonePool<XValidation> clonePool = null;
+        if (getParameterAsBoolean(PARAMETER_PARALLELIZE_FOLDS) && !OperatorClonePool.containsEnabledInnerOperator(this, ProcessLogOperator.class)) {
+            // the values logged in the folds depend on their order, so folds containing log operators are evaluated sequentially
+            clonePool = new OperatorClonePool<XValidation>(this, splittedES, false);
+        }
+        if (clonePool != null && clonePool.isParallel()) {
+            performIterationsInParallel(splittedES, number, clonePool);
+        } else {
+            for (iteration = 0; iteration < number; iteration++) {
+                performIteration(splittedES, iteration);
+            }
         }
 
         // end crossvalidation
     }
 
+    /**
+     * Evaluates all folds on the clones of the given pool, each with its own random generator.
+     * The averagable results of the folds are merged in the order of the folds afterwards.
+     */
+    private void performIterationsInParallel(final SplittedExampleSet splittedES, int number, OperatorClonePool<XValidation> clonePool) throws OperatorException {
+        List<OperatorClonePool.CloneTask<XValidation, List<AverageVector>>> tasks = new ArrayList<OperatorClonePool.CloneTask<XValidation, List<AverageVector>>>(number);
+        for (int i = 0; i < number; i++) {
+            final int fold = i;
+            tasks.add(new OperatorClonePool.CloneTask<XValidation, List<AverageVector>>() {
+                @Override
+                public List<AverageVector> call(XValidation clone) throws OperatorException {
+                    // the clone builds the averages in its output ports which might contain the results of a former fold
+                    clone.getOutputPorts().clear(Port.CLEAR_DATA);
+                    SplittedExampleSet trainingSet = new SplittedExampleSet(splittedES);
+                    trainingSet.selectAllSubsetsBut(fold);
+                    clone.learn(trainingSet);
+
+                    SplittedExampleSet testSet = new SplittedExampleSet(splittedES);
+                    testSet.selectSingleSubset(fold);
+                    clone.evaluate(testSet);
+                    return clone.getAveragableResults();
+                }
+            });
+        }
+        List<List<AverageVector>> foldResults = clonePool.execute(tasks, AbstractMetaLearner.createMemberRandomGenerators(RandomGenerator.getGlobalRandomGenerator(), number));
+
+        for (iteration = 0; iteration < number; iteration++) {
+            addAveragableResults(foldResults.get(iteration));
+            inApplyLoop();
+        }
+    }
+
     protected void performIteration(SplittedExampleSet splittedES, int iteration) throws OperatorException, ProcessStoppedException {
         splittedES.selectAllSubsetsBut(iteration);
         learn(splittedES);
@@ -187,6 +249,7 @@ public class XValidation extends ValidationChain {
         List<ParameterType> types = super.getParameterTypes();
         types.add(new ParameterTypeBoolean(PARAMETER_AVERAGE_PERFORMANCES_ONLY, "Indicates if only performance vectors should be averaged or all types of averagable result vectors", true));
         types.add(new ParameterTypeBoolean(PARAMETER_LEAVE_ONE_OUT, "Set the number of validations to the number of examples. If set to true, number_of_validations is ignored", false, false));
+        types.add(new ParameterTypeBoolean(PARAMETER_PARALLELIZE_FOLDS, "Indicates if the folds should be evaluated in parallel on clones of the inner processes. The number of threads is defined by the global settings.", false, true));
 
         ParameterType type = new ParameterTypeInt(PARAMETER_NUMBER_OF_VALIDATIONS, "Number of subsets for the crossvalidation.", 2, Integer.MAX_VALUE, 10);
         type.registerDependencyCondition(new BooleanParameterCondition(this, PARAMETER_LEAVE_ONE_OUT, false, false));
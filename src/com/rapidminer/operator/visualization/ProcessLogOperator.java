@@ -115,8 +115,9 @@ public class ProcessLogOperator extends Operator {
 		getTransformer().addRule(dummyPorts.makePassThroughRule());
 	}
 
-	private double fetchValue(OperatorValueSelection selection, int column) throws UndefinedParameterError {
-		Operator operator = lookupOperator(selection.getOperator());
+	/** Fetches the selected value of the operator with the given name as seen by the given process log operator. */
+	private double fetchValue(OperatorValueSelection selection, int column, ProcessLogOperator source) throws UndefinedParameterError {
+		Operator operator = source.lookupOperator(selection.getOperator());
 		if (operator != null) {
 			if (selection.isValue()) {
 				Value value = operator.getValue(selection.getValueName());
@@ -186,25 +187,48 @@ public class ProcessLogOperator extends Operator {
 
 	@Override
 	public void doWork() throws OperatorException {
+		if (getProcess() == null || isParallelExecutionClone()) {
+			// clones used for parallel execution leave the logging to the original operator
+			dummyPorts.passDataThrough();
+			return;
+		}
 		SimpleDataTable dataTable = (SimpleDataTable) getProcess().getDataTable(getName());
 		if (dataTable == null) {
 			createDataTable();
 		}
 
-		DataTableRow row = fetchAllValues();
+		DataTableRow row = fetchAllValues(this);
 		if (getParameterAsInt(PARAMETER_SORTING_TYPE) == SORTING_TYPE_NONE && getParameterAsBoolean(PARAMETER_PERSISTENT)) {
-			writeOnline(row);
+			writeOnline(row, getApplyCount() == 1);
 		}
 
 		dummyPorts.passDataThrough();
 	}
 
-	private void writeOnline(DataTableRow row) throws UserError {
+	/**
+	 * Logs the values of the operators as seen by the given process log operator into the data table of this
+	 * operator. This is used for clones of this operator which were executed in parallel and do not log, e.g. by an
+	 * operator evaluating several clones of its subprocess in parallel. The values are looked up in the
+	 * subprocess of the given clone, so they must not have changed since it was executed.
+	 */
+	public void logValues(ProcessLogOperator clone) throws OperatorException {
+		SimpleDataTable dataTable = (SimpleDataTable) getProcess().getDataTable(getName());
+		if (dataTable == null) {
+			createDataTable();
+		}
+
+		DataTableRow row = fetchAllValues(clone);
+		if (getParameterAsInt(PARAMETER_SORTING_TYPE) == SORTING_TYPE_NONE && getParameterAsBoolean(PARAMETER_PERSISTENT)) {
+			writeOnline(row, getProcess().getDataTable(getName()).getNumberOfRows() == 1);
+		}
+	}
+
+	private void writeOnline(DataTableRow row, boolean firstRow) throws UserError {
 		DataTable table = getProcess().getDataTable(getName());
 		File outputFile = getParameterAsFile(PARAMETER_FILENAME, true);
 		try {
-			// writing header if file does not exist or applyCount is 1 and file exists and has to be overwritten
-			if (!outputFile.exists() || getApplyCount() == 1) {
+			// writing header if file does not exist or this is the first row and file exists and has to be overwritten
+			if (!outputFile.exists() || firstRow) {
 				PrintWriter out = new PrintWriter(new FileWriter(outputFile));
 				out.println("# Generated by " + getName() + "[" + getClass().getName() + "]");
 				for (int j = 0; j < table.getNumberOfColumns(); j++) {
@@ -225,12 +249,12 @@ public class ProcessLogOperator extends Operator {
 		}
 	}
 
-	private DataTableRow fetchAllValues() throws UndefinedParameterError {
+	private DataTableRow fetchAllValues(ProcessLogOperator source) throws UndefinedParameterError {
 		Collection<OperatorValueSelection> valueDescriptions = getValueDescriptions();
 		double[] row = new double[valueDescriptions.size()];
 		int i = 0;
 		for (OperatorValueSelection selection: valueDescriptions) {
-			row[i] = fetchValue(selection, i);
+			row[i] = fetchValue(selection, i, source);
 			i++;
 		}
 		DataTableRow dataRow = new SimpleDataTableRow(row, null);
@@ -35,7 +35,7 @@ import com.rapidminer.operator.ports.OutputPort;
 import com.rapidminer.operator.ports.metadata.GenerateNewMDRule;
 import com.rapidminer.parameter.ParameterType;
 import com.rapidminer.parameter.ParameterTypeBoolean;
-import com.rapidminer.tools.math.MathFunctions;
+import com.rapidminer.tools.math.matrix.CovarianceStatistics;
 
 
 /**
@@ -48,9 +48,10 @@ import com.rapidminer.tools.math.MathFunctions;
  * correlation matrix which up to now cannot be used by other operators but can
  * be displayed to the user in the result tab.</p> 
  * 
- * <p>Please note that this simple implementation
- * performs a data scan for each attribute combination and might therefore take
- * some time for non-memory example tables.</p>
+ * <p>All correlations are calculated in a single pass over the data which is
+ * parallelized for large example sets. Missing values are ignored, i.e. the
+ * correlation of two attributes is calculated from all examples where both
+ * values are known.</p>
  * 
  * @author Ingo Mierswa
  */
@@ -82,15 +83,13 @@ public class CorrelationMatrixOperator extends Operator {
 		boolean squared = getParameterAsBoolean(PARAMETER_SQUARED_CORRELATION);
 		boolean createWeights = getParameterAsBoolean(PARAMETER_CREATE_WEIGHTS);
 		boolean normalizeWeights = getParameterAsBoolean(PARAMETER_NORMALIZE_WEIGHTS);
-		int k = 0;
-		for (Attribute firstAttribute : exampleSet.getAttributes()) {
-			int l = 0;
-			for (Attribute secondAttribute : exampleSet.getAttributes()) {
-				matrix.setValue(k, l, MathFunctions.correlation(exampleSet, firstAttribute, secondAttribute, squared || createWeights));
-				checkForStop();
-				l++;
+		CovarianceStatistics statistics = CovarianceStatistics.calculate(exampleSet, exampleSet.getAttributes().createRegularAttributeArray(), true);
+		for (int k = 0; k < numberOfAttributes; k++) {
+			for (int l = 0; l < numberOfAttributes; l++) {
+				double correlation = statistics.getCorrelation(k, l);
+				matrix.setValue(k, l, squared || createWeights ? correlation * correlation : correlation);
 			}
-			k++;
+			checkForStop();
 		}
 
 		AttributeWeights weights = new AttributeWeights();
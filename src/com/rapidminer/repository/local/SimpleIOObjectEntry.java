@@ -33,22 +33,34 @@ import java.io.ObjectOutputStream;
 import java.io.OutputStream;
 import java.lang.ref.SoftReference;
 
+import com.rapidminer.RapidMiner;
+import com.rapidminer.example.ExampleSet;
 import com.rapidminer.operator.IOObject;
 import com.rapidminer.operator.Operator;
 import com.rapidminer.operator.ports.metadata.AttributeMetaData;
 import com.rapidminer.operator.ports.metadata.ExampleSetMetaData;
 import com.rapidminer.operator.ports.metadata.MetaData;
+import com.rapidminer.operator.tools.ExampleSetToColumnBlocks;
 import com.rapidminer.operator.tools.ExampleSetToStream;
 import com.rapidminer.operator.tools.IOObjectSerializer;
 import com.rapidminer.operator.tools.RMObjectInputStream;
+import com.rapidminer.operator.tools.SerializationType;
 import com.rapidminer.repository.Folder;
 import com.rapidminer.repository.IOObjectEntry;
 import com.rapidminer.repository.RepositoryException;
+import com.rapidminer.tools.ParameterService;
 import com.rapidminer.tools.ProgressListener;
+import com.rapidminer.tools.Tools;
 
 /** Stores IOObject in a file. Either as IOO serialized files using
  *  {@link ExampleSetToStream} where appropriate.
  *  
+ *  If enabled by {@link RapidMiner#PROPERTY_RAPIDMINER_GENERAL_STORE_REPOSITORY_COLUMN_BLOCKS},
+ *  dense example sets are stored using {@link ExampleSetToColumnBlocks}. Entries stored this way are
+ *  always readable. Their data is memory mapped when retrieved unless disabled by
+ *  {@link RapidMiner#PROPERTY_RAPIDMINER_GENERAL_MEMORY_MAP_REPOSITORY_DATA}, which is the default on
+ *  Windows. Otherwise it is read into memory.
+ *  
  * @author Simon Fischer
  *
  */
@@ -79,10 +91,25 @@ public class SimpleIOObjectEntry extends SimpleDataEntry implements IOObjectEntr
 		}		
 		File dataFile = getDataFile();
 		if (dataFile.exists()) {
+			FileInputStream in = null;
 			try {
-				return (IOObject)IOObjectSerializer.getInstance().deserialize(new BufferedInputStream(new FileInputStream(dataFile)));
+				in = new FileInputStream(dataFile);
+				// the header is read unbuffered, so the channel is positioned at the start of the body afterwards
+				SerializationType type = IOObjectSerializer.getInstance().deserializeHeader(in);
+				if ((type == SerializationType.EXAMPLE_SET_COLUMN_BLOCKS) &&
+						Tools.booleanValue(ParameterService.getParameterValue(RapidMiner.PROPERTY_RAPIDMINER_GENERAL_MEMORY_MAP_REPOSITORY_DATA), false)) {
+					return new ExampleSetToColumnBlocks().read(in.getChannel(), in.getChannel().position());
+				} else {
+					return (IOObject)type.getBodySerializer().deserialize(new BufferedInputStream(in));
+				}
 			} catch (Exception e) {
 				throw new RepositoryException("Cannot load data from '"+dataFile+"': "+e, e);
+			} finally {
+				if (in != null) {
+					try {
+						in.close();
+					} catch (IOException e) { }
+				}
 			}
 		} else {
 			throw new RepositoryException("File '"+dataFile+" does not exist'.");
@@ -137,21 +164,41 @@ public class SimpleIOObjectEntry extends SimpleDataEntry implements IOObjectEntr
 		}
 		MetaData md = MetaData.forIOObject(data);
 		// Serialize Non-ExampleSets as IOO
+		// We write to a temporary file first since the old file might still be memory mapped
+		// or even be the source of the data.
+		File dataFile = getDataFile();
+		File tempFile = new File(dataFile.getParentFile(), dataFile.getName()+".tmp");
 		OutputStream out = null;		
 		try {
-			out = new BufferedOutputStream(new FileOutputStream(getDataFile()));
-			IOObjectSerializer.getInstance().serialize(out, data);			
+			out = new BufferedOutputStream(new FileOutputStream(tempFile));
+			if ((data instanceof ExampleSet) && ExampleSetToColumnBlocks.isApplicable((ExampleSet)data) &&
+					Tools.booleanValue(ParameterService.getParameterValue(RapidMiner.PROPERTY_RAPIDMINER_GENERAL_STORE_REPOSITORY_COLUMN_BLOCKS), false)) {
+				IOObjectSerializer.getInstance().serialize(out, data, SerializationType.EXAMPLE_SET_COLUMN_BLOCKS);
+			} else {
+				IOObjectSerializer.getInstance().serialize(out, data);
+			}
+			out.close();
+			out = null;
+			if (dataFile.exists() && !dataFile.delete()) {
+				throw new IOException("Cannot replace the old data. It might still be in use.");
+			}
+			if (!tempFile.renameTo(dataFile)) {
+				throw new IOException("Cannot rename '"+tempFile+"'.");
+			}
 			if (l != null) {
 				l.setCompleted(75);
 			}
 		} catch (Exception e) {
-			throw new RepositoryException("Cannot store data at '"+getDataFile()+"': "+e, e);
+			throw new RepositoryException("Cannot store data at '"+dataFile+"': "+e, e);
 		} finally {
 			if (out != null) {
 				try {
 					out.close();
 				} catch (IOException e) { }
 			}
+			if (tempFile.exists()) {
+				tempFile.delete();
+			}
 		}	
 		// Save MetaData
 		ObjectOutputStream mdOut = null;
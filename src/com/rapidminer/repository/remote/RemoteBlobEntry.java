@@ -58,17 +58,11 @@ public class RemoteBlobEntry extends RemoteDataEntry implements BlobEntry {
 	@Override
 	public InputStream openInputStream() throws RepositoryException {
 		try {
-			HttpURLConnection conn = getRepository().getResourceHTTPConnection(getLocation().getPath(), EntryStreamType.BLOB, false);
-			conn.setDoOutput(false);
-			conn.setDoInput(true);
-			try {
-				mimeType = conn.getContentType();
-				return conn.getInputStream();
-			} catch (IOException e) {
-				throw new RepositoryException("Cannot download object: " + conn.getResponseCode()+": "+conn.getResponseMessage(), e);	
-			}
+			RemoteEntryCache.Download download = RemoteEntryCache.getInstance().open(this, EntryStreamType.BLOB);
+			mimeType = download.getContentType();
+			return download.getInputStream();
 		} catch (IOException e) {
-			throw new RepositoryException("Cannot open connection to '"+getLocation()+"': "+e, e);
+			throw new RepositoryException("Cannot download object from '"+getLocation()+"': "+e.getMessage(), e);
 		}		
 	}
 
@@ -0,0 +1,421 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2011 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.repository.remote;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Properties;
+import java.util.zip.GZIPInputStream;
+
+import com.rapidminer.RapidMiner;
+import com.rapidminer.repository.remote.RemoteRepository.EntryStreamType;
+import com.rapidminer.tools.FileSystemService;
+import com.rapidminer.tools.LogService;
+import com.rapidminer.tools.ParameterService;
+
+/**
+ * A persistent local cache for the data of remote repository entries. The data is stored in the
+ * directory "remote_cache" of the user's RapidMiner directory in files named by a hash of the repository,
+ * the user, the location and revision of the entry, and the requested stream type. The validators
+ * (ETag and Last-Modified) sent by the server are stored along with the data. A cached file is only
+ * used if the server answers a conditional request with 304 (Not Modified), otherwise the data is
+ * downloaded again.
+ * 
+ * Downloads are requested with gzip compression and are copied to the cache while they are
+ * read, hence they can be streamed directly into the deserializer. The total size of the cache
+ * is limited by the property {@link RapidMiner#PROPERTY_RAPIDMINER_GENERAL_REMOTE_REPOSITORY_CACHE_SIZE},
+ * the least recently used files are deleted first.
+ * 
+ * @author Simon Fischer
+ */
+public class RemoteEntryCache {
+
+	/** An input stream of entry data together with its content type. */
+	public static class Download {
+
+		private final InputStream inputStream;
+
+		private final String contentType;
+
+		private Download(InputStream inputStream, String contentType) {
+			this.inputStream = inputStream;
+			this.contentType = contentType;
+		}
+
+		public InputStream getInputStream() {
+			return inputStream;
+		}
+
+		/** Returns the content type sent by the server. Might be null. */
+		public String getContentType() {
+			return contentType;
+		}
+	}
+
+	private static final String DATA_SUFFIX = ".data";
+
+	private static final String INFO_SUFFIX = ".info";
+
+	private static final String ETAG = "ETag";
+
+	private static final String LAST_MODIFIED = "Last-Modified";
+
+	private static final String CONTENT_TYPE = "Content-Type";
+
+	private static final int DEFAULT_CACHE_SIZE = 512;
+
+	private static RemoteEntryCache instance;
+
+	private final File directory;
+
+	private RemoteEntryCache(File directory) {
+		this.directory = directory;
+	}
+
+	public static synchronized RemoteEntryCache getInstance() {
+		if (instance == null) {
+			instance = new RemoteEntryCache(new File(FileSystemService.getUserRapidMinerDir(), "remote_cache"));
+		}
+		return instance;
+	}
+
+	/** Returns the maximal size of the cache in bytes. 0 means that the cache is disabled. */
+	private static long getMaximalSize() {
+		int megabytes = DEFAULT_CACHE_SIZE;
+		String value = ParameterService.getParameterValue(RapidMiner.PROPERTY_RAPIDMINER_GENERAL_REMOTE_REPOSITORY_CACHE_SIZE);
+		if (value != null) {
+			try {
+				megabytes = Integer.parseInt(value.trim());
+			} catch (NumberFormatException e) {
+				LogService.getRoot().warning("Illegal value for property " + RapidMiner.PROPERTY_RAPIDMINER_GENERAL_REMOTE_REPOSITORY_CACHE_SIZE + ": " + value);
+			}
+		}
+		return Math.max(0, megabytes) * 1024L * 1024L;
+	}
+
+	/**
+	 * Opens the data of the given type of the entry. If the data is cached and the server reports
+	 * it as unmodified, the cached file is opened. Otherwise, the data is downloaded and copied into
+	 * the cache as soon as the returned stream was read completely and closed.
+	 * 
+	 * @throws IOException if the connection fails or the server answers with an error
+	 */
+	public Download open(RemoteDataEntry entry, EntryStreamType type) throws IOException {
+		String path = entry.getLocation().getPath();
+		HttpURLConnection connection = entry.getRepository().getResourceHTTPConnection(path, type, false);
+		connection.setDoInput(true);
+		connection.setDoOutput(false);
+		connection.setRequestMethod("GET");
+		connection.setRequestProperty("Accept-Encoding", "gzip");
+
+		File dataFile = null;
+		File infoFile = null;
+		Properties cachedInfo = null;
+		if (getMaximalSize() > 0) {
+			String key = getKey(entry, type);
+			dataFile = new File(directory, key + DATA_SUFFIX);
+			infoFile = new File(directory, key + INFO_SUFFIX);
+			cachedInfo = readInfo(dataFile, infoFile);
+			if (cachedInfo != null) {
+				if (cachedInfo.getProperty(ETAG) != null) {
+					connection.setRequestProperty("If-None-Match", cachedInfo.getProperty(ETAG));
+				}
+				if (cachedInfo.getProperty(LAST_MODIFIED) != null) {
+					connection.setRequestProperty("If-Modified-Since", cachedInfo.getProperty(LAST_MODIFIED));
+				}
+			}
+		}
+
+		InputStream in;
+		try {
+			if ((cachedInfo != null) && (connection.getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED)) {
+				connection.disconnect();
+				try {
+					InputStream cached = new BufferedInputStream(new FileInputStream(dataFile));
+					dataFile.setLastModified(System.currentTimeMillis());
+					LogService.getRoot().fine("Using cached data of " + path + ".");
+					return new Download(cached, cachedInfo.getProperty(CONTENT_TYPE));
+				} catch (IOException e) {
+					// evicted in the meantime: download again without condition
+					dataFile.delete();
+					infoFile.delete();
+					return open(entry, type);
+				}
+			}
+			in = connection.getInputStream();
+		} catch (IOException e) {
+			throw new IOException("Cannot download " + path + ": " + connection.getResponseCode() + ": " + connection.getResponseMessage(), e);
+		}
+		if ("gzip".equalsIgnoreCase(connection.getContentEncoding())) {
+			in = new GZIPInputStream(in);
+		}
+		String contentType = connection.getContentType();
+		String eTag = connection.getHeaderField(ETAG);
+		String lastModified = connection.getHeaderField(LAST_MODIFIED);
+		if ((dataFile == null) || ((eTag == null) && (lastModified == null))) {
+			// without validators the cached data could never be used
+			return new Download(in, contentType);
+		}
+		Properties info = new Properties();
+		if (eTag != null) {
+			info.setProperty(ETAG, eTag);
+		}
+		if (lastModified != null) {
+			info.setProperty(LAST_MODIFIED, lastModified);
+		}
+		if (contentType != null) {
+			info.setProperty(CONTENT_TYPE, contentType);
+		}
+		try {
+			return new Download(new CachingInputStream(in, dataFile, infoFile, info), contentType);
+		} catch (IOException e) {
+			LogService.getRoot().warning("Cannot cache data of " + path + ": " + e);
+			return new Download(in, contentType);
+		}
+	}
+
+	/** Reads the remaining data of a stream returned by {@link #open(RemoteDataEntry, EntryStreamType)} such that
+	 *  it can be cached when it is closed. */
+	public static void readRemaining(InputStream in) throws IOException {
+		byte[] buffer = new byte[8192];
+		while (in.read(buffer) >= 0) {
+			// the data is copied to the cache
+		}
+	}
+
+	private static String getKey(RemoteDataEntry entry, EntryStreamType type) {
+		String identifier = entry.getRepository().getBaseUrl() + "\n" + entry.getRepository().getUsername() + "\n" + entry.getLocation().getPath() + "\n" + entry.getRevision() + "\n" + type;
+		try {
+			byte[] hash = MessageDigest.getInstance("SHA-1").digest(identifier.getBytes("UTF-8"));
+			StringBuilder key = new StringBuilder();
+			for (byte b : hash) {
+				key.append(Integer.toHexString((b & 0xFF) | 0x100).substring(1));
+			}
+			return key.toString();
+		} catch (NoSuchAlgorithmException e) {
+			// SHA-1 is supported by every Java platform
+			throw new RuntimeException(e);
+		} catch (IOException e) {
+			// UTF-8 is supported by every Java platform
+			throw new RuntimeException(e);
+		}
+	}
+
+	private static Properties readInfo(File dataFile, File infoFile) {
+		if (!dataFile.exists() || !infoFile.exists()) {
+			return null;
+		}
+		Properties info = new Properties();
+		try {
+			InputStream in = new FileInputStream(infoFile);
+			try {
+				info.load(in);
+			} finally {
+				in.close();
+			}
+			return info;
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	/** Moves the completely downloaded temporary file to the data file and evicts old files if necessary. */
+	private synchronized void commit(File tempFile, File dataFile, File infoFile, Properties info) throws IOException {
+		dataFile.delete();
+		infoFile.delete();
+		if (!tempFile.renameTo(dataFile)) {
+			tempFile.delete();
+			throw new IOException("Cannot rename " + tempFile + " to " + dataFile);
+		}
+		OutputStream out = new FileOutputStream(infoFile);
+		try {
+			info.store(out, null);
+		} finally {
+			out.close();
+		}
+		evict(getMaximalSize());
+	}
+
+	/** Deletes the least recently used data files until the cache is not larger than the given size. */
+	private void evict(long maximalSize) {
+		File[] dataFiles = directory.listFiles();
+		if (dataFiles == null) {
+			return;
+		}
+		long size = 0;
+		for (File file : dataFiles) {
+			size += file.length();
+		}
+		if (size <= maximalSize) {
+			return;
+		}
+		final long[] lastAccess = new long[dataFiles.length];
+		Integer[] order = new Integer[dataFiles.length];
+		for (int i = 0; i < dataFiles.length; i++) {
+			lastAccess[i] = dataFiles[i].lastModified();
+			order[i] = i;
+		}
+		Arrays.sort(order, new Comparator<Integer>() {
+			public int compare(Integer i1, Integer i2) {
+				return Long.valueOf(lastAccess[i1]).compareTo(lastAccess[i2]);
+			}
+		});
+		for (int i = 0; (i < order.length) && (size > maximalSize); i++) {
+			File dataFile = dataFiles[order[i]];
+			String name = dataFile.getName();
+			if (!name.endsWith(DATA_SUFFIX)) {
+				continue;
+			}
+			File infoFile = new File(directory, name.substring(0, name.length() - DATA_SUFFIX.length()) + INFO_SUFFIX);
+			long length = dataFile.length() + infoFile.length();
+			if (dataFile.delete()) {
+				infoFile.delete();
+				size -= length;
+			}
+		}
+	}
+
+	/** Copies all data read into a temporary file which replaces the cached data if the stream was
+	 *  read up to its end before it is closed. */
+	private class CachingInputStream extends FilterInputStream {
+
+		private final File tempFile;
+
+		private final File dataFile;
+
+		private final File infoFile;
+
+		private final Properties info;
+
+		private OutputStream copy;
+
+		private boolean complete = false;
+
+		private CachingInputStream(InputStream in, File dataFile, File infoFile, Properties info) throws IOException {
+			super(in);
+			this.dataFile = dataFile;
+			this.infoFile = infoFile;
+			this.info = info;
+			directory.mkdirs();
+			this.tempFile = File.createTempFile("download", ".tmp", directory);
+			this.copy = new BufferedOutputStream(new FileOutputStream(tempFile));
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = super.read();
+			if (b < 0) {
+				complete = true;
+			} else {
+				copy(new byte[] { (byte) b }, 0, 1);
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int length = super.read(b, off, len);
+			if (length < 0) {
+				complete = true;
+			} else {
+				copy(b, off, length);
+			}
+			return length;
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			// skipped bytes must be copied as well
+			byte[] buffer = new byte[(int) Math.min(n, 8192)];
+			long skipped = 0;
+			while (skipped < n) {
+				int length = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+				if (length < 0) {
+					break;
+				}
+				skipped += length;
+			}
+			return skipped;
+		}
+
+		@Override
+		public boolean markSupported() {
+			return false;
+		}
+
+		private void copy(byte[] b, int off, int len) {
+			if (copy != null) {
+				try {
+					copy.write(b, off, len);
+				} catch (IOException e) {
+					LogService.getRoot().warning("Cannot write to remote repository cache: " + e);
+					discard();
+				}
+			}
+		}
+
+		private void discard() {
+			if (copy != null) {
+				try {
+					copy.close();
+				} catch (IOException e) {
+					// discarded anyway
+				}
+				copy = null;
+				tempFile.delete();
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				super.close();
+			} finally {
+				if (complete && (copy != null)) {
+					try {
+						copy.close();
+						copy = null;
+						commit(tempFile, dataFile, infoFile, info);
+					} catch (IOException e) {
+						LogService.getRoot().warning("Cannot write to remote repository cache: " + e);
+						discard();
+					}
+				} else {
+					discard();
+				}
+			}
+		}
+	}
+}
@@ -61,17 +61,19 @@ public class RemoteIOObjectEntry extends RemoteDataEntry implements IOObjectEntr
 			l.setTotal(100);
 		}
 		try {
-			HttpURLConnection connection = getRepository().getResourceHTTPConnection(getLocation().getPath(), EntryStreamType.IOOBJECT, false);
-			connection.setDoInput(true);
-			connection.setDoOutput(false);
-			connection.setRequestMethod("GET");
 			InputStream in;
 			try {
-				in = connection.getInputStream();
+				in = RemoteEntryCache.getInstance().open(this, EntryStreamType.IOOBJECT).getInputStream();
 			} catch (IOException e) {
-				throw new RepositoryException("Cannot download IOObject: " + connection.getResponseCode() + ": " + connection.getResponseMessage(), e);
+				throw new RepositoryException("Cannot download IOObject: " + e.getMessage(), e);
+			}
+			Object result;
+			try {
+				result = IOObjectSerializer.getInstance().deserialize(in);
+				RemoteEntryCache.readRemaining(in);
+			} finally {
+				in.close();
 			}
-			Object result = IOObjectSerializer.getInstance().deserialize(in);
 			if (result instanceof IOObject) {
 				return (IOObject) result;
 			} else {
@@ -97,15 +99,19 @@ public class RemoteIOObjectEntry extends RemoteDataEntry implements IOObjectEntr
 			}
 			// otherwise metaData == null OR get() == null
 			try {
-				HttpURLConnection connection = getRepository().getResourceHTTPConnection(getLocation().getPath(), EntryStreamType.METADATA, false);
-				connection.setRequestMethod("GET");
 				InputStream in;
 				try {
-					in = connection.getInputStream();
+					in = RemoteEntryCache.getInstance().open(this, EntryStreamType.METADATA).getInputStream();
 				} catch (IOException e) {
-					throw new RepositoryException("Cannot download meta data: " + connection.getResponseCode() + ": " + connection.getResponseMessage(), e);
+					throw new RepositoryException("Cannot download meta data: " + e.getMessage(), e);
+				}
+				Object result;
+				try {
+					result = IOObjectSerializer.getInstance().deserialize(in);
+					RemoteEntryCache.readRemaining(in);
+				} finally {
+					in.close();
 				}
-				Object result = IOObjectSerializer.getInstance().deserialize(in);
 				if (result instanceof MetaData) {
 					this.metaData = new SoftReference<MetaData>((MetaData) result);
 					return (MetaData) result;
@@ -0,0 +1,314 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2011 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.tools;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.table.ExampleTable;
+import com.rapidminer.operator.IOConsumeOperator;
+import com.rapidminer.operator.IOMultiplier;
+import com.rapidminer.operator.IOObject;
+import com.rapidminer.operator.ModelApplier;
+import com.rapidminer.operator.Operator;
+import com.rapidminer.operator.OperatorChain;
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.SimpleOperatorChain;
+import com.rapidminer.operator.clustering.clusterer.AgglomerativeClustering;
+import com.rapidminer.operator.learner.Learner;
+import com.rapidminer.operator.learner.functions.kernel.hyperhyper.HyperHyper;
+import com.rapidminer.operator.learner.functions.linear.LinearRegression;
+import com.rapidminer.operator.learner.igss.IteratingGSS;
+import com.rapidminer.operator.learner.meta.AbstractStacking;
+import com.rapidminer.operator.learner.meta.Bagging;
+import com.rapidminer.operator.performance.AbstractPerformanceEvaluator;
+import com.rapidminer.operator.validation.ValidationChain;
+import com.rapidminer.operator.visualization.ProcessLogOperator;
+
+/**
+ * Executes tasks of an operator in parallel on clones of this operator, at most one clone per
+ * thread. The clones are created in the calling thread when they are needed for the first time,
+ * are attached to the process of the operator and are reused by later calls of
+ * {@link #execute(List, List)}.
+ * 
+ * Clones working on views of the same example table must not resize its data rows while other
+ * clones write into them. Therefore, the inner operators are checked in advance: Only if all of
+ * them are known to add at most a bounded number of attributes to the example table, like model
+ * appliers adding predictions, the columns for these attributes are reserved for all threads and
+ * the tasks are executed in parallel. Otherwise, or if an inner operator has a breakpoint, the
+ * tasks are executed sequentially on a single clone.
+ * 
+ * Each task can be executed with its own random generator replacing the global one in its thread,
+ * see {@link RandomGenerator#setThreadRandomGenerator(RandomGenerator)}.
+ * 
+ * @author Sebastian Land
+ */
+public class OperatorClonePool<T extends Operator> {
+
+	/** A task which is executed on a clone of the operator. */
+	public interface CloneTask<T extends Operator, R> {
+
+		public R call(T clone) throws OperatorException;
+	}
+
+	/** The number of attributes which can be added by an inner operator is not known. */
+	private static final int UNKNOWN = -1;
+
+	private final T operator;
+
+	private final ExampleTable table;
+
+	private final boolean copyInputs;
+
+	private final int numberOfThreads;
+
+	private final int attributesPerClone;
+
+	/** The clones which are currently not used by any thread. */
+	private BlockingQueue<T> clones;
+
+	/**
+	 * Creates a pool for the given operator using at most {@link ParallelExecutionService#getNumberOfThreads()}
+	 * threads.
+	 * 
+	 * @param exampleSet
+	 *            the example set whose table is used by the clones or null if they do not work
+	 *            on example sets
+	 * @param copyInputs
+	 *            indicates if copies of the data of the input ports of the operator should be
+	 *            delivered to the input ports of the clones
+	 */
+	public OperatorClonePool(T operator, ExampleSet exampleSet, boolean copyInputs) {
+		this(operator, exampleSet, copyInputs, ParallelExecutionService.getNumberOfThreads());
+	}
+
+	/** Creates a pool for the given operator using at most the given number of threads. */
+	public OperatorClonePool(T operator, ExampleSet exampleSet, boolean copyInputs, int numberOfThreads) {
+		this.operator = operator;
+		this.table = exampleSet == null ? null : exampleSet.getExampleTable();
+		this.copyInputs = copyInputs;
+		int labelValues = 0;
+		if (exampleSet != null) {
+			Attribute label = exampleSet.getAttributes().getLabel();
+			if (label != null && label.isNominal()) {
+				labelValues = label.getMapping().size();
+			}
+		}
+		int attributes = 0;
+		if (operator instanceof OperatorChain) {
+			attributes = getNumberOfAddedInnerAttributes((OperatorChain) operator, labelValues);
+		}
+		this.attributesPerClone = attributes;
+		if (numberOfThreads > 1 && (attributes == UNKNOWN && table != null || hasInnerBreakpoint(operator))) {
+			operator.getLogger().fine("Executing the tasks of " + operator.getName() + " sequentially since its inner operators cannot be executed in parallel.");
+			numberOfThreads = 1;
+		}
+		this.numberOfThreads = Math.max(1, numberOfThreads);
+	}
+
+	/** Returns the number of threads actually used. This is 1 if the tasks are executed sequentially. */
+	public int getNumberOfThreads() {
+		return numberOfThreads;
+	}
+
+	/** Returns true if the tasks are executed by more than one thread. */
+	public boolean isParallel() {
+		return numberOfThreads > 1;
+	}
+
+	/**
+	 * Executes the given tasks and returns their results in the order of the tasks.
+	 * 
+	 * @param randomGenerators
+	 *            the random generators used by the tasks at the same index instead of the
+	 *            global one or null if the tasks should use the global random generator
+	 */
+	public <R> List<R> execute(List<? extends CloneTask<T, R>> tasks, List<RandomGenerator> randomGenerators) throws OperatorException {
+		if (tasks.isEmpty()) {
+			return new ArrayList<R>();
+		}
+		reserveColumns();
+		initClones();
+		List<Callable<R>> callables = new ArrayList<Callable<R>>(tasks.size());
+		for (int i = 0; i < tasks.size(); i++) {
+			callables.add(createCallable(tasks.get(i), randomGenerators == null ? null : randomGenerators.get(i), clones));
+		}
+		return ParallelExecutionService.execute(callables, numberOfThreads, operator.getName());
+	}
+
+	/**
+	 * Executes each of the given tasks on its own new clone and returns their results in the order
+	 * of the tasks. The used clones are added to the given list in the same order. This can be used
+	 * if the state of the clones is needed after all tasks have finished.
+	 * 
+	 * @param randomGenerators
+	 *            the random generators used by the tasks at the same index instead of the
+	 *            global one or null if the tasks should use the global random generator
+	 */
+	public <R> List<R> executeOnSeparateClones(List<? extends CloneTask<T, R>> tasks, List<RandomGenerator> randomGenerators, List<T> usedClones) throws OperatorException {
+		reserveColumns();
+		List<Callable<R>> callables = new ArrayList<Callable<R>>(tasks.size());
+		for (int i = 0; i < tasks.size(); i++) {
+			// cloning is done here since it is not thread safe
+			T clone = createClone();
+			usedClones.add(clone);
+			BlockingQueue<T> singleClone = new ArrayBlockingQueue<T>(1);
+			singleClone.add(clone);
+			callables.add(createCallable(tasks.get(i), randomGenerators == null ? null : randomGenerators.get(i), singleClone));
+		}
+		return ParallelExecutionService.execute(callables, numberOfThreads, operator.getName());
+	}
+
+	private <R> Callable<R> createCallable(final CloneTask<T, R> task, final RandomGenerator random, final BlockingQueue<T> availableClones) {
+		return new Callable<R>() {
+
+			@Override
+			public R call() throws Exception {
+				operator.checkForStop();
+				T clone = availableClones.take();
+				RandomGenerator previous = null;
+				if (random != null) {
+					previous = RandomGenerator.setThreadRandomGenerator(random);
+				}
+				try {
+					return task.call(clone);
+				} finally {
+					if (random != null) {
+						RandomGenerator.setThreadRandomGenerator(previous);
+					}
+					availableClones.add(clone);
+				}
+			}
+		};
+	}
+
+	/** Creates the clones when they are needed for the first time. */
+	private void initClones() throws OperatorException {
+		if (clones == null) {
+			// cloning is done here since it is not thread safe
+			clones = new ArrayBlockingQueue<T>(numberOfThreads);
+			for (int i = 0; i < numberOfThreads; i++) {
+				clones.add(createClone());
+			}
+		}
+	}
+
+	/**
+	 * Reserves the columns for the attributes added by the clones of all threads. This is done
+	 * before each execution since the calling thread might have used reserved columns meanwhile.
+	 */
+	private void reserveColumns() {
+		if (isParallel() && table != null && attributesPerClone > 0) {
+			com.rapidminer.example.Tools.reserveAttributeColumns(table, numberOfThreads * attributesPerClone);
+		}
+	}
+
+	/** Creates a clone attached to the process of the operator. */
+	@SuppressWarnings("unchecked")
+	private T createClone() throws OperatorException {
+		T clone = (T) operator.cloneOperator(operator.getName(), true);
+		clone.attachToProcessOf(operator);
+		if (copyInputs) {
+			for (int port = 0; port < operator.getInputPorts().getNumberOfPorts() && port < clone.getInputPorts().getNumberOfPorts(); port++) {
+				IOObject input = operator.getInputPorts().getPortByIndex(port).getDataOrNull();
+				clone.getInputPorts().getPortByIndex(port).receive(input == null ? null : input.copy());
+			}
+		}
+		return clone;
+	}
+
+	private static boolean hasInnerBreakpoint(Operator operator) {
+		if (operator instanceof OperatorChain) {
+			for (Operator inner : ((OperatorChain) operator).getAllInnerOperators()) {
+				if (inner.hasBreakpoint()) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns true if the given chain contains an enabled inner operator of the given class. Clones
+	 * of process log operators do not log, so operators whose clones contain process log operators
+	 * must either log the values of the clones themselves or execute their tasks sequentially.
+	 */
+	public static boolean containsEnabledInnerOperator(OperatorChain chain, Class<? extends Operator> operatorClass) {
+		for (Operator inner : chain.getAllInnerOperators()) {
+			if (inner.isEnabled() && operatorClass.isInstance(inner)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the maximal number of attributes the enabled inner operators of the given chain add
+	 * to the example table at the same time or {@link #UNKNOWN} if this is not known for one of them.
+	 */
+	private static int getNumberOfAddedInnerAttributes(OperatorChain chain, int labelValues) {
+		int attributes = 0;
+		for (Operator inner : chain.getAllInnerOperators()) {
+			if (inner.isEnabled()) {
+				int innerAttributes = getNumberOfAddedAttributes(inner, labelValues);
+				if (innerAttributes == UNKNOWN) {
+					return UNKNOWN;
+				}
+				attributes += innerAttributes;
+			}
+		}
+		return attributes;
+	}
+
+	/**
+	 * Returns the number of attributes the given operator itself adds to the example table or
+	 * {@link #UNKNOWN}. Model appliers are assumed to apply prediction models which add the
+	 * predicted label and a confidence attribute for each label value. The inner operators of
+	 * chains are considered separately.
+	 */
+	private static int getNumberOfAddedAttributes(Operator operator, int labelValues) {
+		if (operator instanceof ModelApplier) {
+			return 1 + labelValues;
+		} else if (operator instanceof AbstractPerformanceEvaluator || operator instanceof IOMultiplier || operator instanceof IOConsumeOperator || operator instanceof ProcessLogOperator) {
+			return 0;
+		} else if (operator instanceof SimpleOperatorChain || operator instanceof ValidationChain || operator instanceof Bagging || operator instanceof AbstractStacking) {
+			return 0;
+		} else if (operator instanceof AgglomerativeClustering) {
+			// adds an id attribute if the example set has none
+			return 1;
+		} else if (operator instanceof Learner && !(operator instanceof OperatorChain)) {
+			// these learners add working attributes to the table
+			if (operator instanceof LinearRegression || operator instanceof HyperHyper || operator instanceof IteratingGSS) {
+				return UNKNOWN;
+			}
+			return 0;
+		} else {
+			return UNKNOWN;
+		}
+	}
+}
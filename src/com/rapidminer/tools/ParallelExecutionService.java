@@ -0,0 +1,308 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2011 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.tools;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.rapidminer.RapidMiner;
+import com.rapidminer.operator.OperatorException;
+
+
+/**
+ * Executes independent tasks of operators on a bounded number of worker threads.
+ * The maximal number of threads is defined by the property
+ * {@link RapidMiner#PROPERTY_RAPIDMINER_GENERAL_NUMBER_OF_THREADS}.
+ *
+ * All calls share one pool whose size is this number of threads. The calling thread
+ * takes part in the execution of its tasks, so a call always makes progress even if
+ * all pool threads are busy. Tasks which themselves use this service, e.g. a random
+ * forest learned inside of a parallel cross validation, execute their sub tasks in
+ * their own thread. Hence, nested parallelism never multiplies the number of threads
+ * and cannot cause dead locks. The results are always returned in the order of the
+ * given tasks, so callers can merge them deterministically.
+ *
+ * @author Sebastian Land
+ */
+public class ParallelExecutionService {
+
+	/** The number of seconds after which idle pool threads terminate. */
+	private static final int KEEP_ALIVE_SECONDS = 60;
+
+	/** The pool shared by all calls. Created on first use. */
+	private static ThreadPoolExecutor executor;
+
+	/** Indicates if the current thread executes a task of this service. */
+	private static final ThreadLocal<Boolean> executingTask = new ThreadLocal<Boolean>();
+
+	/**
+	 * Returns the number of threads which should be used for parallel execution. This
+	 * is the value of the property {@link RapidMiner#PROPERTY_RAPIDMINER_GENERAL_NUMBER_OF_THREADS}
+	 * or the number of available processors if this property is not set or 0.
+	 */
+	public static int getNumberOfThreads() {
+		int numberOfThreads = 0;
+		String value = ParameterService.getParameterValue(RapidMiner.PROPERTY_RAPIDMINER_GENERAL_NUMBER_OF_THREADS);
+		if (value != null) {
+			try {
+				numberOfThreads = Integer.parseInt(value.trim());
+			} catch (NumberFormatException e) {
+				LogService.getRoot().warning("Illegal value for property " + RapidMiner.PROPERTY_RAPIDMINER_GENERAL_NUMBER_OF_THREADS + ": " + value);
+			}
+		}
+		if (numberOfThreads <= 0) {
+			numberOfThreads = Runtime.getRuntime().availableProcessors();
+		}
+		return numberOfThreads;
+	}
+
+	/**
+	 * Returns the given number of threads reduced to the number of threads for which the
+	 * currently available memory suffices if each thread needs the given amount of memory.
+	 * The available memory is the maximal memory minus the currently used memory.
+	 * At least one thread is always returned. If the given number of threads is not positive,
+	 * {@link #getNumberOfThreads()} is used.
+	 */
+	public static int getNumberOfThreads(int numberOfThreads, long memoryPerThread) {
+		if (numberOfThreads <= 0) {
+			numberOfThreads = getNumberOfThreads();
+		}
+		if (memoryPerThread > 0) {
+			Runtime runtime = Runtime.getRuntime();
+			long availableMemory = runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory());
+			long affordableThreads = availableMemory / memoryPerThread;
+			if (affordableThreads < numberOfThreads) {
+				numberOfThreads = (int) Math.max(1, affordableThreads);
+				LogService.getRoot().fine("Reducing number of threads to " + numberOfThreads + " due to available memory.");
+			}
+		}
+		return numberOfThreads;
+	}
+
+	/**
+	 * Executes the given tasks using {@link #getNumberOfThreads()} threads.
+	 *
+	 * @see #execute(List, int, String)
+	 */
+	public static <T> List<T> execute(List<? extends Callable<T>> tasks, String threadName) throws OperatorException {
+		return execute(tasks, getNumberOfThreads(), threadName);
+	}
+
+	/**
+	 * Executes the given tasks using at most the given number of threads and returns
+	 * their results in the order of the tasks. The calling thread executes tasks, too,
+	 * and at most numberOfThreads - 1 threads of the shared pool help it. If only one
+	 * thread should be used, only one task is given or the calling thread itself executes
+	 * a task of this service, the tasks are executed sequentially in the calling thread.
+	 * The same holds if the calling thread uses its own random generator (see
+	 * {@link RandomGenerator#setThreadRandomGenerator(RandomGenerator)}), since the
+	 * tasks must draw from this generator in their order.
+	 *
+	 * If a task fails, all tasks which were not started yet are skipped and the exception
+	 * of the first failed task (in task order) is thrown. Operator exceptions and runtime
+	 * exceptions are thrown as they are, all other exceptions are wrapped into an
+	 * {@link OperatorException}.
+	 *
+	 * @param threadName used as prefix for the names of the threads while they execute the tasks
+	 */
+	public static <T> List<T> execute(List<? extends Callable<T>> tasks, int numberOfThreads, String threadName) throws OperatorException {
+		numberOfThreads = Math.min(numberOfThreads, tasks.size());
+		if (numberOfThreads <= 1 || isExecutingTask() || RandomGenerator.getThreadRandomGenerator() != null) {
+			List<T> results = new ArrayList<T>(tasks.size());
+			for (Callable<T> task : tasks) {
+				try {
+					results.add(task.call());
+				} catch (Exception e) {
+					throw toOperatorException(e);
+				}
+			}
+			return results;
+		}
+
+		TaskRunner<T> runner = new TaskRunner<T>(tasks, threadName);
+		ThreadPoolExecutor pool = getExecutor();
+		List<Future<?>> futures = new ArrayList<Future<?>>(numberOfThreads - 1);
+		for (int i = 1; i < numberOfThreads; i++) {
+			futures.add(pool.submit(runner));
+		}
+		// the calling thread works on the tasks as well
+		runner.run();
+		try {
+			runner.awaitTasks();
+		} catch (InterruptedException e) {
+			runner.failed.set(true);
+			Thread.currentThread().interrupt();
+			throw new OperatorException("Parallel execution was interrupted.", e);
+		} finally {
+			// runners which did not start yet are not needed any more
+			for (Future<?> future : futures) {
+				future.cancel(false);
+			}
+		}
+		return runner.getResults();
+	}
+
+	/**
+	 * Returns true if the current thread executes a task of this service. Calls of
+	 * {@link #execute(List, int, String)} from such a thread are executed sequentially.
+	 */
+	public static boolean isExecutingTask() {
+		return Boolean.TRUE.equals(executingTask.get());
+	}
+
+	/** Returns the shared pool, adapting its size to the current number of threads. */
+	private static synchronized ThreadPoolExecutor getExecutor() {
+		int poolSize = getNumberOfThreads();
+		if (executor == null) {
+			executor = new ThreadPoolExecutor(poolSize, poolSize, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new WorkerThreadFactory());
+			executor.allowCoreThreadTimeOut(true);
+		} else if (executor.getMaximumPoolSize() != poolSize) {
+			if (poolSize > executor.getMaximumPoolSize()) {
+				executor.setMaximumPoolSize(poolSize);
+				executor.setCorePoolSize(poolSize);
+			} else {
+				executor.setCorePoolSize(poolSize);
+				executor.setMaximumPoolSize(poolSize);
+			}
+		}
+		return executor;
+	}
+
+	/**
+	 * Executes the tasks of one call. The runner is run by the calling thread and by
+	 * pool threads, each of them taking the next task which was not taken yet. After the
+	 * first failure, the remaining tasks are skipped.
+	 */
+	private static class TaskRunner<T> implements Runnable {
+
+		private final List<? extends Callable<T>> tasks;
+
+		private final String threadName;
+
+		private final List<T> results;
+
+		private final Throwable[] failures;
+
+		private final AtomicInteger nextTask = new AtomicInteger();
+
+		private final AtomicBoolean failed = new AtomicBoolean();
+
+		private final CountDownLatch finishedTasks;
+
+		private TaskRunner(List<? extends Callable<T>> tasks, String threadName) {
+			this.tasks = tasks;
+			this.threadName = threadName;
+			this.results = new ArrayList<T>(tasks.size());
+			for (int i = 0; i < tasks.size(); i++) {
+				results.add(null);
+			}
+			this.failures = new Throwable[tasks.size()];
+			this.finishedTasks = new CountDownLatch(tasks.size());
+		}
+
+		public void run() {
+			Boolean wasExecutingTask = executingTask.get();
+			Thread thread = Thread.currentThread();
+			String previousName = thread.getName();
+			executingTask.set(Boolean.TRUE);
+			try {
+				int index;
+				while ((index = nextTask.getAndIncrement()) < tasks.size()) {
+					try {
+						if (!failed.get()) {
+							thread.setName(threadName + "-" + (index + 1));
+							T result = tasks.get(index).call();
+							synchronized (results) {
+								results.set(index, result);
+							}
+						}
+					} catch (Throwable e) {
+						synchronized (results) {
+							failures[index] = e;
+						}
+						failed.set(true);
+					} finally {
+						finishedTasks.countDown();
+					}
+				}
+			} finally {
+				thread.setName(previousName);
+				if (wasExecutingTask == null) {
+					executingTask.remove();
+				} else {
+					executingTask.set(wasExecutingTask);
+				}
+			}
+		}
+
+		private void awaitTasks() throws InterruptedException {
+			finishedTasks.await();
+		}
+
+		/** Returns the results in task order or throws the failure of the first failed task. */
+		private List<T> getResults() throws OperatorException {
+			synchronized (results) {
+				for (Throwable failure : failures) {
+					if (failure != null) {
+						if (failure instanceof Error) {
+							throw (Error) failure;
+						}
+						throw toOperatorException(failure);
+					}
+				}
+				return new ArrayList<T>(results);
+			}
+		}
+	}
+
+	private static OperatorException toOperatorException(Throwable throwable) {
+		if (throwable instanceof OperatorException) {
+			return (OperatorException) throwable;
+		} else if (throwable instanceof RuntimeException) {
+			throw (RuntimeException) throwable;
+		} else {
+			return new OperatorException("Parallel execution failed: " + throwable, throwable);
+		}
+	}
+
+	/** Creates named daemon threads so that hanging workers never prevent RapidMiner from terminating. */
+	private static class WorkerThreadFactory implements ThreadFactory {
+
+		private final AtomicInteger threadCounter = new AtomicInteger();
+
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "ParallelExecutionService-" + threadCounter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
@@ -65,6 +65,12 @@ public class RandomGenerator extends Random {
 	 */
 	private static RandomGenerator globalRandomGenerator = new RandomGenerator(2001);
 
+	/**
+	 * Random number generators replacing the global one for single threads, e.g. for the
+	 * members of an ensemble which are learned in parallel.
+	 */
+	private static final ThreadLocal<RandomGenerator> threadRandomGenerator = new ThreadLocal<RandomGenerator>();
+
 	/** Initializes the random number generator without a seed. */
 	private RandomGenerator() {
 		super();
@@ -105,6 +111,10 @@ public class RandomGenerator extends Random {
 	 *  a local random generator. */
 	public static RandomGenerator getRandomGenerator(Process process, int seed) {
 		if (seed < 0) {
+			RandomGenerator threadGenerator = threadRandomGenerator.get();
+			if (threadGenerator != null) {
+				return threadGenerator;
+			}
 			if (globalRandomGenerator == null) { // might happen
 				init(process);
 			}
@@ -162,8 +172,55 @@ public class RandomGenerator extends Random {
 		if (operator.getParameterAsBoolean(PARAMETER_USE_LOCAL_RANDOM_SEED)) {
 			return new RandomGenerator(operator.getParameterAsInt(PARAMETER_LOCAL_RANDOM_SEED));
 		} else {
-			return globalRandomGenerator;
+			return getGlobalRandomGenerator();
+		}
+	}
+
+	/**
+	 * Returns a new random number generator for the given operator which does not take any
+	 * numbers from the global one. Its seed is derived from the random seed of the process and
+	 * the name of the operator. This can be used to seed the generators of tasks which are executed
+	 * in parallel without changing the random numbers the operator itself draws.
+	 */
+	public static RandomGenerator getIndependentRandomGenerator(Operator operator) {
+		long seed = 2001;
+		Process process = operator.getProcess();
+		if (process != null) {
+			try {
+				seed = process.getRootOperator().getParameterAsInt(ProcessRootOperator.PARAMETER_RANDOM_SEED);
+			} catch (UndefinedParameterError e) {
+				seed = 2001;
+			}
+		}
+		if (seed == -1)
+			return new RandomGenerator();
+		else
+			return new RandomGenerator(31 * seed + operator.getName().hashCode());
+	}
+
+	/**
+	 * Returns the random number generator which is used instead of the global one by the
+	 * current thread or <code>null</code> if there is none.
+	 */
+	public static RandomGenerator getThreadRandomGenerator() {
+		return threadRandomGenerator.get();
+	}
+
+	/**
+	 * Sets the random number generator which is returned instead of the global one for
+	 * the current thread and returns the one which was set before. If <code>null</code> is
+	 * given, the global random number generator is used again. Tasks which are executed in
+	 * parallel should use their own generators, seeded in a fixed order, since otherwise
+	 * their results would depend on the order of execution.
+	 */
+	public static RandomGenerator setThreadRandomGenerator(RandomGenerator randomGenerator) {
+		RandomGenerator previous = threadRandomGenerator.get();
+		if (randomGenerator == null) {
+			threadRandomGenerator.remove();
+		} else {
+			threadRandomGenerator.set(randomGenerator);
 		}
+		return previous;
 	}
 
 	// ================================================================================
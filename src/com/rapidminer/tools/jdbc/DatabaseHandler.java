@@ -161,6 +161,9 @@ public class DatabaseHandler {
 
     public static final int OVERWRITE_MODE_APPEND          = 3;
 
+    /** The number of rows which are fetched from the database at once by streaming statements. */
+    public static final int DEFAULT_FETCH_SIZE = 1000;
+
 
 
 
@@ -368,6 +371,19 @@ public class DatabaseHandler {
         return statement;
     }
 
+    /** Create a statement where result sets will have the properties
+     *  TYPE_FORWARD_ONLY and CONCUR_READ_ONLY and which fetches the given number of
+     *  rows per round trip instead of the driver's default. Please note that some
+     *  drivers (e.g. PostgreSQL) only use a cursor if auto commit is switched off and
+     *  otherwise fetch the complete result at once.
+     *  Will throw an {@link SQLException} if the handler is not connected. */
+    public Statement createStreamingStatement(int fetchSize) throws SQLException {
+        Statement statement = createStatement(false);
+        statement.setFetchDirection(ResultSet.FETCH_FORWARD);
+        statement.setFetchSize(fetchSize);
+        return statement;
+    }
+
     /** Create a prepared statement where result sets will have the properties
      *  TYPE_SCROLL_SENSITIVE and CONCUR_UPDATABLE. This means that the
      *  ResultSet is scrollable and also updatable. It will also directly show
@@ -516,12 +532,28 @@ public class DatabaseHandler {
     	createTable(exampleSet, new TableName(tableName), overwriteMode, firstAttempt, defaultVarcharLength, addAutoGeneratedPrimaryKeys, generatedPrimaryKeyAttributeName, 1);
     }
     
-    /** Creates a new table in this connection and fills it with the provided data.
+    /** Creates a new table in this connection and fills it with the provided data using the
+     *  commit mode of the connection.
      * @param generatedPrimaryKeyAttributeName
      * 
      *  @throws SQLException if the table should be overwritten but a table with this name already exists
      */
     public void createTable(ExampleSet exampleSet, TableName tableName, int overwriteMode, boolean firstAttempt, int defaultVarcharLength, boolean addAutoGeneratedPrimaryKeys, String generatedPrimaryKeyAttributeName, int batchSize) throws SQLException {
+        createTable(exampleSet, tableName, overwriteMode, firstAttempt, defaultVarcharLength, addAutoGeneratedPrimaryKeys, generatedPrimaryKeyAttributeName, batchSize, 0);
+    }
+
+    /** Creates a new table in this connection and fills it with the provided data.
+     *  Unless generated keys are requested or the driver does not support batch updates, the examples are
+     *  inserted by a single row statement and sent in JDBC batches of batchSize examples. Otherwise,
+     *  one insert statement with batchSize rows is executed per batch.
+     *  If commitSize is positive and the connection is in auto commit mode, auto commit is switched off
+     *  while the data is written and the inserted examples are committed after every batch which completes
+     *  at least commitSize examples. If writing fails, the uncommitted examples are rolled back.
+     * @param generatedPrimaryKeyAttributeName
+     * 
+     *  @throws SQLException if the table should be overwritten but a table with this name already exists
+     */
+    public void createTable(ExampleSet exampleSet, TableName tableName, int overwriteMode, boolean firstAttempt, int defaultVarcharLength, boolean addAutoGeneratedPrimaryKeys, String generatedPrimaryKeyAttributeName, int batchSize, int commitSize) throws SQLException {
         // either drop the table or throw an exception (depending on the parameter 'overwrite')
         Statement statement = createStatement(true);
         boolean exists = existsTable(tableName);
@@ -562,6 +594,75 @@ public class DatabaseHandler {
         }
 
         // fill table
+        boolean manageCommits = commitSize > 0 && connection.getAutoCommit();
+        if (manageCommits) {
+            connection.setAutoCommit(false);
+        }
+        boolean success = false;
+        try {
+            if (addAutoGeneratedPrimaryKeys || !connection.getMetaData().supportsBatchUpdates()) {
+                insertInMultiRowStatements(exampleSet, tableName, addAutoGeneratedPrimaryKeys, generatedPrimaryKeyAttributeName, batchSize, manageCommits ? commitSize : 0);
+            } else {
+                insertInBatches(exampleSet, tableName, batchSize, manageCommits ? commitSize : 0);
+            }
+            if (manageCommits) {
+                connection.commit();
+            }
+            success = true;
+        } finally {
+            if (manageCommits) {
+                if (!success) {
+                    try {
+                        connection.rollback();
+                    } catch (SQLException e) {
+                        LogService.getRoot().log(Level.WARNING, "Cannot roll back uncommitted examples: " + e, e);
+                    }
+                }
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    /** Inserts the examples using one single row insert statement which is executed in JDBC batches of
+     *  batchSize examples. If commitSize is positive, the examples are committed whenever at least
+     *  commitSize examples were written since the last commit. */
+    private void insertInBatches(ExampleSet exampleSet, TableName tableName, int batchSize, int commitSize) throws SQLException {
+        List<Attribute> attributeList = new LinkedList<Attribute>();
+        Iterator<AttributeRole> attributes = exampleSet.getAttributes().allAttributeRoles();
+        while (attributes.hasNext()) {
+            attributeList.add(attributes.next().getAttribute());
+        }
+        PreparedStatement statement = getInsertIntoTableStatement(tableName, exampleSet, false, 1);
+        try {
+            int batchExamples = 0;
+            int uncommittedExamples = 0;
+            for (Example example : exampleSet) {
+                setInsertValues(statement, 1, example, attributeList, null);
+                statement.addBatch();
+                batchExamples++;
+                if (batchExamples == batchSize) {
+                    statement.executeBatch();
+                    uncommittedExamples += batchExamples;
+                    batchExamples = 0;
+                    if (commitSize > 0 && uncommittedExamples >= commitSize) {
+                        connection.commit();
+                        uncommittedExamples = 0;
+                    }
+                }
+            }
+            if (batchExamples > 0) {
+                statement.executeBatch();
+            }
+        } finally {
+            statement.close();
+        }
+    }
+
+    /** Inserts the examples using insert statements with batchSize rows (and one statement for the remaining
+     *  rows). This is also used if the generated keys must be retrieved since not all drivers return
+     *  generated keys for JDBC batches. If commitSize is positive, the examples are committed whenever at
+     *  least commitSize examples were written since the last commit. */
+    private void insertInMultiRowStatements(ExampleSet exampleSet, TableName tableName, boolean addAutoGeneratedPrimaryKeys, String generatedPrimaryKeyAttributeName, int batchSize, int commitSize) throws SQLException {
         Attribute genPrimaryKeyAttribute = null;
 
         // if jdbc driver does not support prepared statements
@@ -585,11 +686,17 @@ public class DatabaseHandler {
 
         // gather examples and write batch into database 
         List<Example> batchExamples = new LinkedList<Example>();
+        int uncommittedExamples = 0;
         for (Example example : exampleSet) {
         	batchExamples.add(example);
             if (batchExamples.size() == batchSize) {
             	applyBatchInsertIntoTable(batchSizeInsertStatement, batchExamples, exampleSet.getAttributes().allAttributeRoles(), addAutoGeneratedPrimaryKeys, genPrimaryKeyAttribute);
+            	uncommittedExamples += batchExamples.size();
             	batchExamples.clear();
+            	if (commitSize > 0 && uncommittedExamples >= commitSize) {
+            		connection.commit();
+            		uncommittedExamples = 0;
+            	}
             }
         }
         
@@ -643,51 +750,7 @@ public class DatabaseHandler {
     	
     	int counter = 1;
         for (Example example : examples) {
-        	for (Attribute attribute : attributeList) {
-        		if (addAutoGeneratedPrimaryKeys && attribute == genPrimaryKey){
-        			continue;
-        		}
-        		double value = example.getValue(attribute);
-        		if (Double.isNaN(value)) {
-        			int sqlType = statementCreator.getSQLTypeForRMValueType(attribute.getValueType()).getDataType();
-        			statement.setNull(counter, sqlType);
-        		} else {
-        			if (attribute.isNominal()) {
-        				String valueString = attribute.getMapping().mapIndex((int)value);
-        				// circumvent problem that large clobs could not be written to Oracle DB (no longer necessary since this can be done via connection parameters)
-        				//					if (Ontology.ATTRIBUTE_VALUE_TYPE.isA(attribute.getValueType(), Ontology.STRING)) {
-        				//						CLOB clob = oracle.sql.CLOB.createTemporary(connection, true, oracle.sql.CLOB.DURATION_CALL);
-        				//						clob.putString(1, valueString);
-        				//						statement.setClob(counter, clob);
-        				//					}
-        				//					DataTypeSyntaxInformation sqlType = statementCreator.getSQLTypeForRMValueType(attribute.getValueType());
-        				//					switch (sqlType.getDataType()) {
-        				//						case Types.CLOB:
-        				//							//statement.setCharacterStream(counter, new StringReader(valueString));
-        				//							//statement.setClob(counter, new SerialClob(valueString.toCharArray()));
-        				//							//statement.setAsciiStream(counter, new StringInputStream(valueString));
-        				//							statement.setString(counter, valueString);
-        				//							break;
-        				//						case Types.VARCHAR:
-        				//						default:
-        				//							statement.setString(counter, valueString);
-        				//							break;
-        				//					}
-        				statement.setString(counter, valueString);
-        			} else {
-        				if (Ontology.ATTRIBUTE_VALUE_TYPE.isA(attribute.getValueType(), Ontology.DATE_TIME)) {
-        					if (Ontology.ATTRIBUTE_VALUE_TYPE.isA(attribute.getValueType(), Ontology.TIME)) {
-        						statement.setTime(counter, new Time((long) value));
-        					} else {
-        						statement.setTimestamp(counter, new Timestamp((long) value));
-        					}
-        				} else {
-        					statement.setDouble(counter, value);
-        				}
-        			}
-        		}
-        		counter++;
-        	}
+        	counter = setInsertValues(statement, counter, example, attributeList, addAutoGeneratedPrimaryKeys ? genPrimaryKey : null);
         }
         statement.executeUpdate();
 
@@ -709,6 +772,57 @@ public class DatabaseHandler {
         }
     }
 
+    /** Sets the values of the example as parameters of the statement starting with the parameter with
+     *  the given index. The given attribute to skip might be null. Returns the index of the next parameter. */
+    private int setInsertValues(PreparedStatement statement, int counter, Example example, List<Attribute> attributeList, Attribute skippedAttribute) throws SQLException {
+        for (Attribute attribute : attributeList) {
+        	if (attribute == skippedAttribute) {
+        		continue;
+        	}
+        	double value = example.getValue(attribute);
+        	if (Double.isNaN(value)) {
+        		int sqlType = statementCreator.getSQLTypeForRMValueType(attribute.getValueType()).getDataType();
+        		statement.setNull(counter, sqlType);
+        	} else {
+        		if (attribute.isNominal()) {
+        			String valueString = attribute.getMapping().mapIndex((int)value);
+        			// circumvent problem that large clobs could not be written to Oracle DB (no longer necessary since this can be done via connection parameters)
+        			//					if (Ontology.ATTRIBUTE_VALUE_TYPE.isA(attribute.getValueType(), Ontology.STRING)) {
+        			//						CLOB clob = oracle.sql.CLOB.createTemporary(connection, true, oracle.sql.CLOB.DURATION_CALL);
+        			//						clob.putString(1, valueString);
+        			//						statement.setClob(counter, clob);
+        			//					}
+        			//					DataTypeSyntaxInformation sqlType = statementCreator.getSQLTypeForRMValueType(attribute.getValueType());
+        			//					switch (sqlType.getDataType()) {
+        			//						case Types.CLOB:
+        			//							//statement.setCharacterStream(counter, new StringReader(valueString));
+        			//							//statement.setClob(counter, new SerialClob(valueString.toCharArray()));
+        			//							//statement.setAsciiStream(counter, new StringInputStream(valueString));
+        			//							statement.setString(counter, valueString);
+        			//							break;
+        			//						case Types.VARCHAR:
+        			//						default:
+        			//							statement.setString(counter, valueString);
+        			//							break;
+        			//					}
+        			statement.setString(counter, valueString);
+        		} else {
+        			if (Ontology.ATTRIBUTE_VALUE_TYPE.isA(attribute.getValueType(), Ontology.DATE_TIME)) {
+        				if (Ontology.ATTRIBUTE_VALUE_TYPE.isA(attribute.getValueType(), Ontology.TIME)) {
+        					statement.setTime(counter, new Time((long) value));
+        				} else {
+        					statement.setTimestamp(counter, new Timestamp((long) value));
+        				}
+        			} else {
+        				statement.setDouble(counter, value);
+        			}
+        		}
+        	}
+        	counter++;
+        }
+        return counter;
+    }
+
     //	private String getCreateTableString(ExampleSet exampleSet, String tableName, int defaultVarcharLength) {
     //		// define all attribute names and types
     //		StringBuffer result = new StringBuffer();
@@ -1190,6 +1304,7 @@ public class DatabaseHandler {
                 }
             }
             if (isQuery) {
+                prepared.setFetchSize(DEFAULT_FETCH_SIZE);
                 resultSet = prepared.executeQuery();
             } else {
                 prepared.execute();
@@ -1197,7 +1312,7 @@ public class DatabaseHandler {
             statement = prepared;
         } else {
             logger.info("Executing query: '" + sql + "'");
-            statement = createStatement(false);
+            statement = isQuery ? createStreamingStatement(DEFAULT_FETCH_SIZE) : createStatement(false);
             if (isQuery) {
                 resultSet = statement.executeQuery(sql);
             } else {
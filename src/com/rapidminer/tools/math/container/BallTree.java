@@ -28,6 +28,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.ListIterator;
 import java.util.Stack;
 
@@ -41,6 +42,10 @@ import com.rapidminer.tools.math.similarity.DistanceMeasure;
  * in a fashion supporting the search for nearest neighbours. This is only working well in 
  * low to middle number of dimensions. Since the building of the tree is very expensiv,
  * in most cases a linear search strategy will outperform the ballTree in overall performance.
+ * This does not hold for trees built from all points at once by {@link #BallTree(List, List, DistanceMeasure)}.
+ * 
+ * The distance measure must fulfill the triangle inequality. Since missing values are ignored
+ * by the distance measures, queries are answered by a linear search if missing values are involved.
  *
  * @param <T> This is the type of value with is stored with the points and retrieved on nearest
  * neighbour search
@@ -57,16 +62,58 @@ public class BallTree<T extends Serializable> implements GeometricDataCollection
 	private DistanceMeasure distance;
 	private int size = 0;
 	private ArrayList<T> values = new ArrayList<T>();
+	private boolean containsMissings = false;
 	
 	
 	public BallTree(DistanceMeasure distance) {
 		this.distance = distance;
 	}
 	
+	/**
+	 * Builds a balanced tree containing the given points and their values. The points of
+	 * each node are split at the median of the dimension with the greatest range of values,
+	 * the median point becomes the center of the node.
+	 */
+	public BallTree(List<double[]> points, List<T> storeValues, DistanceMeasure distance) {
+		this(distance);
+		if (!points.isEmpty()) {
+			k = points.get(0).length;
+			dimensionFactor = Math.sqrt(Math.PI) / Math.pow(gammaFunction(k / 2), 1d / k);
+		}
+		int[] indices = new int[points.size()];
+		for (int i = 0; i < indices.length; i++) {
+			indices[i] = i;
+			containsMissings |= SpatialIndexTools.containsMissings(points.get(i));
+		}
+		this.root = buildTree(points, storeValues, indices, 0, indices.length);
+		this.size = points.size();
+		this.values.addAll(storeValues);
+	}
+
+	private BallTreeNode<T> buildTree(List<double[]> points, List<T> storeValues, int[] indices, int from, int to) {
+		if (from >= to)
+			return null;
+		int median = (from + to) >>> 1;
+		SpatialIndexTools.select(points, indices, from, to, median, SpatialIndexTools.getDimensionOfMaximalSpread(points, indices, from, to));
+		double[] center = points.get(indices[median]);
+		double radius = 0;
+		for (int i = from; i < to; i++) {
+			radius = Math.max(radius, distance.calculateDistance(center, points.get(indices[i])));
+		}
+		BallTreeNode<T> node = new BallTreeNode<T>(center, radius, storeValues.get(indices[median]));
+		BallTreeNode<T> leftChild = buildTree(points, storeValues, indices, from, median);
+		if (leftChild != null)
+			node.setLeftChild(leftChild);
+		BallTreeNode<T> rightChild = buildTree(points, storeValues, indices, median + 1, to);
+		if (rightChild != null)
+			node.setRightChild(rightChild);
+		return node;
+	}
 
 	public void add(double[] values, T storeValue) {
 		this.size++;
 		this.values.add(storeValue);
+		containsMissings |= SpatialIndexTools.containsMissings(values);
 		if (root == null) {
 			root = new BallTreeNode<T>(values, 0, storeValue);
 			
@@ -181,12 +228,20 @@ public class BallTree<T extends Serializable> implements GeometricDataCollection
 	}
 	
 	private BoundedPriorityQueue<Tupel<Double, BallTreeNode<T>>> getNearestNodes(int k, double[] values) {
+		// creating data structure for finding k nearest values
+		BoundedPriorityQueue<Tupel<Double, BallTreeNode<T>>> priorityQueue = new BoundedPriorityQueue<Tupel<Double, BallTreeNode<T>>>(k);
+		if (root == null)
+			return priorityQueue;
+		if (containsMissings || SpatialIndexTools.containsMissings(values)) {
+			// distances ignore missing dimensions: No pruning possible
+			addAllNodes(priorityQueue, values);
+			return priorityQueue;
+		}
+
 		Stack<BallTreeNode<T>> nodeStack = new Stack<BallTreeNode<T>>();
 		Stack<Integer> sideStack = new Stack<Integer>();
 		// first doing initial search for nearest Node
 		traverseTree(nodeStack, sideStack, root, values);
-		// creating data structure for finding k nearest values
-		BoundedPriorityQueue<Tupel<Double, BallTreeNode<T>>> priorityQueue = new BoundedPriorityQueue<Tupel<Double, BallTreeNode<T>>>(k);
 		
 		// now work on stack
 		while (!nodeStack.isEmpty()) {
@@ -199,8 +254,7 @@ public class BallTree<T extends Serializable> implements GeometricDataCollection
 			if (currentNode.hasTwoChilds()) {
 				BallTreeNode<T> otherChild = (currentSide < 0) ? currentNode.getRightChild(): currentNode.getLeftChild();
 				if (!priorityQueue.isFilled() || 
-						priorityQueue.peek().getFirst().doubleValue() + otherChild.getRadius() > 
-						distance.calculateDistance(values, otherChild.getCenter())) {
+						!SpatialIndexTools.canPrune(distance.calculateDistance(values, otherChild.getCenter()) - otherChild.getRadius(), priorityQueue.peek().getFirst().doubleValue())) {
 					// if needs to be checked, traverse tree to not visited leaf
 					traverseTree(nodeStack, sideStack, otherChild, values);
 				}
@@ -210,6 +264,19 @@ public class BallTree<T extends Serializable> implements GeometricDataCollection
 		return priorityQueue;
 	}
 	
+	private void addAllNodes(BoundedPriorityQueue<Tupel<Double, BallTreeNode<T>>> priorityQueue, double[] values) {
+		Stack<BallTreeNode<T>> nodeStack = new Stack<BallTreeNode<T>>();
+		nodeStack.push(root);
+		while (!nodeStack.isEmpty()) {
+			BallTreeNode<T> currentNode = nodeStack.pop();
+			priorityQueue.add(new Tupel<Double, BallTreeNode<T>>(distance.calculateDistance(currentNode.getCenter(), values), currentNode));
+			if (currentNode.hasLeftChild())
+				nodeStack.push(currentNode.getLeftChild());
+			if (currentNode.hasRightChild())
+				nodeStack.push(currentNode.getRightChild());
+		}
+	}
+
 	private void traverseTree(Stack<BallTreeNode<T>> stack, Stack<Integer> sideStack, BallTreeNode<T> root, double[] values) {
 		BallTreeNode<T> currentNode = root;
 		stack.push(currentNode);
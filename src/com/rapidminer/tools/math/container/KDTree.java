@@ -27,6 +27,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Stack;
 
 import com.rapidminer.tools.container.Tupel;
@@ -35,7 +36,12 @@ import com.rapidminer.tools.math.similarity.DistanceMeasure;
 /**
  * This class is an implementation of a KD-Tree for organizing multidimensional datapoints
  * in a fashion supporting the search for nearest neighbours. This is only working well in 
- * low dimensions. 
+ * low dimensions. Trees built from all points at once by {@link #KDTree(List, List, DistanceMeasure)}
+ * are balanced, while adding points one by one might result in degenerated trees.
+ * 
+ * Pruning assumes that the distance between two points is at least the difference of
+ * their values in each single dimension. This holds for the euclidean, the manhattan and the
+ * chebychev distance. Queries with missing values are answered by a linear search.
  * 
  * @author Sebastian Land
  * 
@@ -50,16 +56,49 @@ public class KDTree<T extends Serializable> implements GeometricDataCollection<T
 	private DistanceMeasure distance;
 	private int size = 0;
 	private ArrayList<T> values = new ArrayList<T>();
+	private boolean containsMissings = false;
 	
 	public KDTree(int numberOfDimensions, DistanceMeasure distance) {
 		this.k = numberOfDimensions;
 		this.distance = distance;
 	}
 
+	/**
+	 * Builds a balanced tree containing the given points and their values. Each node
+	 * splits its points at the median of the dimension with the greatest range of values.
+	 */
+	public KDTree(List<double[]> points, List<T> storeValues, DistanceMeasure distance) {
+		this(points.isEmpty() ? 0 : points.get(0).length, distance);
+		int[] indices = new int[points.size()];
+		for (int i = 0; i < indices.length; i++) {
+			indices[i] = i;
+			containsMissings |= SpatialIndexTools.containsMissings(points.get(i));
+		}
+		this.root = buildTree(points, storeValues, indices, 0, indices.length);
+		this.size = points.size();
+		this.values.addAll(storeValues);
+	}
+
+	private KDTreeNode<T> buildTree(List<double[]> points, List<T> storeValues, int[] indices, int from, int to) {
+		if (from >= to)
+			return null;
+		int dimension = SpatialIndexTools.getDimensionOfMaximalSpread(points, indices, from, to);
+		int median = (from + to) >>> 1;
+		SpatialIndexTools.select(points, indices, from, to, median, dimension);
+		// all points before the median are lesser or equal, all points behind greater or equal 
+		KDTreeNode<T> node = new KDTreeNode<T>(points.get(indices[median]), storeValues.get(indices[median]), dimension);
+		node.setLesserChild(buildTree(points, storeValues, indices, from, median));
+		node.setGreaterChild(buildTree(points, storeValues, indices, median + 1, to));
+		return node;
+	}
+
 	public void add(double[] values, T storeValue) {
 		this.size++;
 		this.values.add(storeValue);
+		containsMissings |= SpatialIndexTools.containsMissings(values);
 		if (root == null) {
+			if (k == 0)
+				k = values.length;
 			this.root = new KDTreeNode<T>(values, storeValue, 0);			
 		} else {
 			int currentDimension = 0;
@@ -100,13 +139,20 @@ public class KDTree<T extends Serializable> implements GeometricDataCollection<T
 	}
 	
 	private BoundedPriorityQueue<Tupel<Double, KDTreeNode<T>>> getNearestNodes(int k, double[] values) {
+		// creating data structure for finding k nearest values
+		BoundedPriorityQueue<Tupel<Double, KDTreeNode<T>>> priorityQueue = new BoundedPriorityQueue<Tupel<Double, KDTreeNode<T>>>(k);
+		if (root == null)
+			return priorityQueue;
+		if (containsMissings || SpatialIndexTools.containsMissings(values)) {
+			// distances ignore missing dimensions: No pruning possible
+			addAllNodes(priorityQueue, values);
+			return priorityQueue;
+		}
+
 		Stack<KDTreeNode<T>> nodeStack = new Stack<KDTreeNode<T>>();
 		// first doing initial search for nearest Node
 		nodeStack = traverseTree(nodeStack, root, values);
 
-		// creating data structure for finding k nearest values
-		BoundedPriorityQueue<Tupel<Double, KDTreeNode<T>>> priorityQueue = new BoundedPriorityQueue<Tupel<Double, KDTreeNode<T>>>(k);
-		
 		// now work on stack
 		while (!nodeStack.isEmpty()) {
 			// put top element into priorityQueue
@@ -115,7 +161,7 @@ public class KDTree<T extends Serializable> implements GeometricDataCollection<T
 			priorityQueue.add(currentTupel);
 			// now check if far children has to be regarded
 			if (!priorityQueue.isFilled() || 
-					priorityQueue.peek().getFirst().doubleValue() > currentNode.getCompareValue() - values[currentNode.getCompareDimension()]) {
+					!SpatialIndexTools.canPrune(Math.abs(currentNode.getCompareValue() - values[currentNode.getCompareDimension()]), priorityQueue.peek().getFirst().doubleValue())) {
 				// if needs to be checked, traverse tree to nearest leaf
 				if (currentNode.hasFarChild(values))
 					traverseTree(nodeStack, currentNode.getFarChild(values), values);
@@ -126,6 +172,19 @@ public class KDTree<T extends Serializable> implements GeometricDataCollection<T
 		return priorityQueue;
 	}
 	
+	private void addAllNodes(BoundedPriorityQueue<Tupel<Double, KDTreeNode<T>>> priorityQueue, double[] values) {
+		Stack<KDTreeNode<T>> nodeStack = new Stack<KDTreeNode<T>>();
+		nodeStack.push(root);
+		while (!nodeStack.isEmpty()) {
+			KDTreeNode<T> currentNode = nodeStack.pop();
+			priorityQueue.add(new Tupel<Double, KDTreeNode<T>>(distance.calculateDistance(currentNode.getValues(), values), currentNode));
+			if (currentNode.getLesserChild() != null)
+				nodeStack.push(currentNode.getLesserChild());
+			if (currentNode.getGreaterChild() != null)
+				nodeStack.push(currentNode.getGreaterChild());
+		}
+	}
+
 	private Stack<KDTreeNode<T>> traverseTree(Stack<KDTreeNode<T>> stack, KDTreeNode<T> root, double[] values) {
 		KDTreeNode<T> currentNode = root;
 		stack.push(currentNode);
@@ -137,12 +196,56 @@ public class KDTree<T extends Serializable> implements GeometricDataCollection<T
 	}
 	
 	public Collection<Tupel<Double, T>> getNearestValueDistances(double withinDistance, double[] values) {
-		throw new RuntimeException("Not supported method");
+		ArrayList<KDTreeNode<T>> nodes = new ArrayList<KDTreeNode<T>>();
+		addNodesWithin(withinDistance, values, nodes);
+		ArrayList<Tupel<Double, T>> neighboursList = new ArrayList<Tupel<Double, T>>(nodes.size());
+		for (KDTreeNode<T> node : nodes) {
+			double currentDistance = distance.calculateDistance(node.getValues(), values);
+			if (currentDistance <= withinDistance)
+				neighboursList.add(new Tupel<Double, T>(currentDistance, node.getStoreValue()));
+		}
+		return neighboursList;
 	}
 
-
 	public Collection<Tupel<Double, T>> getNearestValueDistances(double withinDistance, int butAtLeastK, double[] values) {
-		throw new RuntimeException("Not supported method");
+		Collection<Tupel<Double, T>> result = getNearestValueDistances(withinDistance, values);
+		if (result.size() < butAtLeastK)
+			return getNearestValueDistances(butAtLeastK, values);
+		return result;
+	}
+
+	/**
+	 * Adds the store values of all points with a distance of at most the given distance to the
+	 * given values to the collection. In order to compensate rounding errors, points with a slightly
+	 * greater distance might be added, too. Callers depending on the exact distances must check them.
+	 * Since no distances are returned, this method avoids creating objects for each point found.
+	 */
+	public void addValuesWithin(double withinDistance, double[] values, Collection<T> result) {
+		ArrayList<KDTreeNode<T>> nodes = new ArrayList<KDTreeNode<T>>();
+		addNodesWithin(withinDistance, values, nodes);
+		for (KDTreeNode<T> node : nodes) {
+			result.add(node.getStoreValue());
+		}
+	}
+
+	private void addNodesWithin(double withinDistance, double[] values, List<KDTreeNode<T>> result) {
+		if (root == null)
+			return;
+		// distances ignore missing dimensions: No pruning possible
+		boolean prune = !containsMissings && !SpatialIndexTools.containsMissings(values);
+		ArrayList<KDTreeNode<T>> nodeStack = new ArrayList<KDTreeNode<T>>();
+		nodeStack.add(root);
+		while (!nodeStack.isEmpty()) {
+			KDTreeNode<T> currentNode = nodeStack.remove(nodeStack.size() - 1);
+			if (!SpatialIndexTools.canPrune(distance.calculateDistance(currentNode.getValues(), values), withinDistance))
+				result.add(currentNode);
+			double difference = currentNode.getCompareValue() - values[currentNode.getCompareDimension()];
+			// the lesser child contains points with values lesser or equal to the compare value
+			if (currentNode.getLesserChild() != null && (!prune || !SpatialIndexTools.canPrune(-difference, withinDistance)))
+				nodeStack.add(currentNode.getLesserChild());
+			if (currentNode.getGreaterChild() != null && (!prune || !SpatialIndexTools.canPrune(difference, withinDistance)))
+				nodeStack.add(currentNode.getGreaterChild());
+		}
 	}
 
 	public int size() {
@@ -87,7 +87,7 @@ public class KDTreeNode<T> implements Serializable {
 		return storeValue;
 	}
 
-	public KDTreeNode getLesserChild() {
+	public KDTreeNode<T> getLesserChild() {
 		return lesserChild;
 	}
 
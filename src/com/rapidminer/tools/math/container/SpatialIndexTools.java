@@ -0,0 +1,111 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2011 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.tools.math.container;
+
+import java.util.List;
+
+/**
+ * Helper methods for building and searching the {@link KDTree} and the {@link BallTree}.
+ * 
+ * @author Sebastian Land
+ */
+class SpatialIndexTools {
+
+	/** The relative tolerance used for pruning in order to compensate rounding errors of the distances. */
+	private static final double PRUNING_TOLERANCE = 1e-9;
+
+	/**
+	 * Returns true if all points with a distance of at least the given lower bound can be
+	 * skipped since the currently k-th nearest point has the given distance. 
+	 */
+	static boolean canPrune(double lowerBound, double currentWorstDistance) {
+		return lowerBound - currentWorstDistance > PRUNING_TOLERANCE * Math.max(Math.abs(lowerBound), Math.abs(currentWorstDistance));
+	}
+
+	static boolean containsMissings(double[] values) {
+		for (double value : values) {
+			if (Double.isNaN(value)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/** Returns the dimension in which the given points have the greatest range of values. */
+	static int getDimensionOfMaximalSpread(List<double[]> points, int[] indices, int from, int to) {
+		int dimensions = points.get(indices[from]).length;
+		int bestDimension = 0;
+		double bestSpread = Double.NEGATIVE_INFINITY;
+		for (int d = 0; d < dimensions; d++) {
+			double min = Double.POSITIVE_INFINITY;
+			double max = Double.NEGATIVE_INFINITY;
+			for (int i = from; i < to; i++) {
+				double value = points.get(indices[i])[d];
+				if (value < min)
+					min = value;
+				if (value > max)
+					max = value;
+			}
+			if (max - min > bestSpread) {
+				bestSpread = max - min;
+				bestDimension = d;
+			}
+		}
+		return bestDimension;
+	}
+
+	/**
+	 * Rearranges the indices between from (inclusive) and to (exclusive) such that the point at
+	 * position nth has the value it would have if the indices were sorted by the given dimension.
+	 * All points before have lesser or equal values, all points after have greater or equal values.
+	 */
+	static void select(List<double[]> points, int[] indices, int from, int to, int nth, int dimension) {
+		int left = from;
+		int right = to - 1;
+		while (right > left) {
+			double pivot = points.get(indices[(left + right) >>> 1])[dimension];
+			int i = left;
+			int j = right;
+			while (i <= j) {
+				while (points.get(indices[i])[dimension] < pivot)
+					i++;
+				while (points.get(indices[j])[dimension] > pivot)
+					j--;
+				if (i <= j) {
+					int swap = indices[i];
+					indices[i] = indices[j];
+					indices[j] = swap;
+					i++;
+					j--;
+				}
+			}
+			if (nth <= j) {
+				right = j;
+			} else if (nth >= i) {
+				left = i;
+			} else {
+				return;
+			}
+		}
+	}
+}
@@ -0,0 +1,676 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2011 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.tools.math.function;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Stack;
+
+import org.nfunk.jep.ASTConstant;
+import org.nfunk.jep.ASTFunNode;
+import org.nfunk.jep.ASTVarNode;
+import org.nfunk.jep.JEP;
+import org.nfunk.jep.Node;
+import org.nfunk.jep.ParseException;
+import org.nfunk.jep.Variable;
+import org.nfunk.jep.function.Abs;
+import org.nfunk.jep.function.Add;
+import org.nfunk.jep.function.ArcTangent;
+import org.nfunk.jep.function.CallbackEvaluationI;
+import org.nfunk.jep.function.Ceil;
+import org.nfunk.jep.function.Comparative;
+import org.nfunk.jep.function.Cosine;
+import org.nfunk.jep.function.Divide;
+import org.nfunk.jep.function.Exp;
+import org.nfunk.jep.function.Floor;
+import org.nfunk.jep.function.If;
+import org.nfunk.jep.function.Logical;
+import org.nfunk.jep.function.Modulus;
+import org.nfunk.jep.function.Multiply;
+import org.nfunk.jep.function.Not;
+import org.nfunk.jep.function.PostfixMathCommandI;
+import org.nfunk.jep.function.Sine;
+import org.nfunk.jep.function.Subtract;
+import org.nfunk.jep.function.Tangent;
+import org.nfunk.jep.function.UMinus;
+import org.nfunk.jep.type.Complex;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.table.NumericalAttribute;
+import com.rapidminer.tools.Ontology;
+
+/**
+ * An expression which was parsed by {@link JEP} and compiled into a tree of typed nodes. The
+ * nodes read the values of the used attributes from the columns of a batch of examples instead
+ * of the variables of the parser, which therefore do not have to be set for each example.
+ * Arithmetic operators, comparisons, boolean operators and elementary functions on numbers are
+ * evaluated on primitive doubles, comparisons of nominal attributes with string constants use
+ * the index of the constant in the mapping of the attribute. All other functions are invoked in
+ * the same way as by the evaluator of JEP, hence all functions of the parser can be used.
+ * 
+ * Instances must not be shared between threads, since the functions keep state during the
+ * evaluation.
+ * 
+ * @author Ingo Mierswa
+ */
+public class CompiledExpression {
+
+	/** A node of the compiled expression tree. */
+	private static abstract class ExpressionNode {
+
+		/** Returns true if this node always delivers a {@link Double}, so that {@link #getDoubleValue(double[][], int)} can be used. */
+		public boolean isNumerical() {
+			return false;
+		}
+
+		public Object getValue(double[][] columns, int row) throws ParseException {
+			return Double.valueOf(getDoubleValue(columns, row));
+		}
+
+		public double getDoubleValue(double[][] columns, int row) throws ParseException {
+			return ((Number) getValue(columns, row)).doubleValue();
+		}
+	}
+
+	private static class ConstantNode extends ExpressionNode {
+
+		private final Object value;
+
+		private final double doubleValue;
+
+		public ConstantNode(Object value) {
+			this.value = value;
+			this.doubleValue = isNumerical() ? ((Double) value).doubleValue() : Double.NaN;
+		}
+
+		@Override
+		public boolean isNumerical() {
+			return value instanceof Double;
+		}
+
+		@Override
+		public Object getValue(double[][] columns, int row) {
+			return value;
+		}
+
+		@Override
+		public double getDoubleValue(double[][] columns, int row) {
+			return doubleValue;
+		}
+	}
+
+	private static class NumericalAttributeNode extends ExpressionNode {
+
+		private final int column;
+
+		public NumericalAttributeNode(int column) {
+			this.column = column;
+		}
+
+		@Override
+		public boolean isNumerical() {
+			return true;
+		}
+
+		@Override
+		public double getDoubleValue(double[][] columns, int row) {
+			return columns[column][row];
+		}
+	}
+
+	private static class NominalAttributeNode extends ExpressionNode {
+
+		private final int column;
+
+		private final Attribute attribute;
+
+		public NominalAttributeNode(int column, Attribute attribute) {
+			this.column = column;
+			this.attribute = attribute;
+		}
+
+		@Override
+		public Object getValue(double[][] columns, int row) {
+			double value = columns[column][row];
+			if (Double.isNaN(value)) {
+				return UnknownValue.UNKNOWN_NOMINAL;
+			} else {
+				return attribute.getAsString(value, NumericalAttribute.UNLIMITED_NUMBER_OF_DIGITS, false);
+			}
+		}
+	}
+
+	private static class DateAttributeNode extends ExpressionNode {
+
+		private final int column;
+
+		public DateAttributeNode(int column) {
+			this.column = column;
+		}
+
+		@Override
+		public Object getValue(double[][] columns, int row) {
+			double value = columns[column][row];
+			if (Double.isNaN(value)) {
+				return UnknownValue.UNKNOWN_DATE;
+			} else {
+				// functions might modify the calendar
+				Calendar calendar = Calendar.getInstance();
+				calendar.setTime(new Date((long) value));
+				return calendar;
+			}
+		}
+	}
+
+	/** Compares the value of a nominal attribute with a string constant by its index in the mapping. */
+	private static class NominalComparisonNode extends ExpressionNode {
+
+		private final int column;
+
+		private final int index;
+
+		private final boolean equal;
+
+		public NominalComparisonNode(int column, int index, boolean equal) {
+			this.column = column;
+			this.index = index;
+			this.equal = equal;
+		}
+
+		@Override
+		public boolean isNumerical() {
+			return true;
+		}
+
+		@Override
+		public double getDoubleValue(double[][] columns, int row) {
+			double value = columns[column][row];
+			boolean matches = index >= 0 && !Double.isNaN(value) && (int) value == index;
+			return matches == equal ? 1.0d : 0.0d;
+		}
+	}
+
+	private static class AddNode extends ExpressionNode {
+
+		private final ExpressionNode[] children;
+
+		public AddNode(ExpressionNode[] children) {
+			this.children = children;
+		}
+
+		@Override
+		public boolean isNumerical() {
+			return true;
+		}
+
+		@Override
+		public double getDoubleValue(double[][] columns, int row) throws ParseException {
+			// summing up from the right like the parser does
+			double sum = children[children.length - 1].getDoubleValue(columns, row);
+			for (int i = children.length - 2; i >= 0; i--) {
+				sum = children[i].getDoubleValue(columns, row) + sum;
+			}
+			return sum;
+		}
+	}
+
+	private static class MultiplyNode extends ExpressionNode {
+
+		private final ExpressionNode[] children;
+
+		public MultiplyNode(ExpressionNode[] children) {
+			this.children = children;
+		}
+
+		@Override
+		public boolean isNumerical() {
+			return true;
+		}
+
+		@Override
+		public double getDoubleValue(double[][] columns, int row) throws ParseException {
+			double product = children[children.length - 1].getDoubleValue(columns, row);
+			for (int i = children.length - 2; i >= 0; i--) {
+				product = children[i].getDoubleValue(columns, row) * product;
+			}
+			return product;
+		}
+	}
+
+	private static class BinaryOperatorNode extends ExpressionNode {
+
+		private static final int SUBTRACT = 0;
+		private static final int DIVIDE = 1;
+		private static final int MODULUS = 2;
+		private static final int AND = 3;
+		private static final int OR = 4;
+		private static final int LT = 5;
+		private static final int GT = 6;
+		private static final int LE = 7;
+		private static final int GE = 8;
+		private static final int NE = 9;
+		private static final int EQ = 10;
+
+		private final int operator;
+
+		private final ExpressionNode left;
+
+		private final ExpressionNode right;
+
+		public BinaryOperatorNode(int operator, ExpressionNode left, ExpressionNode right) {
+			this.operator = operator;
+			this.left = left;
+			this.right = right;
+		}
+
+		@Override
+		public boolean isNumerical() {
+			return true;
+		}
+
+		@Override
+		public double getDoubleValue(double[][] columns, int row) throws ParseException {
+			// both sides are always evaluated like by the parser
+			double a = left.getDoubleValue(columns, row);
+			double b = right.getDoubleValue(columns, row);
+			switch (operator) {
+			case SUBTRACT:
+				return a - b;
+			case DIVIDE:
+				return a / b;
+			case MODULUS:
+				return a % b;
+			case AND:
+				return a != 0 && b != 0 ? 1.0d : 0.0d;
+			case OR:
+				return a != 0 || b != 0 ? 1.0d : 0.0d;
+			case LT:
+				return a < b ? 1.0d : 0.0d;
+			case GT:
+				return a > b ? 1.0d : 0.0d;
+			case LE:
+				return a <= b ? 1.0d : 0.0d;
+			case GE:
+				return a >= b ? 1.0d : 0.0d;
+			case NE:
+				return a != b ? 1.0d : 0.0d;
+			case EQ:
+				return a == b ? 1.0d : 0.0d;
+			default:
+				throw new ParseException("Unknown operator");
+			}
+		}
+	}
+
+	private static class UnaryFunctionNode extends ExpressionNode {
+
+		private static final int NEGATE = 0;
+		private static final int NOT = 1;
+		private static final int SIN = 2;
+		private static final int COS = 3;
+		private static final int TAN = 4;
+		private static final int ATAN = 5;
+		private static final int ABS = 6;
+		private static final int EXP = 7;
+		private static final int FLOOR = 8;
+		private static final int CEIL = 9;
+
+		private final int function;
+
+		private final ExpressionNode argument;
+
+		public UnaryFunctionNode(int function, ExpressionNode argument) {
+			this.function = function;
+			this.argument = argument;
+		}
+
+		@Override
+		public boolean isNumerical() {
+			return true;
+		}
+
+		@Override
+		public double getDoubleValue(double[][] columns, int row) throws ParseException {
+			double value = argument.getDoubleValue(columns, row);
+			switch (function) {
+			case NEGATE:
+				return -value;
+			case NOT:
+				return value == 0 ? 1.0d : 0.0d;
+			case SIN:
+				return Math.sin(value);
+			case COS:
+				return Math.cos(value);
+			case TAN:
+				return Math.tan(value);
+			case ATAN:
+				return Math.atan(value);
+			case ABS:
+				return Math.abs(value);
+			case EXP:
+				return Math.exp(value);
+			case FLOOR:
+				return Math.floor(value);
+			case CEIL:
+				return Math.ceil(value);
+			default:
+				throw new ParseException("Unknown function");
+			}
+		}
+	}
+
+	/** Evaluates only the selected branch, with the same semantics as {@link If}. */
+	private static class IfNode extends ExpressionNode {
+
+		private final ExpressionNode[] children;
+
+		private final boolean numerical;
+
+		public IfNode(ExpressionNode[] children) {
+			this.children = children;
+			boolean numerical = true;
+			for (int i = 1; i < children.length; i++) {
+				numerical &= children[i].isNumerical();
+			}
+			this.numerical = numerical;
+		}
+
+		@Override
+		public boolean isNumerical() {
+			return numerical;
+		}
+
+		@Override
+		public Object getValue(double[][] columns, int row) throws ParseException {
+			return selectBranch(columns, row).getValue(columns, row);
+		}
+
+		@Override
+		public double getDoubleValue(double[][] columns, int row) throws ParseException {
+			return selectBranch(columns, row).getDoubleValue(columns, row);
+		}
+
+		private ExpressionNode selectBranch(double[][] columns, int row) throws ParseException {
+			double condition;
+			if (children[0].isNumerical()) {
+				condition = children[0].getDoubleValue(columns, row);
+			} else {
+				Object value = children[0].getValue(columns, row);
+				if (value instanceof Boolean) {
+					return ((Boolean) value).booleanValue() ? children[1] : children[2];
+				} else if (value instanceof Complex) {
+					condition = ((Complex) value).re();
+				} else if (value instanceof Number) {
+					condition = ((Number) value).doubleValue();
+				} else {
+					throw new ParseException("Condition in if operator must be double or complex");
+				}
+			}
+			if (condition > 0) {
+				return children[1];
+			} else if (children.length == 3 || condition < 0) {
+				return children[2];
+			} else {
+				return children[3];
+			}
+		}
+	}
+
+	/** Invokes an arbitrary function of the parser on the values of the children. */
+	private static class FunctionNode extends ExpressionNode {
+
+		private final PostfixMathCommandI function;
+
+		private final ExpressionNode[] children;
+
+		private final Stack<Object> stack;
+
+		public FunctionNode(PostfixMathCommandI function, ExpressionNode[] children, Stack<Object> stack) {
+			this.function = function;
+			this.children = children;
+			this.stack = stack;
+		}
+
+		@Override
+		public Object getValue(double[][] columns, int row) throws ParseException {
+			for (ExpressionNode child : children) {
+				stack.push(child.getValue(columns, row));
+			}
+			if (function.getNumberOfParameters() == -1) {
+				function.setCurNumberOfParameters(children.length);
+			}
+			function.run(stack);
+			return stack.pop();
+		}
+	}
+
+	private final Attribute[] attributes;
+
+	private final ExpressionNode root;
+
+	private CompiledExpression(Attribute[] attributes, ExpressionNode root) {
+		this.attributes = attributes;
+		this.root = root;
+	}
+
+	/**
+	 * Compiles the expression which was last parsed by the given parser. The variables which are
+	 * no constants must be the names of the given attributes, whose values are read from the
+	 * columns with the same index during evaluation.
+	 */
+	public static CompiledExpression compile(JEP parser, Attribute[] attributes) throws ParseException {
+		if (parser.getTopNode() == null) {
+			throw new ParseException("No expression was parsed");
+		}
+		return new CompiledExpression(attributes, compile(parser.getTopNode(), attributes, new Stack<Object>()));
+	}
+
+	private static ExpressionNode compile(Node node, Attribute[] attributes, Stack<Object> stack) throws ParseException {
+		if (node instanceof ASTConstant) {
+			return new ConstantNode(((ASTConstant) node).getValue());
+		} else if (node instanceof ASTVarNode) {
+			return compileVariable((ASTVarNode) node, attributes);
+		} else if (node instanceof ASTFunNode) {
+			ASTFunNode functionNode = (ASTFunNode) node;
+			PostfixMathCommandI function = functionNode.getPFMC();
+			if (function == null) {
+				throw new ParseException("No function class associated with " + functionNode.getName());
+			}
+			ExpressionNode[] children = new ExpressionNode[functionNode.jjtGetNumChildren()];
+			boolean numerical = true;
+			for (int i = 0; i < children.length; i++) {
+				children[i] = compile(functionNode.jjtGetChild(i), attributes, stack);
+				numerical &= children[i].isNumerical();
+			}
+
+			if (function.getClass() == If.class) {
+				if (children.length != 3 && children.length != 4) {
+					throw new ParseException("If operator must have 3 or 4 arguments.");
+				}
+				return new IfNode(children);
+			} else if (function instanceof CallbackEvaluationI) {
+				throw new ParseException("Function " + functionNode.getName() + " is not supported");
+			}
+
+			if (function.getClass() == Comparative.class && children.length == 2) {
+				ExpressionNode comparison = compileNominalComparison(functionNode, attributes);
+				if (comparison != null) {
+					return comparison;
+				}
+			}
+			if (numerical && children.length > 0) {
+				ExpressionNode numericalNode = compileNumerical(functionNode, children);
+				if (numericalNode != null) {
+					return numericalNode;
+				}
+			}
+			return new FunctionNode(function, children, stack);
+		} else {
+			throw new ParseException("No visit method for " + node.getClass().getName());
+		}
+	}
+
+	private static ExpressionNode compileVariable(ASTVarNode node, Attribute[] attributes) throws ParseException {
+		Variable variable = node.getVar();
+		if (variable == null) {
+			throw new ParseException("Could not evaluate " + node.getName() + ": the variable was not found in the symbol table");
+		}
+		if (variable.isConstant()) {
+			return new ConstantNode(variable.getValue());
+		}
+		for (int i = 0; i < attributes.length; i++) {
+			Attribute attribute = attributes[i];
+			if (attribute.getName().equals(variable.getName())) {
+				if (attribute.isNominal()) {
+					return new NominalAttributeNode(i, attribute);
+				} else if (Ontology.ATTRIBUTE_VALUE_TYPE.isA(attribute.getValueType(), Ontology.DATE_TIME)) {
+					return new DateAttributeNode(i);
+				} else {
+					return new NumericalAttributeNode(i);
+				}
+			}
+		}
+		throw new ParseException("No such attribute: '" + variable.getName() + "'");
+	}
+
+	/** Returns a node comparing a nominal attribute with a string constant, or null if the node does not compare them. */
+	private static ExpressionNode compileNominalComparison(ASTFunNode node, Attribute[] attributes) throws ParseException {
+		if (!node.isOperator()) {
+			return null;
+		}
+		String symbol = node.getOperator().getSymbol();
+		if (!"==".equals(symbol) && !"!=".equals(symbol)) {
+			return null;
+		}
+		Node variableNode = node.jjtGetChild(0);
+		Node constantNode = node.jjtGetChild(1);
+		if (!(variableNode instanceof ASTVarNode)) {
+			variableNode = node.jjtGetChild(1);
+			constantNode = node.jjtGetChild(0);
+		}
+		if (!(variableNode instanceof ASTVarNode) || !(constantNode instanceof ASTConstant) || !(((ASTConstant) constantNode).getValue() instanceof String)) {
+			return null;
+		}
+		String constant = (String) ((ASTConstant) constantNode).getValue();
+		// invalid indices are mapped to the question mark
+		if (constant.equals("?")) {
+			return null;
+		}
+		ExpressionNode variable = compileVariable((ASTVarNode) variableNode, attributes);
+		if (!(variable instanceof NominalAttributeNode)) {
+			return null;
+		}
+		NominalAttributeNode nominal = (NominalAttributeNode) variable;
+		return new NominalComparisonNode(nominal.column, nominal.attribute.getMapping().getIndex(constant), "==".equals(symbol));
+	}
+
+	/** Returns a node evaluating the function on doubles, or null if the function is not known. */
+	private static ExpressionNode compileNumerical(ASTFunNode node, ExpressionNode[] children) {
+		Class<?> functionClass = node.getPFMC().getClass();
+		if (functionClass == Add.class) {
+			return new AddNode(children);
+		} else if (functionClass == Multiply.class) {
+			return new MultiplyNode(children);
+		} else if (children.length == 2) {
+			int operator = -1;
+			if (functionClass == Subtract.class) {
+				operator = BinaryOperatorNode.SUBTRACT;
+			} else if (functionClass == Divide.class) {
+				operator = BinaryOperatorNode.DIVIDE;
+			} else if (functionClass == Modulus.class) {
+				operator = BinaryOperatorNode.MODULUS;
+			} else if (node.isOperator() && (functionClass == Logical.class || functionClass == Comparative.class)) {
+				String symbol = node.getOperator().getSymbol();
+				if (functionClass == Logical.class) {
+					if ("&&".equals(symbol)) {
+						operator = BinaryOperatorNode.AND;
+					} else if ("||".equals(symbol)) {
+						operator = BinaryOperatorNode.OR;
+					}
+				} else if ("<".equals(symbol)) {
+					operator = BinaryOperatorNode.LT;
+				} else if (">".equals(symbol)) {
+					operator = BinaryOperatorNode.GT;
+				} else if ("<=".equals(symbol)) {
+					operator = BinaryOperatorNode.LE;
+				} else if (">=".equals(symbol)) {
+					operator = BinaryOperatorNode.GE;
+				} else if ("!=".equals(symbol)) {
+					operator = BinaryOperatorNode.NE;
+				} else if ("==".equals(symbol)) {
+					operator = BinaryOperatorNode.EQ;
+				}
+			}
+			if (operator >= 0) {
+				return new BinaryOperatorNode(operator, children[0], children[1]);
+			}
+		} else if (children.length == 1) {
+			int function = -1;
+			if (functionClass == UMinus.class) {
+				function = UnaryFunctionNode.NEGATE;
+			} else if (functionClass == Not.class) {
+				function = UnaryFunctionNode.NOT;
+			} else if (functionClass == Sine.class) {
+				function = UnaryFunctionNode.SIN;
+			} else if (functionClass == Cosine.class) {
+				function = UnaryFunctionNode.COS;
+			} else if (functionClass == Tangent.class) {
+				function = UnaryFunctionNode.TAN;
+			} else if (functionClass == ArcTangent.class) {
+				function = UnaryFunctionNode.ATAN;
+			} else if (functionClass == Abs.class) {
+				function = UnaryFunctionNode.ABS;
+			} else if (functionClass == Exp.class) {
+				function = UnaryFunctionNode.EXP;
+			} else if (functionClass == Floor.class) {
+				function = UnaryFunctionNode.FLOOR;
+			} else if (functionClass == Ceil.class) {
+				function = UnaryFunctionNode.CEIL;
+			}
+			if (function >= 0) {
+				return new UnaryFunctionNode(function, children[0]);
+			}
+		}
+		return null;
+	}
+
+	/** Returns the attributes whose values are expected in the columns passed to the evaluation methods. */
+	public Attribute[] getAttributes() {
+		return attributes;
+	}
+
+	/** Returns true if the expression always delivers a number, so that {@link #getDoubleValue(double[][], int)} can be used. */
+	public boolean isNumerical() {
+		return root.isNumerical();
+	}
+
+	/** Evaluates the expression for the given row of the columns which hold the values of the attributes. */
+	public Object getValue(double[][] columns, int row) throws ParseException {
+		return root.getValue(columns, row);
+	}
+
+	/** Evaluates a numerical expression for the given row of the columns which hold the values of the attributes. */
+	public double getDoubleValue(double[][] columns, int row) throws ParseException {
+		return root.getDoubleValue(columns, row);
+	}
+}
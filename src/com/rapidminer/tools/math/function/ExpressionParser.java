@@ -24,18 +24,23 @@ package com.rapidminer.tools.math.function;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 
+import org.nfunk.jep.FunctionTable;
 import org.nfunk.jep.JEP;
+import org.nfunk.jep.ParseException;
 import org.nfunk.jep.SymbolTable;
 import org.nfunk.jep.Variable;
 import org.nfunk.jep.type.Complex;
@@ -53,12 +58,14 @@ import com.rapidminer.example.Example;
 import com.rapidminer.example.ExampleSet;
 import com.rapidminer.example.table.AttributeFactory;
 import com.rapidminer.generator.GenerationException;
+import com.rapidminer.operator.OperatorException;
 import com.rapidminer.operator.ports.metadata.AttributeMetaData;
 import com.rapidminer.operator.ports.metadata.ExampleSetMetaData;
 import com.rapidminer.operator.ports.metadata.SetRelation;
 import com.rapidminer.operator.preprocessing.filter.ChangeAttributeName;
 import com.rapidminer.tools.LoggingHandler;
 import com.rapidminer.tools.Ontology;
+import com.rapidminer.tools.ParallelExecutionService;
 import com.rapidminer.tools.RandomGenerator;
 import com.rapidminer.tools.Tools;
 import com.rapidminer.tools.math.function.expressions.Average;
@@ -287,6 +294,12 @@ import com.rapidminer.tools.math.function.expressions.text.UpperCase;
  * if (att1>5, att2*att3, -abs(att1))<br/>
  * </p>
  * 
+ * <p>
+ * New attributes are generated by parsing the expression once and evaluating a
+ * {@link CompiledExpression} for batches of examples, whose rows are
+ * partitioned across the threads of the {@link ParallelExecutionService}.
+ * </p>
+ * 
  * @author Ingo Mierswa
  */
 public class ExpressionParser {
@@ -557,8 +570,15 @@ public class ExpressionParser {
         FUNCTIONS.put(FUNCTION_GROUPS[7], miscellaneousFunctions);
     }
 
+    /** The number of examples which are evaluated by each thread per batch. */
+    private static final int BATCH_SIZE_PER_THREAD = 4096;
+
     private JEP parser;
 
+    private boolean useStandardConstants;
+
+    private Process process;
+
     public ExpressionParser(boolean useStandardConstants) {
         initParser(useStandardConstants);
     }
@@ -569,6 +589,7 @@ public class ExpressionParser {
     public ExpressionParser(boolean useStandardConstants, Process process) {
         this(useStandardConstants);
         if (process != null) {
+            this.process = process;
             parser.addFunction("param", new ParameterValue(process));
         }
     }
@@ -661,6 +682,7 @@ public class ExpressionParser {
     }
 
     public void initParser(boolean useStandardConstants) {
+        this.useStandardConstants = useStandardConstants;
         parser = new JEP();
         parser.addStandardFunctions();
         if (useStandardConstants)
@@ -842,39 +864,72 @@ public class ExpressionParser {
         exampleSet.getExampleTable().addAttribute(newAttribute);
         exampleSet.getAttributes().addRegular(newAttribute);
 
-        // create attribute of correct type and all values
-        for (Example example : exampleSet) {
-
-        	// assign values to the variables
-        	assignVariableValuesFromExample(parser, example, name2attributes);
+        // compile the expression for each thread, since the functions keep state during evaluation
+        Attribute[] attributes = name2attributes.values().toArray(new Attribute[name2attributes.size()]);
+        int numberOfThreads = Math.min(ParallelExecutionService.getNumberOfThreads(), (exampleSet.size() + BATCH_SIZE_PER_THREAD - 1) / BATCH_SIZE_PER_THREAD);
+        List<CompiledExpression> expressions = new ArrayList<CompiledExpression>(numberOfThreads);
+        try {
+            expressions.add(CompiledExpression.compile(parser, attributes));
+            for (int i = 1; i < numberOfThreads; i++) {
+                CompiledExpression expression = compileCopy(function, attributes);
+                if (expression == null) {
+                    break;
+                }
+                expressions.add(expression);
+            }
+        } catch (ParseException e) {
+            throw new GenerationException("Offending attribute: '" + name + "', Expression: '" + function + "', Error: '" + e.getMessage() + "'");
+        }
 
-            // calculate result
-            result = parser.getValueAsObject();
+        // create attribute of correct type and all values
+        int batchSize = BATCH_SIZE_PER_THREAD * expressions.size();
+        Iterator<Example> reader = exampleSet.iterator();
+        int remaining = exampleSet.size();
+        while (remaining > 0) {
+            // reading values of the used attributes
+            Example[] batch = new Example[Math.min(batchSize, remaining)];
+            remaining -= batch.length;
+            final double[][] columns = new double[attributes.length][batch.length];
+            for (int row = 0; row < batch.length; row++) {
+                batch[row] = reader.next();
+                for (int i = 0; i < attributes.length; i++) {
+                    columns[i][row] = batch[row].getValue(attributes[i]);
+                }
+            }
 
-            // check for errors
-            if (parser.hasError()) {
-            	throw new GenerationException("Offending attribute: '" + name + "', Expression: '" + function + "', Error: '" + parser.getErrorInfo() + "'");
+            List<Callable<Evaluation>> tasks = new ArrayList<Callable<Evaluation>>(expressions.size());
+            int chunkSize = (batch.length + expressions.size() - 1) / expressions.size();
+            for (int from = 0; from < batch.length; from += chunkSize) {
+                final CompiledExpression expression = expressions.get(tasks.size());
+                final int chunkStart = from;
+                final int chunkEnd = Math.min(from + chunkSize, batch.length);
+                tasks.add(new Callable<Evaluation>() {
+                    public Evaluation call() {
+                        return new Evaluation(expression, columns, chunkStart, chunkEnd);
+                    }
+                });
+            }
+            List<Evaluation> evaluations;
+            try {
+                evaluations = ParallelExecutionService.execute(tasks, tasks.size(), "Expression");
+            } catch (OperatorException e) {
+                throw new GenerationException("Offending attribute: '" + name + "', Expression: '" + function + "', Error: '" + e.getMessage() + "'", e);
             }
 
-            // store result
-            if (result instanceof Boolean) {
-                if ((Boolean) result) {
-                    example.setValue(newAttribute, newAttribute.getMapping().mapString("true"));
-                } else {
-                    example.setValue(newAttribute, newAttribute.getMapping().mapString("false"));
+            // writing results sequentially, since the mapping of the new attribute is extended
+            int row = 0;
+            for (Evaluation evaluation : evaluations) {
+                for (int i = 0; i < evaluation.size; i++) {
+                    if (i == evaluation.errorRow) {
+                        throw new GenerationException("Offending attribute: '" + name + "', Expression: '" + function + "', Error: '" + evaluation.error + "'");
+                    }
+                    if (evaluation.values != null) {
+                        batch[row].setValue(newAttribute, evaluation.values[i]);
+                    } else {
+                        setResult(batch[row], newAttribute, evaluation.results[i]);
+                    }
+                    row++;
                 }
-            } else if (result instanceof Number) {
-                example.setValue(newAttribute, ((Number) result).doubleValue());
-            } else if (result instanceof Complex) {
-                example.setValue(newAttribute, ((Complex) result).doubleValue());
-            } else if (result instanceof Date) {
-                example.setValue(newAttribute, ((Date) result).getTime());
-            } else if (result instanceof Calendar) {
-                example.setValue(newAttribute, ((Calendar) result).getTimeInMillis());
-            } else if (result instanceof UnknownValue) {
-                example.setValue(newAttribute, Double.NaN);
-            } else {
-                example.setValue(newAttribute, newAttribute.getMapping().mapString(result.toString()));
             }
         }
         
@@ -896,6 +951,110 @@ public class ExpressionParser {
         return newAttribute;
     }
     
+    /**
+     * Parses the function with a new parser and compiles it, so that the copy can
+     * be evaluated concurrently. Returns null if the new parser does not know the
+     * same functions and constants as this parser.
+     */
+    private CompiledExpression compileCopy(String function, Attribute[] attributes) throws ParseException {
+        ExpressionParser copy = new ExpressionParser(useStandardConstants, process);
+        JEP copyParser = copy.getParser();
+        FunctionTable functions = parser.getFunctionTable();
+        FunctionTable copyFunctions = copyParser.getFunctionTable();
+        if (functions.size() != copyFunctions.size()) {
+            return null;
+        }
+        for (Object nameObj : functions.keySet()) {
+            Object copyFunction = copyFunctions.get(nameObj);
+            if (copyFunction == null || copyFunction.getClass() != functions.get(nameObj).getClass()) {
+                return null;
+            }
+        }
+        for (Object variableObj : parser.getSymbolTable().values()) {
+            Variable variable = (Variable) variableObj;
+            if (variable.isConstant()) {
+                Variable copyVariable = copyParser.getVar(variable.getName());
+                if (copyVariable == null || !copyVariable.isConstant() || !Tools.equals(variable.getValue(), copyVariable.getValue())) {
+                    return null;
+                }
+            }
+        }
+
+        copyParser.setAllowUndeclared(true);
+        copyParser.parseExpression(function);
+        if (copyParser.hasError()) {
+            return null;
+        }
+        return CompiledExpression.compile(copyParser, attributes);
+    }
+
+    /** Stores the result of the expression as value of the given attribute. */
+    private static void setResult(Example example, Attribute attribute, Object result) {
+        if (result instanceof Boolean) {
+            if ((Boolean) result) {
+                example.setValue(attribute, attribute.getMapping().mapString("true"));
+            } else {
+                example.setValue(attribute, attribute.getMapping().mapString("false"));
+            }
+        } else if (result instanceof Number) {
+            example.setValue(attribute, ((Number) result).doubleValue());
+        } else if (result instanceof Complex) {
+            example.setValue(attribute, ((Complex) result).doubleValue());
+        } else if (result instanceof Date) {
+            example.setValue(attribute, ((Date) result).getTime());
+        } else if (result instanceof Calendar) {
+            example.setValue(attribute, ((Calendar) result).getTimeInMillis());
+        } else if (result instanceof UnknownValue) {
+            example.setValue(attribute, Double.NaN);
+        } else {
+            example.setValue(attribute, attribute.getMapping().mapString(result.toString()));
+        }
+    }
+
+    /**
+     * The results of evaluating a compiled expression for a range of rows. The
+     * evaluation stops at the first row causing an error, which is reported
+     * like the parser does.
+     */
+    private static class Evaluation {
+
+        private int size;
+
+        private double[] values;
+
+        private Object[] results;
+
+        private int errorRow = -1;
+
+        private String error;
+
+        public Evaluation(CompiledExpression expression, double[][] columns, int start, int end) {
+            this.size = end - start;
+            if (expression.isNumerical()) {
+                values = new double[size];
+            } else {
+                results = new Object[size];
+            }
+            for (int row = start; row < end; row++) {
+                try {
+                    if (values != null) {
+                        values[row - start] = expression.getDoubleValue(columns, row);
+                    } else {
+                        results[row - start] = expression.getValue(columns, row);
+                    }
+                } catch (ParseException e) {
+                    errorRow = row - start;
+                    error = "Error during evaluation: " + e.getMessage() + "\n";
+                    break;
+                } catch (RuntimeException e) {
+                    errorRow = row - start;
+                    error = e.getClass().getName() + ": " + e.getMessage() + "\n";
+                    break;
+                }
+            }
+        }
+    }
+
     /**
      * Make the exampleSet's attributes available to the parser as variables.
      * Returns a map which is used by {@link #assignVariableValuesFromExample(JEP, Example, Map)}.
@@ -24,9 +24,8 @@ package com.rapidminer.tools.math.matrix;
 
 import Jama.Matrix;
 
-import com.rapidminer.example.Attribute;
-import com.rapidminer.example.Example;
 import com.rapidminer.example.ExampleSet;
+import com.rapidminer.operator.OperatorException;
 
 /**
  * This helper class can be used to calculate a covariance matrix from given
@@ -37,21 +36,21 @@ import com.rapidminer.example.ExampleSet;
 public class CovarianceMatrix {
 
 
-    /** Transforms the example set into a double matrix (doubling the amount of used memory)
-     *  and invokes {@link #getCovarianceMatrix(double[][])}. */
+    /** Returns the covariance matrix of the regular attributes of the example set. The matrix is
+     *  calculated in a single (parallel) pass over the examples without copying the data,
+     *  see {@link CovarianceStatistics}. */
     public static Matrix getCovarianceMatrix(ExampleSet exampleSet) {
-        double[][] data = new double[exampleSet.size()][exampleSet.getAttributes().size()];
-        int r = 0;
-        for (Example example : exampleSet) {
-            int c = 0;
-            for (Attribute attribute : exampleSet.getAttributes()) {
-                data[r][c] = example.getValue(attribute);
-                c++;
-            }
-            r++;
+        if (exampleSet.size() == 0) {
+            throw new IllegalArgumentException("Calculation of covariance matrices not possible for data sets with zero rows.");
+        }
+        if (exampleSet.getAttributes().size() == 0) {
+            throw new IllegalArgumentException("Calculation of covariance matrices not possible for data sets with zero columns.");
+        }
+        try {
+            return CovarianceStatistics.calculate(exampleSet, exampleSet.getAttributes().createRegularAttributeArray(), false).getCovarianceMatrix();
+        } catch (OperatorException e) {
+            throw new RuntimeException("Calculation of covariance matrix failed: " + e.getMessage(), e);
         }
-
-        return getCovarianceMatrix(data);
     }
 
     /** Returns the covariance matrix from the given double matrix. */
@@ -0,0 +1,371 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2011 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.tools.math.matrix;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import Jama.Matrix;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.Example;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.tools.ParallelExecutionService;
+
+/**
+ * The sufficient statistics for the covariances and correlations of a set of attributes: the
+ * number of rows, the means, and the co-moments, i.e. the sums of products of the deviations
+ * from the means. They are calculated by {@link #calculate(ExampleSet, Attribute[], boolean)}
+ * in a single pass over the examples without copying the data. The rows are read in small
+ * blocks which are centered at their own mean and merged into the running statistics with the
+ * pairwise update of Chan et al., which is numerically as stable as Welford's algorithm. For
+ * each attribute, the co-moments with all following attributes are updated for all rows of a
+ * block before the next attribute is processed, such that this part of the co-moment matrix
+ * stays in the cache. Partitions of rows are processed in parallel and merged in the same way.
+ *
+ * If missing values are ignored, rows containing missing values are added to statistics kept
+ * for each pair of attributes, such that each covariance and correlation is calculated from all
+ * rows in which both values are known. These statistics are only allocated if missing values
+ * actually occur. Otherwise, missing values lead to unknown covariances and correlations.
+ *
+ * @author Sebastian Land
+ */
+public class CovarianceStatistics {
+
+	/** The minimal number of rows for which an additional partition is processed in parallel. */
+	private static final int MIN_ROWS_PER_PARTITION = 1000;
+
+	/** The maximal number of bytes used for the values of a block of rows. */
+	private static final int BLOCK_BYTES = 1 << 18;
+
+	private static final int MAX_BLOCK_ROWS = 1024;
+
+	private final int numberOfAttributes;
+
+	private final boolean ignoreMissings;
+
+	/** The number of rows added to the means and co-moments, i.e. all rows without missing values. */
+	private long count = 0;
+
+	private final double[] means;
+
+	/** The upper triangle of the co-moment matrix, i.e. the co-moment of i and j >= i is stored at [i][j - i]. */
+	private final double[][] comoments;
+
+	/** The block of rows which are not yet added and its size. */
+	private final double[][] block;
+
+	private int blockSize = 0;
+
+	/** The statistics of the rows with missing values, stored like the co-moments. Allocated on the first such row. */
+	private long[][] pairCounts;
+
+	private double[][] pairMeansFirst;
+
+	private double[][] pairMeansSecond;
+
+	private double[][] pairSquaresFirst;
+
+	private double[][] pairSquaresSecond;
+
+	private double[][] pairComoments;
+
+	private CovarianceStatistics(int numberOfAttributes, boolean ignoreMissings) {
+		this.numberOfAttributes = numberOfAttributes;
+		this.ignoreMissings = ignoreMissings;
+		this.means = new double[numberOfAttributes];
+		this.comoments = createTriangle(numberOfAttributes);
+		this.block = new double[getBlockRows(numberOfAttributes)][numberOfAttributes];
+	}
+
+	/**
+	 * Calculates the statistics of the given attributes over all examples of the example set.
+	 * If the example set is large enough, partitions of it are processed in parallel using
+	 * {@link ParallelExecutionService}. Apart from rounding, the result does not depend on the
+	 * number of partitions.
+	 *
+	 * @param ignoreMissings if true, each pair of attributes is evaluated on all rows where both
+	 *        values are known. If false, missing values lead to unknown results.
+	 */
+	public static CovarianceStatistics calculate(final ExampleSet exampleSet, final Attribute[] attributes, final boolean ignoreMissings) throws OperatorException {
+		final int numberOfAttributes = attributes.length;
+		long memoryPerPartition = 8L * ((long) numberOfAttributes * (numberOfAttributes + 1) / 2 + (long) getBlockRows(numberOfAttributes) * numberOfAttributes);
+		int size = exampleSet.size();
+		int numberOfPartitions = Math.min(ParallelExecutionService.getNumberOfThreads(0, memoryPerPartition), Math.max(1, size / MIN_ROWS_PER_PARTITION));
+		if (numberOfPartitions <= 1) {
+			CovarianceStatistics statistics = new CovarianceStatistics(numberOfAttributes, ignoreMissings);
+			for (Example example : exampleSet) {
+				statistics.add(example, attributes);
+			}
+			statistics.flushBlock();
+			return statistics;
+		}
+
+		List<Callable<CovarianceStatistics>> tasks = new ArrayList<Callable<CovarianceStatistics>>(numberOfPartitions);
+		for (int partition = 0; partition < numberOfPartitions; partition++) {
+			final int start = (int) ((long) size * partition / numberOfPartitions);
+			final int end = (int) ((long) size * (partition + 1) / numberOfPartitions);
+			tasks.add(new Callable<CovarianceStatistics>() {
+				public CovarianceStatistics call() {
+					CovarianceStatistics statistics = new CovarianceStatistics(numberOfAttributes, ignoreMissings);
+					for (int row = start; row < end; row++) {
+						statistics.add(exampleSet.getExample(row), attributes);
+					}
+					statistics.flushBlock();
+					return statistics;
+				}
+			});
+		}
+		List<CovarianceStatistics> partitions = ParallelExecutionService.execute(tasks, numberOfPartitions, "Covariance");
+		CovarianceStatistics statistics = partitions.get(0);
+		for (int partition = 1; partition < partitions.size(); partition++) {
+			statistics.merge(partitions.get(partition));
+		}
+		return statistics;
+	}
+
+	/** Returns the number of attributes, i.e. the dimension of the covariance matrix. */
+	public int getNumberOfAttributes() {
+		return numberOfAttributes;
+	}
+
+	/** Returns the (sample) covariance of the attributes with the given indices. */
+	public double getCovariance(int first, int second) {
+		double[] statistics = getPairStatistics(first, second);
+		return statistics[3] / (statistics[0] - 1);
+	}
+
+	/** Returns the (sample) variance of the attribute with the given index. */
+	public double getVariance(int attribute) {
+		return getCovariance(attribute, attribute);
+	}
+
+	/** Returns the Pearson correlation of the attributes with the given indices. */
+	public double getCorrelation(int first, int second) {
+		double[] statistics = getPairStatistics(first, second);
+		return statistics[3] / Math.sqrt(statistics[1] * statistics[2]);
+	}
+
+	/** Returns the matrix of the (sample) covariances of all attributes. */
+	public Matrix getCovarianceMatrix() {
+		double[][] covariances = new double[numberOfAttributes][numberOfAttributes];
+		for (int i = 0; i < numberOfAttributes; i++) {
+			for (int j = i; j < numberOfAttributes; j++) {
+				double covariance = getCovariance(i, j);
+				covariances[i][j] = covariance;
+				covariances[j][i] = covariance;
+			}
+		}
+		return new Matrix(covariances);
+	}
+
+	/** Reads the values of the example into the current block or adds them to the pair statistics if a value is missing. */
+	private void add(Example example, Attribute[] attributes) {
+		double[] values = block[blockSize];
+		boolean missing = false;
+		for (int i = 0; i < numberOfAttributes; i++) {
+			values[i] = example.getValue(attributes[i]);
+			missing |= Double.isNaN(values[i]);
+		}
+		if (missing && ignoreMissings) {
+			addToPairs(values);
+		} else {
+			blockSize++;
+			if (blockSize == block.length) {
+				flushBlock();
+			}
+		}
+	}
+
+	/** Adds the rows of the current block to the means and co-moments. */
+	private void flushBlock() {
+		if (blockSize == 0) {
+			return;
+		}
+		double[] delta = new double[numberOfAttributes];
+		for (int row = 0; row < blockSize; row++) {
+			double[] values = block[row];
+			for (int i = 0; i < numberOfAttributes; i++) {
+				delta[i] += values[i];
+			}
+		}
+		for (int i = 0; i < numberOfAttributes; i++) {
+			double blockMean = delta[i] / blockSize;
+			for (int row = 0; row < blockSize; row++) {
+				block[row][i] -= blockMean;
+			}
+			delta[i] = blockMean - means[i];
+		}
+
+		long total = count + blockSize;
+		double factor = (double) count * blockSize / total;
+		for (int i = 0; i < numberOfAttributes; i++) {
+			double[] comomentRow = comoments[i];
+			for (int row = 0; row < blockSize; row++) {
+				double[] values = block[row];
+				double value = values[i];
+				for (int j = i; j < numberOfAttributes; j++) {
+					comomentRow[j - i] += value * values[j];
+				}
+			}
+			double scaledDelta = delta[i] * factor;
+			for (int j = i; j < numberOfAttributes; j++) {
+				comomentRow[j - i] += scaledDelta * delta[j];
+			}
+		}
+		for (int i = 0; i < numberOfAttributes; i++) {
+			means[i] += delta[i] * blockSize / total;
+		}
+		count = total;
+		blockSize = 0;
+	}
+
+	/** Adds a row with missing values to the statistics of all pairs of known values. */
+	private void addToPairs(double[] values) {
+		allocatePairs();
+		for (int i = 0; i < numberOfAttributes; i++) {
+			double first = values[i];
+			if (Double.isNaN(first)) {
+				continue;
+			}
+			for (int j = i; j < numberOfAttributes; j++) {
+				double second = values[j];
+				if (Double.isNaN(second)) {
+					continue;
+				}
+				int k = j - i;
+				long n = ++pairCounts[i][k];
+				double deltaFirst = first - pairMeansFirst[i][k];
+				double deltaSecond = second - pairMeansSecond[i][k];
+				pairMeansFirst[i][k] += deltaFirst / n;
+				pairMeansSecond[i][k] += deltaSecond / n;
+				pairSquaresFirst[i][k] += deltaFirst * (first - pairMeansFirst[i][k]);
+				pairSquaresSecond[i][k] += deltaSecond * (second - pairMeansSecond[i][k]);
+				pairComoments[i][k] += deltaFirst * (second - pairMeansSecond[i][k]);
+			}
+		}
+	}
+
+	/** Merges the statistics of another partition into these statistics. */
+	private void merge(CovarianceStatistics other) {
+		if (other.count > 0) {
+			long total = count + other.count;
+			double factor = (double) count * other.count / total;
+			double[] delta = new double[numberOfAttributes];
+			for (int i = 0; i < numberOfAttributes; i++) {
+				delta[i] = other.means[i] - means[i];
+			}
+			for (int i = 0; i < numberOfAttributes; i++) {
+				double[] comomentRow = comoments[i];
+				double[] otherRow = other.comoments[i];
+				double scaledDelta = delta[i] * factor;
+				for (int j = i; j < numberOfAttributes; j++) {
+					comomentRow[j - i] += otherRow[j - i] + scaledDelta * delta[j];
+				}
+			}
+			for (int i = 0; i < numberOfAttributes; i++) {
+				means[i] += delta[i] * other.count / total;
+			}
+			count = total;
+		}
+
+		if (other.pairCounts != null) {
+			allocatePairs();
+			for (int i = 0; i < numberOfAttributes; i++) {
+				for (int k = 0; k < numberOfAttributes - i; k++) {
+					long otherCount = other.pairCounts[i][k];
+					if (otherCount == 0) {
+						continue;
+					}
+					long total = pairCounts[i][k] + otherCount;
+					double factor = (double) pairCounts[i][k] * otherCount / total;
+					double deltaFirst = other.pairMeansFirst[i][k] - pairMeansFirst[i][k];
+					double deltaSecond = other.pairMeansSecond[i][k] - pairMeansSecond[i][k];
+					pairMeansFirst[i][k] += deltaFirst * otherCount / total;
+					pairMeansSecond[i][k] += deltaSecond * otherCount / total;
+					pairSquaresFirst[i][k] += other.pairSquaresFirst[i][k] + deltaFirst * deltaFirst * factor;
+					pairSquaresSecond[i][k] += other.pairSquaresSecond[i][k] + deltaSecond * deltaSecond * factor;
+					pairComoments[i][k] += other.pairComoments[i][k] + deltaFirst * deltaSecond * factor;
+					pairCounts[i][k] = total;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of rows, the sums of squared deviations of both attributes and their
+	 * co-moment for the given pair, combining the rows without and with missing values.
+	 */
+	private double[] getPairStatistics(int first, int second) {
+		int i = Math.min(first, second);
+		int j = Math.max(first, second);
+		int k = j - i;
+		double n = count;
+		double squaresFirst = comoments[i][0];
+		double squaresSecond = comoments[j][0];
+		double comoment = comoments[i][k];
+		if (pairCounts != null && pairCounts[i][k] > 0) {
+			long pairCount = pairCounts[i][k];
+			double factor = n * pairCount / (n + pairCount);
+			double deltaFirst = pairMeansFirst[i][k] - means[i];
+			double deltaSecond = pairMeansSecond[i][k] - means[j];
+			squaresFirst += pairSquaresFirst[i][k] + deltaFirst * deltaFirst * factor;
+			squaresSecond += pairSquaresSecond[i][k] + deltaSecond * deltaSecond * factor;
+			comoment += pairComoments[i][k] + deltaFirst * deltaSecond * factor;
+			n += pairCount;
+		}
+		if (first > second) {
+			return new double[] { n, squaresSecond, squaresFirst, comoment };
+		} else {
+			return new double[] { n, squaresFirst, squaresSecond, comoment };
+		}
+	}
+
+	private void allocatePairs() {
+		if (pairCounts == null) {
+			pairCounts = new long[numberOfAttributes][];
+			for (int i = 0; i < numberOfAttributes; i++) {
+				pairCounts[i] = new long[numberOfAttributes - i];
+			}
+			pairMeansFirst = createTriangle(numberOfAttributes);
+			pairMeansSecond = createTriangle(numberOfAttributes);
+			pairSquaresFirst = createTriangle(numberOfAttributes);
+			pairSquaresSecond = createTriangle(numberOfAttributes);
+			pairComoments = createTriangle(numberOfAttributes);
+		}
+	}
+
+	private static double[][] createTriangle(int size) {
+		double[][] triangle = new double[size][];
+		for (int i = 0; i < size; i++) {
+			triangle[i] = new double[size - i];
+		}
+		return triangle;
+	}
+
+	private static int getBlockRows(int numberOfAttributes) {
+		return Math.max(1, Math.min(MAX_BLOCK_ROWS, BLOCK_BYTES / (8 * Math.max(1, numberOfAttributes))));
+	}
+}
@@ -0,0 +1,157 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2011 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.example.test;
+
+import static com.rapidminer.test.utils.RapidAssert.assertEqualsNaN;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.Example;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.table.AttributeFactory;
+import com.rapidminer.example.table.ColumnarExampleTable;
+import com.rapidminer.example.table.DataRow;
+import com.rapidminer.example.table.DataRowFactory;
+import com.rapidminer.example.table.DoubleArrayDataRow;
+import com.rapidminer.example.table.MemoryExampleTable;
+import com.rapidminer.operator.preprocessing.join.ExampleSetMerge;
+import com.rapidminer.test.TestContext;
+import com.rapidminer.tools.OperatorService;
+import com.rapidminer.tools.Ontology;
+
+
+/**
+ * Tests that the {@link ColumnarExampleTable} delivers the same values as the
+ * {@link MemoryExampleTable}, including widened columns and missing values.
+ *
+ * @author Sebastian Land
+ */
+public class ColumnarExampleTableTest {
+
+	@Test
+	public void testSameValuesAsMemoryTable() {
+		Attribute[] attributes = ExampleTestTools.createFourAttributes();
+		MemoryExampleTable memoryTable = new MemoryExampleTable(Arrays.asList(attributes), ExampleTestTools.createDataRowReader(100, attributes));
+		ColumnarExampleTable columnarTable = new ColumnarExampleTable(Arrays.asList(attributes), memoryTable.getDataRowReader());
+		assertEquals(memoryTable.size(), columnarTable.size());
+		for (int row = 0; row < memoryTable.size(); row++) {
+			for (Attribute attribute : attributes) {
+				assertEqualsNaN("row " + row + ", " + attribute.getName(), memoryTable.getDataRow(row).get(attribute), columnarTable.getDataRow(row).get(attribute));
+			}
+		}
+	}
+
+	@Test
+	public void testWideningAndMissings() {
+		Attribute nominal = AttributeFactory.createAttribute("nominal", Ontology.NOMINAL);
+		Attribute numerical = AttributeFactory.createAttribute("numerical", Ontology.REAL);
+		ColumnarExampleTable table = new ColumnarExampleTable(nominal, numerical);
+		double[][] values = new double[][] {
+				{ 1, 0.5 },
+				{ Double.NaN, Double.NaN },
+				{ 300, Math.PI },
+				{ 100000, Double.POSITIVE_INFINITY },
+				{ 5, -17 }
+		};
+		for (double[] rowValues : values) {
+			table.addDataRow(new DoubleArrayDataRow(rowValues.clone()));
+		}
+		assertEquals(values.length, table.size());
+		for (int row = 0; row < values.length; row++) {
+			assertEqualsNaN("nominal " + row, values[row][0], table.getDataRow(row).get(nominal));
+			assertEqualsNaN("numerical " + row, values[row][1], table.getDataRow(row).get(numerical));
+		}
+
+		DataRow removed = table.removeDataRow(2);
+		assertEqualsNaN("removed", Math.PI, removed.get(numerical));
+		assertEquals(values.length - 1, table.size());
+		assertEqualsNaN("shifted", 100000, table.getDataRow(2).get(nominal));
+	}
+
+	@Test
+	public void testExampleSetAccess() {
+		Attribute[] attributes = ExampleTestTools.createFourAttributes();
+		ColumnarExampleTable table = new ColumnarExampleTable(Arrays.asList(attributes), ExampleTestTools.createDataRowReader(20, attributes));
+		ExampleSet exampleSet = table.createExampleSet();
+		Attribute newAttribute = AttributeFactory.createAttribute("new", Ontology.REAL);
+		table.addAttribute(newAttribute);
+		exampleSet.getAttributes().addRegular(newAttribute);
+		int counter = 0;
+		for (Example example : exampleSet) {
+			assertEqualsNaN("new attribute", Double.NaN, example.getValue(newAttribute));
+			example.setValue(newAttribute, counter++);
+		}
+		for (int row = 0; row < table.size(); row++) {
+			assertEqualsNaN("written value", row, table.getDataRow(row).get(newAttribute));
+		}
+	}
+
+	@Test
+	public void testFactory() {
+		Attribute[] attributes = ExampleTestTools.createFourAttributes();
+		DataRowFactory factory = new DataRowFactory(DataRowFactory.TYPE_COLUMNAR, '.');
+		assertEquals(ColumnarExampleTable.class, factory.createExampleTable(Arrays.asList(attributes)).getClass());
+		assertEquals(MemoryExampleTable.class, new DataRowFactory(DataRowFactory.TYPE_DOUBLE_ARRAY, '.').createExampleTable(Arrays.asList(attributes)).getClass());
+		assertEquals(ColumnarExampleTable.class, factory.createExampleTable(Arrays.asList(attributes), ExampleTestTools.createDataRowReader(10, attributes)).getClass());
+	}
+
+	@Test
+	public void testDataVersionChangesOncePerBatch() {
+		Attribute[] attributes = ExampleTestTools.createFourAttributes();
+		ColumnarExampleTable table = new ColumnarExampleTable(Arrays.asList(attributes), ExampleTestTools.createDataRowReader(20, attributes));
+		long version = table.getDataVersion();
+		assertEquals(version, table.getDataVersion());
+		for (int row = 0; row < table.size(); row++) {
+			table.setValue(row, 1, row);
+		}
+		assertEquals(version + 1, table.getDataVersion());
+		assertEquals(version + 1, table.getDataVersion());
+		table.addDataRow(new DoubleArrayDataRow(new double[attributes.length]));
+		assertEquals(version + 2, table.getDataVersion());
+	}
+
+	@Test
+	public void testMergeKeepsColumnarStorage() throws Exception {
+		TestContext.get().initRapidMiner();
+		Attribute[] attributes = { ExampleTestTools.attributeDogCatMouse(), ExampleTestTools.attributeReal() };
+		double[][] values = { { 0, 1.5 }, { 2, Double.NaN }, { Double.NaN, -3 }, { 1, 1e-300 } };
+		ExampleSet exampleSet = new MemoryExampleTable(Arrays.asList(attributes), ExampleTestTools.createDataRowReader(values)).createExampleSet();
+		ExampleSetMerge merge = OperatorService.createOperator(ExampleSetMerge.class);
+		merge.setParameter(ExampleSetMerge.PARAMETER_DATAMANAGEMENT, DataRowFactory.TYPE_NAMES[DataRowFactory.TYPE_COLUMNAR]);
+		List<ExampleSet> exampleSets = Arrays.asList(exampleSet, exampleSet);
+		ExampleSet merged = merge.merge(exampleSets);
+		assertEquals(ColumnarExampleTable.class, merged.getExampleTable().getClass());
+		assertEquals(2 * exampleSet.size(), merged.size());
+		for (int i = 0; i < merged.size(); i++) {
+			Example example = exampleSet.getExample(i % exampleSet.size());
+			for (Attribute attribute : merged.getAttributes()) {
+				assertEquals("example " + i + ", " + attribute.getName(), example.getValueAsString(exampleSet.getAttributes().get(attribute.getName())), merged.getExample(i).getValueAsString(attribute));
+			}
+		}
+	}
+}
@@ -0,0 +1,154 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2011 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.example.test;
+
+import static com.rapidminer.test.utils.RapidAssert.assertEqualsNaN;
+import static org.junit.Assert.assertEquals;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.Attributes;
+import com.rapidminer.example.Example;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.table.AttributeFactory;
+import com.rapidminer.example.table.ColumnarExampleTable;
+import com.rapidminer.example.table.DoubleArrayDataRow;
+import com.rapidminer.example.table.DoubleSparseArrayDataRow;
+import com.rapidminer.example.table.MemoryExampleTable;
+import com.rapidminer.operator.tools.ExampleSetToColumnBlocks;
+import com.rapidminer.operator.tools.IOObjectSerializer;
+import com.rapidminer.operator.tools.SerializationType;
+import com.rapidminer.tools.Ontology;
+
+
+/**
+ * Tests that example sets written by {@link ExampleSetToColumnBlocks} are read
+ * identically from streams and from memory mapped files.
+ *
+ * @author Simon Fischer
+ */
+public class ExampleSetToColumnBlocksTest {
+
+	private static ExampleSet createExampleSet(int size) {
+		Attribute nominal = ExampleTestTools.attributeDogCatMouse();
+		Attribute integer = ExampleTestTools.attributeInt();
+		Attribute real = ExampleTestTools.attributeReal();
+		ColumnarExampleTable table = new ColumnarExampleTable(Arrays.asList(nominal, integer, real), size);
+		Random random = new Random(0);
+		for (int i = 0; i < size; i++) {
+			double[] values = new double[] { random.nextInt(3), random.nextInt(200) - 100, 20.0 * random.nextDouble() - 10.0 };
+			values[i % 3] = i % 7 == 0 ? Double.NaN : values[i % 3];
+			table.addDataRow(new DoubleArrayDataRow(values));
+		}
+		ExampleSet exampleSet = table.createExampleSet();
+		exampleSet.getAttributes().setSpecialAttribute(nominal, Attributes.LABEL_NAME);
+		exampleSet.getAnnotations().setAnnotation("Source", "test");
+		return exampleSet;
+	}
+
+	private static void assertEqualExampleSets(ExampleSet expected, ExampleSet actual) {
+		assertEquals(expected.size(), actual.size());
+		assertEquals("test", actual.getAnnotations().getAnnotation("Source"));
+		assertEquals("animal", actual.getAttributes().getLabel().getName());
+		assertEquals(expected.getAttributes().allSize(), actual.getAttributes().allSize());
+		for (int i = 0; i < expected.size(); i++) {
+			Example expectedExample = expected.getExample(i);
+			Example actualExample = actual.getExample(i);
+			assertEquals(expectedExample.getNominalValue(expected.getAttributes().getLabel()), actualExample.getNominalValue(actual.getAttributes().getLabel()));
+			for (Attribute attribute : expected.getAttributes()) {
+				assertEqualsNaN(attribute.getName() + ", row " + i, expectedExample.getValue(attribute), actualExample.getValue(actual.getAttributes().get(attribute.getName())));
+			}
+		}
+	}
+
+	@Test
+	public void testStreamedRoundTrip() throws IOException {
+		ExampleSet exampleSet = createExampleSet(1000);
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		IOObjectSerializer.getInstance().serialize(buffer, exampleSet, SerializationType.EXAMPLE_SET_COLUMN_BLOCKS);
+		ExampleSet read = (ExampleSet) IOObjectSerializer.getInstance().deserialize(new ByteArrayInputStream(buffer.toByteArray()));
+		assertEqualExampleSets(exampleSet, read);
+	}
+
+	@Test
+	public void testMappedRoundTrip() throws IOException {
+		// enough rows for three blocks
+		ExampleSet exampleSet = createExampleSet(2 * ExampleSetToColumnBlocks.BLOCK_SIZE / 17 + 1000);
+		File file = File.createTempFile("column_blocks", ".ioo");
+		try {
+			OutputStream out = new BufferedOutputStream(new FileOutputStream(file));
+			try {
+				IOObjectSerializer.getInstance().serialize(out, exampleSet, SerializationType.EXAMPLE_SET_COLUMN_BLOCKS);
+			} finally {
+				out.close();
+			}
+
+			ExampleSet mapped;
+			FileInputStream in = new FileInputStream(file);
+			try {
+				assertEquals(SerializationType.EXAMPLE_SET_COLUMN_BLOCKS, IOObjectSerializer.getInstance().deserializeHeader(in));
+				mapped = new ExampleSetToColumnBlocks().read(in.getChannel(), in.getChannel().position());
+			} finally {
+				in.close();
+			}
+			assertEqualExampleSets(exampleSet, mapped);
+
+			// modifications must neither change the file nor the other rows
+			Attribute real = mapped.getAttributes().get("real");
+			mapped.getExample(5).setValue(real, 42);
+			Attribute integer = mapped.getAttributes().get("integer");
+			assertEqualsNaN("modified", 42, mapped.getExample(5).getValue(real));
+			assertEqualsNaN("unmodified", exampleSet.getExample(6).getValue(exampleSet.getAttributes().get("integer")), mapped.getExample(6).getValue(integer));
+			FileInputStream reread = new FileInputStream(file);
+			try {
+				ExampleSet read = (ExampleSet) IOObjectSerializer.getInstance().deserialize(reread);
+				assertEqualsNaN("file", exampleSet.getExample(5).getValue(exampleSet.getAttributes().get("real")), read.getExample(5).getValue(read.getAttributes().get("real")));
+			} finally {
+				reread.close();
+			}
+		} finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void testApplicability() {
+		assertEquals(true, ExampleSetToColumnBlocks.isApplicable(createExampleSet(10)));
+		Attribute sparse = AttributeFactory.createAttribute("sparse", Ontology.REAL);
+		MemoryExampleTable sparseTable = new MemoryExampleTable(sparse);
+		sparseTable.addDataRow(new DoubleSparseArrayDataRow(1));
+		assertEquals(false, ExampleSetToColumnBlocks.isApplicable(sparseTable.createExampleSet()));
+	}
+}
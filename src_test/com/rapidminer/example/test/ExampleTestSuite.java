@@ -9,7 +9,7 @@ import org.junit.runners.Suite;
  *
  */
 @RunWith(Suite.class)
-@Suite.SuiteClasses({DataRowTest.class, SparseReaderTest.class})
+@Suite.SuiteClasses({DataRowTest.class, SparseReaderTest.class, ColumnarExampleTableTest.class, ExampleSetToColumnBlocksTest.class, StatisticsTest.class})
 public class ExampleTestSuite {
 
 }
@@ -0,0 +1,173 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2011 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.example.test;
+
+import static com.rapidminer.test.utils.RapidAssert.assertEqualsNaN;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.MinMaxStatistics;
+import com.rapidminer.example.NominalStatistics;
+import com.rapidminer.example.NumericalStatistics;
+import com.rapidminer.example.Statistics;
+import com.rapidminer.example.table.ColumnarExampleTable;
+import com.rapidminer.example.table.DoubleArrayDataRow;
+import com.rapidminer.example.table.MemoryExampleTable;
+
+
+/**
+ * Tests that merged statistics equal the statistics counted at once and that
+ * cached statistics are recalculated after modifications.
+ *
+ * @author Ingo Mierswa
+ */
+public class StatisticsTest {
+
+	@Test
+	public void testMergedNominalStatistics() {
+		Attribute nominal = ExampleTestTools.attributeDogCatMouse();
+		Random random = new Random(0);
+		for (int run = 0; run < 20; run++) {
+			// all values occur equally often, hence the mode depends on the order of the values
+			double[] values = new double[30];
+			for (int i = 0; i < values.length; i++) {
+				values[i] = i % 3;
+			}
+			for (int i = values.length - 1; i > 0; i--) {
+				int j = random.nextInt(i + 1);
+				double value = values[i];
+				values[i] = values[j];
+				values[j] = value;
+			}
+			values[random.nextInt(values.length)] = Double.NaN;
+
+			NominalStatistics complete = new NominalStatistics();
+			complete.startCounting(nominal);
+			for (double value : values) {
+				complete.count(value, 1.0d);
+			}
+
+			NominalStatistics merged = new NominalStatistics();
+			merged.startCounting(nominal);
+			int splitPoint = 1 + random.nextInt(values.length - 1);
+			for (double value : Arrays.copyOfRange(values, 0, splitPoint)) {
+				merged.count(value, 1.0d);
+			}
+			NominalStatistics second = new NominalStatistics();
+			second.startCounting(nominal);
+			for (double value : Arrays.copyOfRange(values, splitPoint, values.length)) {
+				second.count(value, 1.0d);
+			}
+			merged.merge(second);
+
+			for (String name : new String[] { Statistics.MODE, Statistics.LEAST }) {
+				assertEqualsNaN(name, complete.getStatistics(nominal, name, null), merged.getStatistics(nominal, name, null));
+			}
+			for (String value : nominal.getMapping().getValues()) {
+				assertEqualsNaN(value, complete.getStatistics(nominal, Statistics.COUNT, value), merged.getStatistics(nominal, Statistics.COUNT, value));
+			}
+		}
+	}
+
+	@Test
+	public void testMergedNumericalStatistics() {
+		Attribute real = ExampleTestTools.attributeReal();
+		NumericalStatistics numerical = new NumericalStatistics();
+		MinMaxStatistics minMax = new MinMaxStatistics();
+		NumericalStatistics otherNumerical = new NumericalStatistics();
+		MinMaxStatistics otherMinMax = new MinMaxStatistics();
+		double[] values = new double[] { 1, 2, Double.NaN, 4, 8, -3 };
+		for (int i = 0; i < values.length; i++) {
+			(i < 3 ? numerical : otherNumerical).count(values[i], 1.0d);
+			(i < 3 ? minMax : otherMinMax).count(values[i], 1.0d);
+		}
+		numerical.merge(otherNumerical);
+		minMax.merge(otherMinMax);
+		assertEqualsNaN("average", 12.0d / 5, numerical.getStatistics(real, Statistics.AVERAGE, null));
+		assertEqualsNaN("sum", 12.0d, numerical.getStatistics(real, Statistics.SUM, null));
+		assertEqualsNaN("minimum", -3.0d, minMax.getStatistics(real, Statistics.MINIMUM, null));
+		assertEqualsNaN("maximum", 8.0d, minMax.getStatistics(real, Statistics.MAXIMUM, null));
+	}
+
+	@Test
+	public void testCachedStatisticsAreRecalculated() {
+		Attribute real = ExampleTestTools.attributeReal();
+		ColumnarExampleTable table = new ColumnarExampleTable(real);
+		for (int i = 0; i < 10; i++) {
+			table.addDataRow(new DoubleArrayDataRow(new double[] { i }));
+		}
+		ExampleSet exampleSet = table.createExampleSet();
+		Attribute attribute = exampleSet.getAttributes().get("real");
+		exampleSet.recalculateAllAttributeStatistics();
+		assertEqualsNaN("maximum", 9.0d, exampleSet.getStatistics(attribute, Statistics.MAXIMUM));
+
+		exampleSet.getExample(3).setValue(attribute, 42);
+		exampleSet.recalculateAllAttributeStatistics();
+		assertEqualsNaN("modified maximum", 42.0d, exampleSet.getStatistics(attribute, Statistics.MAXIMUM));
+
+		table.addDataRow(new DoubleArrayDataRow(new double[] { 100 }));
+		exampleSet.recalculateAttributeStatistics(attribute);
+		assertEqualsNaN("added maximum", 100.0d, exampleSet.getStatistics(attribute, Statistics.MAXIMUM));
+		assertEquals(11, table.size());
+	}
+
+	@Test
+	public void testModifiedMemoryTableStatisticsAreRecalculated() {
+		Attribute real = ExampleTestTools.attributeReal();
+		MemoryExampleTable table = new MemoryExampleTable(real);
+		for (int i = 0; i < 10; i++) {
+			table.addDataRow(new DoubleArrayDataRow(new double[] { i }));
+		}
+		ExampleSet exampleSet = table.createExampleSet();
+		Attribute attribute = exampleSet.getAttributes().get("real");
+		exampleSet.recalculateAllAttributeStatistics();
+		assertEqualsNaN("maximum", 9.0d, exampleSet.getStatistics(attribute, Statistics.MAXIMUM));
+
+		// values set in the data rows are not reflected by the data version of a memory table
+		table.getDataRow(3).set(attribute, 42);
+		exampleSet.recalculateAllAttributeStatistics();
+		assertEqualsNaN("modified maximum", 42.0d, exampleSet.getStatistics(attribute, Statistics.MAXIMUM));
+	}
+
+	@Test
+	public void testDataVersionIsKeptPerTable() {
+		Attribute real = ExampleTestTools.attributeReal();
+		ColumnarExampleTable table = new ColumnarExampleTable(real);
+		ColumnarExampleTable otherTable = new ColumnarExampleTable(ExampleTestTools.attributeReal());
+		table.addDataRow(new DoubleArrayDataRow(new double[] { 1 }));
+		otherTable.addDataRow(new DoubleArrayDataRow(new double[] { 1 }));
+
+		long version = table.getDataVersion();
+		otherTable.setValue(0, 0, 2);
+		assertEquals(version, table.getDataVersion());
+		table.setValue(0, 0, 2);
+		assertTrue(version != table.getDataVersion());
+	}
+}
@@ -0,0 +1,236 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2011 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.operator.clustering.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.rapidminer.Process;
+import com.rapidminer.RapidMiner;
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.table.AttributeFactory;
+import com.rapidminer.example.table.DoubleArrayDataRow;
+import com.rapidminer.example.table.MemoryExampleTable;
+import com.rapidminer.operator.ExecutionUnit;
+import com.rapidminer.operator.IOContainer;
+import com.rapidminer.operator.ModelApplier;
+import com.rapidminer.operator.Operator;
+import com.rapidminer.operator.clustering.HierarchicalClusterLeafNode;
+import com.rapidminer.operator.clustering.HierarchicalClusterModel;
+import com.rapidminer.operator.clustering.HierarchicalClusterNode;
+import com.rapidminer.operator.clustering.clusterer.AbstractLinkageMethod;
+import com.rapidminer.operator.clustering.clusterer.Agglomeration;
+import com.rapidminer.operator.clustering.clusterer.AgglomerativeClustering;
+import com.rapidminer.operator.clustering.clusterer.AverageLinkageMethod;
+import com.rapidminer.operator.clustering.clusterer.CompleteLinkageMethod;
+import com.rapidminer.operator.clustering.clusterer.DistanceMatrix;
+import com.rapidminer.operator.clustering.clusterer.SingleLinkageMethod;
+import com.rapidminer.operator.learner.lazy.DefaultLearner;
+import com.rapidminer.operator.performance.PolynominalClassificationPerformanceEvaluator;
+import com.rapidminer.operator.validation.XValidation;
+import com.rapidminer.test.TestContext;
+import com.rapidminer.tools.OperatorService;
+import com.rapidminer.tools.Ontology;
+import com.rapidminer.tools.ParameterService;
+import com.rapidminer.tools.math.similarity.DistanceMeasure;
+import com.rapidminer.tools.math.similarity.numerical.EuclideanDistance;
+
+/**
+ * Compares the cluster trees of the {@link AgglomerativeClustering} with the trees built by
+ * the {@link AbstractLinkageMethod}s on random data without ties and runs the single linkage
+ * on more than 10000 examples inside a parallel cross validation.
+ * 
+ * @author Sebastian Land
+ */
+public class AgglomerativeClusteringTest {
+
+	@Before
+	public void setUp() throws Exception {
+		TestContext.get().initRapidMiner();
+	}
+
+	@Test
+	public void testTreesEqualLinkageMethods() throws Exception {
+		int[] sizes = new int[] { 1, 2, 3, 10, 57 };
+		for (int mode = 0; mode < AgglomerativeClustering.modes.length; mode++) {
+			for (int i = 0; i < sizes.length; i++) {
+				ExampleSet exampleSet = createExampleSet(sizes[i], 3, new Random(10 * mode + i));
+				AgglomerativeClustering clustering = OperatorService.createOperator(AgglomerativeClustering.class);
+				clustering.setParameter(AgglomerativeClustering.PARAMETER_MODE, AgglomerativeClustering.modes[mode]);
+				clustering.getInputPorts().getPortByIndex(0).receive(exampleSet);
+				clustering.doWork();
+				HierarchicalClusterModel model = clustering.getOutputPorts().getPortByIndex(0).getData();
+				ExampleSet clusteredSet = clustering.getOutputPorts().getPortByIndex(1).getData();
+				String message = AgglomerativeClustering.modes[mode] + " on " + sizes[i] + " examples";
+				assertTrees(message, createTreeByLinkageMethod(clusteredSet, mode), model.getRootNode());
+			}
+		}
+	}
+
+	@Test(timeout = 600000)
+	public void testSingleLinkageInParallelCrossValidation() throws Exception {
+		String oldNumberOfThreads = ParameterService.getParameterValue(RapidMiner.PROPERTY_RAPIDMINER_GENERAL_NUMBER_OF_THREADS);
+		ParameterService.setParameterValue(RapidMiner.PROPERTY_RAPIDMINER_GENERAL_NUMBER_OF_THREADS, "4");
+		try {
+			Process process = new Process();
+			XValidation validation = OperatorService.createOperator(XValidation.class);
+			validation.setParameter(XValidation.PARAMETER_NUMBER_OF_VALIDATIONS, "3");
+			validation.setParameter(XValidation.PARAMETER_PARALLELIZE_FOLDS, "true");
+			ExecutionUnit root = process.getRootOperator().getSubprocess(0);
+			root.addOperator(validation);
+			root.getInnerSources().getPortByIndex(0).connectTo(validation.getInputPorts().getPortByIndex(0));
+			validation.getOutputPorts().getPortByName("averagable 1").connectTo(root.getInnerSinks().getPortByIndex(0));
+
+			ExecutionUnit training = validation.getSubprocess(0);
+			Operator clustering = OperatorService.createOperator(AgglomerativeClustering.class);
+			clustering.setParameter(AgglomerativeClustering.PARAMETER_MODE, AgglomerativeClustering.modes[0]);
+			Operator learner = OperatorService.createOperator(DefaultLearner.class);
+			learner.setParameter(DefaultLearner.PARAMETER_METHOD, "mode");
+			training.addOperator(clustering);
+			training.addOperator(learner);
+			training.getInnerSources().getPortByName("training").connectTo(clustering.getInputPorts().getPortByName("example set"));
+			clustering.getOutputPorts().getPortByName("example set").connectTo(learner.getInputPorts().getPortByName("training set"));
+			learner.getOutputPorts().getPortByName("model").connectTo(training.getInnerSinks().getPortByName("model"));
+
+			ExecutionUnit testing = validation.getSubprocess(1);
+			Operator applier = OperatorService.createOperator(ModelApplier.class);
+			Operator evaluator = OperatorService.createOperator(PolynominalClassificationPerformanceEvaluator.class);
+			testing.addOperator(applier);
+			testing.addOperator(evaluator);
+			testing.getInnerSources().getPortByName("model").connectTo(applier.getInputPorts().getPortByName("model"));
+			testing.getInnerSources().getPortByName("test set").connectTo(applier.getInputPorts().getPortByName("unlabelled data"));
+			applier.getOutputPorts().getPortByName("labelled data").connectTo(evaluator.getInputPorts().getPortByName("labelled data"));
+			evaluator.getOutputPorts().getPortByName("performance").connectTo(testing.getInnerSinks().getPortByName("averagable 1"));
+
+			IOContainer result = process.run(new IOContainer(createLabeledExampleSet(16000, new Random(2011))));
+			assertNotNull(result.getElementAt(0));
+		} finally {
+			ParameterService.setParameterValue(RapidMiner.PROPERTY_RAPIDMINER_GENERAL_NUMBER_OF_THREADS, oldNumberOfThreads);
+		}
+	}
+
+	/** Builds the cluster tree by merging the two nearest clusters until one cluster remains. */
+	private static HierarchicalClusterNode createTreeByLinkageMethod(ExampleSet exampleSet, int mode) throws Exception {
+		DistanceMeasure measure = new EuclideanDistance();
+		measure.init(exampleSet);
+		Attribute idAttribute = exampleSet.getAttributes().getId();
+		DistanceMatrix matrix = new DistanceMatrix(exampleSet.size());
+		Map<Integer, HierarchicalClusterNode> clusterMap = new HashMap<Integer, HierarchicalClusterNode>();
+		int[] clusterIds = new int[exampleSet.size()];
+		for (int x = 0; x < exampleSet.size(); x++) {
+			clusterIds[x] = x;
+			for (int y = x + 1; y < exampleSet.size(); y++) {
+				matrix.set(x, y, measure.calculateDistance(exampleSet.getExample(x), exampleSet.getExample(y)));
+			}
+			clusterMap.put(x, new HierarchicalClusterLeafNode(x, exampleSet.getExample(x).getValue(idAttribute)));
+		}
+		AbstractLinkageMethod linkage;
+		if (mode == 1) {
+			linkage = new CompleteLinkageMethod(matrix, clusterIds);
+		} else if (mode == 2) {
+			linkage = new AverageLinkageMethod(matrix, clusterIds);
+		} else {
+			linkage = new SingleLinkageMethod(matrix, clusterIds);
+		}
+		int nextClusterId = exampleSet.size();
+		while (clusterMap.size() > 1) {
+			Agglomeration agglomeration = linkage.getNextAgglomeration(nextClusterId, clusterMap);
+			HierarchicalClusterNode node = new HierarchicalClusterNode(nextClusterId, agglomeration.getDistance());
+			node.addSubNode(clusterMap.remove(agglomeration.getClusterId1()));
+			node.addSubNode(clusterMap.remove(agglomeration.getClusterId2()));
+			clusterMap.put(nextClusterId, node);
+			nextClusterId++;
+		}
+		return clusterMap.values().iterator().next();
+	}
+
+	/** Compares the trees ignoring the order of the sub nodes. */
+	private static void assertTrees(String message, HierarchicalClusterNode expected, HierarchicalClusterNode actual) {
+		assertEquals(message, expected.getClusterId(), actual.getClusterId());
+		assertEquals(message, expected.getDistance(), actual.getDistance(), 1e-10);
+		assertEquals(message, expected.getExampleIdsInSubtree().size(), actual.getExampleIdsInSubtree().size());
+		assertEquals(message, expected.getNumberOfSubNodes(), actual.getNumberOfSubNodes());
+		List<HierarchicalClusterNode> expectedSubNodes = new ArrayList<HierarchicalClusterNode>(expected.getSubNodes());
+		List<HierarchicalClusterNode> actualSubNodes = new ArrayList<HierarchicalClusterNode>(actual.getSubNodes());
+		if (expectedSubNodes.size() == 2 && getMinimalExampleId(expectedSubNodes.get(0)) > getMinimalExampleId(expectedSubNodes.get(1))) {
+			expectedSubNodes.add(expectedSubNodes.remove(0));
+		}
+		if (actualSubNodes.size() == 2 && getMinimalExampleId(actualSubNodes.get(0)) > getMinimalExampleId(actualSubNodes.get(1))) {
+			actualSubNodes.add(actualSubNodes.remove(0));
+		}
+		for (int i = 0; i < expectedSubNodes.size(); i++) {
+			assertTrees(message, expectedSubNodes.get(i), actualSubNodes.get(i));
+		}
+	}
+
+	private static double getMinimalExampleId(HierarchicalClusterNode node) {
+		double minimalId = Double.POSITIVE_INFINITY;
+		for (Object id : node.getExampleIdsInSubtree()) {
+			minimalId = Math.min(minimalId, (Double) id);
+		}
+		return minimalId;
+	}
+
+	private static ExampleSet createExampleSet(int size, int numberOfAttributes, Random random) {
+		List<Attribute> attributes = new ArrayList<Attribute>();
+		for (int i = 0; i < numberOfAttributes; i++) {
+			attributes.add(AttributeFactory.createAttribute("att" + i, Ontology.REAL));
+		}
+		MemoryExampleTable table = new MemoryExampleTable(attributes);
+		for (int i = 0; i < size; i++) {
+			double[] data = new double[numberOfAttributes];
+			for (int j = 0; j < numberOfAttributes; j++) {
+				data[j] = random.nextGaussian();
+			}
+			table.addDataRow(new DoubleArrayDataRow(data));
+		}
+		return table.createExampleSet();
+	}
+
+	private static ExampleSet createLabeledExampleSet(int size, Random random) {
+		List<Attribute> attributes = new ArrayList<Attribute>();
+		attributes.add(AttributeFactory.createAttribute("att0", Ontology.REAL));
+		attributes.add(AttributeFactory.createAttribute("att1", Ontology.REAL));
+		Attribute label = AttributeFactory.createAttribute("label", Ontology.NOMINAL);
+		label.getMapping().mapString("positive");
+		label.getMapping().mapString("negative");
+		attributes.add(label);
+		MemoryExampleTable table = new MemoryExampleTable(attributes);
+		for (int i = 0; i < size; i++) {
+			double x = random.nextGaussian();
+			double y = random.nextGaussian();
+			table.addDataRow(new DoubleArrayDataRow(new double[] { x, y, x + y > 0 ? 0 : 1 }));
+		}
+		return table.createExampleSet(label);
+	}
+}
@@ -0,0 +1,197 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2011 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.operator.clustering.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.Example;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.table.AttributeFactory;
+import com.rapidminer.example.table.DoubleArrayDataRow;
+import com.rapidminer.example.table.MemoryExampleTable;
+import com.rapidminer.operator.clustering.clusterer.DBScan;
+import com.rapidminer.test.TestContext;
+import com.rapidminer.tools.OperatorService;
+import com.rapidminer.tools.Ontology;
+import com.rapidminer.tools.math.similarity.DistanceMeasure;
+import com.rapidminer.tools.math.similarity.DistanceMeasures;
+import com.rapidminer.tools.math.similarity.numerical.CamberraNumericalDistance;
+import com.rapidminer.tools.math.similarity.numerical.ChebychevNumericalDistance;
+import com.rapidminer.tools.math.similarity.numerical.EuclideanDistance;
+import com.rapidminer.tools.math.similarity.numerical.ManhattanDistance;
+
+/**
+ * Compares the clusters found by {@link DBScan} with the clusters found by searching each
+ * neighbourhood by a linear scan over all examples. The data contains duplicate examples and is
+ * large enough for the kd tree in some tests, which is only used for the euclidean, manhattan and
+ * chebychev distance.
+ * 
+ * @author Sebastian Land
+ */
+public class DBScanTest {
+
+	@Before
+	public void setUp() throws Exception {
+		TestContext.get().initRapidMiner();
+	}
+
+	@Test
+	public void testEuclideanDistance() throws Exception {
+		checkClusters("EuclideanDistance", new EuclideanDistance(), 0.25);
+	}
+
+	@Test
+	public void testManhattanDistance() throws Exception {
+		checkClusters("ManhattanDistance", new ManhattanDistance(), 0.35);
+	}
+
+	@Test
+	public void testChebychevDistance() throws Exception {
+		checkClusters("ChebychevDistance", new ChebychevNumericalDistance(), 0.2);
+	}
+
+	@Test
+	public void testCamberraDistance() throws Exception {
+		checkClusters("CamberraDistance", new CamberraNumericalDistance(), 0.1);
+	}
+
+	private void checkClusters(String measureName, DistanceMeasure measure, double epsilon) throws Exception {
+		int[] sizes = new int[] { 1, 100, 300, 2000 };
+		int[] minPoints = new int[] { 1, 4, 8 };
+		for (int i = 0; i < sizes.length; i++) {
+			for (int j = 0; j < minPoints.length; j++) {
+				ExampleSet exampleSet = createExampleSet(sizes[i], new Random(10 * i + j));
+				double[][] values = getValues(exampleSet);
+				measure.init(exampleSet);
+				int[] expected = findClusters(values, measure, epsilon, minPoints[j]);
+
+				DBScan dbScan = OperatorService.createOperator(DBScan.class);
+				dbScan.setParameter("epsilon", Double.toString(epsilon));
+				dbScan.setParameter("min_points", Integer.toString(minPoints[j]));
+				dbScan.setParameter(DistanceMeasures.PARAMETER_MEASURE_TYPES, DistanceMeasures.MEASURE_TYPES[DistanceMeasures.NUMERICAL_MEASURES_TYPE]);
+				dbScan.setParameter(DistanceMeasures.PARAMETER_NUMERICAL_MEASURE, measureName);
+				dbScan.getInputPorts().getPortByIndex(0).receive(exampleSet);
+				dbScan.doWork();
+				ExampleSet clusteredSet = dbScan.getOutputPorts().getPortByIndex(1).getData();
+				Attribute cluster = clusteredSet.getAttributes().getCluster();
+				String message = measureName + " on " + sizes[i] + " examples with min_points " + minPoints[j];
+				for (int k = 0; k < expected.length; k++) {
+					assertEquals(message + ", example " + k, "cluster_" + expected[k], clusteredSet.getExample(k).getValueAsString(cluster));
+				}
+			}
+		}
+	}
+
+	/** Finds the clusters like DBScan did before the neighbourhoods were searched in a kd tree. */
+	private static int[] findClusters(double[][] values, DistanceMeasure measure, double epsilon, int minPoints) {
+		boolean[] visited = new boolean[values.length];
+		boolean[] noised = new boolean[values.length];
+		int[] clusterAssignments = new int[values.length];
+		int clusterIndex = 1;
+		for (int i = 0; i < values.length; i++) {
+			if (!visited[i]) {
+				Queue<Integer> centerNeighbourhood = getNeighbourhood(values, i, measure, epsilon);
+				if (centerNeighbourhood.size() < minPoints) {
+					noised[i] = true;
+				} else {
+					clusterAssignments[i] = clusterIndex;
+					while (centerNeighbourhood.size() > 0) {
+						int currentIndex = centerNeighbourhood.poll().intValue();
+						clusterAssignments[currentIndex] = clusterIndex;
+						visited[currentIndex] = true;
+						Queue<Integer> neighbourhood = getNeighbourhood(values, currentIndex, measure, epsilon);
+						if (neighbourhood.size() >= minPoints) {
+							while (neighbourhood.size() > 0) {
+								int neighbourIndex = neighbourhood.poll().intValue();
+								if (!visited[neighbourIndex]) {
+									if (!noised[neighbourIndex]) {
+										centerNeighbourhood.add(neighbourIndex);
+									}
+									clusterAssignments[neighbourIndex] = clusterIndex;
+									visited[neighbourIndex] = true;
+								}
+							}
+						}
+					}
+					clusterIndex++;
+				}
+			}
+		}
+		return clusterAssignments;
+	}
+
+	private static Queue<Integer> getNeighbourhood(double[][] values, int center, DistanceMeasure measure, double epsilon) {
+		Queue<Integer> neighbourhood = new LinkedList<Integer>();
+		for (int i = 0; i < values.length; i++) {
+			if (measure.calculateDistance(values[center], values[i]) < epsilon) {
+				neighbourhood.add(i);
+			}
+		}
+		return neighbourhood;
+	}
+
+	private static double[][] getValues(ExampleSet exampleSet) {
+		double[][] values = new double[exampleSet.size()][];
+		int i = 0;
+		for (Example example : exampleSet) {
+			values[i] = new double[exampleSet.getAttributes().size()];
+			int j = 0;
+			for (Attribute attribute : exampleSet.getAttributes()) {
+				values[i][j++] = example.getValue(attribute);
+			}
+			i++;
+		}
+		return values;
+	}
+
+	/** Creates examples around a few centers, every fifth example is a duplicate of a former one. */
+	private static ExampleSet createExampleSet(int size, Random random) {
+		List<Attribute> attributes = new ArrayList<Attribute>();
+		attributes.add(AttributeFactory.createAttribute("att0", Ontology.REAL));
+		attributes.add(AttributeFactory.createAttribute("att1", Ontology.REAL));
+		MemoryExampleTable table = new MemoryExampleTable(attributes);
+		List<double[]> rows = new ArrayList<double[]>(size);
+		for (int i = 0; i < size; i++) {
+			double[] data;
+			if (i % 5 == 4) {
+				data = rows.get(random.nextInt(i)).clone();
+			} else {
+				int center = random.nextInt(4);
+				data = new double[] { 1 + center + random.nextGaussian() * 0.3, 1 + (center % 2) * 2 + random.nextGaussian() * 0.3 };
+			}
+			rows.add(data);
+			table.addDataRow(new DoubleArrayDataRow(data));
+		}
+		return table.createExampleSet();
+	}
+}
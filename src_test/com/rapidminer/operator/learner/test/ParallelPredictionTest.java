@@ -0,0 +1,132 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2011 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.operator.learner.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Iterator;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.rapidminer.RapidMiner;
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.AttributeRole;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.table.AttributeFactory;
+import com.rapidminer.example.table.DoubleArrayDataRow;
+import com.rapidminer.example.table.MemoryExampleTable;
+import com.rapidminer.operator.Model;
+import com.rapidminer.operator.learner.Learner;
+import com.rapidminer.operator.learner.bayes.NaiveBayes;
+import com.rapidminer.operator.learner.tree.DecisionTreeLearner;
+import com.rapidminer.test.TestContext;
+import com.rapidminer.tools.OperatorService;
+import com.rapidminer.tools.Ontology;
+import com.rapidminer.tools.ParameterService;
+
+/**
+ * Checks that the predictions and confidences of models scoring the examples in parallel
+ * batches are the same for one and for several threads.
+ * 
+ * @author Ingo Mierswa
+ */
+public class ParallelPredictionTest {
+
+	private String numberOfThreads;
+
+	@Before
+	public void setUp() throws Exception {
+		TestContext.get().initRapidMiner();
+		numberOfThreads = ParameterService.getParameterValue(RapidMiner.PROPERTY_RAPIDMINER_GENERAL_NUMBER_OF_THREADS);
+	}
+
+	@After
+	public void tearDown() {
+		ParameterService.setParameterValue(RapidMiner.PROPERTY_RAPIDMINER_GENERAL_NUMBER_OF_THREADS, numberOfThreads);
+	}
+
+	@Test
+	public void testTreeModel() throws Exception {
+		checkPredictions(OperatorService.createOperator(DecisionTreeLearner.class));
+	}
+
+	@Test
+	public void testNaiveBayesModel() throws Exception {
+		checkPredictions(OperatorService.createOperator(NaiveBayes.class));
+	}
+
+	private void checkPredictions(Learner learner) throws Exception {
+		for (int numberOfLabels = 2; numberOfLabels <= 3; numberOfLabels++) {
+			Model model = learner.learn(createExampleSet(2000, numberOfLabels, new Random(numberOfLabels)));
+			ParameterService.setParameterValue(RapidMiner.PROPERTY_RAPIDMINER_GENERAL_NUMBER_OF_THREADS, "1");
+			ExampleSet expected = model.apply(createExampleSet(20000, numberOfLabels, new Random(10 + numberOfLabels)));
+			ParameterService.setParameterValue(RapidMiner.PROPERTY_RAPIDMINER_GENERAL_NUMBER_OF_THREADS, "4");
+			ExampleSet actual = model.apply(createExampleSet(20000, numberOfLabels, new Random(10 + numberOfLabels)));
+
+			assertEquals(expected.size(), actual.size());
+			Iterator<AttributeRole> expectedRoles = expected.getAttributes().specialAttributes();
+			while (expectedRoles.hasNext()) {
+				AttributeRole role = expectedRoles.next();
+				Attribute expectedAttribute = role.getAttribute();
+				Attribute actualAttribute = actual.getAttributes().getSpecial(role.getSpecialName());
+				for (int i = 0; i < expected.size(); i++) {
+					String message = learner.getName() + ", " + role.getSpecialName() + " of example " + i;
+					if (expectedAttribute.isNominal()) {
+						assertEquals(message, expected.getExample(i).getValueAsString(expectedAttribute), actual.getExample(i).getValueAsString(actualAttribute));
+					} else {
+						assertEquals(message, Double.doubleToLongBits(expected.getExample(i).getValue(expectedAttribute)), Double.doubleToLongBits(actual.getExample(i).getValue(actualAttribute)));
+					}
+				}
+			}
+		}
+	}
+
+	/** Creates a nominal, a numerical and a numerical attribute with missing values and a noisy label. */
+	private static ExampleSet createExampleSet(int size, int numberOfLabels, Random random) {
+		Attribute nominal = AttributeFactory.createAttribute("nominal", Ontology.NOMINAL);
+		Attribute numerical = AttributeFactory.createAttribute("numerical", Ontology.REAL);
+		Attribute missing = AttributeFactory.createAttribute("missing", Ontology.REAL);
+		Attribute label = AttributeFactory.createAttribute("label", Ontology.NOMINAL);
+		for (int i = 0; i < numberOfLabels; i++) {
+			label.getMapping().mapString("label" + i);
+		}
+		MemoryExampleTable table = new MemoryExampleTable(nominal, numerical, missing, label);
+		for (int i = 0; i < size; i++) {
+			int value = random.nextInt(5);
+			double[] data = new double[4];
+			data[0] = nominal.getMapping().mapString("value" + value);
+			data[1] = random.nextGaussian() + value;
+			data[2] = random.nextInt(30) == 0 ? Double.NaN : random.nextGaussian();
+			int labelIndex = (data[1] + (Double.isNaN(data[2]) ? 0 : data[2]) > 2 ? 1 : 0) + (numberOfLabels > 2 && value == 4 ? 1 : 0);
+			if (random.nextInt(10) == 0) {
+				labelIndex = random.nextInt(numberOfLabels);
+			}
+			data[3] = labelIndex;
+			table.addDataRow(new DoubleArrayDataRow(data));
+		}
+		return table.createExampleSet(label);
+	}
+}
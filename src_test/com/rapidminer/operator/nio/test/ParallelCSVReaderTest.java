@@ -0,0 +1,254 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2011 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.operator.nio.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.table.AttributeFactory;
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.nio.CSVExampleSource;
+import com.rapidminer.operator.nio.model.CSVResultSet;
+import com.rapidminer.operator.nio.model.CSVResultSetConfiguration;
+import com.rapidminer.operator.nio.model.DataResultSetTranslationConfiguration;
+import com.rapidminer.operator.nio.model.ParallelCSVReader;
+import com.rapidminer.operator.nio.model.ParallelCSVReader.ParsedChunk;
+import com.rapidminer.test.TestContext;
+import com.rapidminer.tools.CSVParseException;
+import com.rapidminer.tools.LineParser;
+import com.rapidminer.tools.OperatorService;
+import com.rapidminer.tools.Ontology;
+
+/**
+ * Tests that the {@link ParallelCSVReader} splits the rows of a file exactly like the
+ * {@link LineParser} does when reading the file line by line. The file is larger than a
+ * single chunk and contains quoted values, escaped quotes and separators, comments and
+ * empty lines.
+ *
+ * @author Simon Fischer
+ */
+public class ParallelCSVReaderTest {
+
+	private static final int NUMBER_OF_COLUMNS = 4;
+
+	private static final String[] WORDS = { "alpha", "beta", "gam ma", "d\u00e9lta", "x" };
+
+	@Before
+	public void setUp() throws Exception {
+		TestContext.get().initRapidMiner();
+	}
+
+	@Test
+	public void testQuotedValues() throws Exception {
+		checkParity(';', true, false);
+	}
+
+	@Test
+	public void testTrimmedLines() throws Exception {
+		checkParity(',', true, true);
+	}
+
+	@Test
+	public void testUnquotedValues() throws Exception {
+		checkParity('\t', false, false);
+	}
+
+	private void checkParity(char separator, boolean useQuotes, boolean trimLines) throws Exception {
+		File file = File.createTempFile("parallel_csv", ".csv");
+		file.deleteOnExit();
+		try {
+			List<String> lines = writeFile(file, separator, 250000, new Random(separator));
+
+			CSVExampleSource source = OperatorService.createOperator(CSVExampleSource.class);
+			source.setParameter(CSVExampleSource.PARAMETER_CSV_FILE, file.getAbsolutePath());
+			source.setParameter(CSVExampleSource.PARAMETER_COLUMN_SEPARATORS, String.valueOf(separator));
+			source.setParameter(CSVExampleSource.PARAMETER_USE_QUOTES, String.valueOf(useQuotes));
+			source.setParameter(CSVExampleSource.PARAMETER_TRIM_LINES, String.valueOf(trimLines));
+			source.setParameter(CSVExampleSource.PARAMETER_SKIP_COMMENTS, "true");
+			source.setParameter(CSVExampleSource.PARAMETER_COMMENT_CHARS, "#");
+			source.setParameter("encoding", "UTF-8");
+			CSVResultSetConfiguration configuration = new CSVResultSetConfiguration(source);
+
+			List<String[]> expected = new ArrayList<String[]>();
+			LineParser parser = new LineParser(configuration);
+			for (String line : lines) {
+				try {
+					String[] row = parser.parse(line);
+					if (row != null) {
+						expected.add(toRow(row));
+					}
+				} catch (CSVParseException e) {
+					// such lines are skipped by both readers
+				}
+			}
+
+			List<String[]> actual = readInParallel(source, configuration);
+			assertEquals(expected.size(), actual.size());
+			for (int i = 0; i < expected.size(); i++) {
+				assertEquals("row " + i, Arrays.asList(expected.get(i)), Arrays.asList(actual.get(i)));
+			}
+		} finally {
+			file.delete();
+		}
+	}
+
+	/** Returns the values of the first columns of the given row. Empty values are missing. */
+	private static String[] toRow(String[] values) {
+		String[] row = new String[NUMBER_OF_COLUMNS];
+		for (int i = 0; i < NUMBER_OF_COLUMNS; i++) {
+			if (i < values.length && values[i] != null && !values[i].isEmpty()) {
+				row[i] = values[i];
+			}
+		}
+		return row;
+	}
+
+	private static List<String[]> readInParallel(CSVExampleSource source, CSVResultSetConfiguration configuration) throws OperatorException {
+		Attribute[] attributes = new Attribute[NUMBER_OF_COLUMNS];
+		int[] attributeColumns = new int[NUMBER_OF_COLUMNS];
+		for (int i = 0; i < NUMBER_OF_COLUMNS; i++) {
+			attributes[i] = AttributeFactory.createAttribute("att" + i, Ontology.NOMINAL);
+			attributeColumns[i] = i;
+		}
+		DataResultSetTranslationConfiguration translationConfiguration = new DataResultSetTranslationConfiguration(source);
+		ParallelCSVReader reader = ParallelCSVReader.create(new CSVResultSet(configuration, source), source);
+		assertNotNull(reader);
+
+		List<String[]> rows = new ArrayList<String[]>();
+		int numberOfChunks = 0;
+		long lastPosition = 0;
+		reader.open(0);
+		try {
+			while (true) {
+				List<ParsedChunk> chunks = reader.readChunks(attributes, attributeColumns, translationConfiguration);
+				if (chunks.isEmpty()) {
+					break;
+				}
+				for (ParsedChunk chunk : chunks) {
+					for (int row = 0; row < chunk.size(); row++) {
+						String[] values = new String[NUMBER_OF_COLUMNS];
+						for (int i = 0; i < NUMBER_OF_COLUMNS; i++) {
+							double value = chunk.getValues(i)[row];
+							if (!Double.isNaN(value)) {
+								values[i] = chunk.getNominalValues(i).get((int) value);
+							}
+						}
+						rows.add(values);
+					}
+					lastPosition = chunk.getEndPosition();
+					numberOfChunks++;
+				}
+			}
+			assertTrue(numberOfChunks > 1);
+			assertEquals(reader.getLength(), lastPosition);
+		} finally {
+			reader.close();
+		}
+		return rows;
+	}
+
+	/**
+	 * Writes random rows to the given file and returns its lines. Lines are terminated
+	 * by all kinds of line breaks.
+	 */
+	private static List<String> writeFile(File file, char separator, int numberOfRows, Random random) throws IOException {
+		List<String> lines = new ArrayList<String>(numberOfRows);
+		Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+		try {
+			for (int i = 0; i < numberOfRows; i++) {
+				String line;
+				switch (random.nextInt(40)) {
+				case 0:
+					line = "";
+					break;
+				case 1:
+					line = " \t ";
+					break;
+				case 2:
+					line = "# comment" + separator + i;
+					break;
+				default:
+					StringBuilder builder = new StringBuilder();
+					int numberOfValues = random.nextInt(20) == 0 ? random.nextInt(NUMBER_OF_COLUMNS + 2) : NUMBER_OF_COLUMNS;
+					for (int j = 0; j < numberOfValues; j++) {
+						if (j > 0) {
+							builder.append(separator);
+						}
+						builder.append(createValue(separator, random));
+					}
+					line = builder.toString();
+				}
+				lines.add(line);
+				writer.write(line);
+				switch (random.nextInt(5)) {
+				case 0:
+					writer.write("\r\n");
+					break;
+				case 1:
+					writer.write("\r");
+					break;
+				default:
+					writer.write("\n");
+				}
+			}
+		} finally {
+			writer.close();
+		}
+		return lines;
+	}
+
+	private static String createValue(char separator, Random random) {
+		String value = WORDS[random.nextInt(WORDS.length)] + random.nextInt(100);
+		switch (random.nextInt(12)) {
+		case 0:
+			return "";
+		case 1:
+			return "\"" + value + separator + value + "\"";
+		case 2:
+			return "\"" + value + "\\\"" + value + "\"";
+		case 3:
+			return value + "\\" + separator + value;
+		case 4:
+			return " " + value + " ";
+		case 5:
+			return "\"\"";
+		default:
+			return value;
+		}
+	}
+}
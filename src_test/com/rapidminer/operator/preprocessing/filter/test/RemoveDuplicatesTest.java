@@ -0,0 +1,206 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2011 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.operator.preprocessing.filter.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.rapidminer.RapidMiner;
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.Attributes;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.table.AttributeFactory;
+import com.rapidminer.example.table.DoubleArrayDataRow;
+import com.rapidminer.example.table.MemoryExampleTable;
+import com.rapidminer.operator.preprocessing.filter.RemoveDuplicates;
+import com.rapidminer.test.TestContext;
+import com.rapidminer.tools.OperatorService;
+import com.rapidminer.tools.Ontology;
+import com.rapidminer.tools.ParameterService;
+
+/**
+ * Compares the examples kept by {@link RemoveDuplicates} with the examples kept by the former
+ * comparison of hash buckets, for both handlings of missing values and both kept occurrences.
+ * The large example sets are processed in parallel partitions, which must keep the same
+ * examples as the sequential processing.
+ * 
+ * @author Sebastian Land
+ */
+public class RemoveDuplicatesTest {
+
+	private static final int NUMBER_OF_ATTRIBUTES = 3;
+
+	private String numberOfThreads;
+
+	@Before
+	public void setUp() throws Exception {
+		TestContext.get().initRapidMiner();
+		numberOfThreads = ParameterService.getParameterValue(RapidMiner.PROPERTY_RAPIDMINER_GENERAL_NUMBER_OF_THREADS);
+	}
+
+	@After
+	public void tearDown() {
+		ParameterService.setParameterValue(RapidMiner.PROPERTY_RAPIDMINER_GENERAL_NUMBER_OF_THREADS, numberOfThreads);
+	}
+
+	@Test
+	public void testEqualsBucketComparison() throws Exception {
+		ParameterService.setParameterValue(RapidMiner.PROPERTY_RAPIDMINER_GENERAL_NUMBER_OF_THREADS, "1");
+		Random random = new Random(1);
+		for (int size : new int[] { 0, 1, 2, 10, 1000, 20000 }) {
+			double[][] values = createValues(size, 8, random);
+			ExampleSet exampleSet = createExampleSet(values);
+			for (boolean missingsEqual : new boolean[] { false, true }) {
+				for (boolean keepLast : new boolean[] { false, true }) {
+					String message = "size " + size + ", missings equal " + missingsEqual + ", keep last " + keepLast;
+					assertArrayEquals(message, findDistinctExamples(values, missingsEqual, keepLast), getKeptExamples(exampleSet, missingsEqual, keepLast));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testParallelEqualsSequential() throws Exception {
+		double[][] values = createValues(250000, 60, new Random(2));
+		ExampleSet exampleSet = createExampleSet(values);
+		for (boolean missingsEqual : new boolean[] { false, true }) {
+			for (boolean keepLast : new boolean[] { false, true }) {
+				String message = "missings equal " + missingsEqual + ", keep last " + keepLast;
+				ParameterService.setParameterValue(RapidMiner.PROPERTY_RAPIDMINER_GENERAL_NUMBER_OF_THREADS, "1");
+				int[] expected = getKeptExamples(exampleSet, missingsEqual, keepLast);
+				ParameterService.setParameterValue(RapidMiner.PROPERTY_RAPIDMINER_GENERAL_NUMBER_OF_THREADS, "4");
+				int[] actual = getKeptExamples(exampleSet, missingsEqual, keepLast);
+				assertTrue(message, expected.length < values[0].length);
+				assertArrayEquals(message, expected, actual);
+				assertArrayEquals(message, findDistinctExamples(values, missingsEqual, keepLast), actual);
+			}
+		}
+	}
+
+	/** Returns the ids of the examples kept by the operator. */
+	private static int[] getKeptExamples(ExampleSet exampleSet, boolean missingsEqual, boolean keepLast) throws Exception {
+		RemoveDuplicates removeDuplicates = OperatorService.createOperator(RemoveDuplicates.class);
+		removeDuplicates.setParameter("treat_missing_values_as_duplicates", Boolean.toString(missingsEqual));
+		removeDuplicates.setParameter("keep_occurrence", keepLast ? "last" : "first");
+		ExampleSet result = removeDuplicates.apply((ExampleSet) exampleSet.clone());
+		Attribute id = result.getAttributes().getId();
+		int[] keptExamples = new int[result.size()];
+		for (int i = 0; i < result.size(); i++) {
+			keptExamples[i] = (int) result.getExample(i).getValue(id);
+		}
+		return keptExamples;
+	}
+
+	/**
+	 * Returns the ascending indices of the kept examples as found by the former comparison with all
+	 * examples in the hash bucket. The last occurrences are found by traversing the examples backwards.
+	 */
+	private static int[] findDistinctExamples(double[][] values, boolean missingsEqual, boolean keepLast) {
+		int size = values[0].length;
+		HashMap<Integer, List<Integer>> buckets = new HashMap<Integer, List<Integer>>();
+		List<Integer> keptExamples = new ArrayList<Integer>();
+		for (int n = 0; n < size; n++) {
+			int i = keepLast ? size - 1 - n : n;
+			int hash = 0;
+			for (double[] column : values) {
+				long bits = Double.doubleToLongBits(column[i]);
+				hash = hash * 31 + (int) (bits ^ (bits >>> 32));
+			}
+			List<Integer> bucket = buckets.get(hash);
+			if (bucket == null) {
+				bucket = new ArrayList<Integer>();
+				buckets.put(hash, bucket);
+			}
+			boolean duplicate = false;
+			for (int exampleIndex : bucket) {
+				boolean equal = true;
+				for (double[] column : values) {
+					if (missingsEqual && Double.isNaN(column[i]) && Double.isNaN(column[exampleIndex]))
+						continue;
+					if (column[i] != column[exampleIndex]) {
+						equal = false;
+						break;
+					}
+				}
+				if (equal) {
+					duplicate = true;
+					break;
+				}
+			}
+			if (!duplicate) {
+				bucket.add(i);
+				keptExamples.add(i);
+			}
+		}
+		Collections.sort(keptExamples);
+		int[] result = new int[keptExamples.size()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = keptExamples.get(i);
+		}
+		return result;
+	}
+
+	/** Creates columns of small integer values, one of twenty values is missing. */
+	private static double[][] createValues(int size, int numberOfValues, Random random) {
+		double[][] values = new double[NUMBER_OF_ATTRIBUTES][size];
+		for (int i = 0; i < size; i++) {
+			for (int j = 0; j < NUMBER_OF_ATTRIBUTES; j++) {
+				values[j][i] = random.nextInt(20) == 0 ? Double.NaN : random.nextInt(numberOfValues);
+			}
+		}
+		return values;
+	}
+
+	/** Creates an example set of the given columns and a special id attribute containing the example index. */
+	private static ExampleSet createExampleSet(double[][] values) {
+		List<Attribute> attributes = new ArrayList<Attribute>();
+		for (int j = 0; j < values.length; j++) {
+			attributes.add(AttributeFactory.createAttribute("att" + (j + 1), Ontology.REAL));
+		}
+		Attribute id = AttributeFactory.createAttribute("id", Ontology.INTEGER);
+		attributes.add(id);
+		MemoryExampleTable table = new MemoryExampleTable(attributes);
+		int size = values[0].length;
+		for (int i = 0; i < size; i++) {
+			double[] data = new double[values.length + 1];
+			for (int j = 0; j < values.length; j++) {
+				data[j] = values[j][i];
+			}
+			data[values.length] = i;
+			table.addDataRow(new DoubleArrayDataRow(data));
+		}
+		ExampleSet exampleSet = table.createExampleSet();
+		exampleSet.getAttributes().setSpecialAttribute(id, Attributes.ID_NAME);
+		return exampleSet;
+	}
+}
@@ -0,0 +1,298 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2011 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.operator.preprocessing.join.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.Example;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.table.AttributeFactory;
+import com.rapidminer.example.table.DoubleArrayDataRow;
+import com.rapidminer.example.table.MemoryExampleTable;
+import com.rapidminer.operator.preprocessing.join.ExampleSetJoin;
+import com.rapidminer.operator.preprocessing.join.JoinKeys;
+import com.rapidminer.test.TestContext;
+import com.rapidminer.tools.OperatorService;
+import com.rapidminer.tools.Ontology;
+import com.rapidminer.tools.container.Pair;
+
+/**
+ * Compares the results of the {@link ExampleSetJoin} for all join types with a nested loop
+ * join. The key attributes contain missing values, which match each other unless the id
+ * attributes are used as keys. Both the hash join and the sort-merge join are tested.
+ * 
+ * @author Marius Helf
+ */
+public class ExampleSetJoinTest {
+
+	@Before
+	public void setUp() throws Exception {
+		TestContext.get().initRapidMiner();
+	}
+
+	@Test
+	public void testHashJoinIndexingRightExampleSet() throws Exception {
+		for (int joinType = 0; joinType < ExampleSetJoin.JOIN_TYPES.length; joinType++) {
+			checkJoin(createExampleSet("left", 80, false, false, new Random(joinType)), createExampleSet("right", 30, true, false, new Random(10 + joinType)), joinType, false, false);
+		}
+	}
+
+	@Test
+	public void testHashJoinIndexingLeftExampleSet() throws Exception {
+		for (int joinType = 0; joinType < ExampleSetJoin.JOIN_TYPES.length; joinType++) {
+			checkJoin(createExampleSet("left", 30, false, false, new Random(joinType)), createExampleSet("right", 80, true, false, new Random(10 + joinType)), joinType, false, false);
+		}
+	}
+
+	@Test
+	public void testIdJoin() throws Exception {
+		for (int joinType = 0; joinType < ExampleSetJoin.JOIN_TYPES.length; joinType++) {
+			checkJoin(createExampleSet("left", 50, false, false, new Random(joinType)), createExampleSet("right", 40, true, false, new Random(10 + joinType)), joinType, true, false);
+		}
+	}
+
+	@Test
+	public void testMergeJoin() throws Exception {
+		for (int joinType = 0; joinType < ExampleSetJoin.JOIN_TYPES.length; joinType++) {
+			ExampleSet left = createExampleSet("left", 60, false, true, new Random(joinType));
+			ExampleSet right = createExampleSet("right", 40, true, true, new Random(10 + joinType));
+			Pair<JoinKeys, JoinKeys> keys = JoinKeys.create(left, getKeyAttributes(left), right, getKeyAttributes(right));
+			assertTrue(keys.getFirst().isSorted());
+			assertTrue(keys.getSecond().isSorted());
+			checkJoin(left, right, joinType, false, true);
+		}
+	}
+
+	@Test
+	public void testEmptyExampleSets() throws Exception {
+		for (int joinType = 0; joinType < ExampleSetJoin.JOIN_TYPES.length; joinType++) {
+			checkJoin(createExampleSet("left", 0, false, false, new Random(joinType)), createExampleSet("right", 20, true, false, new Random(joinType)), joinType, false, false);
+			checkJoin(createExampleSet("left", 20, false, false, new Random(joinType)), createExampleSet("right", 0, true, false, new Random(joinType)), joinType, false, false);
+		}
+	}
+
+	@Test
+	public void testJoinKeys() {
+		ExampleSet left = createExampleSet("left", 30, false, false, new Random(1));
+		ExampleSet right = createExampleSet("right", 30, true, false, new Random(2));
+		Pair<JoinKeys, JoinKeys> keys = JoinKeys.create(left, getKeyAttributes(left), right, getKeyAttributes(right));
+		assertEquals(left.size(), keys.getFirst().size());
+		assertEquals(right.size(), keys.getSecond().size());
+		for (int leftRow = 0; leftRow < left.size(); leftRow++) {
+			Example leftExample = left.getExample(leftRow);
+			assertEquals(Double.isNaN(leftExample.getValue(left.getAttributes().get("k1"))) || Double.isNaN(leftExample.getValue(left.getAttributes().get("k2"))), keys.getFirst().hasMissings(leftRow));
+			for (int rightRow = 0; rightRow < right.size(); rightRow++) {
+				boolean equal = keysMatch(leftExample, right.getExample(rightRow), false);
+				assertEquals(equal, keys.getFirst().equals(leftRow, keys.getSecond(), rightRow));
+				assertEquals(equal, keys.getFirst().compare(leftRow, keys.getSecond(), rightRow) == 0);
+				if (equal) {
+					assertEquals(keys.getFirst().hashCode(leftRow), keys.getSecond().hashCode(rightRow));
+				}
+			}
+		}
+		assertFalse(keys.getFirst().isSorted());
+	}
+
+	/**
+	 * Creates an example set with a nominal and an integer key attribute, both containing
+	 * missing values, a nominal id and a value attribute named like the given side. The
+	 * nominal mapping of the right example set is in reversed order.
+	 */
+	private static ExampleSet createExampleSet(String side, int size, boolean reverseMapping, boolean sorted, Random random) {
+		Attribute k1 = AttributeFactory.createAttribute("k1", Ontology.NOMINAL);
+		Attribute k2 = AttributeFactory.createAttribute("k2", Ontology.INTEGER);
+		Attribute id = AttributeFactory.createAttribute("id", Ontology.NOMINAL);
+		Attribute value = AttributeFactory.createAttribute(side, Ontology.REAL);
+		if (reverseMapping) {
+			for (int i = 5; i >= 0; i--) {
+				k1.getMapping().mapString("v" + i);
+			}
+		}
+		List<double[]> rows = new ArrayList<double[]>(size);
+		for (int i = 0; i < size; i++) {
+			double[] row = new double[4];
+			row[0] = random.nextInt(8) == 0 ? Double.NaN : k1.getMapping().mapString("v" + random.nextInt(reverseMapping ? 6 : 4));
+			row[1] = random.nextInt(8) == 0 ? Double.NaN : random.nextInt(3);
+			row[2] = random.nextInt(8) == 0 ? Double.NaN : id.getMapping().mapString("id" + random.nextInt(size));
+			row[3] = i;
+			rows.add(row);
+		}
+		if (sorted) {
+			// sorted like the Sort operator sorts nominal values, missing numbers are the greatest
+			final Attribute nominalKey = k1;
+			Collections.sort(rows, new Comparator<double[]>() {
+				public int compare(double[] row1, double[] row2) {
+					String string1 = Double.isNaN(row1[0]) ? Attribute.MISSING_NOMINAL_VALUE : nominalKey.getMapping().mapIndex((int) row1[0]);
+					String string2 = Double.isNaN(row2[0]) ? Attribute.MISSING_NOMINAL_VALUE : nominalKey.getMapping().mapIndex((int) row2[0]);
+					int result = string1.compareTo(string2);
+					return result != 0 ? result : Double.compare(row1[1], row2[1]);
+				}
+			});
+		}
+		MemoryExampleTable table = new MemoryExampleTable(k1, k2, id, value);
+		for (double[] row : rows) {
+			table.addDataRow(new DoubleArrayDataRow(row));
+		}
+		return table.createExampleSet();
+	}
+
+	private static Attribute[] getKeyAttributes(ExampleSet exampleSet) {
+		return new Attribute[] { exampleSet.getAttributes().get("k1"), exampleSet.getAttributes().get("k2") };
+	}
+
+	private static void checkJoin(ExampleSet left, ExampleSet right, int joinType, boolean useId, boolean sortedByKeys) throws Exception {
+		if (useId) {
+			left.getAttributes().setId(left.getAttributes().get("id"));
+			right.getAttributes().setId(right.getAttributes().get("id"));
+		}
+		ExampleSetJoin join = OperatorService.createOperator(ExampleSetJoin.class);
+		join.setParameter(ExampleSetJoin.PARAMETER_JOIN_TYPE, String.valueOf(joinType));
+		join.setParameter(ExampleSetJoin.PARAMETER_USE_ID, String.valueOf(useId));
+		join.setParameter(ExampleSetJoin.PARAMETER_SORTED_BY_KEYS, String.valueOf(sortedByKeys));
+		join.setParameter(ExampleSetJoin.PARAMETER_REMOVE_DOUBLE_ATTRIBUTES, "false");
+		List<String[]> keys = new ArrayList<String[]>();
+		keys.add(new String[] { "k1", "k1" });
+		keys.add(new String[] { "k2", "k2" });
+		join.setListParameter(ExampleSetJoin.PARAMETER_JOIN_ATTRIBUTES, keys);
+		join.getInputPorts().getPortByIndex(0).receive(left);
+		join.getInputPorts().getPortByIndex(1).receive(right);
+		join.doWork();
+		ExampleSet joined = (ExampleSet) join.getOutputPorts().getPortByIndex(0).getData();
+
+		String[] names = useId ? new String[] { "id", "k1", "k2", "left", "right" } : new String[] { "k1", "k2", "id", "left", "right", "id_from_ES2" };
+		List<List<String>> expected = joinByNestedLoops(left, right, joinType, useId);
+		String message = ExampleSetJoin.JOIN_TYPES[joinType] + " join of " + left.size() + " and " + right.size() + " examples";
+		assertEquals(message, expected.size(), joined.size());
+		int row = 0;
+		for (Example example : joined) {
+			List<String> values = new ArrayList<String>(names.length);
+			for (String name : names) {
+				values.add(example.getValueAsString(useId && name.equals("id") ? joined.getAttributes().getId() : joined.getAttributes().get(name)));
+			}
+			assertEquals(message + ", row " + row, expected.get(row), values);
+			row++;
+		}
+	}
+
+	/**
+	 * Joins the example sets by comparing all pairs of examples. The examples are ordered
+	 * like the left example set, or like the right example set for right joins. Unmatched
+	 * examples of the right example set are appended for outer joins.
+	 */
+	private static List<List<String>> joinByNestedLoops(ExampleSet left, ExampleSet right, int joinType, boolean useId) {
+		List<List<String>> rows = new ArrayList<List<String>>();
+		boolean[] rightMatched = new boolean[right.size()];
+		if (joinType == ExampleSetJoin.JOIN_TYPE_RIGHT) {
+			for (Example rightExample : right) {
+				boolean matched = false;
+				for (Example leftExample : left) {
+					if (keysMatch(leftExample, rightExample, useId)) {
+						rows.add(createRow(leftExample, rightExample, useId));
+						matched = true;
+					}
+				}
+				if (!matched) {
+					rows.add(createRow(null, rightExample, useId));
+				}
+			}
+		} else {
+			for (Example leftExample : left) {
+				boolean matched = false;
+				int rightRow = 0;
+				for (Example rightExample : right) {
+					if (keysMatch(leftExample, rightExample, useId)) {
+						rows.add(createRow(leftExample, rightExample, useId));
+						rightMatched[rightRow] = true;
+						matched = true;
+					}
+					rightRow++;
+				}
+				if (!matched && joinType != ExampleSetJoin.JOIN_TYPE_INNER) {
+					rows.add(createRow(leftExample, null, useId));
+				}
+			}
+			if (joinType == ExampleSetJoin.JOIN_TYPE_OUTER) {
+				for (int rightRow = 0; rightRow < right.size(); rightRow++) {
+					if (!rightMatched[rightRow]) {
+						rows.add(createRow(null, right.getExample(rightRow), useId));
+					}
+				}
+			}
+		}
+		return rows;
+	}
+
+	/** Returns true if the keys match. Missing ids never match, missing key values match each other. */
+	private static boolean keysMatch(Example leftExample, Example rightExample, boolean useId) {
+		if (useId) {
+			return !Double.isNaN(leftExample.getId()) && leftExample.getValueAsString(leftExample.getAttributes().getId()).equals(rightExample.getValueAsString(rightExample.getAttributes().getId()));
+		}
+		for (String key : Arrays.asList("k1", "k2")) {
+			if (!leftExample.getValueAsString(leftExample.getAttributes().get(key)).equals(rightExample.getValueAsString(rightExample.getAttributes().get(key)))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/** Returns the values of the joined example. The keys are taken from the right example if there is no left one. */
+	private static List<String> createRow(Example leftExample, Example rightExample, boolean useId) {
+		List<String> row = new ArrayList<String>();
+		Example keyExample = leftExample != null ? leftExample : rightExample;
+		if (useId) {
+			row.add(keyExample.getValueAsString(keyExample.getAttributes().getId()));
+			row.add(getValue(leftExample, "k1"));
+			row.add(getValue(leftExample, "k2"));
+		} else {
+			row.add(getValue(keyExample, "k1"));
+			row.add(getValue(keyExample, "k2"));
+			row.add(getValue(leftExample, "id"));
+		}
+		row.add(getValue(leftExample, "left"));
+		row.add(getValue(rightExample, "right"));
+		if (!useId) {
+			row.add(getValue(rightExample, "id"));
+		}
+		return row;
+	}
+
+	private static String getValue(Example example, String name) {
+		if (example == null) {
+			return Attribute.MISSING_NOMINAL_VALUE;
+		}
+		return example.getValueAsString(example.getAttributes().get(name));
+	}
+}
@@ -0,0 +1,196 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2011 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.operator.preprocessing.transformation.aggregation.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.rapidminer.RapidMiner;
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.Example;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.table.AttributeFactory;
+import com.rapidminer.example.table.DoubleArrayDataRow;
+import com.rapidminer.example.table.MemoryExampleTable;
+import com.rapidminer.operator.preprocessing.transformation.aggregation.AggregationOperator;
+import com.rapidminer.parameter.ParameterTypeList;
+import com.rapidminer.test.TestContext;
+import com.rapidminer.tools.OperatorService;
+import com.rapidminer.tools.Ontology;
+import com.rapidminer.tools.ParameterService;
+
+/**
+ * Compares the groups aggregated by hashing with the groups aggregated in the tree used for counting all
+ * combinations, which contains all combinations in this data. The example sets are large enough to be
+ * aggregated in several ranges, whose merged results must not depend on the number of threads.
+ * 
+ * @author Sebastian Land
+ */
+public class AggregationOperatorTest {
+
+	private static final String[] FUNCTIONS = { "sum", "average", "variance", "standard_deviation", "count", "count (ignoring missings)", "minimum", "maximum" };
+
+	private static final int NUMBER_OF_EXAMPLES = 120000;
+
+	private String numberOfThreads;
+
+	@Before
+	public void setUp() throws Exception {
+		TestContext.get().initRapidMiner();
+		numberOfThreads = ParameterService.getParameterValue(RapidMiner.PROPERTY_RAPIDMINER_GENERAL_NUMBER_OF_THREADS);
+	}
+
+	@After
+	public void tearDown() {
+		ParameterService.setParameterValue(RapidMiner.PROPERTY_RAPIDMINER_GENERAL_NUMBER_OF_THREADS, numberOfThreads);
+	}
+
+	@Test
+	public void testSortedGroupsEqualTree() throws Exception {
+		ExampleSet exampleSet = createExampleSet(NUMBER_OF_EXAMPLES, new Random(1));
+		ExampleSet expected = aggregate(exampleSet, true, true);
+		ExampleSet actual = aggregate(exampleSet, false, true);
+		assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertRows("group " + i, getRow(expected, expected.getExample(i)), getRow(actual, actual.getExample(i)), 1e-9);
+		}
+	}
+
+	@Test
+	public void testUnsortedGroupsEqualTree() throws Exception {
+		ExampleSet exampleSet = createExampleSet(NUMBER_OF_EXAMPLES, new Random(2));
+		Map<String, List<Object>> expected = getRowsByGroup(aggregate(exampleSet, true, false));
+		Map<String, List<Object>> actual = getRowsByGroup(aggregate(exampleSet, false, false));
+		assertEquals(expected.keySet(), actual.keySet());
+		for (String group : expected.keySet()) {
+			assertRows("group " + group, expected.get(group), actual.get(group), 1e-9);
+		}
+	}
+
+	@Test
+	public void testIndependentOfNumberOfThreads() throws Exception {
+		for (boolean sortGroups : new boolean[] { false, true }) {
+			ExampleSet exampleSet = createExampleSet(NUMBER_OF_EXAMPLES, new Random(3));
+			ParameterService.setParameterValue(RapidMiner.PROPERTY_RAPIDMINER_GENERAL_NUMBER_OF_THREADS, "1");
+			ExampleSet expected = aggregate(exampleSet, false, sortGroups);
+			ParameterService.setParameterValue(RapidMiner.PROPERTY_RAPIDMINER_GENERAL_NUMBER_OF_THREADS, "4");
+			ExampleSet actual = aggregate(exampleSet, false, sortGroups);
+			assertEquals(expected.size(), actual.size());
+			for (int i = 0; i < expected.size(); i++) {
+				assertRows("group " + i, getRow(expected, expected.getExample(i)), getRow(actual, actual.getExample(i)), 0);
+			}
+		}
+	}
+
+	private static ExampleSet aggregate(ExampleSet exampleSet, boolean allCombinations, boolean sortGroups) throws Exception {
+		AggregationOperator aggregation = OperatorService.createOperator(AggregationOperator.class);
+		List<String[]> functions = new ArrayList<String[]>();
+		for (String function : FUNCTIONS) {
+			functions.add(new String[] { "value", function });
+		}
+		aggregation.setParameter(AggregationOperator.PARAMETER_AGGREGATION_ATTRIBUTES, ParameterTypeList.transformList2String(functions));
+		aggregation.setParameter(AggregationOperator.PARAMETER_GROUP_BY_ATTRIBUTES, "letter|number|digit");
+		aggregation.setParameter(AggregationOperator.PARAMETER_ALL_COMBINATIONS, Boolean.toString(allCombinations));
+		aggregation.setParameter(AggregationOperator.PARAMETER_SORT_GROUPS, Boolean.toString(sortGroups));
+		return aggregation.apply((ExampleSet) exampleSet.clone());
+	}
+
+	private static void assertRows(String message, List<Object> expected, List<Object> actual, double delta) {
+		assertEquals(message, expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			if (expected.get(i) instanceof Double && actual.get(i) instanceof Double) {
+				double expectedValue = (Double) expected.get(i);
+				double actualValue = (Double) actual.get(i);
+				if (delta == 0 || Double.isNaN(expectedValue)) {
+					assertEquals(message, Double.doubleToLongBits(expectedValue), Double.doubleToLongBits(actualValue));
+				} else {
+					assertEquals(message, expectedValue, actualValue, delta * Math.max(1, Math.abs(expectedValue)));
+				}
+			} else {
+				assertEquals(message, expected.get(i), actual.get(i));
+			}
+		}
+	}
+
+	private static Map<String, List<Object>> getRowsByGroup(ExampleSet exampleSet) {
+		Map<String, List<Object>> rows = new TreeMap<String, List<Object>>();
+		for (Example example : exampleSet) {
+			List<Object> row = getRow(exampleSet, example);
+			rows.put(row.subList(0, 3).toString(), row);
+		}
+		return rows;
+	}
+
+	private static List<Object> getRow(ExampleSet exampleSet, Example example) {
+		List<Object> row = new ArrayList<Object>();
+		Iterator<Attribute> attributes = exampleSet.getAttributes().allAttributes();
+		while (attributes.hasNext()) {
+			Attribute attribute = attributes.next();
+			if (attribute.isNominal()) {
+				row.add(example.getValueAsString(attribute));
+			} else {
+				row.add(example.getValue(attribute));
+			}
+		}
+		return row;
+	}
+
+	/**
+	 * Creates two nominal and a numerical group attribute whose combinations all occur. The nominal values
+	 * are mapped in the order of their strings, which is the order of all combinations in the tree.
+	 */
+	private static ExampleSet createExampleSet(int size, Random random) {
+		Attribute letter = AttributeFactory.createAttribute("letter", Ontology.NOMINAL);
+		Attribute number = AttributeFactory.createAttribute("number", Ontology.NOMINAL);
+		Attribute digit = AttributeFactory.createAttribute("digit", Ontology.INTEGER);
+		Attribute value = AttributeFactory.createAttribute("value", Ontology.REAL);
+		String[] letters = { "a", "b", "c" };
+		String[] numbers = { "one", "three", "two" };
+		for (String letterValue : letters) {
+			letter.getMapping().mapString(letterValue);
+		}
+		for (String numberValue : numbers) {
+			number.getMapping().mapString(numberValue);
+		}
+		MemoryExampleTable table = new MemoryExampleTable(letter, number, digit, value);
+		for (int i = 0; i < size; i++) {
+			double[] data = new double[4];
+			data[0] = random.nextInt(letters.length);
+			data[1] = random.nextInt(numbers.length);
+			data[2] = random.nextInt(5) - 2;
+			data[3] = random.nextInt(20) == 0 ? Double.NaN : random.nextGaussian() * 100 + 1000;
+			table.addDataRow(new DoubleArrayDataRow(data));
+		}
+		return table.createExampleSet();
+	}
+}
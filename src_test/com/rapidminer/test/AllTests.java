@@ -5,9 +5,16 @@ import org.junit.runners.Suite;
 
 import com.rapidminer.example.test.ExampleTestSuite;
 import com.rapidminer.operator.annotation.test.PolynomialFunctionTest;
+import com.rapidminer.operator.clustering.test.AgglomerativeClusteringTest;
+import com.rapidminer.operator.clustering.test.DBScanTest;
 import com.rapidminer.operator.io.test.DatabaseWriteTest;
 import com.rapidminer.operator.learner.test.LearnerTestSuite;
+import com.rapidminer.operator.learner.test.ParallelPredictionTest;
+import com.rapidminer.operator.nio.test.ParallelCSVReaderTest;
 import com.rapidminer.operator.performance.test.PerformanceTestSuite;
+import com.rapidminer.operator.preprocessing.filter.test.RemoveDuplicatesTest;
+import com.rapidminer.operator.preprocessing.join.test.ExampleSetJoinTest;
+import com.rapidminer.operator.preprocessing.transformation.aggregation.test.AggregationOperatorTest;
 
 /**
  * 
@@ -22,8 +29,16 @@ import com.rapidminer.operator.performance.test.PerformanceTestSuite;
 	PerformanceTestSuite.class,
 
 	PolynomialFunctionTest.class,
+	AgglomerativeClusteringTest.class,
+	DBScanTest.class,
+	ParallelPredictionTest.class,
+	ParallelCSVReaderTest.class,
+	ExampleSetJoinTest.class,
+	AggregationOperatorTest.class,
+	RemoveDuplicatesTest.class,
 	
 	EscapeTest.class,
+	CompiledExpressionTest.class,
 	OperatorVersionTest.class,	
 	IterationArrayListTest.class,
 	MathUtilsTest.class,
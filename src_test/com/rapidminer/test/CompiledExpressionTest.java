@@ -0,0 +1,202 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2011 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.test;
+
+import static com.rapidminer.test.utils.RapidAssert.assertEqualsNaN;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.nfunk.jep.JEP;
+import org.nfunk.jep.ParseException;
+import org.nfunk.jep.type.Complex;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.Example;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.table.AttributeFactory;
+import com.rapidminer.example.table.DoubleArrayDataRow;
+import com.rapidminer.example.table.MemoryExampleTable;
+import com.rapidminer.tools.Ontology;
+import com.rapidminer.tools.math.function.CompiledExpression;
+import com.rapidminer.tools.math.function.ExpressionParser;
+import com.rapidminer.tools.math.function.UnknownValue;
+
+/**
+ * Tests that a {@link CompiledExpression} delivers the same results as evaluating the
+ * expression by {@link JEP#getValueAsObject()} after assigning the values of each example
+ * to the variables of the parser.
+ * 
+ * @author Ingo Mierswa
+ */
+public class CompiledExpressionTest {
+
+	private static final String[] NOMINAL_VALUES = { "a", "b", "zz" };
+
+	private ExampleSet exampleSet;
+
+	@Before
+	public void setUp() throws Exception {
+		TestContext.get().initRapidMiner();
+		Attribute n1 = AttributeFactory.createAttribute("n1", Ontology.REAL);
+		Attribute n2 = AttributeFactory.createAttribute("n2", Ontology.REAL);
+		Attribute i1 = AttributeFactory.createAttribute("i1", Ontology.INTEGER);
+		Attribute nom = AttributeFactory.createAttribute("nom", Ontology.NOMINAL);
+		Attribute nom2 = AttributeFactory.createAttribute("nom2", Ontology.NOMINAL);
+		Attribute d1 = AttributeFactory.createAttribute("d1", Ontology.DATE_TIME);
+		Attribute d2 = AttributeFactory.createAttribute("d2", Ontology.DATE_TIME);
+		MemoryExampleTable table = new MemoryExampleTable(n1, n2, i1, nom, nom2, d1, d2);
+		Random random = new Random(0);
+		for (int i = 0; i < 200; i++) {
+			double[] values = new double[7];
+			values[0] = random.nextInt(10) == 0 ? Double.NaN : random.nextGaussian() * 3;
+			values[1] = random.nextInt(10) == 0 ? Double.NaN : random.nextInt(5) - 2;
+			values[2] = random.nextInt(10) == 0 ? Double.NaN : random.nextInt(9) - 4;
+			values[3] = random.nextInt(5) == 0 ? Double.NaN : nom.getMapping().mapString(NOMINAL_VALUES[random.nextInt(NOMINAL_VALUES.length)]);
+			values[4] = random.nextInt(5) == 0 ? Double.NaN : nom2.getMapping().mapString(NOMINAL_VALUES[random.nextInt(NOMINAL_VALUES.length)]);
+			values[5] = random.nextInt(10) == 0 ? Double.NaN : 1.2e12 + random.nextInt(100000) * 60000.0;
+			values[6] = random.nextInt(10) == 0 ? Double.NaN : 1.2e12 + random.nextInt(100000) * 60000.0;
+			table.addDataRow(new DoubleArrayDataRow(values));
+		}
+		exampleSet = table.createExampleSet();
+	}
+
+	@Test
+	public void testArithmetic() throws Exception {
+		checkExpression("n1 + n2 * 3");
+		checkExpression("(n1 - n2) / i1");
+		checkExpression("n1 % 3 + -n2");
+		checkExpression("n1 ^ 2 + i1 ^ n2");
+		checkExpression("sqrt(abs(n1)) + sin(n2) - cos(i1) + tan(n1) + atan(n2)");
+		checkExpression("floor(n1) + ceil(n2) + exp(i1) / ln(abs(n2) + 1)");
+		checkExpression("min(n1, n2, i1) + max(n1, n2) + avg(n1, n2, i1)");
+	}
+
+	@Test
+	public void testComparisons() throws Exception {
+		checkExpression("n1 < n2");
+		checkExpression("n1 <= i1");
+		checkExpression("n1 > 0 && n2 != 0");
+		checkExpression("!(n1 == n2) || i1 >= 1");
+		checkExpression("missing(n1) || missing(nom)");
+	}
+
+	@Test
+	public void testIf() throws Exception {
+		checkExpression("if(n1 > 0, n2, i1)");
+		checkExpression("if(n1 > 0, n2, i1, -1)");
+		checkExpression("if(missing(n1), 0, n1 * 2)");
+		checkExpression("if(n1 > 0, \"positive\", nom)");
+		checkExpression("if(nom == \"a\", 1, 2)");
+	}
+
+	@Test
+	public void testNominalComparisons() throws Exception {
+		checkExpression("nom == \"a\"");
+		checkExpression("nom != \"b\"");
+		checkExpression("\"zz\" == nom");
+		checkExpression("\"a\" != nom");
+		checkExpression("nom == \"unknown\"");
+		checkExpression("nom != \"unknown\"");
+		checkExpression("nom == nom2");
+		checkExpression("nom != nom2");
+		checkExpression("concat(nom, nom2)");
+	}
+
+	@Test
+	public void testDateFunctions() throws Exception {
+		checkExpression("date_diff(d1, d2)");
+		checkExpression("date_before(d1, d2)");
+		checkExpression("date_after(d1, d2)");
+		checkExpression("date_add(d1, 3, DATE_UNIT_DAY)");
+		checkExpression("date_get(d1, DATE_UNIT_MONTH)");
+		checkExpression("date_str(d1, DATE_SHORT, DATE_SHOW_DATE_ONLY)");
+	}
+
+	/** Evaluates the expression for each example by the parser and by the compiled expression. */
+	private void checkExpression(String expression) throws Exception {
+		JEP parser = new ExpressionParser(true).getParser();
+		parser.setAllowUndeclared(true);
+		parser.parseExpression(expression);
+		assertFalse(parser.getErrorInfo(), parser.hasError());
+		Map<String, Attribute> name2attributes = ExpressionParser.deriveVariablesFromExampleSet(parser, exampleSet);
+		Attribute[] attributes = name2attributes.values().toArray(new Attribute[name2attributes.size()]);
+		CompiledExpression compiled = CompiledExpression.compile(parser, attributes);
+
+		int row = 0;
+		for (Example example : exampleSet) {
+			String message = expression + ", row " + row;
+			ExpressionParser.assignVariableValuesFromExample(parser, example, name2attributes);
+			Object expected = parser.getValueAsObject();
+
+			double[][] columns = new double[attributes.length][1];
+			for (int i = 0; i < attributes.length; i++) {
+				columns[i][0] = example.getValue(attributes[i]);
+			}
+			if (parser.hasError()) {
+				try {
+					compiled.getValue(columns, 0);
+					fail(message + ": expected error " + parser.getErrorInfo());
+				} catch (ParseException e) {
+					// both fail
+				}
+			} else if (compiled.isNumerical()) {
+				assertEqualsNaN(message, toDouble(expected), compiled.getDoubleValue(columns, 0));
+			} else {
+				Object actual = compiled.getValue(columns, 0);
+				if (expected instanceof String) {
+					assertEquals(message, expected, actual);
+				} else {
+					assertEqualsNaN(message, toDouble(expected), toDouble(actual));
+				}
+			}
+			row++;
+		}
+	}
+
+	/** Converts the result of an expression to the value which is stored in an example table. */
+	private static double toDouble(Object result) {
+		if (result instanceof Boolean) {
+			return (Boolean) result ? 1 : 0;
+		} else if (result instanceof Number) {
+			return ((Number) result).doubleValue();
+		} else if (result instanceof Complex) {
+			return ((Complex) result).doubleValue();
+		} else if (result instanceof Date) {
+			return ((Date) result).getTime();
+		} else if (result instanceof Calendar) {
+			return ((Calendar) result).getTimeInMillis();
+		} else if (result instanceof UnknownValue) {
+			return Double.NaN;
+		} else {
+			throw new IllegalArgumentException("Unexpected result: " + result);
+		}
+	}
+}